@@ -15,6 +15,8 @@
  */
 package mmarquee.automation;
 
+import com.sun.jna.Pointer;
+import com.sun.jna.platform.win32.OaIdl;
 import com.sun.jna.platform.win32.Variant;
 import com.sun.jna.platform.win32.WinDef;
 import com.sun.jna.ptr.IntByReference;
@@ -23,8 +25,12 @@ import mmarquee.automation.uiautomation.IUIAutomationElement3;
 import mmarquee.automation.uiautomation.IUIAutomationElementArray;
 import mmarquee.automation.uiautomation.OrientationType;
 import mmarquee.automation.uiautomation.TreeScope;
+import mmarquee.automation.utils.BSTRUtils;
 
+import java.io.Closeable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
 import java.util.List;
 
 /**
@@ -33,8 +39,16 @@ import java.util.List;
  * <p>
  * Wrapper for the underlying automation element.
  * </p>
+ * <p>
+ * The wrapper owns a reference to the element, which is released by close,
+ * or failing that once the wrapper has been garbage collected.
+ * </p>
+ * <p>
+ * Two wrappers are equal if they wrap the same element, i.e. their elements
+ * have the same runtime id, so elements can be used as keys in hash maps.
+ * </p>
  */
-public class AutomationElement extends BaseAutomation {
+public class AutomationElement extends BaseAutomation implements Closeable {
     /**
      * <p>
      * The underlying automation element.
@@ -42,22 +56,100 @@ public class AutomationElement extends BaseAutomation {
      */
     private IUIAutomationElement3 element;
 
+    /**
+     * The tracked reference to the element.
+     */
+    private ReferenceTracker.Handle handle;
+
+    /**
+     * Whether the wrapper has been closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * The search that found the element, and the element it was run from.
+     */
+    private Waiter.Search locator;
+    private AutomationElement searchRoot;
+
+    /**
+     * Recovers the element if it goes stale, once there is a locator.
+     */
+    private StaleElementRecovery.Retrying retrying;
+
+    /**
+     * The runtime id, once it has been fetched, which is kept when the
+     * element is replaced so that the wrapper's identity doesn't change.
+     */
+    private int[] runtimeId;
+
+    /**
+     * Whether the runtime id has been fetched (it may not have one).
+     */
+    private boolean runtimeIdFetched;
+
+    /**
+     * The runtime id that equals and hashCode use, or null if the element
+     * is only equal to itself.
+     */
+    private int[] identity;
+
+    /**
+     * Whether the identity has been settled, after which it never changes.
+     */
+    private boolean identitySettled;
+
+    /**
+     * The pattern availability bits, 0 until they have been fetched.
+     */
+    private int patternAvailability;
+
     /**
      * Gets the underlying automation element.
      *
      * @return IUIAutomationElement3 The automation element.
+     * @throws IllegalStateException The wrapper has been closed.
      */
     public final IUIAutomationElement3 getElement() {
-        return element;
+        return this.live();
+    }
+
+    /**
+     * Gets the underlying element to make a call on, the calls are never
+     * made once the reference to the element has been released.
+     *
+     * @return The underlying element.
+     * @throws IllegalStateException The wrapper has been closed.
+     */
+    private IUIAutomationElement3 live() {
+        if (this.closed) {
+            throw new IllegalStateException("The element has been closed");
+        }
+
+        return this.element;
     }
 
     /**
      * Sets the underlying automation element.
      *
      * @param inValue The new value.
+     * @throws IllegalStateException The wrapper has been closed.
      */
     public final void setElement(final IUIAutomationElement3 inValue) {
-        this.element = inValue;
+        this.live();
+
+        ReferenceTracker.close(this.handle);
+        this.handle = ReferenceTracker.track(this, inValue);
+
+        if (this.retrying != null) {
+            this.retrying.setTarget(inValue);
+        } else {
+            this.element = inValue;
+        }
+
+        synchronized (this) {
+            this.patternAvailability = 0;
+        }
     }
 
     /**
@@ -67,6 +159,256 @@ public class AutomationElement extends BaseAutomation {
      */
     public AutomationElement(final IUIAutomationElement3 inElement) {
         this.element = inElement;
+        this.handle = ReferenceTracker.track(this, inElement);
+    }
+
+    /**
+     * Releases the reference to the underlying element, the element cannot
+     * be used afterwards (calls throw an IllegalStateException). Calling
+     * close more than once has no effect.
+     */
+    public void close() {
+        this.closed = true;
+        ReferenceTracker.close(this.handle);
+        this.element = null;
+    }
+
+    /**
+     * Creates another wrapper for the same element, which holds its own
+     * reference, so that each of them can be closed on its own.
+     *
+     * @return The new wrapper.
+     * @throws IllegalStateException The wrapper has been closed.
+     */
+    public AutomationElement copy() {
+        IUIAutomationElement3 target = this.live();
+
+        if (this.retrying != null) {
+            target = this.retrying.getTarget();
+        }
+
+        target.AddRef();
+
+        AutomationElement copy = new AutomationElement(target);
+
+        synchronized (this) {
+            copy.runtimeId = this.runtimeId;
+            copy.runtimeIdFetched = this.runtimeIdFetched;
+            copy.patternAvailability = this.patternAvailability;
+
+            if (this.locator != null) {
+                copy.setLocator(this.searchRoot, this.locator);
+            }
+        }
+
+        return copy;
+    }
+
+    /**
+     * Whether the wrapper has been closed.
+     *
+     * @return True if the reference to the element has been released.
+     */
+    public boolean isClosed() {
+        return this.closed;
+    }
+
+    /**
+     * Records how the element was found, so that it can be found again if
+     * it goes stale (see {@link StaleElementRecovery}).
+     *
+     * @param root The element the search was run from.
+     * @param search The search, which is run again to find the element.
+     */
+    public synchronized void setLocator(final AutomationElement root, final Waiter.Search search) {
+        this.searchRoot = root;
+        this.locator = search;
+
+        if (this.retrying == null && this.element != null) {
+            this.retrying = StaleElementRecovery.retrying(this, this.element);
+            this.element = this.retrying;
+        }
+    }
+
+    /**
+     * Gets the element the search that found this element was run from.
+     *
+     * @return The element, or null if this element has no locator.
+     */
+    public AutomationElement getSearchRoot() {
+        return this.searchRoot;
+    }
+
+    /**
+     * Gets the runtime ids of the elements that the searches to find this
+     * element were run from, starting with the outermost.
+     *
+     * @return The runtime ids, an entry is null if it could not be fetched.
+     */
+    public List<int[]> getLocatorPath() {
+        LinkedList<int[]> path = new LinkedList<int[]>();
+
+        for (AutomationElement root = this.searchRoot; root != null; root = root.searchRoot) {
+            path.addFirst(root.runtimeIdOrNull());
+        }
+
+        return path;
+    }
+
+    /**
+     * Finds the element again, by running the search that found it, and
+     * replaces the underlying element with the one that is found.
+     *
+     * @return True if the element was found again.
+     */
+    public boolean recover() {
+        Waiter.Search search;
+
+        synchronized (this) {
+            search = this.locator;
+        }
+
+        if (search == null) {
+            return false;
+        }
+
+        AutomationElement found;
+
+        try {
+            found = search.find();
+        } catch (AutomationException ex) {
+            found = null;
+        }
+
+        if (found == null) {
+            StaleElementRecovery.failed();
+            return false;
+        }
+
+        // Take a reference of our own, as the found wrapper releases its one
+        IUIAutomationElement3 target = found.retrying != null ? found.retrying.getTarget() : found.element;
+        target.AddRef();
+        found.close();
+
+        this.setElement(target);
+
+        StaleElementRecovery.recovered();
+        return true;
+    }
+
+    /**
+     * Gets the runtime id of the element, which identifies it for as long
+     * as it is in the tree. The id is only fetched once, and is kept for the
+     * life of the wrapper, even if the element is found again by
+     * {@link #recover()}. Elements are compared by runtime id if it has
+     * been fetched before they are first compared or hashed.
+     *
+     * @return A copy of the runtime id, or null if the element doesn't have one.
+     * @throws AutomationException Call to Automation API failed.
+     */
+    public int[] getRuntimeId() throws AutomationException {
+        int[] id = this.fetchRuntimeId();
+        return id == null ? null : id.clone();
+    }
+
+    private synchronized int[] fetchRuntimeId() throws AutomationException {
+        if (!this.runtimeIdFetched) {
+            PointerByReference sa = new PointerByReference();
+
+            final int res = this.live().getRuntimeId(sa);
+            if (res != 0) {
+                throw new AutomationException(res);
+            }
+
+            this.runtimeId = readRuntimeId(sa.getValue(), true);
+            this.runtimeIdFetched = true;
+        }
+
+        return this.runtimeId;
+    }
+
+    /**
+     * Gets the runtime id, or null if it can't be fetched.
+     *
+     * @return The runtime id, or null.
+     */
+    private synchronized int[] runtimeIdOrNull() {
+        if (this.closed && !this.runtimeIdFetched) {
+            return null;
+        }
+
+        try {
+            return this.fetchRuntimeId();
+        } catch (AutomationException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Gets the runtime id for comparing elements, which is settled the
+     * first time it is needed and then kept for the life of the wrapper,
+     * so that the hash code never changes. No call is made to automation:
+     * if the runtime id hasn't been fetched by then (see getRuntimeId) the
+     * element is only ever equal to itself.
+     *
+     * @return The runtime id, or null.
+     */
+    private synchronized int[] identity() {
+        if (!this.identitySettled) {
+            this.identity = this.runtimeIdFetched ? this.runtimeId : null;
+            this.identitySettled = true;
+        }
+
+        return this.identity;
+    }
+
+    /**
+     * Reads the ints out of a runtime id SAFEARRAY.
+     *
+     * @param array The SAFEARRAY of ints, may be null.
+     * @param free Whether to free the array afterwards, i.e. whether it belongs to the caller.
+     * @return The runtime id, or null if there isn't one.
+     */
+    static int[] readRuntimeId(final Pointer array, final boolean free) {
+        if (array == null) {
+            return null;
+        }
+
+        OaIdl.SAFEARRAY safeArray = new OaIdl.SAFEARRAY(array);
+        try {
+            int count = safeArray.rgsabound[0].cElements.intValue();
+            return safeArray.pvData.getPointer().getIntArray(0, count);
+        } finally {
+            if (free) {
+                safeArray.destroy();
+            }
+        }
+    }
+
+    /**
+     * Whether the other object wraps the same element.
+     *
+     * @param other The other object.
+     * @return True if the elements have the same runtime id.
+     */
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+
+        if (!(other instanceof AutomationElement)) {
+            return false;
+        }
+
+        int[] id = this.identity();
+        return id != null && Arrays.equals(id, ((AutomationElement) other).identity());
+    }
+
+    @Override
+    public int hashCode() {
+        int[] id = this.identity();
+        return id == null ? System.identityHashCode(this) : Arrays.hashCode(id);
     }
 
     /**
@@ -80,7 +422,7 @@ public class AutomationElement extends BaseAutomation {
             throws AutomationException {
         Variant.VARIANT.ByReference value = new Variant.VARIANT.ByReference();
 
-        final int res = this.element.getCurrentPropertyValue(propertyId, value);
+        final int res = this.live().getCurrentPropertyValue(propertyId, value);
         if (res != 0) {
             throw new AutomationException(res);
         }
@@ -97,7 +439,7 @@ public class AutomationElement extends BaseAutomation {
     public int getControlType() throws AutomationException {
         IntByReference ibr = new IntByReference();
 
-        final int res = this.element.getCurrentControlType(ibr);
+        final int res = this.live().getCurrentControlType(ibr);
         if (res != 0) {
             throw new AutomationException(res);
         }
@@ -114,12 +456,12 @@ public class AutomationElement extends BaseAutomation {
     public String getClassName() throws AutomationException {
         PointerByReference sr = new PointerByReference();
 
-        final int res = this.element.getCurrentClassName(sr);
+        final int res = this.live().getCurrentClassName(sr);
         if (res != 0) {
             throw new AutomationException(res);
         }
 
-        return sr.getValue().getWideString(0);
+        return BSTRUtils.readAndFree(sr);
     }
 
     /**
@@ -131,12 +473,12 @@ public class AutomationElement extends BaseAutomation {
     public String getAutomationId() throws AutomationException {
         PointerByReference sr = new PointerByReference();
 
-        final int res = this.element.getCurrentAutomationId(sr);
+        final int res = this.live().getCurrentAutomationId(sr);
         if (res != 0) {
             throw new AutomationException(res);
         }
 
-        return sr.getValue().getWideString(0);
+        return BSTRUtils.readAndFree(sr);
     }
 
     /**
@@ -148,12 +490,12 @@ public class AutomationElement extends BaseAutomation {
     public String localizedControlType() throws AutomationException {
         PointerByReference sr = new PointerByReference();
 
-        final int res = this.element.getCurrentLocalizedControlType(sr);
+        final int res = this.live().getCurrentLocalizedControlType(sr);
         if (res != 0) {
             throw new AutomationException(res);
         }
 
-        return sr.getValue().getWideString(0);
+        return BSTRUtils.readAndFree(sr);
     }
 
     /**
@@ -165,7 +507,7 @@ public class AutomationElement extends BaseAutomation {
     public Boolean isPassword() throws AutomationException {
         IntByReference ibr = new IntByReference();
 
-        final int res = this.element.getCurrentIsPassword(ibr);
+        final int res = this.live().getCurrentIsPassword(ibr);
         if (res != 0) {
             throw new AutomationException(res);
         }
@@ -181,7 +523,7 @@ public class AutomationElement extends BaseAutomation {
     public WinDef.BOOL offScreen() throws AutomationException {
         WinDef.BOOLByReference bbr = new WinDef.BOOLByReference();
 
-        final int res = this.element.getCurrentIsOffscreen(bbr);
+        final int res = this.live().getCurrentIsOffscreen(bbr);
         if (res != 0) {
             throw new AutomationException(res);
         }
@@ -197,7 +539,7 @@ public class AutomationElement extends BaseAutomation {
     public WinDef.BOOL isContentElement() throws AutomationException {
         WinDef.BOOLByReference bbr = new WinDef.BOOLByReference();
 
-        final int res = this.element.getCurrentIsContentElement(bbr);
+        final int res = this.live().getCurrentIsContentElement(bbr);
         if (res != 0) {
             throw new AutomationException(res);
         }
@@ -213,7 +555,7 @@ public class AutomationElement extends BaseAutomation {
     public WinDef.BOOL isControlElement() throws AutomationException {
         WinDef.BOOLByReference bbr = new WinDef.BOOLByReference();
 
-        final int res = this.element.getCurrentIsControlElement(bbr);
+        final int res = this.live().getCurrentIsControlElement(bbr);
         if (res != 0) {
             throw new AutomationException(res);
         }
@@ -229,7 +571,7 @@ public class AutomationElement extends BaseAutomation {
     public WinDef.BOOL isEnabled() throws AutomationException {
         WinDef.BOOLByReference bbr = new WinDef.BOOLByReference();
 
-        final int res = this.element.getCurrentIsEnabled(bbr);
+        final int res = this.live().getCurrentIsEnabled(bbr);
         if (res  != 0) {
             throw new AutomationException(res);
         }
@@ -256,16 +598,12 @@ public class AutomationElement extends BaseAutomation {
     protected String currentName() throws AutomationException {
         PointerByReference sr = new PointerByReference();
 
-        final int res = this.element.getCurrentName(sr);
+        final int res = this.live().getCurrentName(sr);
         if (res != 0) {
             throw new AutomationException(res);
         }
 
-        if (sr.getValue() == null) {
-            return "";
-        } else {
-            return sr.getValue().getWideString(0);
-        }
+        return BSTRUtils.readAndFree(sr);
     }
 
 //    /**
@@ -290,7 +628,42 @@ public class AutomationElement extends BaseAutomation {
             throws AutomationException {
         PointerByReference pbr = new PointerByReference();
 
-        this.element.findFirst(scope, pCondition.getValue(), pbr);
+        this.live().findFirst(scope, pCondition.getValue(), pbr);
+        ReferenceTracker.reachabilityFence(pCondition);
+
+        try {
+            IUIAutomationElement3 elem =
+                    getAutomationElementFromReference(pbr);
+            return new AutomationElement(elem);
+        } catch (NullPointerException npe) {
+            throw new ElementNotFoundException();
+        }
+    }
+
+    /**
+     * Finds the first element that matches the raw condition, fetching the
+     * properties and patterns of the cache request in the same call.
+     *
+     * @param scope Tree scope.
+     * @param pCondition The raw condition.
+     * @param cacheRequest The properties and patterns to cache.
+     * @return The first matching element, with its cached values populated.
+     * @throws ElementNotFoundException Nothing matched.
+     * @throws AutomationException Something has gone wrong.
+     */
+    public AutomationElement findFirst(final TreeScope scope,
+                                       final PointerByReference pCondition,
+                                       final CacheRequest cacheRequest)
+            throws AutomationException {
+        PointerByReference pbr = new PointerByReference();
+
+        final int res = this.live().findFirstBuildCache(scope, pCondition.getValue(),
+                cacheRequest.getPointer(), pbr);
+        ReferenceTracker.reachabilityFence(pCondition);
+        ReferenceTracker.reachabilityFence(cacheRequest);
+        if (res != 0) {
+            throw new AutomationException(res);
+        }
 
         try {
             IUIAutomationElement3 elem =
@@ -301,6 +674,55 @@ public class AutomationElement extends BaseAutomation {
         }
     }
 
+    /**
+     * Gets which patterns the element supports (see {@link PatternAvailability}).
+     * All of the Is...PatternAvailable properties are fetched in one call,
+     * the first time they are asked for.
+     *
+     * @param automation The automation instance, used to get the cache request.
+     * @return The bits, including {@link PatternAvailability#FETCHED}, or 0 if they couldn't be fetched.
+     * @throws AutomationException Call to Automation API failed.
+     */
+    public synchronized int getPatternAvailability(final UIAutomation automation)
+            throws AutomationException {
+        if (this.patternAvailability == 0) {
+            CacheRequest request = automation.getCacheRequest(PatternAvailability.PROPERTIES);
+            if (request == null) {
+                return 0;
+            }
+
+            AutomationElement cached = this.buildUpdatedCache(request);
+            try {
+                this.patternAvailability = PatternAvailability.read(cached) | PatternAvailability.FETCHED;
+            } finally {
+                cached.close();
+            }
+        }
+
+        return this.patternAvailability;
+    }
+
+    /**
+     * Gets a new element, with the cached values refreshed from the
+     * cache request.
+     *
+     * @param cacheRequest The properties and patterns to cache.
+     * @return The updated element.
+     * @throws AutomationException Call to Automation API failed.
+     */
+    public AutomationElement buildUpdatedCache(final CacheRequest cacheRequest)
+            throws AutomationException {
+        PointerByReference pbr = new PointerByReference();
+
+        final int res = this.live().buildUpdatedCache(cacheRequest.getPointer(), pbr);
+        ReferenceTracker.reachabilityFence(cacheRequest);
+        if (res != 0) {
+            throw new AutomationException(res);
+        }
+
+        return new AutomationElement(getAutomationElementFromReference(pbr));
+    }
+
     /**
      * Get the current pattern that matches the patternId.
      *
@@ -312,7 +734,7 @@ public class AutomationElement extends BaseAutomation {
             throws AutomationException {
         PointerByReference pbr = new PointerByReference();
 
-        final int res = this.element.getCurrentPattern(patternId, pbr);
+        final int res = this.live().getCurrentPattern(patternId, pbr);
         if (res != 0) {
             throw new AutomationException(res);
         }
@@ -324,7 +746,7 @@ public class AutomationElement extends BaseAutomation {
      * Sets focus to the element.
      */
     public void setFocus() {
-        this.element.setFocus();
+        this.live().setFocus();
     }
 
     /**
@@ -351,37 +773,139 @@ public class AutomationElement extends BaseAutomation {
     public List<AutomationElement> findAll(final TreeScope scope,
                                            final PointerByReference pCondition)
             throws AutomationException {
-        List<AutomationElement> items = new ArrayList<AutomationElement>();
-
         PointerByReference pAll = new PointerByReference();
 
         final int res =
-                this.element.findAll(scope, pCondition.getValue(), pAll);
+                this.live().findAll(scope, pCondition.getValue(), pAll);
+        ReferenceTracker.reachabilityFence(pCondition);
         if (res != 0) {
             throw new AutomationException(res);
         }
 
-        IUIAutomationElementArray collection =
-                getAutomationElementArrayFromReference(pAll);
+        return this.toElementList(pAll);
+    }
 
-        IntByReference ibr = new IntByReference();
+    /**
+     * Gets all of the elements that match the condition and scope, fetching
+     * the properties and patterns of the cache request in the same call.
+     *
+     * @param scope The scope in the element tree.
+     * @param pCondition The condition.
+     * @param cacheRequest The properties and patterns to cache.
+     * @return List of matching elements, with their cached values populated.
+     * @throws AutomationException Call to Automation API failed.
+     */
+    public List<AutomationElement> findAll(final TreeScope scope,
+                                           final PointerByReference pCondition,
+                                           final CacheRequest cacheRequest)
+            throws AutomationException {
+        PointerByReference pAll = new PointerByReference();
+
+        final int res = this.live().findAllBuildCache(scope,
+                pCondition.getValue(), cacheRequest.getPointer(), pAll);
+        ReferenceTracker.reachabilityFence(pCondition);
+        ReferenceTracker.reachabilityFence(cacheRequest);
+        if (res != 0) {
+            throw new AutomationException(res);
+        }
+
+        return this.toElementList(pAll);
+    }
 
-        collection.getLength(ibr);
+    /**
+     * Takes an immutable snapshot of this element and the part of the tree
+     * below it, which can then be queried without any further calls.
+     *
+     * @param scope Element, Children or Subtree.
+     * @param properties Any extra properties to capture, along with the
+     *                   control type, names, bounds and available patterns.
+     * @return The snapshot.
+     * @throws AutomationException Call to Automation API failed.
+     */
+    public AutomationSnapshot snapshot(final TreeScope scope,
+                                       final PropertyID... properties)
+            throws AutomationException {
+        return AutomationSnapshot.capture(UIAutomation.getInstance(), this, scope, properties);
+    }
 
-        int counter = ibr.getValue();
+    /**
+     * Iterates over the elements that match the condition and scope.
+     * <p>
+     * The search is made straight away, but each element is only created
+     * when the iterator gets to it, so stopping early (and closing the
+     * iterator) avoids the work for the elements that are not needed.
+     * </p>
+     * @param scope The scope in the element tree.
+     * @param pCondition The condition.
+     * @return Iterator over the matching elements.
+     * @throws AutomationException Call to Automation API failed.
+     */
+    public AutomationElementIterator iterator(final TreeScope scope,
+                                              final PointerByReference pCondition)
+            throws AutomationException {
+        PointerByReference pAll = new PointerByReference();
 
-        for (int a = 0; a < counter; a++) {
-            PointerByReference pbr = new PointerByReference();
+        final int res =
+                this.live().findAll(scope, pCondition.getValue(), pAll);
+        ReferenceTracker.reachabilityFence(pCondition);
+        if (res != 0) {
+            throw new AutomationException(res);
+        }
 
-            collection.getElement(a, pbr);
+        return new AutomationElementIterator(getAutomationElementArrayFromReference(pAll));
+    }
 
-            IUIAutomationElement3 elem =
-                    getAutomationElementFromReference(pbr);
+    /**
+     * Iterates over the elements that match the condition and scope,
+     * fetching the properties and patterns of the cache request in the same
+     * call.
+     *
+     * @param scope The scope in the element tree.
+     * @param pCondition The condition.
+     * @param cacheRequest The properties and patterns to cache.
+     * @return Iterator over the matching elements.
+     * @throws AutomationException Call to Automation API failed.
+     */
+    public AutomationElementIterator iterator(final TreeScope scope,
+                                              final PointerByReference pCondition,
+                                              final CacheRequest cacheRequest)
+            throws AutomationException {
+        PointerByReference pAll = new PointerByReference();
 
-            items.add(new AutomationElement(elem));
+        final int res = this.live().findAllBuildCache(scope,
+                pCondition.getValue(), cacheRequest.getPointer(), pAll);
+        ReferenceTracker.reachabilityFence(pCondition);
+        ReferenceTracker.reachabilityFence(cacheRequest);
+        if (res != 0) {
+            throw new AutomationException(res);
         }
 
-        return items;
+        return new AutomationElementIterator(getAutomationElementArrayFromReference(pAll));
+    }
+
+    /**
+     * Converts a raw element array into a list of elements.
+     *
+     * @param pAll The raw element array.
+     * @return List of elements.
+     * @throws AutomationException Call to Automation API failed.
+     */
+    private List<AutomationElement> toElementList(final PointerByReference pAll)
+            throws AutomationException {
+        AutomationElementIterator iterator =
+                new AutomationElementIterator(getAutomationElementArrayFromReference(pAll));
+
+        try {
+            List<AutomationElement> items = new ArrayList<AutomationElement>(iterator.size());
+
+            while (iterator.hasNext()) {
+                items.add(iterator.nextElement());
+            }
+
+            return items;
+        } finally {
+            iterator.close();
+        }
     }
 
     /**
@@ -393,12 +917,12 @@ public class AutomationElement extends BaseAutomation {
     public String getAriaRole() throws AutomationException {
         PointerByReference sr = new PointerByReference();
 
-        final int res = this.element.getCurrentAriaRole(sr);
+        final int res = this.live().getCurrentAriaRole(sr);
         if (res != 0) {
             throw new AutomationException(res);
         }
 
-        return sr.getValue().getWideString(0);
+        return BSTRUtils.readAndFree(sr);
     }
 
     /**
@@ -410,7 +934,7 @@ public class AutomationElement extends BaseAutomation {
     public OrientationType getOrientation() throws AutomationException {
         IntByReference ibr = new IntByReference();
 
-        final int res = this.element.getCurrentOrientation(ibr);
+        final int res = this.live().getCurrentOrientation(ibr);
         if (res != 0) {
             throw new AutomationException(res);
         }
@@ -427,7 +951,7 @@ public class AutomationElement extends BaseAutomation {
     public Integer getCulture() throws AutomationException {
         IntByReference ibr = new IntByReference();
 
-        final int res = this.element.getCurrentCulture(ibr);
+        final int res = this.live().getCurrentCulture(ibr);
 
         if (res != 0) {
             throw new AutomationException(res);
@@ -445,12 +969,12 @@ public class AutomationElement extends BaseAutomation {
     public String getFrameworkId() throws AutomationException {
         PointerByReference sr = new PointerByReference();
 
-        final int res = this.element.getCurrentFrameworkId(sr);
+        final int res = this.live().getCurrentFrameworkId(sr);
         if (res != 0) {
             throw new AutomationException(res);
         }
 
-        return sr.getValue().getWideString(0);
+        return BSTRUtils.readAndFree(sr);
     }
 
     /**
@@ -462,22 +986,14 @@ public class AutomationElement extends BaseAutomation {
     public String getProviderDescription() throws AutomationException {
         PointerByReference sr = new PointerByReference();
 
-        final int res = this.element.getCurrentProviderDescription(sr);
+        final int res = this.live().getCurrentProviderDescription(sr);
         if (res != 0) {
             throw new AutomationException(res);
         }
 
-        return sr.getValue().getWideString(0);
+        return BSTRUtils.readAndFree(sr);
     }
 
-//    /**
-//     * Get the runtime Id
-//     * @return The runtime ID
-//     */
-//    //   public int[] getRuntimeId() {
-//   //       return element.getRuntimeId();
-//    //   }
-
     /**
      * Gets the process ID.
      *
@@ -487,7 +1003,7 @@ public class AutomationElement extends BaseAutomation {
     public Integer getProcessId() throws AutomationException {
         IntByReference ibr = new IntByReference();
 
-        final int res = this.element.getCurrentProcessId(ibr);
+        final int res = this.live().getCurrentProcessId(ibr);
         if (res != 0) {
             throw new AutomationException(res);
         }
@@ -504,12 +1020,12 @@ public class AutomationElement extends BaseAutomation {
     public String getItemStatus() throws AutomationException {
         PointerByReference sr = new PointerByReference();
 
-        final int res = this.element.getCurrentItemStatus(sr);
+        final int res = this.live().getCurrentItemStatus(sr);
         if (res != 0) {
             throw new AutomationException(res);
         }
 
-        return sr.getValue().getWideString(0);
+        return BSTRUtils.readAndFree(sr);
     }
 
     /**
@@ -521,12 +1037,12 @@ public class AutomationElement extends BaseAutomation {
     public String getAcceleratorKey() throws AutomationException {
         PointerByReference sr = new PointerByReference();
 
-        final int res = this.element.getCurrentAcceleratorKey(sr);
+        final int res = this.live().getCurrentAcceleratorKey(sr);
         if (res != 0) {
             throw new AutomationException(res);
         }
 
-        return sr.getValue().getWideString(0);
+        return BSTRUtils.readAndFree(sr);
     }
 
     /**
@@ -540,7 +1056,7 @@ public class AutomationElement extends BaseAutomation {
 
         WinDef.BOOLByReference br = new WinDef.BOOLByReference();
 
-        final int res = this.element.getClickablePoint(pbr, br);
+        final int res = this.live().getClickablePoint(pbr, br);
         if (res != 0) {
             throw new AutomationException(res);
         }
@@ -557,7 +1073,130 @@ public class AutomationElement extends BaseAutomation {
     public WinDef.RECT getBoundingRectangle() throws AutomationException {
         WinDef.RECT rect = new WinDef.RECT();
 
-        final int res = this.element.getCurrentBoundingRectangle(rect);
+        final int res = this.live().getCurrentBoundingRectangle(rect);
+        if (res != 0) {
+            throw new AutomationException(res);
+        }
+
+        return rect;
+    }
+
+    /**
+     * Gets the cached property associated with the passed in id.
+     *
+     * @param propertyId The property ID to get.
+     * @return The cached property value.
+     * @throws AutomationException Call to Automation API failed.
+     */
+    public Object getCachedPropertyValue(final int propertyId)
+            throws AutomationException {
+        Variant.VARIANT.ByReference value = new Variant.VARIANT.ByReference();
+
+        final int res = this.live().getCachedPropertyValue(propertyId, value);
+        if (res != 0) {
+            throw new AutomationException(res);
+        }
+
+        return value.getValue();
+    }
+
+    /**
+     * Get the cached pattern that matches the patternId.
+     *
+     * @param patternId What pattern to get.
+     * @return The pattern.
+     * @throws AutomationException Call to Automation API failed.
+     */
+    public PointerByReference getCachedPattern(final int patternId)
+            throws AutomationException {
+        PointerByReference pbr = new PointerByReference();
+
+        final int res = this.live().getCachedPattern(patternId, pbr);
+        if (res != 0) {
+            throw new AutomationException(res);
+        }
+
+        return pbr;
+    }
+
+    /**
+     * Gets the cached control type.
+     *
+     * @return The cached control type.
+     * @throws AutomationException Call to Automation API failed.
+     */
+    public int getCachedControlType() throws AutomationException {
+        IntByReference ibr = new IntByReference();
+
+        final int res = this.live().getCachedControlType(ibr);
+        if (res != 0) {
+            throw new AutomationException(res);
+        }
+
+        return ibr.getValue();
+    }
+
+    /**
+     * Gets the cached name of the element.
+     *
+     * @return The cached name.
+     * @throws AutomationException Call to Automation API failed.
+     */
+    public String getCachedName() throws AutomationException {
+        PointerByReference sr = new PointerByReference();
+
+        final int res = this.live().getCachedName(sr);
+        if (res != 0) {
+            throw new AutomationException(res);
+        }
+
+        return BSTRUtils.readAndFree(sr);
+    }
+
+    /**
+     * Gets the cached class name of the element.
+     *
+     * @return The cached class name.
+     * @throws AutomationException Call to Automation API failed.
+     */
+    public String getCachedClassName() throws AutomationException {
+        PointerByReference sr = new PointerByReference();
+
+        final int res = this.live().getCachedClassName(sr);
+        if (res != 0) {
+            throw new AutomationException(res);
+        }
+
+        return BSTRUtils.readAndFree(sr);
+    }
+
+    /**
+     * Gets the cached automation id of the element.
+     *
+     * @return The cached automation id.
+     * @throws AutomationException Call to Automation API failed.
+     */
+    public String getCachedAutomationId() throws AutomationException {
+        PointerByReference sr = new PointerByReference();
+
+        final int res = this.live().getCachedAutomationId(sr);
+        if (res != 0) {
+            throw new AutomationException(res);
+        }
+
+        return BSTRUtils.readAndFree(sr);
+    }
+
+    /**
+     * Gets the cached bounding rectangle of the control.
+     *
+     * @return The cached bounding rectangle.
+     * @throws AutomationException Call to Automation API failed.
+     */
+    public WinDef.RECT getCachedBoundingRectangle() throws AutomationException {
+        WinDef.RECT rect = new WinDef.RECT();
+
+        final int res = this.live().getCachedBoundingRectangle(rect);
         if (res != 0) {
             throw new AutomationException(res);
         }
@@ -565,13 +1204,57 @@ public class AutomationElement extends BaseAutomation {
         return rect;
     }
 
+    /**
+     * Gets the cached parent of the element, the cache request must have
+     * included the parent in its scope.
+     *
+     * @return The cached parent, or null if there isn't one.
+     * @throws AutomationException Call to Automation API failed.
+     */
+    public AutomationElement getCachedParent() throws AutomationException {
+        PointerByReference pbr = new PointerByReference();
+
+        final int res = this.live().getCachedParent(pbr);
+        if (res != 0) {
+            throw new AutomationException(res);
+        }
+
+        if (pbr.getValue() == null) {
+            return null;
+        }
+
+        return new AutomationElement(getAutomationElementFromReference(pbr));
+    }
+
+    /**
+     * Gets the cached children of the element, the cache request must have
+     * included the children in its scope.
+     *
+     * @return The cached children.
+     * @throws AutomationException Call to Automation API failed.
+     */
+    public List<AutomationElement> getCachedChildren() throws AutomationException {
+        PointerByReference pAll = new PointerByReference();
+
+        final int res = this.live().getCachedChildren(pAll);
+        if (res != 0) {
+            throw new AutomationException(res);
+        }
+
+        if (pAll.getValue() == null) {
+            return new ArrayList<AutomationElement>();
+        }
+
+        return this.toElementList(pAll);
+    }
+
     /**
      * Shows the context menu for the element.
      *
      * @throws AutomationException Failed to get the correct interface.
      */
     public void showContextMenu() throws AutomationException {
-        final int res = this.element.showContextMenu();
+        final int res = this.live().showContextMenu();
         if (res != 0) {
             throw new AutomationException(res);
         }
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.PointerByReference;
+import mmarquee.automation.uiautomation.IUIAutomationElement3;
+import mmarquee.automation.uiautomation.IUIAutomationElementArray;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Iterates over the elements found by a search, creating each element only
+ * when it is asked for.
+ *
+ * The underlying array of elements is released once the last element has
+ * been returned, or when the iterator is closed, so stopping early (and
+ * closing) means the remaining elements are never fetched. Failures from
+ * the automation library are thrown by next as an IllegalStateException
+ * wrapping the AutomationException, use nextElement to get them directly.
+ */
+public class AutomationElementIterator extends BaseAutomation
+        implements Iterator<AutomationElement>, Closeable {
+
+    /**
+     * The underlying array, null once released.
+     */
+    private IUIAutomationElementArray collection;
+
+    /**
+     * The tracked reference to the array.
+     */
+    private ReferenceTracker.Handle handle;
+
+    /**
+     * The number of elements in the array.
+     */
+    private final int length;
+
+    /**
+     * The index of the next element.
+     */
+    private int position = 0;
+
+    /**
+     * Constructor for AutomationElementIterator.
+     *
+     * @param inCollection The array of elements, owned by the iterator.
+     * @throws AutomationException Call to Automation API failed.
+     */
+    public AutomationElementIterator(final IUIAutomationElementArray inCollection)
+            throws AutomationException {
+        this.collection = inCollection;
+        this.handle = ReferenceTracker.track(this, inCollection);
+
+        IntByReference ibr = new IntByReference();
+
+        final int res = inCollection.getLength(ibr);
+        if (res != 0) {
+            this.close();
+            throw new AutomationException(res);
+        }
+
+        this.length = ibr.getValue();
+
+        if (this.length == 0) {
+            this.close();
+        }
+    }
+
+    /**
+     * Gets the number of elements found.
+     *
+     * @return The number of elements, including those already returned.
+     */
+    public int size() {
+        return this.length;
+    }
+
+    /**
+     * Whether there are more elements.
+     *
+     * @return True if next will return another element.
+     */
+    public boolean hasNext() {
+        return this.collection != null && this.position < this.length;
+    }
+
+    /**
+     * Gets the next element.
+     *
+     * @return The next element.
+     * @throws NoSuchElementException There are no more elements.
+     * @throws IllegalStateException The automation library failed.
+     */
+    public AutomationElement next() {
+        try {
+            return this.nextElement();
+        } catch (AutomationException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Gets the next element, throwing any failure from automation.
+     *
+     * @return The next element.
+     * @throws NoSuchElementException There are no more elements.
+     * @throws AutomationException Call to Automation API failed.
+     */
+    public AutomationElement nextElement() throws AutomationException {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        PointerByReference pbr = new PointerByReference();
+
+        final int res = this.collection.getElement(this.position++, pbr);
+
+        if (this.position == this.length) {
+            this.close();
+        }
+
+        if (res != 0) {
+            throw new AutomationException(res);
+        }
+
+        IUIAutomationElement3 elem = this.getAutomationElementFromReference(pbr);
+
+        return new AutomationElement(elem);
+    }
+
+    /**
+     * Not supported, elements cannot be removed.
+     */
+    public void remove() {
+        throw new UnsupportedOperationException("remove");
+    }
+
+    /**
+     * Releases the underlying array, and with it the elements that have not
+     * been returned. Calling close more than once has no effect.
+     */
+    public void close() {
+        if (this.collection != null) {
+            this.collection = null;
+            ReferenceTracker.close(this.handle);
+        }
+    }
+}
@@ -15,26 +15,439 @@
  */
 package mmarquee.automation;
 
+import com.sun.jna.AltCallingConvention;
+import com.sun.jna.CallbackProxy;
+import com.sun.jna.CallbackReference;
+import com.sun.jna.Memory;
+import com.sun.jna.Platform;
+import com.sun.jna.Pointer;
+import com.sun.jna.platform.win32.COM.COMUtils;
+import com.sun.jna.platform.win32.COM.IUnknown;
+import com.sun.jna.platform.win32.Guid;
+import com.sun.jna.platform.win32.OaIdl;
+import com.sun.jna.platform.win32.Variant;
+import com.sun.jna.platform.win32.WinError;
+import com.sun.jna.platform.win32.WinNT;
+import com.sun.jna.ptr.PointerByReference;
+import mmarquee.automation.uiautomation.IUIAutomationElement3;
+import mmarquee.automation.uiautomation.IUIAutomationElement3Converter;
 import mmarquee.automation.uiautomation.IUIAutomationEventHandler;
+import mmarquee.automation.uiautomation.IUIAutomationPropertyChangedEventHandler;
+import mmarquee.automation.uiautomation.IUIAutomationStructureChangedEventHandler;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author Mark Humphreys
  * Date 05/02/2017.
  *
- * Wrapper for event handling.
+ * An IUIAutomationEventHandler (or IUIAutomationStructureChangedEventHandler,
+ * or IUIAutomationPropertyChangedEventHandler) implemented in Java, that can
+ * be passed to the automation library.
+ *
+ * The COM object is a block of native memory holding a pointer to a vtable
+ * of JNA callbacks (stdcall on Windows, so that they can also be called in
+ * tests elsewhere). Events are passed on to the listener via the event
+ * dispatcher, so the automation library is not held up by the listener.
  */
-public class AutomationEventHandler  {
+public class AutomationEventHandler extends BaseAutomation {
+
+    /**
+     * Handlers that the automation library holds a reference to, so that the
+     * native memory is not collected while it may still be called.
+     */
+    private static final Set<AutomationEventHandler> LIVE =
+            Collections.synchronizedSet(new HashSet<AutomationEventHandler>());
+
+    /**
+     * Whether the vtable methods have to use stdcall, as COM does on Windows.
+     */
+    private static final boolean STDCALL = Platform.isWindows();
+
+    /*
+     * The vtable methods.
+     */
+    private static final int QUERY_INTERFACE = 0;
+    private static final int ADD_REF = 1;
+    private static final int RELEASE = 2;
+    private static final int HANDLE_AUTOMATION_EVENT = 3;
+
+    /**
+     * The number of methods in the vtable.
+     */
+    private static final int METHODS = 4;
+
     /**
-     * Underlying raw event handler.
+     * The listener to pass events on to.
      */
-    private IUIAutomationEventHandler handler;
+    private final AutomationEventListener listener;
+
+    /**
+     * The dispatcher that delivers events to the listener.
+     */
+    private final EventDispatcher dispatcher;
+
+    /**
+     * The event this handles, which decides the handler interface.
+     */
+    private final EventID event;
+
+    /**
+     * The COM reference count.
+     */
+    private final AtomicInteger refCount = new AtomicInteger();
+
+    /**
+     * The vtable, which holds the callbacks below.
+     */
+    private final Memory vTable = new Memory(METHODS * Pointer.SIZE);
+
+    /**
+     * The COM object, which just points at the vtable.
+     */
+    private final Memory instance = new Memory(Pointer.SIZE);
+
+    /**
+     * The vtable methods, which have to be kept reachable for as long as the
+     * vtable is.
+     */
+    private final VTableMethod[] methods = new VTableMethod[METHODS];
+
+    /**
+     * A method in the vtable, called by the automation library.
+     */
+    private class VTableMethod implements CallbackProxy {
+        /**
+         * The index of the method in the vtable.
+         */
+        private final int index;
+
+        /**
+         * Constructor for the method.
+         *
+         * @param index The index in the vtable.
+         */
+        VTableMethod(final int index) {
+            this.index = index;
+        }
+
+        public Object callback(final Object[] args) {
+            switch (this.index) {
+                case QUERY_INTERFACE:
+                    return queryInterface((Pointer) args[1], (Pointer) args[2]);
+                case ADD_REF:
+                    return addRef();
+                case RELEASE:
+                    return release();
+                case HANDLE_AUTOMATION_EVENT:
+                    if (event == EventID.StructureChanged) {
+                        return handleStructureChangedEvent((Pointer) args[1], (Integer) args[2], (Pointer) args[3]);
+                    } else if (event == EventID.PropertyChanged) {
+                        return handlePropertyChangedEvent((Pointer) args[1], (Integer) args[2], args[3]);
+                    }
+                    return handleAutomationEvent((Pointer) args[1], (Integer) args[2]);
+                default:
+                    throw new IllegalStateException("No method " + this.index);
+            }
+        }
+
+        public Class<?>[] getParameterTypes() {
+            switch (this.index) {
+                case QUERY_INTERFACE:
+                    return new Class<?>[]{Pointer.class, Pointer.class, Pointer.class};
+                case ADD_REF:
+                case RELEASE:
+                    return new Class<?>[]{Pointer.class};
+                case HANDLE_AUTOMATION_EVENT:
+                    if (event == EventID.StructureChanged) {
+                        // Sender, change type and runtime id of the changed element
+                        return new Class<?>[]{Pointer.class, Pointer.class, int.class, Pointer.class};
+                    } else if (event == EventID.PropertyChanged) {
+                        // Sender, property id and the new value, which x64 passes as a pointer to a copy
+                        return new Class<?>[]{Pointer.class, Pointer.class, int.class,
+                                Platform.is64Bit() ? Pointer.class : Variant.VARIANT.ByValue.class};
+                    }
+                    return new Class<?>[]{Pointer.class, Pointer.class, int.class};
+                default:
+                    throw new IllegalStateException("No method " + this.index);
+            }
+        }
+
+        public Class<?> getReturnType() {
+            return int.class;
+        }
+    }
+
+    /**
+     * A vtable method using stdcall.
+     */
+    private final class StdCallVTableMethod extends VTableMethod implements AltCallingConvention {
+        StdCallVTableMethod(final int index) {
+            super(index);
+        }
+    }
+
+    /**
+     * Constructor for the AutomationEventHandler.
+     *
+     * @param listener The listener to pass events on to.
+     * @param dispatcher The dispatcher that delivers the events.
+     */
+    public AutomationEventHandler(final AutomationEventListener listener,
+                                  final EventDispatcher dispatcher) {
+        this(listener, dispatcher, false);
+    }
 
     /**
      * Constructor for the AutomationEventHandler.
-     * @param inHandler The raw event handler.
+     *
+     * @param listener The listener to pass events on to.
+     * @param dispatcher The dispatcher that delivers the events.
+     * @param structureChanged Whether this handles structure changed events,
+     *                         which have their own handler interface.
      */
-    public AutomationEventHandler(final IUIAutomationEventHandler inHandler) {
-        this.handler = inHandler;
+    public AutomationEventHandler(final AutomationEventListener listener,
+                                  final EventDispatcher dispatcher,
+                                  final boolean structureChanged) {
+        this(listener, dispatcher, structureChanged ? EventID.StructureChanged : null);
     }
 
+    /**
+     * Constructor for the AutomationEventHandler.
+     *
+     * @param listener The listener to pass events on to, a
+     *                 StructureChangedEventListener or PropertyChangedEventListener
+     *                 gets the details of those events.
+     * @param dispatcher The dispatcher that delivers the events.
+     * @param event The event, StructureChanged and PropertyChanged have their
+     *              own handler interfaces, any other event uses IUIAutomationEventHandler.
+     */
+    public AutomationEventHandler(final AutomationEventListener listener,
+                                  final EventDispatcher dispatcher,
+                                  final EventID event) {
+        this.listener = listener;
+        this.dispatcher = dispatcher;
+        this.event = event;
+
+        for (int index = 0; index < METHODS; index++) {
+            this.methods[index] = STDCALL ? new StdCallVTableMethod(index) : new VTableMethod(index);
+            this.vTable.setPointer(index * Pointer.SIZE, CallbackReference.getFunctionPointer(this.methods[index]));
+        }
+
+        this.instance.setPointer(0, this.vTable);
+    }
+
+    /**
+     * Gets the pointer to the COM object, to pass to the automation library.
+     *
+     * @return The pointer.
+     */
+    public Pointer getPointer() {
+        return this.instance;
+    }
+
+    /**
+     * Is this a structure changed event handler?
+     *
+     * @return True if it handles structure changed events.
+     */
+    public boolean isStructureChanged() {
+        return this.event == EventID.StructureChanged;
+    }
+
+    /**
+     * Is this a property changed event handler?
+     *
+     * @return True if it handles property changed events.
+     */
+    public boolean isPropertyChanged() {
+        return this.event == EventID.PropertyChanged;
+    }
+
+    /**
+     * Gets the COM reference count.
+     *
+     * @return The count.
+     */
+    public int getRefCount() {
+        return this.refCount.get();
+    }
+
+    /**
+     * Implements QueryInterface, only IUnknown and the handler interface are
+     * supported.
+     *
+     * @param riid The interface asked for.
+     * @param ppvObject Where to put the interface.
+     * @return The HRESULT.
+     */
+    int queryInterface(final Pointer riid, final Pointer ppvObject) {
+        if (ppvObject == null) {
+            return WinError.E_POINTER;
+        }
+
+        String iid = new Guid.GUID(riid).toGuidString();
+        Guid.IID handlerIID = IUIAutomationEventHandler.IID;
+        if (this.isStructureChanged()) {
+            handlerIID = IUIAutomationStructureChangedEventHandler.IID;
+        } else if (this.isPropertyChanged()) {
+            handlerIID = IUIAutomationPropertyChangedEventHandler.IID;
+        }
+
+        if (iid.equalsIgnoreCase(IUnknown.IID_IUNKNOWN.toGuidString())
+                || iid.equalsIgnoreCase(handlerIID.toGuidString())) {
+            ppvObject.setPointer(0, this.instance);
+            this.addRef();
+            return WinError.S_OK.intValue();
+        }
+
+        ppvObject.setPointer(0, Pointer.NULL);
+        return WinError.E_NOINTERFACE;
+    }
+
+    /**
+     * Implements AddRef.
+     *
+     * @return The new reference count.
+     */
+    int addRef() {
+        int count = this.refCount.incrementAndGet();
+
+        if (count == 1) {
+            LIVE.add(this);
+        }
+
+        return count;
+    }
+
+    /**
+     * Implements Release.
+     *
+     * @return The new reference count.
+     */
+    int release() {
+        int count = this.refCount.decrementAndGet();
+
+        if (count == 0) {
+            LIVE.remove(this);
+        }
+
+        return count;
+    }
+
+    /**
+     * Implements HandleAutomationEvent, by queueing the event for the
+     * listener.
+     *
+     * @param sender The element that raised the event, only valid during the call.
+     * @param eventId The event id.
+     * @return The HRESULT.
+     */
+    int handleAutomationEvent(final Pointer sender, final int eventId) {
+        AutomationElement element;
+
+        try {
+            element = this.getSender(sender);
+        } catch (AutomationException ex) {
+            return ex.getErrorcode();
+        }
+
+        this.dispatcher.dispatch(this.listener, element, EventID.fromValue(eventId));
+
+        return WinError.S_OK.intValue();
+    }
+
+    /**
+     * Implements HandleStructureChangedEvent, by queueing the event for the
+     * listener.
+     *
+     * @param sender The element that raised the event, only valid during the call.
+     * @param changeType The kind of change.
+     * @param runtimeId The runtime id of the element that changed, only valid during the call.
+     * @return The HRESULT.
+     */
+    int handleStructureChangedEvent(final Pointer sender, final int changeType, final Pointer runtimeId) {
+        if (!(this.listener instanceof StructureChangedEventListener)) {
+            return this.handleAutomationEvent(sender, EventID.StructureChanged.getValue());
+        }
+
+        AutomationElement element;
+
+        try {
+            element = this.getSender(sender);
+        } catch (AutomationException ex) {
+            return ex.getErrorcode();
+        }
+
+        // The runtime id array belongs to the automation library
+        this.dispatcher.dispatchStructureChanged((StructureChangedEventListener) this.listener,
+                element, StructureChangeType.fromValue(changeType),
+                AutomationElement.readRuntimeId(runtimeId, false));
+
+        return WinError.S_OK.intValue();
+    }
+
+    /**
+     * Implements HandlePropertyChangedEvent, by queueing the event for the
+     * listener.
+     *
+     * @param sender The element that raised the event, only valid during the call.
+     * @param propertyId The property that changed.
+     * @param newValue The new value (a VARIANT, or a pointer to one), only valid during the call.
+     * @return The HRESULT.
+     */
+    int handlePropertyChangedEvent(final Pointer sender, final int propertyId, final Object newValue) {
+        if (!(this.listener instanceof PropertyChangedEventListener)) {
+            return this.handleAutomationEvent(sender, EventID.PropertyChanged.getValue());
+        }
+
+        AutomationElement element;
+
+        try {
+            element = this.getSender(sender);
+        } catch (AutomationException ex) {
+            return ex.getErrorcode();
+        }
+
+        // The value belongs to the automation library, so it is copied now, arrays are not copied
+        Object value = null;
+        if (newValue instanceof Variant.VARIANT) {
+            value = ((Variant.VARIANT) newValue).getValue();
+        } else if (newValue instanceof Pointer) {
+            value = new Variant.VARIANT((Pointer) newValue).getValue();
+        }
+        value = value instanceof OaIdl.SAFEARRAY ? null : AutomationSnapshot.toJava(value);
+
+        this.dispatcher.dispatchPropertyChanged((PropertyChangedEventListener) this.listener,
+                element, propertyId, value);
+
+        return WinError.S_OK.intValue();
+    }
+
+    /**
+     * Gets an element for the sender of an event. The automation library
+     * keeps its own reference, so a new one is taken for the element.
+     *
+     * @param sender The element that raised the event.
+     * @return The element.
+     * @throws AutomationException The sender is not an element.
+     */
+    AutomationElement getSender(final Pointer sender) throws AutomationException {
+        if (sender == null) {
+            return null;
+        }
+
+        PointerByReference pElement = new PointerByReference();
+
+        WinNT.HRESULT result = this.makeUnknown(sender).QueryInterface(
+                new Guid.REFIID(IUIAutomationElement3.IID), pElement);
+        if (COMUtils.FAILED(result)) {
+            throw new AutomationException(result.intValue());
+        }
+
+        return new AutomationElement(IUIAutomationElement3Converter.PointerToInterface(pElement));
+    }
 }
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Receives automation events, see UIAutomation.addEventHandler.
+ *
+ * Events are delivered one at a time on the event dispatch thread, not on
+ * the thread that the automation library raised them on.
+ */
+public interface AutomationEventListener {
+    /**
+     * Handles an automation event.
+     *
+     * @param sender The element that raised the event, owned by the listener.
+     * @param eventId The event.
+     */
+    void handleEvent(AutomationElement sender, EventID eventId);
+}
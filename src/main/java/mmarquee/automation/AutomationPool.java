@@ -0,0 +1,333 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+import mmarquee.automation.utils.ComApartment;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * A number of worker threads, each of which has joined the multi-threaded
+ * COM apartment and has its own instance of the automation library, so
+ * that independent applications can be driven at the same time.
+ * <p>
+ * The elements and controls found through a worker's automation belong to
+ * that worker, and the calls on them should be made on the worker, using
+ * {@link Worker#execute(ComApartment.Call)}. On a worker's thread
+ * {@link UIAutomation#getInstance()} returns the worker's instance, so the
+ * controls created there use it too. Work for the same application (or
+ * window) can be kept on the same worker with {@link #workerFor(Object)}.
+ * </p>
+ */
+public final class AutomationPool implements Closeable {
+
+    private static final Logger logger = Logger.getLogger(AutomationPool.class.getName());
+
+    /**
+     * Creates the automation instance for a worker, on the worker's thread.
+     */
+    public interface Factory {
+        /**
+         * Creates the automation instance.
+         *
+         * @param apartment The worker's apartment.
+         * @return The automation instance.
+         * @throws AutomationException Automation library error.
+         */
+        UIAutomation create(ComApartment apartment) throws AutomationException;
+    }
+
+    /**
+     * Creates the automation library on the worker's thread.
+     */
+    private static final Factory DEFAULT_FACTORY = new Factory() {
+        public UIAutomation create(final ComApartment apartment) {
+            return new UIAutomation(apartment);
+        }
+    };
+
+    /**
+     * A worker thread and its automation instance.
+     */
+    public static final class Worker {
+        private final int index;
+        private final ComApartment apartment;
+        private final UIAutomation automation;
+
+        private Worker(final int inIndex,
+                       final ComApartment inApartment,
+                       final UIAutomation inAutomation) {
+            this.index = inIndex;
+            this.apartment = inApartment;
+            this.automation = inAutomation;
+        }
+
+        /**
+         * Gets the index of the worker in the pool.
+         *
+         * @return The index.
+         */
+        public int getIndex() {
+            return this.index;
+        }
+
+        /**
+         * Gets the worker's automation instance.
+         *
+         * @return The automation instance.
+         */
+        public UIAutomation getAutomation() {
+            return this.automation;
+        }
+
+        /**
+         * Gets the worker's apartment.
+         *
+         * @return The apartment.
+         */
+        public ComApartment getApartment() {
+            return this.apartment;
+        }
+
+        /**
+         * Makes the call on the worker's thread, and waits for the result.
+         *
+         * @param call The call.
+         * @param <T> The type of the result.
+         * @return The result.
+         * @throws ExecutionException The call threw a checked exception, which is the cause.
+         */
+        public <T> T execute(final ComApartment.Call<T> call) throws ExecutionException {
+            return this.apartment.execute(call);
+        }
+
+        /**
+         * Makes the calls on the worker's thread in one trip.
+         *
+         * @param calls The calls.
+         * @return The results, in the same order as the calls.
+         * @throws ExecutionException A call threw a checked exception, which is the cause.
+         */
+        public List<Object> submitAll(final List<? extends ComApartment.Call<?>> calls)
+                throws ExecutionException {
+            return this.apartment.submitAll(calls);
+        }
+    }
+
+    /**
+     * The workers.
+     */
+    private final List<Worker> workers;
+
+    /**
+     * The next worker handed out by next.
+     */
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * Constructor for AutomationPool, with one worker for each processor.
+     *
+     * @throws AutomationException A worker failed to create its automation instance.
+     */
+    public AutomationPool() throws AutomationException {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor for AutomationPool.
+     *
+     * @param size The number of workers.
+     * @throws AutomationException A worker failed to create its automation instance.
+     */
+    public AutomationPool(final int size) throws AutomationException {
+        this(size, DEFAULT_FACTORY);
+    }
+
+    /**
+     * Constructor for AutomationPool.
+     *
+     * @param size The number of workers.
+     * @param factory Creates the automation instance for each worker.
+     * @throws AutomationException A worker failed to create its automation instance.
+     */
+    public AutomationPool(final int size, final Factory factory) throws AutomationException {
+        if (size < 1) {
+            throw new IllegalArgumentException("The pool needs at least one worker");
+        }
+
+        List<Worker> created = new ArrayList<Worker>(size);
+
+        try {
+            for (int index = 0; index < size; index++) {
+                final ComApartment apartment = ComApartment.multiThreaded("automation-worker-" + index);
+
+                try {
+                    UIAutomation automation = apartment.execute(new ComApartment.Call<UIAutomation>() {
+                        public UIAutomation call() throws AutomationException {
+                            UIAutomation automation = factory.create(apartment);
+                            UIAutomation.setWorkerInstance(automation);
+                            return automation;
+                        }
+                    });
+
+                    created.add(new Worker(index, apartment, automation));
+                } catch (ExecutionException ex) {
+                    apartment.close();
+
+                    if (ex.getCause() instanceof AutomationException) {
+                        throw (AutomationException) ex.getCause();
+                    }
+                    throw new IllegalStateException(ex.getCause());
+                } catch (RuntimeException ex) {
+                    apartment.close();
+                    throw ex;
+                }
+            }
+        } catch (AutomationException ex) {
+            closeAfter(ex, created);
+            throw ex;
+        } catch (RuntimeException ex) {
+            closeAfter(ex, created);
+            throw ex;
+        }
+
+        this.workers = Collections.unmodifiableList(created);
+    }
+
+    /**
+     * Gets the number of workers.
+     *
+     * @return The number of workers.
+     */
+    public int getSize() {
+        return this.workers.size();
+    }
+
+    /**
+     * Gets a worker.
+     *
+     * @param index The index of the worker.
+     * @return The worker.
+     */
+    public Worker getWorker(final int index) {
+        return this.workers.get(index);
+    }
+
+    /**
+     * Gets the workers in turn.
+     *
+     * @return The next worker.
+     */
+    public Worker next() {
+        int index = this.next.getAndIncrement() & Integer.MAX_VALUE;
+        return this.workers.get(index % this.workers.size());
+    }
+
+    /**
+     * Gets the worker for a key (e.g. an application's process id or a
+     * window's name), which is always the same worker for the same key.
+     *
+     * @param key The key.
+     * @return The worker.
+     */
+    public Worker workerFor(final Object key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+
+        return this.workers.get((hash & Integer.MAX_VALUE) % this.workers.size());
+    }
+
+    /**
+     * Stops the worker threads, once the calls that have already been
+     * made have been run. Each worker's automation instance is released on
+     * the worker's thread first.
+     * <p>
+     * Every worker is stopped, even if releasing an automation instance
+     * fails, and the first failure is then thrown.
+     * </p>
+     */
+    public void close() {
+        RuntimeException failure = close(this.workers);
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Stops the workers that had been created when the constructor failed.
+     * The constructor's exception is the one that is thrown, so a failure
+     * here is only logged.
+     *
+     * @param original The exception the constructor is throwing.
+     * @param workers The workers.
+     */
+    private static void closeAfter(final Exception original, final List<Worker> workers) {
+        RuntimeException failure = close(workers);
+        if (failure != null) {
+            logger.warning("Failed to close a worker after " + original
+                    + " - " + failure);
+        }
+    }
+
+    /**
+     * Stops each of the workers.
+     *
+     * @param workers The workers.
+     * @return The first failure, or null if they all closed.
+     */
+    private static RuntimeException close(final List<Worker> workers) {
+        RuntimeException failure = null;
+
+        for (final Worker worker : workers) {
+            try {
+                worker.apartment.execute(new ComApartment.Call<Void>() {
+                    public Void call() {
+                        try {
+                            worker.automation.close();
+                        } finally {
+                            UIAutomation.setWorkerInstance(null);
+                        }
+                        return null;
+                    }
+                });
+            } catch (ExecutionException ex) {
+                if (failure == null) {
+                    failure = new IllegalStateException(ex.getCause());
+                }
+            } catch (RejectedExecutionException ex) {
+                // The pool has already been closed
+            } catch (RuntimeException ex) {
+                if (failure == null) {
+                    failure = ex;
+                }
+            } finally {
+                worker.apartment.close();
+            }
+        }
+
+        return failure;
+    }
+}
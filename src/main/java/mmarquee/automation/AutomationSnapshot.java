@@ -0,0 +1,1023 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.platform.win32.OaIdl;
+import com.sun.jna.platform.win32.WTypes;
+import com.sun.jna.platform.win32.WinDef;
+import mmarquee.automation.uiautomation.TreeScope;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * An immutable copy of part of the automation tree, taken in one call.
+ * <p>
+ * The nodes are held in document order, as fixed size records of control
+ * type, parent, bounds and the patterns that are available, with the names,
+ * class names and automation ids held as indexes into a table of the
+ * distinct strings. Node 0 is the element the snapshot was taken from. The
+ * queries are all answered from the records, without any calls to automation.
+ * </p>
+ * <p>
+ * Snapshots can be written to a file and loaded again (see {@link #write(File)}
+ * and {@link #load(File)}), so that locators can be tried out without the
+ * application being there.
+ * </p>
+ */
+public final class AutomationSnapshot {
+
+    /**
+     * The properties that are always captured.
+     */
+    private static final PropertyID[] COLUMNS = {
+            PropertyID.RuntimeId,
+            PropertyID.ControlType,
+            PropertyID.Name,
+            PropertyID.ClassName,
+            PropertyID.AutomationId,
+            PropertyID.BoundingRectangle
+    };
+
+    /*
+     * The fields of each node record.
+     */
+    static final int CONTROL_TYPE = 0;
+    static final int PARENT = 1;
+    static final int DEPTH = 2;
+    static final int END = 3;
+    static final int BOUNDS = 4;
+    static final int PATTERN_BITS = 8;
+    static final int NAME = 9;
+    static final int CLASS_NAME = 10;
+    static final int AUTOMATION_ID = 11;
+
+    /**
+     * The number of ints in each node record.
+     */
+    static final int RECORD_SIZE = 12;
+
+    private final int size;
+
+    /**
+     * The nodes, as fixed size records of ints.
+     */
+    private final IntBuffer records;
+
+    /**
+     * The runtime ids of all the nodes, one after the other, and where
+     * each node's id starts.
+     */
+    private final IntBuffer runtimeIds;
+    private final IntBuffer runtimeIdStart;
+
+    /**
+     * The distinct strings.
+     */
+    private final StringTable strings;
+
+    /**
+     * The extra properties, and their values for each node.
+     */
+    private final PropertyID[] properties;
+    private final ValueTable values;
+
+    /**
+     * Constructor for the AutomationSnapshot.
+     *
+     * @param inRecords The node records.
+     * @param inRuntimeIdStart Where each node's runtime id starts, with an extra entry for the end.
+     * @param inRuntimeIds The runtime ids.
+     * @param inStrings The string table.
+     * @param inProperties The extra properties.
+     * @param inValues The values of the extra properties.
+     */
+    AutomationSnapshot(final IntBuffer inRecords,
+                       final IntBuffer inRuntimeIdStart,
+                       final IntBuffer inRuntimeIds,
+                       final StringTable inStrings,
+                       final PropertyID[] inProperties,
+                       final ValueTable inValues) {
+        this.size = inRecords.limit() / RECORD_SIZE;
+        this.records = inRecords;
+        this.runtimeIdStart = inRuntimeIdStart;
+        this.runtimeIds = inRuntimeIds;
+        this.strings = inStrings;
+        this.properties = inProperties;
+        this.values = inValues;
+    }
+
+    /**
+     * Writes the snapshot to a file, in a compact binary form that can be
+     * loaded again without being parsed.
+     *
+     * @param file The file.
+     * @throws IOException The file could not be written.
+     */
+    public void write(final File file) throws IOException {
+        SnapshotFile.write(this, file);
+    }
+
+    /**
+     * Loads a snapshot written by {@link #write(File)}. The file is mapped
+     * into memory and the queries read it directly, so loading takes the
+     * same time however big the snapshot is. No automation is needed, so
+     * snapshots can be loaded on any platform.
+     *
+     * @param file The file.
+     * @return The snapshot.
+     * @throws IOException The file could not be read, or is not a snapshot.
+     */
+    public static AutomationSnapshot load(final File file) throws IOException {
+        return SnapshotFile.load(file);
+    }
+
+    /**
+     * Takes a snapshot of the element and the part of the tree below it.
+     * <p>
+     * The whole of the tree is fetched in one FindAllBuildCache call, with
+     * the scope of the cache set to cover the elements that are needed, and
+     * the structure is then read from the cached children.
+     * </p>
+     *
+     * @param automation The automation instance.
+     * @param root The element to take the snapshot of.
+     * @param scope Children or Descendants to include the tree below the element.
+     * @param properties Any extra properties to capture.
+     * @return The snapshot.
+     * @throws AutomationException Call to Automation API failed.
+     */
+    static AutomationSnapshot capture(final UIAutomation automation,
+                                      final AutomationElement root,
+                                      final TreeScope scope,
+                                      final PropertyID... properties)
+            throws AutomationException {
+        int below = scope.value & (TreeScope.Children | TreeScope.Descendants);
+
+        int maxDepth = 0;
+        if ((below & TreeScope.Descendants) != 0) {
+            maxDepth = Integer.MAX_VALUE;
+        } else if (below != 0) {
+            maxDepth = 1;
+        }
+
+        CacheRequest request = automation.createCacheRequest()
+                .addProperty(COLUMNS)
+                .addProperty(PatternAvailability.PROPERTIES)
+                .addProperty(properties)
+                .setTreeScope(new TreeScope(TreeScope.Element | below))
+                .setAutomationElementMode(CacheRequest.ELEMENT_MODE_NONE);
+
+        Conditions conditions = new Conditions();
+
+        try {
+            List<AutomationElement> found = root.findAll(new TreeScope(TreeScope.Element),
+                    conditions.add(automation.createTrueCondition()), request);
+
+            if (found.isEmpty()) {
+                throw new ElementNotFoundException();
+            }
+
+            return read(found.get(0), maxDepth, properties);
+        } finally {
+            conditions.close();
+            request.close();
+        }
+    }
+
+    /**
+     * Builds the snapshot from the cached values of an element and its
+     * cached children.
+     *
+     * @param root The cached element.
+     * @param maxDepth The deepest level to read.
+     * @param properties The extra properties.
+     * @return The snapshot.
+     * @throws AutomationException Call to Automation API failed.
+     */
+    static AutomationSnapshot read(final AutomationElement root,
+                                   final int maxDepth,
+                                   final PropertyID... properties)
+            throws AutomationException {
+        Builder builder = new Builder(properties);
+
+        LinkedList<AutomationElement> elements = new LinkedList<AutomationElement>();
+        LinkedList<Integer> parents = new LinkedList<Integer>();
+        LinkedList<Integer> depths = new LinkedList<Integer>();
+
+        elements.push(root);
+        parents.push(-1);
+        depths.push(0);
+
+        while (!elements.isEmpty()) {
+            AutomationElement element = elements.pop();
+            int elementParent = parents.pop();
+            int elementDepth = depths.pop();
+
+            try {
+                int patternBits = PatternAvailability.read(element);
+
+                Object[] extra = new Object[properties.length];
+                for (int column = 0; column < properties.length; column++) {
+                    extra[column] = toJava(element.getCachedPropertyValue(properties[column].getValue()));
+                }
+
+                int node = builder.add(elementParent,
+                        toRuntimeId(element.getCachedPropertyValue(PropertyID.RuntimeId.getValue())),
+                        element.getCachedControlType(),
+                        element.getCachedName(),
+                        element.getCachedClassName(),
+                        element.getCachedAutomationId(),
+                        element.getCachedBoundingRectangle(),
+                        patternBits,
+                        extra);
+
+                if (elementDepth < maxDepth) {
+                    List<AutomationElement> children = element.getCachedChildren();
+
+                    // Pushed in reverse, so that they come off in document order
+                    for (int index = children.size() - 1; index >= 0; index--) {
+                        elements.push(children.get(index));
+                        parents.push(node);
+                        depths.push(elementDepth + 1);
+                    }
+                }
+            } finally {
+                element.close();
+            }
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Converts a runtime id property value into the ints that make it up.
+     *
+     * @param value The value.
+     * @return The runtime id, or null if there isn't one.
+     */
+    static int[] toRuntimeId(final Object value) {
+        Object ids = toJava(value);
+        return ids instanceof int[] ? (int[]) ids : null;
+    }
+
+    /**
+     * Converts a property value from automation into a plain java value.
+     *
+     * @param value The value.
+     * @return The java value.
+     */
+    static Object toJava(final Object value) {
+        if (value instanceof WTypes.BSTR) {
+            return ((WTypes.BSTR) value).getValue();
+        } else if (value instanceof OaIdl.VARIANT_BOOL) {
+            return ((OaIdl.VARIANT_BOOL) value).booleanValue();
+        } else if (value instanceof WinDef.BOOL) {
+            return ((WinDef.BOOL) value).booleanValue();
+        } else if (value instanceof WinDef.LONG) {
+            return ((WinDef.LONG) value).intValue();
+        } else if (value instanceof OaIdl.SAFEARRAY) {
+            return toIntArray((OaIdl.SAFEARRAY) value);
+        } else {
+            return value;
+        }
+    }
+
+    /**
+     * Copies the ints out of an array returned by automation, and frees it.
+     *
+     * @param array The array.
+     * @return The ints.
+     */
+    private static int[] toIntArray(final OaIdl.SAFEARRAY array) {
+        try {
+            int count = array.getUBound(0) - array.getLBound(0) + 1;
+
+            Pointer data = array.accessData();
+            try {
+                return data.getIntArray(0, count);
+            } finally {
+                array.unaccessData();
+            }
+        } finally {
+            array.destroy();
+        }
+    }
+
+    /**
+     * Gets the number of nodes.
+     *
+     * @return The number of nodes.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets the control type of a node.
+     *
+     * @param node The node.
+     * @return The control type id.
+     */
+    public int getControlType(final int node) {
+        return this.field(node, CONTROL_TYPE);
+    }
+
+    /**
+     * Gets the parent of a node.
+     *
+     * @param node The node.
+     * @return The parent node, or -1 for the root.
+     */
+    public int getParent(final int node) {
+        return this.field(node, PARENT);
+    }
+
+    /**
+     * Gets the runtime id of a node.
+     *
+     * @param node The node.
+     * @return A copy of the runtime id, or null if there wasn't one.
+     */
+    public int[] getRuntimeId(final int node) {
+        int from = this.runtimeIdStart.get(node);
+        int to = this.runtimeIdStart.get(node + 1);
+
+        if (from == to) {
+            return null;
+        }
+
+        int[] id = new int[to - from];
+        for (int index = 0; index < id.length; index++) {
+            id[index] = this.runtimeIds.get(from + index);
+        }
+        return id;
+    }
+
+    /**
+     * Gets the depth of a node below the root.
+     *
+     * @param node The node.
+     * @return The depth, the root is at 0.
+     */
+    public int getDepth(final int node) {
+        return this.field(node, DEPTH);
+    }
+
+    /**
+     * Gets the node after the last descendant of a node, so the subtree
+     * of the node is every node from the node itself up to this one.
+     *
+     * @param node The node.
+     * @return The end of the subtree.
+     */
+    public int getSubtreeEnd(final int node) {
+        return this.field(node, END);
+    }
+
+    /**
+     * Gets the children of a node.
+     *
+     * @param node The node.
+     * @return The child nodes, in order.
+     */
+    public int[] getChildren(final int node) {
+        IntList result = new IntList();
+
+        int end = this.field(node, END);
+        for (int child = node + 1; child < end; child = this.field(child, END)) {
+            result.add(child);
+        }
+
+        return result.toArray();
+    }
+
+    /**
+     * Gets the name of a node.
+     *
+     * @param node The node.
+     * @return The name.
+     */
+    public String getName(final int node) {
+        return this.stringAt(this.field(node, NAME));
+    }
+
+    /**
+     * Gets the class name of a node.
+     *
+     * @param node The node.
+     * @return The class name.
+     */
+    public String getClassName(final int node) {
+        return this.stringAt(this.field(node, CLASS_NAME));
+    }
+
+    /**
+     * Gets the automation id of a node.
+     *
+     * @param node The node.
+     * @return The automation id.
+     */
+    public String getAutomationId(final int node) {
+        return this.stringAt(this.field(node, AUTOMATION_ID));
+    }
+
+    /**
+     * Gets the bounding rectangle of a node.
+     *
+     * @param node The node.
+     * @return A copy of the bounding rectangle.
+     */
+    public WinDef.RECT getBoundingRectangle(final int node) {
+        WinDef.RECT rect = new WinDef.RECT();
+        rect.left = this.field(node, BOUNDS);
+        rect.top = this.field(node, BOUNDS + 1);
+        rect.right = this.field(node, BOUNDS + 2);
+        rect.bottom = this.field(node, BOUNDS + 3);
+        return rect;
+    }
+
+    /**
+     * Whether a node has the same bounds as a node in another snapshot.
+     *
+     * @param node The node.
+     * @param other The other snapshot.
+     * @param otherNode The node in the other snapshot.
+     * @return True if the bounds are the same.
+     */
+    boolean sameBounds(final int node, final AutomationSnapshot other, final int otherNode) {
+        for (int edge = 0; edge < 4; edge++) {
+            if (this.field(node, BOUNDS + edge) != other.field(otherNode, BOUNDS + edge)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Whether the pattern was available for a node.
+     *
+     * @param node The node.
+     * @param pattern The pattern.
+     * @return True if the pattern was available, false if it wasn't (or isn't recorded).
+     */
+    public boolean isPatternAvailable(final int node, final PatternID pattern) {
+        int bit = PatternAvailability.bitOf(pattern);
+        return bit >= 0 && (this.field(node, PATTERN_BITS) & (1 << bit)) != 0;
+    }
+
+    /**
+     * Gets the value of one of the extra properties of a node.
+     *
+     * @param node The node.
+     * @param property The property.
+     * @return The value.
+     * @throws IllegalArgumentException The property was not captured.
+     */
+    public Object getPropertyValue(final int node, final PropertyID property) {
+        return this.values.get(this.columnOf(property), node);
+    }
+
+    /**
+     * Gets the extra properties that were captured.
+     *
+     * @return The properties.
+     */
+    public PropertyID[] getProperties() {
+        return this.properties.clone();
+    }
+
+    /**
+     * Compares this snapshot with one taken later, to find out what has changed.
+     *
+     * @param later The later snapshot.
+     * @return The differences.
+     */
+    public SnapshotDiff diff(final AutomationSnapshot later) {
+        return new SnapshotDiff(this, later);
+    }
+
+    /**
+     * Finds the nodes with the given name.
+     *
+     * @param value The name.
+     * @return The nodes, in document order.
+     */
+    public int[] findByName(final String value) {
+        return this.findString(NAME, value);
+    }
+
+    /**
+     * Finds the nodes whose name matches the pattern.
+     *
+     * @param pattern The pattern.
+     * @return The nodes, in document order.
+     */
+    public int[] findByName(final Pattern pattern) {
+        return this.findString(NAME, pattern);
+    }
+
+    /**
+     * Finds the nodes with the given automation id.
+     *
+     * @param value The automation id.
+     * @return The nodes, in document order.
+     */
+    public int[] findByAutomationId(final String value) {
+        return this.findString(AUTOMATION_ID, value);
+    }
+
+    /**
+     * Finds the nodes whose automation id matches the pattern.
+     *
+     * @param pattern The pattern.
+     * @return The nodes, in document order.
+     */
+    public int[] findByAutomationId(final Pattern pattern) {
+        return this.findString(AUTOMATION_ID, pattern);
+    }
+
+    /**
+     * Finds the nodes with the given class name.
+     *
+     * @param value The class name.
+     * @return The nodes, in document order.
+     */
+    public int[] findByClassName(final String value) {
+        return this.findString(CLASS_NAME, value);
+    }
+
+    /**
+     * Finds the nodes of the given control type.
+     *
+     * @param type The control type.
+     * @return The nodes, in document order.
+     */
+    public int[] findByControlType(final ControlType type) {
+        IntList result = new IntList();
+
+        for (int node = 0; node < size; node++) {
+            if (this.field(node, CONTROL_TYPE) == type.getValue()) {
+                result.add(node);
+            }
+        }
+
+        return result.toArray();
+    }
+
+    /**
+     * Finds the nodes of the given control type with the given name, in the
+     * same way as the getters of AutomationContainer (e.g. getButton("OK")).
+     *
+     * @param type The control type.
+     * @param value The name.
+     * @return The nodes, in document order.
+     */
+    public int[] find(final ControlType type, final String value) {
+        return this.ofType(type, this.findByName(value));
+    }
+
+    /**
+     * Finds the nodes of the given control type whose name matches the pattern.
+     *
+     * @param type The control type.
+     * @param pattern The pattern.
+     * @return The nodes, in document order.
+     */
+    public int[] find(final ControlType type, final Pattern pattern) {
+        return this.ofType(type, this.findByName(pattern));
+    }
+
+    private int[] ofType(final ControlType type, final int[] nodes) {
+        IntList result = new IntList();
+
+        for (int node : nodes) {
+            if (this.field(node, CONTROL_TYPE) == type.getValue()) {
+                result.add(node);
+            }
+        }
+
+        return result.toArray();
+    }
+
+    /**
+     * Finds the nodes where the pattern was available.
+     *
+     * @param pattern The pattern.
+     * @return The nodes, in document order.
+     */
+    public int[] findByPattern(final PatternID pattern) {
+        IntList result = new IntList();
+
+        for (int node = 0; node < size; node++) {
+            if (this.isPatternAvailable(node, pattern)) {
+                result.add(node);
+            }
+        }
+
+        return result.toArray();
+    }
+
+    /**
+     * Finds the nodes whose bounds contain the point.
+     *
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     * @return The nodes, in document order, so the last one is the innermost.
+     */
+    public int[] findAt(final int x, final int y) {
+        IntList result = new IntList();
+
+        for (int node = 0; node < size; node++) {
+            int base = node * RECORD_SIZE + BOUNDS;
+            if (x >= records.get(base) && y >= records.get(base + 1)
+                    && x < records.get(base + 2) && y < records.get(base + 3)) {
+                result.add(node);
+            }
+        }
+
+        return result.toArray();
+    }
+
+    /**
+     * Finds the nodes whose bounds are inside the rectangle.
+     *
+     * @param rect The rectangle.
+     * @return The nodes, in document order.
+     */
+    public int[] findWithin(final WinDef.RECT rect) {
+        IntList result = new IntList();
+
+        for (int node = 0; node < size; node++) {
+            int base = node * RECORD_SIZE + BOUNDS;
+            if (records.get(base) >= rect.left && records.get(base + 1) >= rect.top
+                    && records.get(base + 2) <= rect.right && records.get(base + 3) <= rect.bottom) {
+                result.add(node);
+            }
+        }
+
+        return result.toArray();
+    }
+
+    private int field(final int node, final int field) {
+        return this.records.get(node * RECORD_SIZE + field);
+    }
+
+    private String stringAt(final int index) {
+        return index < 0 ? null : this.strings.get(index);
+    }
+
+    private int[] findString(final int field, final String value) {
+        IntList result = new IntList();
+
+        int index = value == null ? -1 : this.strings.indexOf(value);
+        if (index >= 0) {
+            for (int node = 0; node < size; node++) {
+                if (this.field(node, field) == index) {
+                    result.add(node);
+                }
+            }
+        }
+
+        return result.toArray();
+    }
+
+    private int[] findString(final int field, final Pattern pattern) {
+        // Each distinct string is only matched once
+        int count = strings.size();
+        boolean[] matches = new boolean[count];
+        for (int index = 0; index < count; index++) {
+            matches[index] = pattern.matcher(strings.get(index)).matches();
+        }
+
+        IntList result = new IntList();
+
+        for (int node = 0; node < size; node++) {
+            int index = this.field(node, field);
+            if (index >= 0 && matches[index]) {
+                result.add(node);
+            }
+        }
+
+        return result.toArray();
+    }
+
+    private int columnOf(final PropertyID property) {
+        for (int column = 0; column < properties.length; column++) {
+            if (properties[column] == property) {
+                return column;
+            }
+        }
+
+        throw new IllegalArgumentException(property + " was not captured");
+    }
+
+    /**
+     * Gets the pattern availability bits for the patterns.
+     *
+     * @param available The patterns that are available.
+     * @return The bits, patterns that are not recorded are left out.
+     */
+    static int patternBits(final PatternID... available) {
+        return PatternAvailability.bits(available);
+    }
+
+    /**
+     * A growable list of ints.
+     */
+    static final class IntList {
+        private int[] items = new int[16];
+        private int count = 0;
+
+        void add(final int item) {
+            if (count == items.length) {
+                items = Arrays.copyOf(items, count * 2);
+            }
+            items[count++] = item;
+        }
+
+        int size() {
+            return count;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(items, count);
+        }
+    }
+
+    /*
+     * The parts of the snapshot, for writing it to a file.
+     */
+
+    IntBuffer getRecords() {
+        return this.records.duplicate();
+    }
+
+    IntBuffer getRuntimeIdStarts() {
+        return this.runtimeIdStart.duplicate();
+    }
+
+    IntBuffer getRuntimeIds() {
+        return this.runtimeIds.duplicate();
+    }
+
+    StringTable getStrings() {
+        return this.strings;
+    }
+
+    ValueTable getValues() {
+        return this.values;
+    }
+
+    /**
+     * The distinct strings in a snapshot.
+     */
+    abstract static class StringTable {
+        /**
+         * Gets the number of strings.
+         *
+         * @return The number of strings.
+         */
+        abstract int size();
+
+        /**
+         * Gets a string.
+         *
+         * @param index The index of the string.
+         * @return The string.
+         */
+        abstract String get(int index);
+
+        /**
+         * Finds a string.
+         *
+         * @param value The string.
+         * @return The index of the string, or -1 if it is not in the table.
+         */
+        abstract int indexOf(String value);
+    }
+
+    /**
+     * The values of the extra properties in a snapshot.
+     */
+    abstract static class ValueTable {
+        /**
+         * Gets a value.
+         *
+         * @param column The property.
+         * @param node The node.
+         * @return The value.
+         */
+        abstract Object get(int column, int node);
+    }
+
+    /**
+     * A string table held in memory.
+     */
+    private static final class HeapStrings extends StringTable {
+        private final String[] strings;
+        private final Map<String, Integer> index;
+
+        HeapStrings(final String[] inStrings, final Map<String, Integer> inIndex) {
+            this.strings = inStrings;
+            this.index = inIndex;
+        }
+
+        int size() {
+            return this.strings.length;
+        }
+
+        String get(final int position) {
+            return this.strings[position];
+        }
+
+        int indexOf(final String value) {
+            Integer position = this.index.get(value);
+            return position == null ? -1 : position;
+        }
+    }
+
+    /**
+     * Values held in memory.
+     */
+    private static final class HeapValues extends ValueTable {
+        private final Object[][] values;
+
+        HeapValues(final Object[][] inValues) {
+            this.values = inValues;
+        }
+
+        Object get(final int column, final int node) {
+            return this.values[column][node];
+        }
+    }
+
+    /**
+     * Builds a snapshot, one node at a time in document order.
+     */
+    static final class Builder {
+        private int size = 0;
+        private int[] records = new int[16 * RECORD_SIZE];
+        private int[] runtimeIdStart = new int[17];
+        private int[] runtimeIds = new int[64];
+
+        private final List<String> strings = new ArrayList<String>();
+        private final Map<String, Integer> stringIndex = new HashMap<String, Integer>();
+
+        private final PropertyID[] properties;
+        private final Object[][] values;
+
+        /**
+         * Constructor for the Builder.
+         *
+         * @param inProperties The extra properties.
+         */
+        Builder(final PropertyID... inProperties) {
+            this.properties = inProperties.clone();
+            this.values = new Object[properties.length][16];
+        }
+
+        /**
+         * Adds a node.
+         *
+         * @param parentNode The parent, which must already have been added, or -1 for the root.
+         * @param runtimeId The runtime id, or null.
+         * @param type The control type id.
+         * @param nodeName The name.
+         * @param nodeClassName The class name.
+         * @param nodeAutomationId The automation id.
+         * @param rect The bounding rectangle.
+         * @param patternBits The pattern availability bits.
+         * @param extra The values of the extra properties.
+         * @return The new node.
+         */
+        int add(final int parentNode,
+                final int[] runtimeId,
+                final int type,
+                final String nodeName,
+                final String nodeClassName,
+                final String nodeAutomationId,
+                final WinDef.RECT rect,
+                final int patternBits,
+                final Object... extra) {
+            if (parentNode >= size || (parentNode < 0 && size > 0)) {
+                throw new IllegalArgumentException("Parent " + parentNode + " has not been added");
+            }
+
+            if ((size + 1) * RECORD_SIZE > records.length) {
+                int capacity = size * 2;
+                records = Arrays.copyOf(records, capacity * RECORD_SIZE);
+                runtimeIdStart = Arrays.copyOf(runtimeIdStart, capacity + 1);
+                for (int column = 0; column < values.length; column++) {
+                    values[column] = Arrays.copyOf(values[column], capacity);
+                }
+            }
+
+            int node = size++;
+            int base = node * RECORD_SIZE;
+
+            records[base + CONTROL_TYPE] = type;
+            records[base + PARENT] = parentNode;
+            records[base + DEPTH] = parentNode < 0 ? 0 : records[parentNode * RECORD_SIZE + DEPTH] + 1;
+            records[base + END] = node + 1;
+            records[base + PATTERN_BITS] = patternBits;
+            records[base + NAME] = this.intern(nodeName);
+            records[base + CLASS_NAME] = this.intern(nodeClassName);
+            records[base + AUTOMATION_ID] = this.intern(nodeAutomationId);
+
+            if (rect != null) {
+                records[base + BOUNDS] = rect.left;
+                records[base + BOUNDS + 1] = rect.top;
+                records[base + BOUNDS + 2] = rect.right;
+                records[base + BOUNDS + 3] = rect.bottom;
+            }
+
+            // Nodes are added in document order, so the new node ends the subtree of each of its ancestors
+            for (int ancestor = parentNode; ancestor >= 0; ancestor = records[ancestor * RECORD_SIZE + PARENT]) {
+                records[ancestor * RECORD_SIZE + END] = node + 1;
+            }
+
+            int ids = runtimeId == null ? 0 : runtimeId.length;
+            int start = runtimeIdStart[node];
+            if (start + ids > runtimeIds.length) {
+                runtimeIds = Arrays.copyOf(runtimeIds, Math.max(runtimeIds.length * 2, start + ids));
+            }
+            if (ids > 0) {
+                System.arraycopy(runtimeId, 0, runtimeIds, start, ids);
+            }
+            runtimeIdStart[node + 1] = start + ids;
+
+            for (int column = 0; column < values.length; column++) {
+                Object value = column < extra.length ? extra[column] : null;
+                if (value instanceof String) {
+                    value = strings.get(this.intern((String) value));
+                }
+                values[column][node] = value;
+            }
+
+            return node;
+        }
+
+        private int intern(final String value) {
+            if (value == null) {
+                return -1;
+            }
+
+            Integer index = stringIndex.get(value);
+            if (index == null) {
+                index = strings.size();
+                strings.add(value);
+                stringIndex.put(value, index);
+            }
+
+            return index;
+        }
+
+        /**
+         * Builds the snapshot.
+         *
+         * @return The snapshot.
+         */
+        AutomationSnapshot build() {
+            Object[][] columns = new Object[properties.length][];
+            for (int column = 0; column < properties.length; column++) {
+                columns[column] = Arrays.copyOf(values[column], size);
+            }
+
+            return new AutomationSnapshot(
+                    IntBuffer.wrap(Arrays.copyOf(records, size * RECORD_SIZE)),
+                    IntBuffer.wrap(Arrays.copyOf(runtimeIdStart, size + 1)),
+                    IntBuffer.wrap(Arrays.copyOf(runtimeIds, runtimeIdStart[size])),
+                    new HeapStrings(strings.toArray(new String[strings.size()]),
+                            new HashMap<String, Integer>(stringIndex)),
+                    properties.clone(),
+                    new HeapValues(columns));
+        }
+    }
+}
@@ -20,6 +20,18 @@ import com.sun.jna.ptr.PointerByReference;
 import mmarquee.automation.uiautomation.IUIAutomationElement3;
 import mmarquee.automation.uiautomation.IUIAutomationElement3Converter;
 import mmarquee.automation.uiautomation.IUIAutomationTreeWalker;
+import mmarquee.automation.utils.ComThreadFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author Mark Humphreys
@@ -27,18 +39,58 @@ import mmarquee.automation.uiautomation.IUIAutomationTreeWalker;
  *
  * Wrapper for the AutomationTreeWalker.
  */
-public class AutomationTreeWalker extends BaseAutomation {
+public class AutomationTreeWalker extends BaseAutomation implements Closeable {
     /**
      * The underlying raw tree walker.
      */
     private IUIAutomationTreeWalker walker = null;
 
+    /**
+     * The cache request used by the walks, or null.
+     */
+    private CacheRequest cacheRequest = null;
+
+    /**
+     * The tracked reference to the walker.
+     */
+    private ReferenceTracker.Handle handle;
+
     /**
      * Constructor for AutomationTreeWalker.
      * @param inWalker The raw walker.
      */
     public AutomationTreeWalker(final IUIAutomationTreeWalker inWalker) {
         this.walker = inWalker;
+        this.handle = ReferenceTracker.track(this, inWalker);
+    }
+
+    /**
+     * Constructor for AutomationTreeWalker, where the walks fetch the
+     * properties and patterns of the cache request with each element.
+     * @param inWalker The raw walker.
+     * @param inCacheRequest The properties and patterns to cache.
+     */
+    public AutomationTreeWalker(final IUIAutomationTreeWalker inWalker,
+                                final CacheRequest inCacheRequest) {
+        this.walker = inWalker;
+        this.cacheRequest = inCacheRequest;
+        this.handle = ReferenceTracker.track(this, inWalker);
+    }
+
+    /**
+     * Releases the walker, it cannot be used afterwards. Calling close
+     * more than once has no effect.
+     */
+    public void close() {
+        ReferenceTracker.close(this.handle);
+    }
+
+    /**
+     * Gets the cache request used by the walks.
+     * @return The cache request, or null if nothing is cached.
+     */
+    public CacheRequest getCacheRequest() {
+        return this.cacheRequest;
     }
 
     /**
@@ -157,6 +209,164 @@ public class AutomationTreeWalker extends BaseAutomation {
         }
     }
 
+    /**
+     * Gets the parent element, fetching the cached values in the same call.
+     *
+     * @param element The element.
+     * @param request The properties and patterns to cache.
+     * @return The parent of the element, or null if not found.
+     * @throws AutomationException Automation has returned an error.
+     */
+    public AutomationElement getParentElement(final AutomationElement element,
+                                              final CacheRequest request)
+            throws AutomationException {
+        PointerByReference pParent = new PointerByReference();
+
+        Pointer pElement = this.getPointerFromElement(element.getElement());
+
+        this.check(this.walker.getParentElementBuildCache(pElement, request.getPointer(), pParent));
+
+        return this.toElement(pParent);
+    }
+
+    /**
+     * Gets the first child element, fetching the cached values in the same call.
+     *
+     * @param element The element.
+     * @param request The properties and patterns to cache.
+     * @return The first child of the element, or null if not found.
+     * @throws AutomationException Automation has returned an error.
+     */
+    public AutomationElement getFirstChildElement(final AutomationElement element,
+                                                  final CacheRequest request)
+            throws AutomationException {
+        PointerByReference pChild = new PointerByReference();
+
+        Pointer pElement = this.getPointerFromElement(element.getElement());
+
+        this.check(this.walker.getFirstChildElementBuildCache(pElement, request.getPointer(), pChild));
+
+        return this.toElement(pChild);
+    }
+
+    /**
+     * Gets the last child element, fetching the cached values in the same call.
+     *
+     * @param element The element.
+     * @param request The properties and patterns to cache.
+     * @return The last child of the element, or null if not found.
+     * @throws AutomationException Automation has returned an error.
+     */
+    public AutomationElement getLastChildElement(final AutomationElement element,
+                                                 final CacheRequest request)
+            throws AutomationException {
+        PointerByReference pChild = new PointerByReference();
+
+        Pointer pElement = this.getPointerFromElement(element.getElement());
+
+        this.check(this.walker.getLastChildElementBuildCache(pElement, request.getPointer(), pChild));
+
+        return this.toElement(pChild);
+    }
+
+    /**
+     * Gets the next sibling element, fetching the cached values in the same call.
+     *
+     * @param element The element.
+     * @param request The properties and patterns to cache.
+     * @return The sibling element, or null if not found.
+     * @throws AutomationException Automation has returned an error.
+     */
+    public AutomationElement getNextSiblingElement(final AutomationElement element,
+                                                   final CacheRequest request)
+            throws AutomationException {
+        PointerByReference pSibling = new PointerByReference();
+
+        Pointer pElement = this.getPointerFromElement(element.getElement());
+
+        this.check(this.walker.getNextSiblingElementBuildCache(pElement, request.getPointer(), pSibling));
+
+        return this.toElement(pSibling);
+    }
+
+    /**
+     * Gets the previous sibling element, fetching the cached values in the same call.
+     *
+     * @param element The element.
+     * @param request The properties and patterns to cache.
+     * @return The previous sibling element, or null if not found.
+     * @throws AutomationException Automation has returned an error.
+     */
+    public AutomationElement getPreviousSiblingElement(final AutomationElement element,
+                                                       final CacheRequest request)
+            throws AutomationException {
+        PointerByReference pSibling = new PointerByReference();
+
+        Pointer pElement = this.getPointerFromElement(element.getElement());
+
+        this.check(this.walker.getPreviousSiblingElementBuildCache(pElement, request.getPointer(), pSibling));
+
+        return this.toElement(pSibling);
+    }
+
+    /**
+     * Throws an exception if the call failed.
+     *
+     * @param res The result of the call.
+     * @throws AutomationException The call failed.
+     */
+    private void check(final int res) throws AutomationException {
+        if (res != 0) {
+            throw new AutomationException(res);
+        }
+    }
+
+    /**
+     * Wraps the element returned by the walker.
+     *
+     * @param pElement The raw element.
+     * @return The element, or null if there was none.
+     */
+    private AutomationElement toElement(final PointerByReference pElement) {
+        if (pElement.getValue() == null) {
+            return null;
+        }
+
+        return new AutomationElement(IUIAutomationElement3Converter.PointerToInterface(pElement));
+    }
+
+    /**
+     * Gets the first child for the walks, using the cache request if there is one.
+     *
+     * @param element The element.
+     * @return The first child of the element, or null if not found.
+     * @throws AutomationException Automation has returned an error.
+     */
+    private AutomationElement firstChild(final AutomationElement element)
+            throws AutomationException {
+        if (this.cacheRequest == null) {
+            return this.getFirstChildElement(element);
+        }
+
+        return this.getFirstChildElement(element, this.cacheRequest);
+    }
+
+    /**
+     * Gets the next sibling for the walks, using the cache request if there is one.
+     *
+     * @param element The element.
+     * @return The sibling element, or null if not found.
+     * @throws AutomationException Automation has returned an error.
+     */
+    private AutomationElement nextSibling(final AutomationElement element)
+            throws AutomationException {
+        if (this.cacheRequest == null) {
+            return this.getNextSiblingElement(element);
+        }
+
+        return this.getNextSiblingElement(element, this.cacheRequest);
+    }
+
     /**
      * A generic walker algorithm.
      * @param visitor The visitor to call on each element.
@@ -180,6 +390,304 @@ public class AutomationTreeWalker extends BaseAutomation {
         }
     }
     
+    /**
+     * Walks the tree below the root depth first, visiting the elements in
+     * document order (each element before its children).
+     * <p>
+     * The walk uses an explicit stack rather than recursion, so deep trees
+     * do not need deep call stacks, and the visitor can prune the walk.
+     * </p>
+     * @param root The root element, which is not itself visited.
+     * @param maxDepth The deepest level to visit, the root's children are at depth 1.
+     * @param visitor The visitor to call on each element.
+     * @return false if the visitor terminated the walk, true otherwise.
+     * @throws AutomationException Exception in the automation library.
+     */
+    public boolean walkDepthFirst(final AutomationElement root,
+                                  final int maxDepth,
+                                  final TreeVisitor visitor)
+            throws AutomationException {
+        return this.walkDepthFirst(root, 1, maxDepth, visitor, null, null, 0);
+    }
+
+    /**
+     * Walks the tree below the root breadth first, visiting all of the
+     * elements at one depth before those at the next.
+     *
+     * @param root The root element, which is not itself visited.
+     * @param maxDepth The deepest level to visit, the root's children are at depth 1.
+     * @param visitor The visitor to call on each element.
+     * @return false if the visitor terminated the walk, true otherwise.
+     * @throws AutomationException Exception in the automation library.
+     */
+    public boolean walkBreadthFirst(final AutomationElement root,
+                                    final int maxDepth,
+                                    final TreeVisitor visitor)
+            throws AutomationException {
+        LinkedList<AutomationElement> parents = new LinkedList<AutomationElement>();
+        LinkedList<Integer> depths = new LinkedList<Integer>();
+
+        parents.add(root);
+        depths.add(0);
+
+        while (!parents.isEmpty()) {
+            AutomationElement parent = parents.removeFirst();
+            int depth = depths.removeFirst() + 1;
+
+            if (depth > maxDepth) {
+                continue;
+            }
+
+            AutomationElement child = this.firstChild(parent);
+
+            while (child != null) {
+                VisitResult result = visitor.visit(child, depth);
+
+                if (result == VisitResult.TERMINATE) {
+                    return false;
+                } else if (result == VisitResult.SKIP_SIBLINGS) {
+                    break;
+                } else if (result == VisitResult.CONTINUE && depth < maxDepth) {
+                    parents.add(child);
+                    depths.add(depth);
+                }
+
+                child = this.nextSibling(child);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Walks the tree below the root depth first, returning the elements that
+     * were visited in document order.
+     * <p>
+     * Each of the root's children is visited on the calling thread, and the
+     * subtrees below them are then walked in parallel, using up to the given
+     * number of threads (each of which joins the COM apartment). The visitor
+     * is called from those threads, so must be thread safe. If the visitor
+     * terminates the walk, the result holds the elements before that one.
+     * </p>
+     * @param root The root element, which is not itself visited.
+     * @param maxDepth The deepest level to visit, the root's children are at depth 1.
+     * @param visitor The visitor to call on each element.
+     * @param threads The number of threads to use.
+     * @return The visited elements, in document order.
+     * @throws AutomationException Exception in the automation library.
+     */
+    public List<AutomationElement> collect(final AutomationElement root,
+                                           final int maxDepth,
+                                           final TreeVisitor visitor,
+                                           final int threads)
+            throws AutomationException {
+        final List<AutomationElement> children = new ArrayList<AutomationElement>();
+        final List<VisitResult> results = new ArrayList<VisitResult>();
+
+        AutomationElement child = maxDepth < 1 ? null : this.firstChild(root);
+
+        while (child != null) {
+            VisitResult result = visitor.visit(child, 1);
+
+            if (result == VisitResult.TERMINATE) {
+                break;
+            }
+
+            children.add(child);
+            results.add(result);
+
+            if (result == VisitResult.SKIP_SIBLINGS) {
+                break;
+            }
+
+            child = this.nextSibling(child);
+        }
+
+        // The lowest index of a subtree that was terminated, the subtrees
+        // after it are not needed
+        final AtomicInteger stopAt = new AtomicInteger(Integer.MAX_VALUE);
+
+        List<Future<List<AutomationElement>>> futures =
+                new ArrayList<Future<List<AutomationElement>>>();
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads),
+                new ComThreadFactory("automation-walker"));
+
+        try {
+            for (int index = 0; index < children.size(); index++) {
+                if (results.get(index) != VisitResult.CONTINUE || maxDepth < 2) {
+                    futures.add(null);
+                    continue;
+                }
+
+                final int subtree = index;
+
+                futures.add(pool.submit(new Callable<List<AutomationElement>>() {
+                    public List<AutomationElement> call() throws AutomationException {
+                        List<AutomationElement> found = new ArrayList<AutomationElement>();
+
+                        if (subtree < stopAt.get() && !walkDepthFirst(children.get(subtree), 2,
+                                maxDepth, visitor, found, stopAt, subtree)) {
+                            lowerTo(stopAt, subtree);
+                        }
+
+                        return found;
+                    }
+                }));
+            }
+
+            List<AutomationElement> elements = new ArrayList<AutomationElement>();
+
+            for (int index = 0; index < children.size(); index++) {
+                if (index > stopAt.get()) {
+                    break;
+                }
+
+                elements.add(children.get(index));
+
+                if (futures.get(index) != null) {
+                    elements.addAll(futures.get(index).get());
+                }
+            }
+
+            return elements;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new AutomationException(ex.getMessage());
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof AutomationException) {
+                throw (AutomationException) ex.getCause();
+            }
+
+            throw new IllegalStateException(ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Lowers the value to the given one, if it is not already lower.
+     *
+     * @param value The value.
+     * @param to The value to lower it to.
+     */
+    private static void lowerTo(final AtomicInteger value, final int to) {
+        int current = value.get();
+
+        while (to < current && !value.compareAndSet(current, to)) {
+            current = value.get();
+        }
+    }
+
+    /**
+     * Walks the children of the root, and their descendants, in document
+     * order.
+     *
+     * @param root The root element, which is not itself visited.
+     * @param firstDepth The depth of the root's children.
+     * @param maxDepth The deepest level to visit.
+     * @param visitor The visitor to call on each element.
+     * @param found If not null, the visited elements are added to it.
+     * @param stopAt If not null, the walk gives up once this is below the subtree.
+     * @param subtree The index of the subtree being walked.
+     * @return false if the visitor terminated the walk, true otherwise.
+     * @throws AutomationException Exception in the automation library.
+     */
+    private boolean walkDepthFirst(final AutomationElement root,
+                                   final int firstDepth,
+                                   final int maxDepth,
+                                   final TreeVisitor visitor,
+                                   final List<AutomationElement> found,
+                                   final AtomicInteger stopAt,
+                                   final int subtree)
+            throws AutomationException {
+        // The stack holds the ancestors whose next sibling is still to be visited
+        LinkedList<AutomationElement> ancestors = new LinkedList<AutomationElement>();
+        int depth = firstDepth;
+
+        AutomationElement current = depth > maxDepth ? null : this.firstChild(root);
+
+        while (current != null) {
+            if (stopAt != null && stopAt.get() < subtree) {
+                return true;
+            }
+
+            VisitResult result = visitor.visit(current, depth);
+
+            if (result == VisitResult.TERMINATE) {
+                return false;
+            }
+
+            if (found != null) {
+                found.add(current);
+            }
+
+            AutomationElement next = null;
+
+            if (result == VisitResult.CONTINUE && depth < maxDepth) {
+                next = this.firstChild(current);
+            }
+
+            if (next != null) {
+                ancestors.push(current);
+                depth++;
+            } else {
+                if (result != VisitResult.SKIP_SIBLINGS) {
+                    next = this.nextSibling(current);
+                }
+
+                while (next == null && !ancestors.isEmpty()) {
+                    next = this.nextSibling(ancestors.pop());
+                    depth--;
+                }
+            }
+
+            current = next;
+        }
+
+        return true;
+    }
+
+    /**
+     * What the walk should do after an element has been visited.
+     */
+    public enum VisitResult {
+        /**
+         * Carry on, including the element's children.
+         */
+        CONTINUE,
+
+        /**
+         * Carry on, but do not visit the element's children.
+         */
+        SKIP_CHILDREN,
+
+        /**
+         * Do not visit the element's children, or its remaining siblings.
+         */
+        SKIP_SIBLINGS,
+
+        /**
+         * Stop the walk.
+         */
+        TERMINATE
+    }
+
+    /**
+     * A visitor as used by the depth first and breadth first walks.
+     */
+    public interface TreeVisitor {
+        /**
+         * Visits an element.
+         *
+         * @param element The currently visited element.
+         * @param depth The depth of the element, the root's children are at depth 1.
+         * @return What the walk should do next.
+         * @throws AutomationException if something goes wrong.
+         */
+        VisitResult visit(AutomationElement element, int depth) throws AutomationException;
+    }
+
     /**
      * A visitor as used by {@link AutomationTreeWalker#walk(AutomationElementVisitor, AutomationElement)}.
      */
@@ -62,6 +62,9 @@ public abstract class BaseAutomation {
 
         WinNT.HRESULT result0 = uElement.QueryInterface(new Guid.REFIID(IUIAutomationElement3.IID), pbr);
 
+        // Either way, the original reference is no longer needed
+        uElement.Release();
+
         if (COMUtils.FAILED(result0)) {
             throw new AutomationException(result0.intValue());
         }
@@ -82,6 +85,8 @@ public abstract class BaseAutomation {
 
         WinNT.HRESULT result0 = uElement.QueryInterface(new Guid.REFIID(IUIAutomationElementArray.IID), pUnknown);
 
+        uElement.Release();
+
         if (COMUtils.FAILED(result0)) {
             throw new AutomationException(result0.intValue());
         }
@@ -117,10 +122,12 @@ public abstract class BaseAutomation {
                 throw new AutomationException(res1);
             }
 
-            Unknown uElement = new Unknown(pbr.getValue());
+            Unknown uElement = this.makeUnknown(pbr.getValue());
 
             WinNT.HRESULT result0 = uElement.QueryInterface(new Guid.REFIID(IUIAutomationElement3.IID), pbr);
 
+            uElement.Release();
+
             if (COMUtils.SUCCEEDED(result0)) {
                 IUIAutomationElement3 element =
                         IUIAutomationElement3Converter.PointerToInterface(pbr);
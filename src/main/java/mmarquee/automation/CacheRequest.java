@@ -0,0 +1,207 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.PointerByReference;
+import mmarquee.automation.uiautomation.IUIAutomationCacheRequest;
+import mmarquee.automation.uiautomation.TreeScope;
+
+import java.io.Closeable;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Wrapper for the IUIAutomationCacheRequest.
+ *
+ * A cache request lists the properties and patterns that should be fetched
+ * in the same cross-process call as a find, so that they can then be read
+ * from the cache without any further round trips.
+ */
+public class CacheRequest extends BaseAutomation implements Closeable {
+    /**
+     * Only cached values are available, no live reference is held.
+     */
+    public static final int ELEMENT_MODE_NONE = 0;
+
+    /**
+     * Elements keep a live reference, so current values are also available.
+     */
+    public static final int ELEMENT_MODE_FULL = 1;
+
+    /**
+     * The underlying cache request.
+     */
+    private IUIAutomationCacheRequest request;
+
+    /**
+     * The raw pointer, as passed to the *BuildCache methods.
+     */
+    private Pointer pointer;
+
+    /**
+     * The tracked reference to the request.
+     */
+    private ReferenceTracker.Handle handle;
+
+    /**
+     * Constructor for CacheRequest.
+     *
+     * @param inRequest The underlying request.
+     * @param inPointer The raw pointer to the request.
+     */
+    public CacheRequest(final IUIAutomationCacheRequest inRequest,
+                        final Pointer inPointer) {
+        this.request = inRequest;
+        this.pointer = inPointer;
+        this.handle = ReferenceTracker.track(this, inRequest);
+    }
+
+    /**
+     * Releases the request, it cannot be used afterwards. Calling close
+     * more than once has no effect.
+     */
+    public void close() {
+        ReferenceTracker.close(this.handle);
+    }
+
+    /**
+     * Gets the underlying cache request.
+     *
+     * @return The underlying request.
+     */
+    public IUIAutomationCacheRequest getRequest() {
+        return this.request;
+    }
+
+    /**
+     * Gets the raw pointer to the cache request.
+     *
+     * @return The raw pointer.
+     */
+    public Pointer getPointer() {
+        return this.pointer;
+    }
+
+    /**
+     * Adds properties to be cached.
+     *
+     * @param properties The properties to add.
+     * @return This request, to allow chaining.
+     * @throws AutomationException Call to Automation API failed.
+     */
+    public CacheRequest addProperty(final PropertyID... properties)
+            throws AutomationException {
+        for (PropertyID property : properties) {
+            final int res = this.request.addProperty(property.getValue());
+            if (res != 0) {
+                throw new AutomationException(res);
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * Adds patterns to be cached.
+     *
+     * @param patterns The patterns to add.
+     * @return This request, to allow chaining.
+     * @throws AutomationException Call to Automation API failed.
+     */
+    public CacheRequest addPattern(final PatternID... patterns)
+            throws AutomationException {
+        for (PatternID pattern : patterns) {
+            final int res = this.request.addPattern(pattern.getValue());
+            if (res != 0) {
+                throw new AutomationException(res);
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * Sets the scope of the elements that are cached.
+     *
+     * @param scope The scope.
+     * @return This request, to allow chaining.
+     * @throws AutomationException Call to Automation API failed.
+     */
+    public CacheRequest setTreeScope(final TreeScope scope)
+            throws AutomationException {
+        final int res = this.request.setTreeScope(scope);
+        if (res != 0) {
+            throw new AutomationException(res);
+        }
+
+        return this;
+    }
+
+    /**
+     * Gets the scope of the elements that are cached.
+     *
+     * @return The scope.
+     * @throws AutomationException Call to Automation API failed.
+     */
+    public TreeScope getTreeScope() throws AutomationException {
+        IntByReference ibr = new IntByReference();
+
+        final int res = this.request.getTreeScope(ibr);
+        if (res != 0) {
+            throw new AutomationException(res);
+        }
+
+        return new TreeScope(ibr.getValue());
+    }
+
+    /**
+     * Sets the condition that cached elements have to match.
+     *
+     * @param condition The condition.
+     * @return This request, to allow chaining.
+     * @throws AutomationException Call to Automation API failed.
+     */
+    public CacheRequest setTreeFilter(final PointerByReference condition)
+            throws AutomationException {
+        final int res = this.request.setTreeFilter(condition.getValue());
+        ReferenceTracker.reachabilityFence(condition);
+        if (res != 0) {
+            throw new AutomationException(res);
+        }
+
+        return this;
+    }
+
+    /**
+     * Sets whether the cached elements keep a live reference.
+     *
+     * @param mode Either ELEMENT_MODE_NONE or ELEMENT_MODE_FULL.
+     * @return This request, to allow chaining.
+     * @throws AutomationException Call to Automation API failed.
+     */
+    public CacheRequest setAutomationElementMode(final int mode)
+            throws AutomationException {
+        final int res = this.request.setAutomationElementMode(mode);
+        if (res != 0) {
+            throw new AutomationException(res);
+        }
+
+        return this;
+    }
+}
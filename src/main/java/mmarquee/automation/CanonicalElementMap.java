@@ -0,0 +1,162 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Makes sure that there is only one wrapper for each element, so that
+ * finding the same element again gives back the wrapper (and COM reference)
+ * that is already held, and the new one is released.
+ * <p>
+ * The map only holds weak references to the wrappers, so once a wrapper is
+ * no longer used elsewhere it can be garbage collected (and its reference
+ * released) as normal. Wrappers that have been closed are replaced.
+ * </p>
+ * <p>
+ * The wrappers returned are shared, so they should only be closed when
+ * nothing else can be using them.
+ * </p>
+ * <p>
+ * The finds in the library (findFirst, findAll, the container getters)
+ * don't use a map, as they close the candidates they don't keep, which
+ * would close wrappers that are shared. Callers that want one wrapper for
+ * each element pass the elements they find through a map of their own.
+ * </p>
+ */
+public class CanonicalElementMap {
+
+    private final ReferenceQueue<AutomationElement> queue = new ReferenceQueue<AutomationElement>();
+
+    private final Map<RuntimeIdKey, Entry> map = new HashMap<RuntimeIdKey, Entry>();
+
+    /**
+     * A weak reference to a wrapper, which knows its key so that it can be
+     * removed from the map once the wrapper has been collected.
+     */
+    private static final class Entry extends WeakReference<AutomationElement> {
+        private final RuntimeIdKey key;
+
+        Entry(final AutomationElement element,
+              final RuntimeIdKey inKey,
+              final ReferenceQueue<AutomationElement> queue) {
+            super(element, queue);
+            this.key = inKey;
+        }
+    }
+
+    /**
+     * Gets the wrapper for the element.
+     *
+     * @param element The element that has been found.
+     * @return The existing wrapper for the same element (in which case the
+     *         element passed in is closed), or the element itself.
+     * @throws AutomationException Failed to get the runtime id.
+     */
+    public synchronized AutomationElement canonicalize(final AutomationElement element)
+            throws AutomationException {
+        this.expunge();
+
+        if (element == null) {
+            return null;
+        }
+
+        int[] id = element.getRuntimeId();
+        if (id == null) {
+            return element;
+        }
+
+        RuntimeIdKey key = new RuntimeIdKey(id);
+
+        Entry entry = this.map.get(key);
+        AutomationElement existing = entry == null ? null : entry.get();
+
+        if (existing == element) {
+            return element;
+        }
+
+        if (existing != null && !existing.isClosed()) {
+            element.close();
+            return existing;
+        }
+
+        this.map.put(key, new Entry(element, key, this.queue));
+        return element;
+    }
+
+    /**
+     * Gets the wrappers for a list of found elements, with any duplicates
+     * removed.
+     *
+     * @param elements The elements.
+     * @return The wrappers, in the same order, each element only appears once.
+     * @throws AutomationException Failed to get the runtime id.
+     */
+    public List<AutomationElement> canonicalize(final List<AutomationElement> elements)
+            throws AutomationException {
+        List<AutomationElement> result = new ArrayList<AutomationElement>(elements.size());
+        Map<AutomationElement, Boolean> seen = new HashMap<AutomationElement, Boolean>();
+
+        for (AutomationElement element : elements) {
+            AutomationElement canonical = this.canonicalize(element);
+            if (seen.put(canonical, Boolean.TRUE) == null) {
+                result.add(canonical);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the number of wrappers held.
+     *
+     * @return The number of wrappers.
+     */
+    public synchronized int size() {
+        this.expunge();
+        return this.map.size();
+    }
+
+    /**
+     * Forgets all of the wrappers, without closing them.
+     */
+    public synchronized void clear() {
+        this.expunge();
+        this.map.clear();
+    }
+
+    /**
+     * Removes the entries for wrappers that have been collected.
+     */
+    private void expunge() {
+        Entry entry = (Entry) this.queue.poll();
+
+        while (entry != null) {
+            if (this.map.get(entry.key) == entry) {
+                this.map.remove(entry.key);
+            }
+            entry = (Entry) this.queue.poll();
+        }
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.platform.win32.COM.Unknown;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * A bounded, least recently used, cache of conditions, keyed on the
+ * structure of the condition.
+ *
+ * The cache holds its own COM reference to each condition, and every
+ * condition handed out holds another one, so evicting a condition only
+ * releases the cache's reference - the condition itself is released once
+ * the last user has closed it (or been collected).
+ */
+public class ConditionCache extends BaseAutomation {
+
+    /**
+     * The default number of conditions to keep.
+     */
+    public static final int DEFAULT_SIZE = 64;
+
+    /**
+     * The cached conditions, in access order.
+     */
+    private final LinkedHashMap<ConditionKey, Entry> entries =
+            new LinkedHashMap<ConditionKey, Entry>(16, 0.75f, true);
+
+    /**
+     * The maximum number of conditions to keep.
+     */
+    private int maxSize;
+
+    /**
+     * Number of lookups that found a condition.
+     */
+    private final AtomicLong hits = new AtomicLong();
+
+    /**
+     * Number of lookups that did not find a condition.
+     */
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Number of conditions evicted.
+     */
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * A cached condition.
+     */
+    private static final class Entry {
+        /**
+         * The condition.
+         */
+        private final Pointer pointer;
+
+        /**
+         * The reference held by the cache.
+         */
+        private final Unknown reference;
+
+        /**
+         * Constructor for the entry.
+         *
+         * @param pointer The condition.
+         * @param reference The reference held by the cache.
+         */
+        private Entry(final Pointer pointer, final Unknown reference) {
+            this.pointer = pointer;
+            this.reference = reference;
+        }
+    }
+
+    /**
+     * Constructor for the cache.
+     *
+     * @param maxSize The maximum number of conditions to keep, 0 disables the cache.
+     */
+    public ConditionCache(final int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must not be negative");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Gets a new reference to the cached condition.
+     *
+     * @param key The structure of the condition.
+     * @return The condition, or null if it is not cached.
+     */
+    public synchronized ConditionReference get(final ConditionKey key) {
+        if (key == null || this.maxSize == 0) {
+            return null;
+        }
+
+        Entry entry = this.entries.get(key);
+
+        if (entry == null) {
+            this.misses.incrementAndGet();
+            return null;
+        }
+
+        this.hits.incrementAndGet();
+
+        Pointer pointer = entry.pointer;
+
+        Unknown reference = this.makeUnknown(pointer);
+        reference.AddRef();
+
+        ConditionReference condition = new ConditionReference();
+        condition.setValue(pointer);
+
+        return condition.setKey(key).track(reference);
+    }
+
+    /**
+     * Adds a newly created condition to the cache.
+     *
+     * @param key The structure of the condition.
+     * @param condition The condition, which the caller keeps.
+     * @return The condition.
+     */
+    public synchronized ConditionReference put(final ConditionKey key,
+                                               final ConditionReference condition) {
+        condition.setKey(key);
+
+        if (key == null
+                || this.maxSize == 0
+                || condition.getValue() == null
+                || this.entries.containsKey(key)) {
+            return condition;
+        }
+
+        Unknown reference = this.makeUnknown(condition.getValue());
+        reference.AddRef();
+
+        this.entries.put(key, new Entry(condition.getValue(), reference));
+        this.trim();
+
+        return condition;
+    }
+
+    /**
+     * Evicts the least recently used conditions, until the cache fits.
+     */
+    private void trim() {
+        Iterator<Map.Entry<ConditionKey, Entry>> iterator = this.entries.entrySet().iterator();
+
+        while (this.entries.size() > this.maxSize && iterator.hasNext()) {
+            Entry entry = iterator.next().getValue();
+            iterator.remove();
+
+            entry.reference.Release();
+            this.evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Changes the maximum number of conditions to keep, evicting any that no
+     * longer fit.
+     *
+     * @param maxSize The new size, 0 disables the cache.
+     */
+    public synchronized void setMaxSize(final int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must not be negative");
+        }
+        this.maxSize = maxSize;
+        this.trim();
+    }
+
+    /**
+     * Gets the maximum number of conditions to keep.
+     *
+     * @return The maximum size.
+     */
+    public synchronized int getMaxSize() {
+        return this.maxSize;
+    }
+
+    /**
+     * Gets the number of cached conditions.
+     *
+     * @return The size.
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Releases all of the cached conditions.
+     */
+    public synchronized void clear() {
+        for (Entry entry : this.entries.values()) {
+            entry.reference.Release();
+        }
+        this.entries.clear();
+    }
+
+    /**
+     * Gets the number of lookups that found a condition.
+     *
+     * @return The number of hits.
+     */
+    public long getHitCount() {
+        return this.hits.get();
+    }
+
+    /**
+     * Gets the number of lookups that did not find a condition.
+     *
+     * @return The number of misses.
+     */
+    public long getMissCount() {
+        return this.misses.get();
+    }
+
+    /**
+     * Gets the number of conditions that have been evicted.
+     *
+     * @return The number of evictions.
+     */
+    public long getEvictionCount() {
+        return this.evictions.get();
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+import java.util.Arrays;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Describes the structure of a condition, so that conditions that are built
+ * in the same way can be shared via the ConditionCache.
+ */
+public final class ConditionKey {
+
+    /**
+     * The kinds of condition.
+     */
+    public enum Kind {
+        /**
+         * Always true.
+         */
+        True,
+        /**
+         * Always false.
+         */
+        False,
+        /**
+         * Compares a property against a value.
+         */
+        Property,
+        /**
+         * Both conditions must match.
+         */
+        And,
+        /**
+         * Either condition must match.
+         */
+        Or,
+        /**
+         * The condition must not match.
+         */
+        Not
+    }
+
+    /**
+     * The true condition.
+     */
+    public static final ConditionKey TRUE = new ConditionKey(Kind.True, 0, null, 0);
+
+    /**
+     * The false condition.
+     */
+    public static final ConditionKey FALSE = new ConditionKey(Kind.False, 0, null, 0);
+
+    /**
+     * The kind of condition.
+     */
+    private final Kind kind;
+
+    /**
+     * The property id, for property conditions.
+     */
+    private final int propertyId;
+
+    /**
+     * The value of the property, for property conditions.
+     */
+    private final Object value;
+
+    /**
+     * The PropertyConditionFlags, for property conditions.
+     */
+    private final int flags;
+
+    /**
+     * The child conditions, for and / or / not conditions.
+     */
+    private final ConditionKey[] children;
+
+    /**
+     * The hash code, as keys are immutable.
+     */
+    private final int hash;
+
+    /**
+     * Constructor for a condition key.
+     *
+     * @param kind The kind of condition.
+     * @param propertyId The property id.
+     * @param value The value.
+     * @param flags The flags.
+     * @param children The child conditions.
+     */
+    private ConditionKey(final Kind kind,
+                         final int propertyId,
+                         final Object value,
+                         final int flags,
+                         final ConditionKey... children) {
+        this.kind = kind;
+        this.propertyId = propertyId;
+        this.value = value;
+        this.flags = flags;
+        this.children = children;
+
+        int result = kind.hashCode();
+        result = 31 * result + propertyId;
+        result = 31 * result + (value != null ? value.hashCode() : 0);
+        result = 31 * result + flags;
+        result = 31 * result + Arrays.hashCode(children);
+        this.hash = result;
+    }
+
+    /**
+     * Gets the key for a property condition.
+     *
+     * @param id The property id.
+     * @param value The value, a String or an Integer.
+     * @return The key.
+     */
+    public static ConditionKey property(final int id, final Object value) {
+        return new ConditionKey(Kind.Property, id, value, 0);
+    }
+
+    /**
+     * Gets the key for a property condition with PropertyConditionFlags.
+     *
+     * @param id The property id.
+     * @param value The value, a String or an Integer.
+     * @param flags The PropertyConditionFlags.
+     * @return The key.
+     */
+    public static ConditionKey property(final int id, final Object value, final int flags) {
+        return new ConditionKey(Kind.Property, id, value, flags);
+    }
+
+    /**
+     * Gets the key for an 'and' condition.
+     *
+     * @param key1 First condition.
+     * @param key2 Second condition.
+     * @return The key, or null if either condition is not known.
+     */
+    public static ConditionKey and(final ConditionKey key1, final ConditionKey key2) {
+        if (key1 == null || key2 == null) {
+            return null;
+        }
+
+        return new ConditionKey(Kind.And, 0, null, 0, key1, key2);
+    }
+
+    /**
+     * Gets the key for an 'or' condition.
+     *
+     * @param key1 First condition.
+     * @param key2 Second condition.
+     * @return The key, or null if either condition is not known.
+     */
+    public static ConditionKey or(final ConditionKey key1, final ConditionKey key2) {
+        if (key1 == null || key2 == null) {
+            return null;
+        }
+
+        return new ConditionKey(Kind.Or, 0, null, 0, key1, key2);
+    }
+
+    /**
+     * Gets the key for a 'not' condition.
+     *
+     * @param key The condition.
+     * @return The key, or null if the condition is not known.
+     */
+    public static ConditionKey not(final ConditionKey key) {
+        if (key == null) {
+            return null;
+        }
+
+        return new ConditionKey(Kind.Not, 0, null, 0, key);
+    }
+
+    /**
+     * Gets the kind of condition.
+     *
+     * @return The kind.
+     */
+    public Kind getKind() {
+        return this.kind;
+    }
+
+    /**
+     * Gets the property id, for property conditions.
+     *
+     * @return The property id.
+     */
+    public int getPropertyId() {
+        return this.propertyId;
+    }
+
+    /**
+     * Gets the value, for property conditions.
+     *
+     * @return The value.
+     */
+    public Object getValue() {
+        return this.value;
+    }
+
+    /**
+     * Gets the PropertyConditionFlags, for property conditions.
+     *
+     * @return The flags.
+     */
+    public int getFlags() {
+        return this.flags;
+    }
+
+    /**
+     * Gets the child conditions.
+     *
+     * @return The children, empty for true / false and property conditions.
+     */
+    public ConditionKey[] getChildren() {
+        return this.children.clone();
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ConditionKey)) {
+            return false;
+        }
+
+        ConditionKey other = (ConditionKey) o;
+
+        return this.hash == other.hash
+                && this.kind == other.kind
+                && this.propertyId == other.propertyId
+                && this.flags == other.flags
+                && (this.value != null ? this.value.equals(other.value) : other.value == null)
+                && Arrays.equals(this.children, other.children);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+
+    @Override
+    public String toString() {
+        switch (this.kind) {
+            case Property:
+                return "Property(" + this.propertyId + "=" + this.value
+                        + (this.flags != 0 ? ", flags " + this.flags : "") + ")";
+            case True:
+            case False:
+                return this.kind.name();
+            default:
+                return this.kind.name() + Arrays.toString(this.children);
+        }
+    }
+}
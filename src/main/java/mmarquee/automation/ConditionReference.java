@@ -0,0 +1,130 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.platform.win32.COM.IUnknown;
+import com.sun.jna.platform.win32.COM.Unknown;
+import com.sun.jna.ptr.PointerByReference;
+
+import java.io.Closeable;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * A reference to a condition, as created by UIAutomation.
+ *
+ * The reference to the condition is released by close, or failing that
+ * once the reference has been garbage collected. The raw condition can't be
+ * got once it has been closed.
+ */
+public class ConditionReference extends PointerByReference implements Closeable {
+
+    /**
+     * The tracked reference to the condition.
+     */
+    private ReferenceTracker.Handle handle;
+
+    /**
+     * The structure of the condition, if known.
+     */
+    private ConditionKey key;
+
+    /**
+     * Whether the condition has been closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Starts tracking the condition, once it has been created.
+     *
+     * @return This reference.
+     */
+    ConditionReference track() {
+        if (this.getValue() != null) {
+            this.handle = ReferenceTracker.track(this, new Unknown(this.getValue()));
+        }
+
+        return this;
+    }
+
+    /**
+     * Starts tracking the given reference to the condition.
+     *
+     * @param target The reference to release.
+     * @return This reference.
+     */
+    ConditionReference track(final IUnknown target) {
+        this.handle = ReferenceTracker.track(this, target);
+
+        return this;
+    }
+
+    /**
+     * Gets the structure of the condition.
+     *
+     * @return The key, or null if the condition was not built from known parts.
+     */
+    public ConditionKey getKey() {
+        return this.key;
+    }
+
+    /**
+     * Sets the structure of the condition.
+     *
+     * @param key The key.
+     * @return This reference.
+     */
+    ConditionReference setKey(final ConditionKey key) {
+        this.key = key;
+
+        return this;
+    }
+
+    /**
+     * Gets the raw condition, to pass to the automation library.
+     *
+     * @return The condition.
+     * @throws IllegalStateException The condition has been closed.
+     */
+    @Override
+    public Pointer getValue() {
+        if (this.closed) {
+            throw new IllegalStateException("The condition has been closed");
+        }
+
+        return super.getValue();
+    }
+
+    /**
+     * Releases the condition, it cannot be used afterwards. Calling close
+     * more than once has no effect.
+     */
+    public void close() {
+        this.closed = true;
+        ReferenceTracker.close(this.handle);
+    }
+
+    /**
+     * Whether the condition has been closed.
+     *
+     * @return True if closed.
+     */
+    public boolean isClosed() {
+        return this.closed;
+    }
+}
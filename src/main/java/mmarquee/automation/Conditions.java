@@ -0,0 +1,73 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+import com.sun.jna.ptr.PointerByReference;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * The conditions built for a search, which are closed together once the
+ * search has been made, e.g.
+ * <pre>
+ * Conditions conditions = new Conditions();
+ * try {
+ *     return element.findFirst(scope, conditions.add(automation.createAndCondition(
+ *             conditions.add(automation.createNamePropertyCondition(name)),
+ *             conditions.add(automation.createControlTypeCondition(type)))));
+ * } finally {
+ *     conditions.close();
+ * }
+ * </pre>
+ */
+public final class Conditions implements Closeable {
+
+    /**
+     * The conditions to close.
+     */
+    private final List<ConditionReference> conditions = new ArrayList<ConditionReference>(4);
+
+    /**
+     * Adds a condition to be closed.
+     *
+     * @param condition The condition, may be null.
+     * @param <T> The type of the condition.
+     * @return The condition.
+     */
+    public <T extends PointerByReference> T add(final T condition) {
+        if (condition instanceof ConditionReference) {
+            this.conditions.add((ConditionReference) condition);
+        }
+
+        return condition;
+    }
+
+    /**
+     * Closes the conditions that have been added.
+     */
+    public void close() {
+        for (ConditionReference condition : this.conditions) {
+            condition.close();
+        }
+
+        this.conditions.clear();
+    }
+}
@@ -252,12 +252,42 @@ public enum ControlType {
         this.value = value;
     }
 
+    /**
+     * The first of the control type ids, all but None are in a dense range from here.
+     */
+    private static final int FIRST = 50000;
+
+    /**
+     * The control types, indexed by id - FIRST.
+     */
+    private static final ControlType[] BY_VALUE;
+
+    static {
+        int last = FIRST;
+        for (ControlType type : values()) {
+            last = Math.max(last, type.value);
+        }
+
+        BY_VALUE = new ControlType[last - FIRST + 1];
+        for (ControlType type : values()) {
+            if (type.value >= FIRST) {
+                BY_VALUE[type.value - FIRST] = type;
+            }
+        }
+    }
+
+    /**
+     * Gets the control type for an id.
+     *
+     * @param controlTypeValue The id.
+     * @return The control type, or None if the id isn't known.
+     */
 	public static ControlType fromValue(int controlTypeValue) {
-		for(ControlType type: values()) {
-			if (type.getValue() == controlTypeValue) {
-				return type;
-			}
-		}
-		return None;
+        int index = controlTypeValue - FIRST;
+        if (index < 0 || index >= BY_VALUE.length || BY_VALUE[index] == null) {
+            return None;
+        }
+
+        return BY_VALUE[index];
 	}
 }
\ No newline at end of file
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+import com.sun.jna.Platform;
+import com.sun.jna.Pointer;
+import com.sun.jna.platform.win32.Ole32;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Delivers automation events to listeners on a single dispatch thread.
+ *
+ * The automation library raises events on its own threads, and expects the
+ * handler to return quickly, so events are only queued there. The queue is
+ * bounded, when it is full new events are dropped (and counted) rather than
+ * holding up the automation library.
+ */
+public class EventDispatcher {
+
+    /**
+     * The default number of events that can be waiting.
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final Logger logger = Logger.getLogger(EventDispatcher.class.getName());
+
+    /**
+     * An event waiting to be delivered.
+     */
+    private abstract static class Delivery {
+        private final AutomationElement sender;
+
+        private Delivery(final AutomationElement sender) {
+            this.sender = sender;
+        }
+
+        /**
+         * Passes the event on to the listener.
+         */
+        abstract void deliver();
+    }
+
+    /**
+     * The events waiting to be delivered.
+     */
+    private final BlockingQueue<Delivery> queue;
+
+    /**
+     * The dispatch thread, started when the first event arrives.
+     */
+    private Thread thread;
+
+    /**
+     * Number of events delivered.
+     */
+    private final AtomicLong delivered = new AtomicLong();
+
+    /**
+     * Number of events dropped as the queue was full.
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Constructor for the dispatcher.
+     *
+     * @param capacity The number of events that can be waiting.
+     */
+    public EventDispatcher(final int capacity) {
+        this.queue = new ArrayBlockingQueue<Delivery>(capacity);
+    }
+
+    /**
+     * Queues an event for delivery, without blocking.
+     *
+     * @param listener The listener to deliver to.
+     * @param sender The element that raised the event.
+     * @param eventId The event.
+     * @return True if queued, false if the event was dropped.
+     */
+    public boolean dispatch(final AutomationEventListener listener,
+                            final AutomationElement sender,
+                            final EventID eventId) {
+        return this.offer(new Delivery(sender) {
+            void deliver() {
+                listener.handleEvent(sender, eventId);
+            }
+        });
+    }
+
+    /**
+     * Queues a structure changed event for delivery, without blocking.
+     *
+     * @param listener The listener to deliver to.
+     * @param sender The element that raised the event.
+     * @param changeType The kind of change.
+     * @param runtimeId The runtime id of the element that changed.
+     * @return True if queued, false if the event was dropped.
+     */
+    public boolean dispatchStructureChanged(final StructureChangedEventListener listener,
+                                            final AutomationElement sender,
+                                            final StructureChangeType changeType,
+                                            final int[] runtimeId) {
+        return this.offer(new Delivery(sender) {
+            void deliver() {
+                listener.handleStructureChangedEvent(sender, changeType, runtimeId);
+            }
+        });
+    }
+
+    /**
+     * Queues a property changed event for delivery, without blocking.
+     *
+     * @param listener The listener to deliver to.
+     * @param sender The element that raised the event.
+     * @param propertyId The property that changed.
+     * @param newValue The new value.
+     * @return True if queued, false if the event was dropped.
+     */
+    public boolean dispatchPropertyChanged(final PropertyChangedEventListener listener,
+                                           final AutomationElement sender,
+                                           final int propertyId,
+                                           final Object newValue) {
+        return this.offer(new Delivery(sender) {
+            void deliver() {
+                listener.handlePropertyChangedEvent(sender, propertyId, newValue);
+            }
+        });
+    }
+
+    /**
+     * Queues an event, dropping it if the queue is full.
+     *
+     * @param delivery The event.
+     * @return True if queued, false if the event was dropped.
+     */
+    private boolean offer(final Delivery delivery) {
+        this.start();
+
+        if (this.queue.offer(delivery)) {
+            return true;
+        }
+
+        this.dropped.incrementAndGet();
+
+        if (delivery.sender != null) {
+            delivery.sender.close();
+        }
+
+        return false;
+    }
+
+    /**
+     * Starts the dispatch thread, if it is not already running.
+     */
+    private synchronized void start() {
+        if (this.thread != null) {
+            return;
+        }
+
+        this.thread = new Thread(new Runnable() {
+            public void run() {
+                dispatchLoop();
+            }
+        }, "automation-events");
+
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Delivers events until the thread is interrupted.
+     */
+    private void dispatchLoop() {
+        if (Platform.isWindows()) {
+            // Listeners will make automation calls on this thread
+            Ole32.INSTANCE.CoInitializeEx(Pointer.NULL, Ole32.COINIT_MULTITHREADED);
+        }
+
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Delivery delivery = this.queue.take();
+
+                try {
+                    delivery.deliver();
+                } catch (RuntimeException ex) {
+                    logger.log(Level.WARNING, "Event listener failed", ex);
+                }
+
+                this.delivered.incrementAndGet();
+            }
+        } catch (InterruptedException ex) {
+            // Shutting down
+        } finally {
+            if (Platform.isWindows()) {
+                Ole32.INSTANCE.CoUninitialize();
+            }
+        }
+    }
+
+    /**
+     * Stops the dispatch thread, any events still waiting are dropped.
+     */
+    public synchronized void shutdown() {
+        if (this.thread != null) {
+            this.thread.interrupt();
+            this.thread = null;
+        }
+
+        Delivery delivery = this.queue.poll();
+        while (delivery != null) {
+            this.dropped.incrementAndGet();
+            if (delivery.sender != null) {
+                delivery.sender.close();
+            }
+            delivery = this.queue.poll();
+        }
+    }
+
+    /**
+     * Gets the number of events waiting to be delivered.
+     *
+     * @return The number of events.
+     */
+    public int getPendingCount() {
+        return this.queue.size();
+    }
+
+    /**
+     * Gets the number of events delivered.
+     *
+     * @return The number of events.
+     */
+    public long getDeliveredCount() {
+        return this.delivered.get();
+    }
+
+    /**
+     * Gets the number of events dropped as the queue was full.
+     *
+     * @return The number of events.
+     */
+    public long getDroppedCount() {
+        return this.dropped.get();
+    }
+}
@@ -55,4 +55,30 @@ public enum EventID {
     EventID(int value) {
         this.value = value;
     }
+
+    /**
+     * The first event id, the ids are contiguous.
+     */
+    private static final int FIRST = 20000;
+
+    /**
+     * The events, indexed by id - FIRST.
+     */
+    private static final EventID[] BY_VALUE = values();
+
+    /**
+     * Gets the event from its id.
+     *
+     * @param value The event id.
+     * @return The event, or null if not known.
+     */
+    public static EventID fromValue(int value) {
+        int index = value - FIRST;
+
+        if (index < 0 || index >= BY_VALUE.length || BY_VALUE[index].value != value) {
+            return null;
+        }
+
+        return BY_VALUE[index];
+    }
 }
\ No newline at end of file
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * An event handler that has been added via UIAutomation.addEventHandler.
+ *
+ * Closing the subscription removes the handler.
+ */
+public class EventSubscription implements Closeable {
+
+    /**
+     * The automation instance the handler was added to.
+     */
+    private final UIAutomation automation;
+
+    /**
+     * The event.
+     */
+    private final EventID eventId;
+
+    /**
+     * The element the handler was added to.
+     */
+    private final AutomationElement element;
+
+    /**
+     * The handler.
+     */
+    private final AutomationEventHandler handler;
+
+    /**
+     * Whether the handler has been removed.
+     */
+    private final AtomicBoolean removed = new AtomicBoolean(false);
+
+    /**
+     * Constructor for the subscription.
+     *
+     * @param automation The automation instance.
+     * @param eventId The event.
+     * @param element The element.
+     * @param handler The handler.
+     */
+    EventSubscription(final UIAutomation automation,
+                      final EventID eventId,
+                      final AutomationElement element,
+                      final AutomationEventHandler handler) {
+        this.automation = automation;
+        this.eventId = eventId;
+        this.element = element;
+        this.handler = handler;
+    }
+
+    /**
+     * Gets the event.
+     *
+     * @return The event.
+     */
+    public EventID getEventId() {
+        return this.eventId;
+    }
+
+    /**
+     * Gets the element the handler was added to.
+     *
+     * @return The element.
+     */
+    public AutomationElement getElement() {
+        return this.element;
+    }
+
+    /**
+     * Gets the handler.
+     *
+     * @return The handler.
+     */
+    AutomationEventHandler getHandler() {
+        return this.handler;
+    }
+
+    /**
+     * Marks the subscription as removed.
+     *
+     * @return True if this call removed it.
+     */
+    boolean markRemoved() {
+        return this.removed.compareAndSet(false, true);
+    }
+
+    /**
+     * Has the handler been removed?
+     *
+     * @return True if removed.
+     */
+    public boolean isRemoved() {
+        return this.removed.get();
+    }
+
+    /**
+     * Removes the handler, calling close more than once has no effect.
+     *
+     * @throws IOException The automation library returned an error.
+     */
+    public void close() throws IOException {
+        try {
+            this.automation.removeEventHandler(this);
+        } catch (AutomationException ex) {
+            throw new IOException(ex.getMessage(), ex);
+        }
+    }
+}
@@ -0,0 +1,740 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+import mmarquee.automation.uiautomation.TreeScope;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * A copy of the tree below an element, which is kept up to date by
+ * automation events rather than by asking for the tree again.
+ * <p>
+ * The whole tree is loaded in one cached call. After that StructureChanged,
+ * PropertyChanged and window opened / closed events mark the parts of the
+ * tree that have changed (or apply the change straight away, e.g. a new name
+ * or a removed child), and the marked parts are fetched again with
+ * BuildUpdatedCache the next time the tree is asked for something. The
+ * lookups by runtime id, name and automation id are hash lookups.
+ * </p>
+ * <p>
+ * The elements returned are copies with their own reference, which stay
+ * usable when the tree fetches that part again, and should be closed by the
+ * caller.
+ * </p>
+ */
+public class LiveTree implements Closeable {
+
+    private final Logger logger = Logger.getLogger(LiveTree.class.getName());
+
+    /**
+     * The properties that are always kept.
+     */
+    private static final PropertyID[] COLUMNS = {
+            PropertyID.RuntimeId,
+            PropertyID.ControlType,
+            PropertyID.Name,
+            PropertyID.ClassName,
+            PropertyID.AutomationId
+    };
+
+    /**
+     * An element in the tree.
+     */
+    private static final class Node {
+        private AutomationElement element;
+        private int[] runtimeId;
+        private int controlType;
+        private String name;
+        private String className;
+        private String automationId;
+        private Object[] values;
+        private Node parent;
+        private final List<Node> children = new ArrayList<Node>();
+        private boolean attached = true;
+        private boolean childrenStale;
+        private boolean propertiesStale;
+    }
+
+    private final UIAutomation automation;
+    private final AutomationElement root;
+    private final PropertyID[] properties;
+
+    /**
+     * Fetches an element with the elements below it.
+     */
+    private final CacheRequest subtreeRequest;
+
+    /**
+     * Fetches just an element.
+     */
+    private final CacheRequest elementRequest;
+
+    private final List<EventSubscription> subscriptions = new ArrayList<EventSubscription>();
+
+    private Node rootNode;
+
+    private final Map<RuntimeIdKey, Node> byRuntimeId = new HashMap<RuntimeIdKey, Node>();
+    private final Map<String, Set<Node>> byName = new HashMap<String, Set<Node>>();
+    private final Map<String, Set<Node>> byAutomationId = new HashMap<String, Set<Node>>();
+
+    /**
+     * The nodes that have to be fetched again.
+     */
+    private final Set<Node> stale = new LinkedHashSet<Node>();
+
+    private final AtomicLong eventCount = new AtomicLong();
+    private final AtomicLong refetchCount = new AtomicLong();
+
+    /**
+     * Constructor for the LiveTree, which loads the tree and starts
+     * listening for changes to it.
+     *
+     * @param automation The automation instance.
+     * @param root The element at the top of the tree.
+     * @param properties Any extra properties to keep for each element.
+     * @throws AutomationException Something has gone wrong.
+     */
+    public LiveTree(final UIAutomation automation,
+                    final AutomationElement root,
+                    final PropertyID... properties)
+            throws AutomationException {
+        this.automation = automation;
+        this.root = root;
+        this.properties = properties.clone();
+
+        this.subtreeRequest = automation.createCacheRequest()
+                .addProperty(COLUMNS)
+                .addProperty(properties)
+                .setTreeScope(new TreeScope(TreeScope.Subtree));
+
+        this.elementRequest = automation.createCacheRequest()
+                .addProperty(COLUMNS)
+                .addProperty(properties);
+
+        Listener listener = new Listener();
+        TreeScope scope = new TreeScope(TreeScope.Subtree);
+
+        // Listening first, so that nothing is missed while loading
+        try {
+            this.subscriptions.add(automation.addEventHandler(
+                    EventID.StructureChanged, scope, root, listener));
+
+            PropertyID[] watched = new PropertyID[properties.length + 2];
+            watched[0] = PropertyID.Name;
+            watched[1] = PropertyID.AutomationId;
+            System.arraycopy(properties, 0, watched, 2, properties.length);
+
+            this.subscriptions.add(automation.addPropertyChangedEventHandler(
+                    scope, root, listener, watched));
+            this.subscriptions.add(automation.addEventHandler(
+                    EventID.Window_WindowOpened, scope, root, listener));
+            this.subscriptions.add(automation.addEventHandler(
+                    EventID.Window_WindowClosed, scope, root, listener));
+
+            synchronized (this) {
+                this.rootNode = this.build(root.buildUpdatedCache(this.subtreeRequest), null);
+            }
+        } catch (AutomationException ex) {
+            this.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Passes the events on to the tree.
+     */
+    private final class Listener implements StructureChangedEventListener, PropertyChangedEventListener {
+        public void handleStructureChangedEvent(final AutomationElement sender,
+                                                final StructureChangeType changeType,
+                                                final int[] runtimeId) {
+            structureChanged(sender, changeType, runtimeId);
+        }
+
+        public void handlePropertyChangedEvent(final AutomationElement sender,
+                                               final int propertyId,
+                                               final Object newValue) {
+            propertyChanged(sender, propertyId, newValue);
+        }
+
+        public void handleEvent(final AutomationElement sender, final EventID eventId) {
+            if (eventId == EventID.Window_WindowOpened) {
+                structureChanged(sender, StructureChangeType.ChildAdded, null);
+            } else if (eventId == EventID.Window_WindowClosed) {
+                windowClosed(sender);
+            } else if (sender != null) {
+                sender.close();
+            }
+        }
+    }
+
+    /**
+     * Applies a structure change.
+     *
+     * @param sender The element that raised the event, which is closed.
+     * @param changeType The kind of change.
+     * @param runtimeId The runtime id of the element that changed.
+     */
+    void structureChanged(final AutomationElement sender,
+                          final StructureChangeType changeType,
+                          final int[] runtimeId) {
+        this.eventCount.incrementAndGet();
+
+        try {
+            if (changeType == StructureChangeType.ChildRemoved) {
+                synchronized (this) {
+                    Node removed = runtimeId == null ? null : this.byRuntimeId.get(new RuntimeIdKey(runtimeId));
+                    if (removed != null && removed != this.rootNode) {
+                        this.remove(removed);
+                        return;
+                    }
+                }
+            }
+
+            AutomationElement changed = sender;
+            if (changeType == StructureChangeType.ChildAdded) {
+                // The sender is the new element, it is the parent that has changed
+                AutomationTreeWalker walker = this.automation.getControlViewWalker();
+                try {
+                    changed = walker.getParentElement(sender);
+                } finally {
+                    walker.close();
+                }
+            }
+
+            int[] id = runtimeIdOf(changed);
+            if (changed != sender && changed != null) {
+                changed.close();
+            }
+
+            synchronized (this) {
+                Node node = id == null ? null : this.byRuntimeId.get(new RuntimeIdKey(id));
+                if (node != null) {
+                    this.markChildrenStale(node);
+                }
+            }
+        } catch (AutomationException ex) {
+            logger.log(Level.FINE, "Could not apply structure change", ex);
+            this.invalidateAll();
+        } finally {
+            if (sender != null) {
+                sender.close();
+            }
+        }
+    }
+
+    /**
+     * Applies a property change.
+     *
+     * @param sender The element that raised the event, which is closed.
+     * @param propertyId The property.
+     * @param newValue The new value, or null if it is not known.
+     */
+    void propertyChanged(final AutomationElement sender,
+                         final int propertyId,
+                         final Object newValue) {
+        this.eventCount.incrementAndGet();
+
+        int[] id;
+        try {
+            id = runtimeIdOf(sender);
+        } catch (AutomationException ex) {
+            logger.log(Level.FINE, "Could not apply property change", ex);
+            return;
+        } finally {
+            if (sender != null) {
+                sender.close();
+            }
+        }
+
+        synchronized (this) {
+            Node node = id == null ? null : this.byRuntimeId.get(new RuntimeIdKey(id));
+            if (node == null) {
+                return;
+            }
+
+            if (propertyId == PropertyID.Name.getValue() && newValue instanceof String) {
+                unindex(this.byName, node.name, node);
+                node.name = (String) newValue;
+                index(this.byName, node.name, node);
+            } else if (propertyId == PropertyID.AutomationId.getValue() && newValue instanceof String) {
+                unindex(this.byAutomationId, node.automationId, node);
+                node.automationId = (String) newValue;
+                index(this.byAutomationId, node.automationId, node);
+            } else {
+                int column = this.columnOf(propertyId);
+                if (column >= 0 && newValue != null) {
+                    node.values[column] = newValue;
+                } else {
+                    node.propertiesStale = true;
+                    this.stale.add(node);
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies a window being closed.
+     *
+     * @param sender The window, which is closed.
+     */
+    void windowClosed(final AutomationElement sender) {
+        this.eventCount.incrementAndGet();
+
+        try {
+            int[] id = runtimeIdOf(sender);
+
+            synchronized (this) {
+                Node node = id == null ? null : this.byRuntimeId.get(new RuntimeIdKey(id));
+                if (node != null && node != this.rootNode) {
+                    this.remove(node);
+                }
+            }
+        } catch (AutomationException ex) {
+            // The window has gone, so it can't be found by its runtime id
+            this.invalidateAll();
+        } finally {
+            if (sender != null) {
+                sender.close();
+            }
+        }
+    }
+
+    private static int[] runtimeIdOf(final AutomationElement element) throws AutomationException {
+        if (element == null) {
+            return null;
+        }
+
+        return AutomationSnapshot.toRuntimeId(element.getPropertyValue(PropertyID.RuntimeId.getValue()));
+    }
+
+    private synchronized void invalidateAll() {
+        if (this.rootNode != null) {
+            this.markChildrenStale(this.rootNode);
+        }
+    }
+
+    private void markChildrenStale(final Node node) {
+        node.childrenStale = true;
+        this.stale.add(node);
+    }
+
+    /**
+     * Fetches the parts of the tree that have changed.
+     *
+     * @throws AutomationException Something has gone wrong.
+     */
+    public synchronized void refresh() throws AutomationException {
+        while (!this.stale.isEmpty()) {
+            // Shallowest first, so that refetching a subtree covers any stale nodes inside it
+            Node next = null;
+            int nextDepth = Integer.MAX_VALUE;
+
+            for (Node node : this.stale) {
+                int depth = depthOf(node);
+                if (depth < nextDepth) {
+                    next = node;
+                    nextDepth = depth;
+                }
+            }
+
+            this.stale.remove(next);
+
+            if (next.attached) {
+                this.refetch(next);
+            }
+        }
+    }
+
+    private static int depthOf(final Node node) {
+        int depth = 0;
+        for (Node parent = node.parent; parent != null; parent = parent.parent) {
+            depth++;
+        }
+        return depth;
+    }
+
+    /**
+     * Fetches a node again, along with the nodes below it if they have changed.
+     *
+     * @param node The node.
+     * @throws AutomationException Something has gone wrong.
+     */
+    private void refetch(final Node node) throws AutomationException {
+        this.refetchCount.incrementAndGet();
+
+        boolean subtree = node.childrenStale;
+        AutomationElement updated;
+
+        try {
+            updated = node.element.buildUpdatedCache(subtree ? this.subtreeRequest : this.elementRequest);
+        } catch (AutomationException ex) {
+            if (node == this.rootNode) {
+                throw ex;
+            }
+
+            // The element has gone
+            this.remove(node);
+            return;
+        }
+
+        this.unindexNode(node);
+
+        if (subtree) {
+            for (Node child : node.children) {
+                this.discard(child);
+            }
+            node.children.clear();
+        }
+
+        node.element.close();
+        this.read(node, updated);
+        node.childrenStale = false;
+        node.propertiesStale = false;
+
+        this.indexNode(node);
+
+        if (subtree) {
+            for (AutomationElement child : updated.getCachedChildren()) {
+                this.build(child, node);
+            }
+        }
+    }
+
+    /**
+     * Builds the nodes for a cached element and the cached elements below it.
+     *
+     * @param element The cached element.
+     * @param parent The parent node, or null.
+     * @return The node for the element.
+     * @throws AutomationException Something has gone wrong.
+     */
+    private Node build(final AutomationElement element, final Node parent) throws AutomationException {
+        LinkedList<AutomationElement> elements = new LinkedList<AutomationElement>();
+        LinkedList<Node> parents = new LinkedList<Node>();
+
+        elements.push(element);
+        parents.push(parent);
+
+        Node top = null;
+
+        while (!elements.isEmpty()) {
+            AutomationElement current = elements.pop();
+            Node currentParent = parents.pop();
+
+            Node node = new Node();
+            this.read(node, current);
+            node.parent = currentParent;
+
+            if (currentParent != null) {
+                currentParent.children.add(node);
+            }
+            if (top == null) {
+                top = node;
+            }
+
+            this.indexNode(node);
+
+            List<AutomationElement> children = current.getCachedChildren();
+            for (int index = children.size() - 1; index >= 0; index--) {
+                elements.push(children.get(index));
+                parents.push(node);
+            }
+        }
+
+        return top;
+    }
+
+    private void read(final Node node, final AutomationElement element) throws AutomationException {
+        node.element = element;
+        node.runtimeId = AutomationSnapshot.toRuntimeId(
+                element.getCachedPropertyValue(PropertyID.RuntimeId.getValue()));
+        node.controlType = element.getCachedControlType();
+        node.name = element.getCachedName();
+        node.className = element.getCachedClassName();
+        node.automationId = element.getCachedAutomationId();
+
+        node.values = new Object[this.properties.length];
+        for (int column = 0; column < this.properties.length; column++) {
+            node.values[column] = AutomationSnapshot.toJava(
+                    element.getCachedPropertyValue(this.properties[column].getValue()));
+        }
+    }
+
+    /**
+     * Removes a node and the nodes below it.
+     *
+     * @param node The node.
+     */
+    private void remove(final Node node) {
+        if (node.parent != null) {
+            node.parent.children.remove(node);
+        }
+
+        this.discard(node);
+    }
+
+    /**
+     * Unindexes and closes a node and the nodes below it.
+     *
+     * @param node The node.
+     */
+    private void discard(final Node node) {
+        LinkedList<Node> nodes = new LinkedList<Node>();
+        nodes.push(node);
+
+        while (!nodes.isEmpty()) {
+            Node current = nodes.pop();
+
+            this.unindexNode(current);
+            this.stale.remove(current);
+            current.attached = false;
+            current.element.close();
+
+            for (Node child : current.children) {
+                nodes.push(child);
+            }
+        }
+    }
+
+    private void indexNode(final Node node) {
+        if (node.runtimeId != null) {
+            this.byRuntimeId.put(new RuntimeIdKey(node.runtimeId), node);
+        }
+        index(this.byName, node.name, node);
+        index(this.byAutomationId, node.automationId, node);
+    }
+
+    private void unindexNode(final Node node) {
+        if (node.runtimeId != null) {
+            RuntimeIdKey key = new RuntimeIdKey(node.runtimeId);
+            if (this.byRuntimeId.get(key) == node) {
+                this.byRuntimeId.remove(key);
+            }
+        }
+        unindex(this.byName, node.name, node);
+        unindex(this.byAutomationId, node.automationId, node);
+    }
+
+    private static void index(final Map<String, Set<Node>> map, final String key, final Node node) {
+        if (key == null) {
+            return;
+        }
+
+        Set<Node> nodes = map.get(key);
+        if (nodes == null) {
+            nodes = new LinkedHashSet<Node>();
+            map.put(key, nodes);
+        }
+        nodes.add(node);
+    }
+
+    private static void unindex(final Map<String, Set<Node>> map, final String key, final Node node) {
+        if (key == null) {
+            return;
+        }
+
+        Set<Node> nodes = map.get(key);
+        if (nodes != null) {
+            nodes.remove(node);
+            if (nodes.isEmpty()) {
+                map.remove(key);
+            }
+        }
+    }
+
+    private int columnOf(final int propertyId) {
+        for (int column = 0; column < this.properties.length; column++) {
+            if (this.properties[column].getValue() == propertyId) {
+                return column;
+            }
+        }
+        return -1;
+    }
+
+    private static List<AutomationElement> elementsOf(final Set<Node> nodes) {
+        if (nodes == null) {
+            return Collections.emptyList();
+        }
+
+        List<AutomationElement> result = new ArrayList<AutomationElement>(nodes.size());
+        for (Node node : nodes) {
+            result.add(node.element.copy());
+        }
+        return result;
+    }
+
+    /**
+     * Finds the elements with the given name.
+     *
+     * @param name The name.
+     * @return Copies of the elements, to be closed by the caller.
+     * @throws AutomationException Something has gone wrong fetching the changes.
+     */
+    public synchronized List<AutomationElement> findByName(final String name)
+            throws AutomationException {
+        this.refresh();
+        return elementsOf(this.byName.get(name));
+    }
+
+    /**
+     * Finds the elements with the given automation id.
+     *
+     * @param automationId The automation id.
+     * @return Copies of the elements, to be closed by the caller.
+     * @throws AutomationException Something has gone wrong fetching the changes.
+     */
+    public synchronized List<AutomationElement> findByAutomationId(final String automationId)
+            throws AutomationException {
+        this.refresh();
+        return elementsOf(this.byAutomationId.get(automationId));
+    }
+
+    /**
+     * Finds the element with the given runtime id.
+     *
+     * @param runtimeId The runtime id.
+     * @return A copy of the element, to be closed by the caller, or null if it is not in the tree.
+     * @throws AutomationException Something has gone wrong fetching the changes.
+     */
+    public synchronized AutomationElement findByRuntimeId(final int[] runtimeId)
+            throws AutomationException {
+        this.refresh();
+        Node node = this.byRuntimeId.get(new RuntimeIdKey(runtimeId));
+        return node == null ? null : node.element.copy();
+    }
+
+    /**
+     * Takes a snapshot of the tree as it is now, without asking automation
+     * for anything that has not changed.
+     *
+     * @return The snapshot, with the extra properties of the live tree.
+     * @throws AutomationException Something has gone wrong fetching the changes.
+     */
+    public synchronized AutomationSnapshot snapshot() throws AutomationException {
+        this.refresh();
+
+        AutomationSnapshot.Builder builder = new AutomationSnapshot.Builder(this.properties);
+
+        LinkedList<Node> nodes = new LinkedList<Node>();
+        LinkedList<Integer> parents = new LinkedList<Integer>();
+        nodes.push(this.rootNode);
+        parents.push(-1);
+
+        while (!nodes.isEmpty()) {
+            Node node = nodes.pop();
+            int index = builder.add(parents.pop(), node.runtimeId, node.controlType,
+                    node.name, node.className, node.automationId, null, 0, node.values);
+
+            for (int child = node.children.size() - 1; child >= 0; child--) {
+                nodes.push(node.children.get(child));
+                parents.push(index);
+            }
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Gets the number of elements in the tree.
+     *
+     * @return The number of elements.
+     * @throws AutomationException Something has gone wrong fetching the changes.
+     */
+    public synchronized int size() throws AutomationException {
+        this.refresh();
+
+        int count = 0;
+        LinkedList<Node> nodes = new LinkedList<Node>();
+        nodes.push(this.rootNode);
+
+        while (!nodes.isEmpty()) {
+            Node node = nodes.pop();
+            count++;
+            for (Node child : node.children) {
+                nodes.push(child);
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Gets the number of parts of the tree waiting to be fetched again.
+     *
+     * @return The number of stale elements.
+     */
+    public synchronized int getStaleCount() {
+        return this.stale.size();
+    }
+
+    /**
+     * Gets the number of events that have been applied.
+     *
+     * @return The number of events.
+     */
+    public long getEventCount() {
+        return this.eventCount.get();
+    }
+
+    /**
+     * Gets the number of times part of the tree has been fetched again.
+     *
+     * @return The number of fetches.
+     */
+    public long getRefetchCount() {
+        return this.refetchCount.get();
+    }
+
+    /**
+     * Stops listening for changes, and releases the elements.
+     */
+    public void close() {
+        for (EventSubscription subscription : this.subscriptions) {
+            try {
+                subscription.close();
+            } catch (IOException ex) {
+                logger.log(Level.WARNING, "Could not remove event handler", ex);
+            }
+        }
+        this.subscriptions.clear();
+
+        synchronized (this) {
+            if (this.rootNode != null) {
+                this.discard(this.rootNode);
+                this.rootNode = null;
+            }
+        }
+
+        this.subtreeRequest.close();
+        this.elementRequest.close();
+    }
+}
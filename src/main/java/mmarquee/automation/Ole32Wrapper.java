@@ -15,7 +15,6 @@
  */
 package mmarquee.automation;
 
-import com.sun.jna.Pointer;
 import com.sun.jna.platform.win32.COM.COMUtils;
 import com.sun.jna.platform.win32.COM.Unknown;
 import com.sun.jna.platform.win32.Ole32;
@@ -23,7 +22,9 @@ import com.sun.jna.platform.win32.WTypes;
 import com.sun.jna.platform.win32.WinNT;
 import com.sun.jna.ptr.PointerByReference;
 import mmarquee.automation.uiautomation.IUIAutomation;
-import mmarquee.automation.utils.Canalizer;
+import mmarquee.automation.utils.ComApartment;
+
+import java.util.concurrent.ExecutionException;
 
 /**
  * Wrapper for the access to Ole32, which only exists on Windows, so tests can't be run on Linux, etc.
@@ -31,7 +32,10 @@ import mmarquee.automation.utils.Canalizer;
  * This should allow the underlying funcionality to be Mocked, and allow further testing to be carried out via travis-ci (for example)
  */
 public class Ole32Wrapper {
-    private static Ole32 CANALIZED_OLE32_INSTANCE = null;
+    /**
+     * The apartment thread the automation library is created on.
+     */
+    private static ComApartment apartment = null;
 
     private Unknown unknown = null;
 
@@ -43,23 +47,51 @@ public class Ole32Wrapper {
         return unknown;
     }
 
-    Ole32Wrapper() {
-        createWrapper();
+    /**
+     * Gets the apartment thread the automation library is created on,
+     * starting it the first time.
+     *
+     * @return The apartment.
+     */
+    public static synchronized ComApartment getApartment() {
+        if (apartment == null) {
+            apartment = ComApartment.singleThreaded("automation-sta");
+        }
+
+        return apartment;
     }
 
-    private void createWrapper() {
-        CANALIZED_OLE32_INSTANCE = Canalizer.canalize(com.sun.jna.platform.win32.Ole32.INSTANCE);
+    Ole32Wrapper() {
+        this(getApartment());
+    }
 
-        CANALIZED_OLE32_INSTANCE.CoInitializeEx(Pointer.NULL, Ole32.COINIT_APARTMENTTHREADED);
+    /**
+     * Creates the automation library on the given apartment thread.
+     *
+     * @param inApartment The apartment.
+     */
+    Ole32Wrapper(final ComApartment inApartment) {
+        createWrapper(inApartment);
+    }
 
-        PointerByReference pbr = new PointerByReference();
+    private void createWrapper(final ComApartment inApartment) {
+        final PointerByReference pbr = new PointerByReference();
 
-        WinNT.HRESULT hr = CANALIZED_OLE32_INSTANCE.CoCreateInstance(
-                IUIAutomation.CLSID,
-                null,
-                WTypes.CLSCTX_SERVER,
-                IUIAutomation.IID,
-                pbr);
+        WinNT.HRESULT hr;
+        try {
+            hr = inApartment.execute(new ComApartment.Call<WinNT.HRESULT>() {
+                public WinNT.HRESULT call() {
+                    return Ole32.INSTANCE.CoCreateInstance(
+                            IUIAutomation.CLSID,
+                            null,
+                            WTypes.CLSCTX_SERVER,
+                            IUIAutomation.IID,
+                            pbr);
+                }
+            });
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException(ex.getCause());
+        }
 
         COMUtils.checkRC(hr);
 
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+import java.util.Arrays;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Which patterns an element supports, held as one bit per pattern.
+ * <p>
+ * The Is...PatternAvailable properties are all fetched in one cached call,
+ * rather than one call for each pattern that is asked about. Snapshots use
+ * the same bits.
+ * </p>
+ */
+public final class PatternAvailability {
+
+    /**
+     * Set in the bits of an element once they have been fetched, so that
+     * no patterns being available can be told apart from not knowing.
+     */
+    public static final int FETCHED = 1 << 31;
+
+    /**
+     * The patterns, in bit order.
+     */
+    static final PatternID[] PATTERNS = {
+            PatternID.Dock,
+            PatternID.ExpandCollapse,
+            PatternID.GridItem,
+            PatternID.Grid,
+            PatternID.Invoke,
+            PatternID.MultipleView,
+            PatternID.RangeValue,
+            PatternID.Scroll,
+            PatternID.ScrollItem,
+            PatternID.SelectionItem,
+            PatternID.Selection,
+            PatternID.Table,
+            PatternID.TableItem,
+            PatternID.Text,
+            PatternID.Toggle,
+            PatternID.Transform,
+            PatternID.Value,
+            PatternID.Window,
+            PatternID.ItemContainer
+    };
+
+    /**
+     * The properties that say whether each of the patterns is available,
+     * in the same order.
+     */
+    static final PropertyID[] PROPERTIES = {
+            PropertyID.IsDockPatternAvailable,
+            PropertyID.IsExpandCollapsePatternAvailable,
+            PropertyID.IsGridItemPatternAvailable,
+            PropertyID.IsGridPatternAvailable,
+            PropertyID.IsInvokePatternAvailable,
+            PropertyID.IsMultipleViewPatternAvailable,
+            PropertyID.IsRangeValuePatternAvailable,
+            PropertyID.IsScrollPatternAvailable,
+            PropertyID.IsScrollItemPatternAvailable,
+            PropertyID.IsSelectionItemPatternAvailable,
+            PropertyID.IsSelectionPatternAvailable,
+            PropertyID.IsTablePatternAvailable,
+            PropertyID.IsTableItemPatternAvailable,
+            PropertyID.IsTextPatternAvailable,
+            PropertyID.IsTogglePatternAvailable,
+            PropertyID.IsTransformPatternAvailable,
+            PropertyID.IsValuePatternAvailable,
+            PropertyID.IsWindowPatternAvailable,
+            PropertyID.IsItemContainerPatternAvailablePropertyId
+    };
+
+    /**
+     * The bit of each pattern and property, indexed by ordinal, -1 if it isn't recorded.
+     */
+    private static final int[] PATTERN_BITS = new int[PatternID.values().length];
+    private static final int[] PROPERTY_BITS = new int[PropertyID.values().length];
+
+    static {
+        Arrays.fill(PATTERN_BITS, -1);
+        Arrays.fill(PROPERTY_BITS, -1);
+
+        for (int bit = 0; bit < PATTERNS.length; bit++) {
+            PATTERN_BITS[PATTERNS[bit].ordinal()] = bit;
+            PROPERTY_BITS[PROPERTIES[bit].ordinal()] = bit;
+        }
+    }
+
+    private PatternAvailability() {
+    }
+
+    /**
+     * Gets the properties that are fetched.
+     *
+     * @return A copy of the properties, in bit order.
+     */
+    public static PropertyID[] getProperties() {
+        return PROPERTIES.clone();
+    }
+
+    /**
+     * Gets the bit for a pattern.
+     *
+     * @param pattern The pattern.
+     * @return The bit, or -1 if the pattern isn't recorded.
+     */
+    static int bitOf(final PatternID pattern) {
+        return PATTERN_BITS[pattern.ordinal()];
+    }
+
+    /**
+     * Gets the bit for an Is...PatternAvailable property.
+     *
+     * @param property The property.
+     * @return The bit, or -1 if the property isn't one of them.
+     */
+    static int bitOf(final PropertyID property) {
+        return PROPERTY_BITS[property.ordinal()];
+    }
+
+    /**
+     * Gets the bits for the patterns.
+     *
+     * @param available The patterns that are available.
+     * @return The bits, patterns that are not recorded are left out.
+     */
+    public static int bits(final PatternID... available) {
+        int bits = 0;
+
+        for (PatternID pattern : available) {
+            int bit = bitOf(pattern);
+            if (bit >= 0) {
+                bits |= 1 << bit;
+            }
+        }
+
+        return bits;
+    }
+
+    /**
+     * Whether the bits say that the pattern for the property is available.
+     *
+     * @param bits The bits.
+     * @param property The Is...PatternAvailable property.
+     * @return True if available.
+     * @throws IllegalArgumentException if the property isn't one of them.
+     */
+    public static boolean isAvailable(final int bits, final PropertyID property) {
+        int bit = bitOf(property);
+        if (bit < 0) {
+            throw new IllegalArgumentException(property + " is not a pattern availability property");
+        }
+
+        return (bits & (1 << bit)) != 0;
+    }
+
+    /**
+     * Reads the bits from the cached properties of an element.
+     *
+     * @param element The element, with the properties cached.
+     * @return The bits.
+     * @throws AutomationException Call to Automation API failed.
+     */
+    static int read(final AutomationElement element) throws AutomationException {
+        int bits = 0;
+
+        for (int bit = 0; bit < PROPERTIES.length; bit++) {
+            if (Boolean.TRUE.equals(AutomationSnapshot.toJava(
+                    element.getCachedPropertyValue(PROPERTIES[bit].getValue())))) {
+                bits |= 1 << bit;
+            }
+        }
+
+        return bits;
+    }
+}
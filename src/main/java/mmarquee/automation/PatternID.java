@@ -209,4 +209,41 @@ public enum PatternID {
     PatternID (int value) {
         this.value = value;
     }
+
+    /**
+     * The first of the ids, they are all in a dense range from here.
+     */
+    private static final int FIRST = 10000;
+
+    /**
+     * The values, indexed by id - FIRST.
+     */
+    private static final PatternID[] BY_VALUE;
+
+    static {
+        int last = FIRST;
+        for (PatternID id : values()) {
+            last = Math.max(last, id.value);
+        }
+
+        BY_VALUE = new PatternID[last - FIRST + 1];
+        for (PatternID id : values()) {
+            BY_VALUE[id.value - FIRST] = id;
+        }
+    }
+
+    /**
+     * Gets the PatternID for an id.
+     *
+     * @param value The id.
+     * @return The PatternID, or null if the id isn't known.
+     */
+    public static PatternID fromValue(final int value) {
+        int index = value - FIRST;
+        if (index < 0 || index >= BY_VALUE.length) {
+            return null;
+        }
+
+        return BY_VALUE[index];
+    }
 }
\ No newline at end of file
@@ -68,6 +68,7 @@ public enum PropertyID {
     IsTransformPatternAvailable(30042),
     IsValuePatternAvailable(30043),
     IsWindowPatternAvailable(30044),
+    ValueValue(30045),
     WindowIsModal(30077),
     WindowIsTopmost(30078),
     AriaRole(30101),
@@ -89,6 +90,43 @@ public enum PropertyID {
     PropertyID (int value) {
         this.value = value;
     }
+
+    /**
+     * The first of the ids, they are all in a dense range from here.
+     */
+    private static final int FIRST = 30000;
+
+    /**
+     * The values, indexed by id - FIRST.
+     */
+    private static final PropertyID[] BY_VALUE;
+
+    static {
+        int last = FIRST;
+        for (PropertyID id : values()) {
+            last = Math.max(last, id.value);
+        }
+
+        BY_VALUE = new PropertyID[last - FIRST + 1];
+        for (PropertyID id : values()) {
+            BY_VALUE[id.value - FIRST] = id;
+        }
+    }
+
+    /**
+     * Gets the PropertyID for an id.
+     *
+     * @param value The id.
+     * @return The PropertyID, or null if the id isn't known.
+     */
+    public static PropertyID fromValue(final int value) {
+        int index = value - FIRST;
+        if (index < 0 || index >= BY_VALUE.length) {
+            return null;
+        }
+
+        return BY_VALUE[index];
+    }
 }
 
 
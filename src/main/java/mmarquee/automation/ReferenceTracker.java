@@ -0,0 +1,225 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+import com.sun.jna.platform.win32.COM.IUnknown;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Keeps track of the COM references owned by wrapper objects (elements,
+ * patterns and conditions).
+ *
+ * References are released either explicitly, when the owner is closed, or
+ * when the owner has been garbage collected without being closed. In the
+ * latter case the reference is counted as leaked, so that tests can check
+ * that everything has been closed properly.
+ *
+ * Collected owners are reclaimed on the thread that next tracks a
+ * reference (or calls drain), rather than on a finalizer thread, so that
+ * the Release call is made on a thread that is using COM.
+ */
+public final class ReferenceTracker {
+
+    /**
+     * Queue of owners that have been collected.
+     */
+    private static final ReferenceQueue<Object> QUEUE = new ReferenceQueue<Object>();
+
+    /**
+     * The handles that have not been released, keeps the handles reachable.
+     */
+    private static final Set<Handle> OPEN =
+            Collections.synchronizedSet(new HashSet<Handle>());
+
+    /**
+     * Number of references released by closing the owner.
+     */
+    private static final AtomicLong CLOSED = new AtomicLong();
+
+    /**
+     * Number of references released after the owner was collected.
+     */
+    private static final AtomicLong LEAKED = new AtomicLong();
+
+    /**
+     * Written by reachabilityFence, a volatile write can't be optimised away.
+     */
+    private static volatile Object fence;
+
+    /**
+     * Not to be instantiated.
+     */
+    private ReferenceTracker() {
+    }
+
+    /**
+     * A tracked reference.
+     */
+    public static final class Handle extends PhantomReference<Object> {
+        /**
+         * The reference to release, never the owner itself.
+         */
+        private final IUnknown target;
+
+        /**
+         * Whether the reference has already been released.
+         */
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        /**
+         * Constructor for the handle.
+         *
+         * @param owner The owning wrapper.
+         * @param target The reference to release.
+         */
+        private Handle(final Object owner, final IUnknown target) {
+            super(owner, QUEUE);
+            this.target = target;
+        }
+
+        /**
+         * Releases the reference, only the first call has any effect.
+         *
+         * @return True if this call released the reference.
+         */
+        public boolean release() {
+            if (!this.released.compareAndSet(false, true)) {
+                return false;
+            }
+
+            OPEN.remove(this);
+            this.clear();
+            this.target.Release();
+
+            return true;
+        }
+
+        /**
+         * Has the reference been released?
+         *
+         * @return True if released.
+         */
+        public boolean isReleased() {
+            return this.released.get();
+        }
+    }
+
+    /**
+     * Starts tracking a reference owned by the given wrapper.
+     *
+     * @param owner The owning wrapper.
+     * @param target The reference to release.
+     * @return The handle, or null if there is nothing to track.
+     */
+    public static Handle track(final Object owner, final IUnknown target) {
+        drain();
+
+        if (target == null) {
+            return null;
+        }
+
+        Handle handle = new Handle(owner, target);
+        OPEN.add(handle);
+
+        return handle;
+    }
+
+    /**
+     * Keeps the owner reachable up to this point. The raw pointer of a
+     * condition or cache request is passed to the automation library rather
+     * than the wrapper, so without this the wrapper could be collected (and
+     * its reference released by another thread) while the call is being
+     * made. Does the job of Reference.reachabilityFence, which needs Java 9.
+     *
+     * @param owner The owning wrapper, may be null.
+     */
+    public static void reachabilityFence(final Object owner) {
+        if (owner != null) {
+            fence = owner;
+            fence = null;
+        }
+    }
+
+    /**
+     * Releases the reference, as the owner has been closed.
+     *
+     * @param handle The handle to release, may be null.
+     */
+    public static void close(final Handle handle) {
+        if (handle != null && handle.release()) {
+            CLOSED.incrementAndGet();
+        }
+    }
+
+    /**
+     * Releases the references of all owners that have been collected
+     * without being closed.
+     *
+     * @return The number of references released.
+     */
+    public static int drain() {
+        int count = 0;
+
+        Handle handle = (Handle) QUEUE.poll();
+        while (handle != null) {
+            if (handle.release()) {
+                LEAKED.incrementAndGet();
+                count++;
+            }
+            handle = (Handle) QUEUE.poll();
+        }
+
+        return count;
+    }
+
+    /**
+     * Gets the number of references that have not been released yet.
+     *
+     * @return The number of open references.
+     */
+    public static int getOpenCount() {
+        return OPEN.size();
+    }
+
+    /**
+     * Gets the number of references released by closing the owner.
+     *
+     * @return The number of closed references.
+     */
+    public static long getClosedCount() {
+        return CLOSED.get();
+    }
+
+    /**
+     * Gets the number of references that were only released after the owner
+     * had been garbage collected.
+     *
+     * @return The number of leaked references.
+     */
+    public static long getLeakedCount() {
+        return LEAKED.get();
+    }
+}
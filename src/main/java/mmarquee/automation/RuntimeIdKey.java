@@ -0,0 +1,49 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+import java.util.Arrays;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * A runtime id, as a key for hash maps.
+ */
+final class RuntimeIdKey {
+    private final int[] id;
+    private final int hash;
+
+    /**
+     * Constructor for the key.
+     *
+     * @param inId The runtime id, which must not be changed afterwards.
+     */
+    RuntimeIdKey(final int[] inId) {
+        this.id = inId;
+        this.hash = Arrays.hashCode(inId);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        return other instanceof RuntimeIdKey && Arrays.equals(this.id, ((RuntimeIdKey) other).id);
+    }
+}
@@ -0,0 +1,414 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+import com.sun.jna.platform.win32.WinDef;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * The differences between two snapshots of the same part of the tree.
+ * <p>
+ * Nodes are matched by their runtime id where they have one, otherwise
+ * by their position, i.e. a node without a runtime id matches the next
+ * child of its parent's match that also has no runtime id, and has the
+ * same control type and automation id. Both
+ * passes are a single scan of the nodes, so the whole comparison is
+ * linear in the size of the snapshots.
+ * </p>
+ */
+public final class SnapshotDiff {
+
+    /**
+     * The kinds of change.
+     */
+    public enum ChangeType {
+        /** The node is only in the later snapshot. */
+        ADDED,
+        /** The node is only in the earlier snapshot. */
+        REMOVED,
+        /** The node has a different parent. */
+        MOVED,
+        /** The node has a different name. */
+        RENAMED,
+        /** The node has different bounds. */
+        BOUNDS_CHANGED,
+        /** One of the extra properties of the node has a different value. */
+        VALUE_CHANGED
+    }
+
+    /**
+     * A single change.
+     */
+    public static final class Change {
+        private final ChangeType type;
+        private final int before;
+        private final int after;
+        private final String element;
+        private final PropertyID property;
+        private final Object oldValue;
+        private final Object newValue;
+
+        private Change(final ChangeType type,
+                       final int before,
+                       final int after,
+                       final String element,
+                       final PropertyID property,
+                       final Object oldValue,
+                       final Object newValue) {
+            this.type = type;
+            this.before = before;
+            this.after = after;
+            this.element = element;
+            this.property = property;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+        }
+
+        /**
+         * Gets the kind of change.
+         * @return The kind of change.
+         */
+        public ChangeType getType() {
+            return this.type;
+        }
+
+        /**
+         * Gets the node in the earlier snapshot.
+         * @return The node, or -1 if it was added.
+         */
+        public int getBefore() {
+            return this.before;
+        }
+
+        /**
+         * Gets the node in the later snapshot.
+         * @return The node, or -1 if it was removed.
+         */
+        public int getAfter() {
+            return this.after;
+        }
+
+        /**
+         * Gets the property that changed, for VALUE_CHANGED.
+         * @return The property, or null.
+         */
+        public PropertyID getProperty() {
+            return this.property;
+        }
+
+        /**
+         * Gets the old value, i.e. the name, bounds or property value.
+         * @return The old value, or null.
+         */
+        public Object getOldValue() {
+            return this.oldValue;
+        }
+
+        /**
+         * Gets the new value, i.e. the name, bounds or property value.
+         * @return The new value, or null.
+         */
+        public Object getNewValue() {
+            return this.newValue;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            builder.append(type).append(' ').append(element);
+
+            if (property != null) {
+                builder.append(' ').append(property);
+            }
+
+            if (type != ChangeType.ADDED && type != ChangeType.REMOVED) {
+                builder.append(": ").append(format(oldValue)).append(" -> ").append(format(newValue));
+            }
+
+            return builder.toString();
+        }
+
+        private static String format(final Object value) {
+            if (value instanceof WinDef.RECT) {
+                WinDef.RECT rect = (WinDef.RECT) value;
+                return "(" + rect.left + "," + rect.top + "," + rect.right + "," + rect.bottom + ")";
+            } else if (value instanceof String) {
+                return "'" + value + "'";
+            } else if (value instanceof int[]) {
+                return Arrays.toString((int[]) value);
+            } else {
+                return String.valueOf(value);
+            }
+        }
+    }
+
+    private final int[] matches;
+    private final List<Change> changes;
+
+    /**
+     * Constructor for SnapshotDiff.
+     *
+     * @param before The earlier snapshot.
+     * @param after The later snapshot.
+     */
+    SnapshotDiff(final AutomationSnapshot before, final AutomationSnapshot after) {
+        this.matches = match(before, after);
+
+        boolean[] matched = new boolean[before.size()];
+        for (int node : this.matches) {
+            if (node >= 0) {
+                matched[node] = true;
+            }
+        }
+
+        List<PropertyID> properties = new ArrayList<PropertyID>(Arrays.asList(before.getProperties()));
+        properties.retainAll(Arrays.asList(after.getProperties()));
+
+        List<Change> found = new ArrayList<Change>();
+
+        for (int node = 0; node < after.size(); node++) {
+            int old = this.matches[node];
+
+            if (old < 0) {
+                found.add(new Change(ChangeType.ADDED, -1, node, describe(after, node), null, null, null));
+                continue;
+            }
+
+            String element = describe(after, node);
+
+            int parent = after.getParent(node);
+            int oldParent = parent < 0 ? -1 : this.matches[parent];
+            if (before.getParent(old) != oldParent) {
+                found.add(new Change(ChangeType.MOVED, old, node, element, null,
+                        before.getParent(old), oldParent));
+            }
+
+            if (!equal(before.getName(old), after.getName(node))) {
+                found.add(new Change(ChangeType.RENAMED, old, node, element, null,
+                        before.getName(old), after.getName(node)));
+            }
+
+            if (!before.sameBounds(old, after, node)) {
+                found.add(new Change(ChangeType.BOUNDS_CHANGED, old, node, element, null,
+                        before.getBoundingRectangle(old), after.getBoundingRectangle(node)));
+            }
+
+            for (PropertyID property : properties) {
+                Object oldValue = before.getPropertyValue(old, property);
+                Object newValue = after.getPropertyValue(node, property);
+
+                if (!equal(oldValue, newValue)) {
+                    found.add(new Change(ChangeType.VALUE_CHANGED, old, node, element, property,
+                            oldValue, newValue));
+                }
+            }
+        }
+
+        for (int node = 0; node < before.size(); node++) {
+            if (!matched[node]) {
+                found.add(new Change(ChangeType.REMOVED, node, -1, describe(before, node), null, null, null));
+            }
+        }
+
+        this.changes = Collections.unmodifiableList(found);
+    }
+
+    /**
+     * Matches the nodes of the later snapshot to those of the earlier one.
+     *
+     * @param before The earlier snapshot.
+     * @param after The later snapshot.
+     * @return The matching node in the earlier snapshot for each node in the later one, or -1.
+     */
+    private static int[] match(final AutomationSnapshot before, final AutomationSnapshot after) {
+        int[] result = new int[after.size()];
+        Arrays.fill(result, -1);
+
+        boolean[] matched = new boolean[before.size()];
+
+        Map<RuntimeIdKey, Integer> byRuntimeId = new HashMap<RuntimeIdKey, Integer>();
+        for (int node = 0; node < before.size(); node++) {
+            int[] id = before.getRuntimeId(node);
+            if (id != null) {
+                byRuntimeId.put(new RuntimeIdKey(id), node);
+            }
+        }
+
+        for (int node = 0; node < after.size(); node++) {
+            int[] id = after.getRuntimeId(node);
+            if (id != null) {
+                Integer old = byRuntimeId.get(new RuntimeIdKey(id));
+                if (old != null && !matched[old]) {
+                    result[node] = old;
+                    matched[old] = true;
+                }
+            }
+        }
+
+        // The nodes without a runtime id, by parent, control type and automation id, in document order
+        Map<PathKey, LinkedList<Integer>> byPath = new HashMap<PathKey, LinkedList<Integer>>();
+        for (int node = 1; node < before.size(); node++) {
+            if (before.getRuntimeId(node) == null) {
+                PathKey key = new PathKey(before.getParent(node),
+                        before.getControlType(node), before.getAutomationId(node));
+
+                LinkedList<Integer> nodes = byPath.get(key);
+                if (nodes == null) {
+                    nodes = new LinkedList<Integer>();
+                    byPath.put(key, nodes);
+                }
+                nodes.add(node);
+            }
+        }
+
+        // Both snapshots are of the same element
+        if (after.size() > 0 && before.size() > 0 && result[0] < 0 && !matched[0]) {
+            result[0] = 0;
+            matched[0] = true;
+        }
+
+        // Parents come before their children, so their matches are already known
+        for (int node = 1; node < after.size(); node++) {
+            int parent = result[after.getParent(node)];
+            if (parent < 0 || after.getRuntimeId(node) != null) {
+                continue;
+            }
+
+            LinkedList<Integer> nodes = byPath.get(new PathKey(parent,
+                    after.getControlType(node), after.getAutomationId(node)));
+
+            if (nodes != null && !nodes.isEmpty()) {
+                int old = nodes.removeFirst();
+                result[node] = old;
+                matched[old] = true;
+            }
+        }
+
+        return result;
+    }
+
+    private static String describe(final AutomationSnapshot snapshot, final int node) {
+        String name = snapshot.getName(node);
+        if (name == null || name.isEmpty()) {
+            name = snapshot.getAutomationId(node);
+        }
+
+        return ControlType.fromValue(snapshot.getControlType(node)) + " '" + name + "'";
+    }
+
+    private static boolean equal(final Object first, final Object second) {
+        return Arrays.deepEquals(new Object[] {first}, new Object[] {second});
+    }
+
+    /**
+     * Gets all of the changes, the changes to nodes in the later snapshot
+     * in document order, followed by the nodes that were removed.
+     *
+     * @return The changes.
+     */
+    public List<Change> getChanges() {
+        return this.changes;
+    }
+
+    /**
+     * Gets the changes of one kind.
+     *
+     * @param type The kind of change.
+     * @return The changes.
+     */
+    public List<Change> getChanges(final ChangeType type) {
+        List<Change> result = new ArrayList<Change>();
+
+        for (Change change : this.changes) {
+            if (change.getType() == type) {
+                result.add(change);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Whether nothing has changed.
+     *
+     * @return True if there are no changes.
+     */
+    public boolean isEmpty() {
+        return this.changes.isEmpty();
+    }
+
+    /**
+     * Gets the node in the earlier snapshot that a node in the later one was matched to.
+     *
+     * @param after The node in the later snapshot.
+     * @return The node in the earlier snapshot, or -1 if it was added.
+     */
+    public int getMatch(final int after) {
+        return this.matches[after];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+
+        for (Change change : this.changes) {
+            builder.append(change).append('\n');
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * The parent, control type and automation id of a node, as a key.
+     */
+    private static final class PathKey {
+        private final int parent;
+        private final int controlType;
+        private final String automationId;
+
+        PathKey(final int inParent, final int inControlType, final String inAutomationId) {
+            this.parent = inParent;
+            this.controlType = inControlType;
+            this.automationId = inAutomationId == null ? "" : inAutomationId;
+        }
+
+        @Override
+        public int hashCode() {
+            return (parent * 31 + controlType) * 31 + automationId.hashCode();
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            if (!(other instanceof PathKey)) {
+                return false;
+            }
+
+            PathKey key = (PathKey) other;
+            return parent == key.parent && controlType == key.controlType
+                    && automationId.equals(key.automationId);
+        }
+    }
+}
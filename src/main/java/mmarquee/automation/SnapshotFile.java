@@ -0,0 +1,439 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Writes snapshots to files, and loads them again.
+ * <p>
+ * The file is a header followed by sections of little endian ints - the
+ * node records, the runtime ids, the string table (offsets and a hash table
+ * of the strings) and the values of the extra properties - and finally the
+ * strings themselves, as UTF-8. Everything is a fixed size, so a loaded
+ * snapshot reads the mapped file directly, and strings are only decoded
+ * when they are asked for.
+ * </p>
+ */
+final class SnapshotFile {
+
+    /**
+     * "UIAS", as a little endian int.
+     */
+    static final int MAGIC = 0x53414955;
+
+    /**
+     * The version of the file format.
+     */
+    static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 10;
+
+    /*
+     * The kinds of extra property values.
+     */
+    private static final int NULL_VALUE = 0;
+    private static final int STRING_VALUE = 1;
+    private static final int INT_VALUE = 2;
+    private static final int BOOLEAN_VALUE = 3;
+    private static final int INT_ARRAY_VALUE = 4;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * Writes a snapshot to a file.
+     * <p>
+     * Values of extra properties that are not strings, integers, booleans
+     * or arrays of ints are written as strings.
+     * </p>
+     *
+     * @param snapshot The snapshot.
+     * @param file The file.
+     * @throws IOException The file could not be written.
+     */
+    static void write(final AutomationSnapshot snapshot, final File file) throws IOException {
+        int size = snapshot.size();
+        PropertyID[] properties = snapshot.getProperties();
+        AutomationSnapshot.StringTable table = snapshot.getStrings();
+        AutomationSnapshot.ValueTable values = snapshot.getValues();
+
+        // The strings of the snapshot, plus any values that have to be written as strings
+        List<String> strings = new ArrayList<String>(table.size());
+        Map<String, Integer> stringIndex = new HashMap<String, Integer>();
+        for (int index = 0; index < table.size(); index++) {
+            strings.add(table.get(index));
+            stringIndex.put(table.get(index), index);
+        }
+
+        int[] valueRecords = new int[size * properties.length * 2];
+        AutomationSnapshot.IntList pool = new AutomationSnapshot.IntList();
+
+        for (int node = 0; node < size; node++) {
+            for (int column = 0; column < properties.length; column++) {
+                int base = (node * properties.length + column) * 2;
+                Object value = values.get(column, node);
+
+                if (value == null) {
+                    valueRecords[base] = NULL_VALUE;
+                } else if (value instanceof Integer) {
+                    valueRecords[base] = INT_VALUE;
+                    valueRecords[base + 1] = (Integer) value;
+                } else if (value instanceof Boolean) {
+                    valueRecords[base] = BOOLEAN_VALUE;
+                    valueRecords[base + 1] = ((Boolean) value) ? 1 : 0;
+                } else if (value instanceof int[]) {
+                    int[] ints = (int[]) value;
+                    valueRecords[base] = INT_ARRAY_VALUE;
+                    valueRecords[base + 1] = pool.size();
+                    pool.add(ints.length);
+                    for (int item : ints) {
+                        pool.add(item);
+                    }
+                } else {
+                    String text = value.toString();
+                    Integer index = stringIndex.get(text);
+                    if (index == null) {
+                        index = strings.size();
+                        strings.add(text);
+                        stringIndex.put(text, index);
+                    }
+                    valueRecords[base] = STRING_VALUE;
+                    valueRecords[base + 1] = index;
+                }
+            }
+        }
+
+        byte[][] encoded = new byte[strings.size()][];
+        int[] offsets = new int[strings.size() + 1];
+        for (int index = 0; index < encoded.length; index++) {
+            encoded[index] = strings.get(index).getBytes(UTF8);
+            offsets[index + 1] = offsets[index] + encoded[index].length;
+        }
+
+        int[] hash = hashTable(strings);
+
+        IntBuffer records = snapshot.getRecords();
+        IntBuffer runtimeIdStarts = snapshot.getRuntimeIdStarts();
+        IntBuffer runtimeIds = snapshot.getRuntimeIds();
+        int[] poolInts = pool.toArray();
+
+        int ints = HEADER_SIZE + properties.length
+                + records.remaining()
+                + runtimeIdStarts.remaining()
+                + runtimeIds.remaining()
+                + offsets.length
+                + hash.length
+                + valueRecords.length
+                + poolInts.length;
+
+        ByteBuffer buffer = ByteBuffer.allocate(ints * 4 + offsets[encoded.length])
+                .order(ByteOrder.LITTLE_ENDIAN);
+        IntBuffer out = buffer.asIntBuffer();
+
+        out.put(MAGIC);
+        out.put(VERSION);
+        out.put(size);
+        out.put(AutomationSnapshot.RECORD_SIZE);
+        out.put(runtimeIds.remaining());
+        out.put(strings.size());
+        out.put(hash.length);
+        out.put(offsets[encoded.length]);
+        out.put(properties.length);
+        out.put(poolInts.length);
+
+        for (PropertyID property : properties) {
+            out.put(property.getValue());
+        }
+
+        out.put(records);
+        out.put(runtimeIdStarts);
+        out.put(runtimeIds);
+        out.put(offsets);
+        out.put(hash);
+        out.put(valueRecords);
+        out.put(poolInts);
+
+        buffer.position(ints * 4);
+        for (byte[] bytes : encoded) {
+            buffer.put(bytes);
+        }
+        buffer.flip();
+
+        FileOutputStream stream = new FileOutputStream(file);
+        try {
+            FileChannel channel = stream.getChannel();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Builds an open addressing hash table of the strings, holding the
+     * index of each string plus one (so that 0 is an empty slot).
+     *
+     * @param strings The strings.
+     * @return The hash table, its size is a power of two.
+     */
+    private static int[] hashTable(final List<String> strings) {
+        int capacity = 1;
+        while (capacity < strings.size() * 2) {
+            capacity <<= 1;
+        }
+
+        int[] table = new int[capacity];
+        for (int index = 0; index < strings.size(); index++) {
+            int slot = strings.get(index).hashCode() & (capacity - 1);
+            while (table[slot] != 0) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            table[slot] = index + 1;
+        }
+
+        return table;
+    }
+
+    /**
+     * Loads a snapshot from a file, by mapping it into memory.
+     *
+     * @param file The file.
+     * @return The snapshot.
+     * @throws IOException The file could not be read, or is not a snapshot.
+     */
+    static AutomationSnapshot load(final File file) throws IOException {
+        MappedByteBuffer mapped;
+
+        RandomAccessFile stream = new RandomAccessFile(file, "r");
+        try {
+            // The mapping stays valid once the file is closed
+            mapped = stream.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, stream.length());
+        } finally {
+            stream.close();
+        }
+
+        ByteBuffer buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (buffer.capacity() < HEADER_SIZE * 4 || buffer.getInt(0) != MAGIC) {
+            throw new IOException(file + " is not a snapshot");
+        }
+
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Snapshot version " + version + " is not supported");
+        }
+
+        int size = buffer.getInt(8);
+        int recordSize = buffer.getInt(12);
+        int runtimeIdCount = buffer.getInt(16);
+        int stringCount = buffer.getInt(20);
+        int hashCapacity = buffer.getInt(24);
+        int stringBytes = buffer.getInt(28);
+        int propertyCount = buffer.getInt(32);
+        int poolCount = buffer.getInt(36);
+
+        if (recordSize != AutomationSnapshot.RECORD_SIZE) {
+            throw new IOException("Snapshot records of " + recordSize + " ints are not supported");
+        }
+
+        long ints = (long) HEADER_SIZE + propertyCount
+                + (long) size * recordSize
+                + size + 1
+                + runtimeIdCount
+                + stringCount + 1
+                + hashCapacity
+                + (long) size * propertyCount * 2
+                + poolCount;
+
+        if (size < 0 || runtimeIdCount < 0 || stringCount < 0 || hashCapacity < 0
+                || stringBytes < 0 || propertyCount < 0 || poolCount < 0
+                || ints * 4 + stringBytes != buffer.capacity()) {
+            throw new IOException(file + " is not a complete snapshot");
+        }
+
+        PropertyID[] properties = new PropertyID[propertyCount];
+        for (int column = 0; column < propertyCount; column++) {
+            properties[column] = propertyOf(buffer.getInt((HEADER_SIZE + column) * 4));
+        }
+
+        int position = (HEADER_SIZE + propertyCount) * 4;
+
+        IntBuffer records = ints(buffer, position, size * recordSize);
+        position += size * recordSize * 4;
+
+        IntBuffer runtimeIdStarts = ints(buffer, position, size + 1);
+        position += (size + 1) * 4;
+
+        IntBuffer runtimeIds = ints(buffer, position, runtimeIdCount);
+        position += runtimeIdCount * 4;
+
+        IntBuffer offsets = ints(buffer, position, stringCount + 1);
+        position += (stringCount + 1) * 4;
+
+        IntBuffer hash = ints(buffer, position, hashCapacity);
+        position += hashCapacity * 4;
+
+        IntBuffer valueRecords = ints(buffer, position, size * propertyCount * 2);
+        position += size * propertyCount * 8;
+
+        IntBuffer pool = ints(buffer, position, poolCount);
+        position += poolCount * 4;
+
+        MappedStrings strings = new MappedStrings(offsets, hash, slice(buffer, position, stringBytes));
+
+        return new AutomationSnapshot(records, runtimeIdStarts, runtimeIds, strings, properties,
+                new MappedValues(valueRecords, pool, propertyCount, strings));
+    }
+
+    private static PropertyID propertyOf(final int id) throws IOException {
+        PropertyID property = PropertyID.fromValue(id);
+        if (property == null) {
+            throw new IOException("Unknown property " + id);
+        }
+
+        return property;
+    }
+
+    private static ByteBuffer slice(final ByteBuffer buffer, final int position, final int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(position);
+        view.limit(position + length);
+        return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static IntBuffer ints(final ByteBuffer buffer, final int position, final int count) {
+        return slice(buffer, position, count * 4).asIntBuffer();
+    }
+
+    /**
+     * The strings of a loaded snapshot, which are decoded the first time
+     * they are used.
+     */
+    private static final class MappedStrings extends AutomationSnapshot.StringTable {
+        private final IntBuffer offsets;
+        private final IntBuffer hash;
+        private final ByteBuffer bytes;
+        private final String[] decoded;
+
+        MappedStrings(final IntBuffer inOffsets, final IntBuffer inHash, final ByteBuffer inBytes) {
+            this.offsets = inOffsets;
+            this.hash = inHash;
+            this.bytes = inBytes;
+            this.decoded = new String[inOffsets.limit() - 1];
+        }
+
+        int size() {
+            return this.decoded.length;
+        }
+
+        String get(final int index) {
+            String value = this.decoded[index];
+
+            if (value == null) {
+                int from = this.offsets.get(index);
+                byte[] data = new byte[this.offsets.get(index + 1) - from];
+
+                ByteBuffer view = this.bytes.duplicate();
+                view.position(from);
+                view.get(data);
+
+                value = new String(data, UTF8);
+                this.decoded[index] = value;
+            }
+
+            return value;
+        }
+
+        int indexOf(final String value) {
+            int capacity = this.hash.limit();
+            if (capacity == 0) {
+                return -1;
+            }
+
+            int slot = value.hashCode() & (capacity - 1);
+            for (int entry = this.hash.get(slot); entry != 0; entry = this.hash.get(slot)) {
+                if (this.get(entry - 1).equals(value)) {
+                    return entry - 1;
+                }
+                slot = (slot + 1) & (capacity - 1);
+            }
+
+            return -1;
+        }
+    }
+
+    /**
+     * The extra property values of a loaded snapshot.
+     */
+    private static final class MappedValues extends AutomationSnapshot.ValueTable {
+        private final IntBuffer records;
+        private final IntBuffer pool;
+        private final int columns;
+        private final MappedStrings strings;
+
+        MappedValues(final IntBuffer inRecords,
+                     final IntBuffer inPool,
+                     final int inColumns,
+                     final MappedStrings inStrings) {
+            this.records = inRecords;
+            this.pool = inPool;
+            this.columns = inColumns;
+            this.strings = inStrings;
+        }
+
+        Object get(final int column, final int node) {
+            int base = (node * this.columns + column) * 2;
+            int payload = this.records.get(base + 1);
+
+            switch (this.records.get(base)) {
+                case STRING_VALUE:
+                    return this.strings.get(payload);
+                case INT_VALUE:
+                    return payload;
+                case BOOLEAN_VALUE:
+                    return payload != 0;
+                case INT_ARRAY_VALUE:
+                    int[] ints = new int[this.pool.get(payload)];
+                    for (int index = 0; index < ints.length; index++) {
+                        ints[index] = this.pool.get(payload + 1 + index);
+                    }
+                    return ints;
+                default:
+                    return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,372 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.platform.win32.Guid;
+import com.sun.jna.platform.win32.Variant;
+import com.sun.jna.platform.win32.WinDef;
+import com.sun.jna.platform.win32.WinNT;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.PointerByReference;
+import mmarquee.automation.uiautomation.IUIAutomationElement3;
+import mmarquee.automation.uiautomation.TreeScope;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Recovers elements that have gone stale, e.g. when a WPF view is
+ * re-templated and the elements are replaced by new ones.
+ * <p>
+ * Elements found by the containers (e.g. getButton("OK")) remember the
+ * search that found them, and the element it was run from. When a call on
+ * such an element fails with UIA_E_ELEMENTNOTAVAILABLE, the search is run
+ * again, and the call is retried once on the element that is found. The
+ * element the search is run from recovers in the same way if it has gone
+ * stale too, so the search starts from the nearest ancestor that is still
+ * there.
+ * </p>
+ */
+public final class StaleElementRecovery {
+
+    /**
+     * The error returned when the element is no longer in the tree.
+     */
+    public static final int UIA_E_ELEMENTNOTAVAILABLE = 0x80040201;
+
+    private static volatile boolean enabled = true;
+
+    private static final AtomicLong RECOVERED = new AtomicLong();
+    private static final AtomicLong FAILED = new AtomicLong();
+
+    /**
+     * Not to be instantiated.
+     */
+    private StaleElementRecovery() {
+    }
+
+    /**
+     * Whether the exception is because the element is no longer available.
+     *
+     * @param ex The exception.
+     * @return True if the element has gone.
+     */
+    public static boolean isElementNotAvailable(final AutomationException ex) {
+        return ex.getErrorcode() == UIA_E_ELEMENTNOTAVAILABLE;
+    }
+
+    /**
+     * Turns recovery on or off, it is on by default.
+     *
+     * @param value Whether to recover stale elements.
+     */
+    public static void setEnabled(final boolean value) {
+        enabled = value;
+    }
+
+    /**
+     * Whether stale elements are recovered.
+     *
+     * @return True if enabled.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Gets the number of stale elements that have been found again.
+     *
+     * @return The number of recoveries.
+     */
+    public static long getRecoveredCount() {
+        return RECOVERED.get();
+    }
+
+    /**
+     * Gets the number of stale elements that could not be found again.
+     *
+     * @return The number of failed recoveries.
+     */
+    public static long getFailedCount() {
+        return FAILED.get();
+    }
+
+    /**
+     * Resets the counts, e.g. between tests.
+     */
+    public static void resetCounts() {
+        RECOVERED.set(0);
+        FAILED.set(0);
+    }
+
+    static void recovered() {
+        RECOVERED.incrementAndGet();
+    }
+
+    static void failed() {
+        FAILED.incrementAndGet();
+    }
+
+    /**
+     * Creates the interface that an element makes its calls through, which
+     * recovers the element and retries the call if the element has gone.
+     *
+     * @param owner The element.
+     * @param target The underlying element.
+     * @return The interface to call.
+     */
+    static Retrying retrying(final AutomationElement owner, final IUIAutomationElement3 target) {
+        return new Retrying(owner, target);
+    }
+
+    /**
+     * Passes calls on to the current underlying element, recovering the
+     * element and making the call again if it has gone. Calls for cached
+     * values don't go to the provider, so are never retried.
+     */
+    static final class Retrying implements IUIAutomationElement3 {
+        private final AutomationElement owner;
+        private volatile IUIAutomationElement3 target;
+
+        private Retrying(final AutomationElement inOwner, final IUIAutomationElement3 inTarget) {
+            this.owner = inOwner;
+            this.target = inTarget;
+        }
+
+        IUIAutomationElement3 getTarget() {
+            return this.target;
+        }
+
+        void setTarget(final IUIAutomationElement3 value) {
+            this.target = value;
+        }
+
+        /**
+         * Whether the call failed because the element has gone, and the
+         * element has been found again, so the call should be retried.
+         *
+         * @param res The result of the call.
+         * @return True to retry.
+         */
+        private boolean isStale(final int res) {
+            return res == UIA_E_ELEMENTNOTAVAILABLE && enabled && this.owner.recover();
+        }
+
+        public int AddRef() {
+            return this.target.AddRef();
+        }
+
+        public int Release() {
+            return this.target.Release();
+        }
+
+        public WinNT.HRESULT QueryInterface(final Guid.REFIID byValue, final PointerByReference pointerByReference) {
+            return this.target.QueryInterface(byValue, pointerByReference);
+        }
+
+        public int setFocus() {
+            int res = this.target.setFocus();
+            return this.isStale(res) ? this.target.setFocus() : res;
+        }
+
+        public int getCurrentName(final PointerByReference sr) {
+            int res = this.target.getCurrentName(sr);
+            return this.isStale(res) ? this.target.getCurrentName(sr) : res;
+        }
+
+        public int getCurrentClassName(final PointerByReference sr) {
+            int res = this.target.getCurrentClassName(sr);
+            return this.isStale(res) ? this.target.getCurrentClassName(sr) : res;
+        }
+
+        public int findAll(final TreeScope scope, final Pointer condition, final PointerByReference sr) {
+            int res = this.target.findAll(scope, condition, sr);
+            return this.isStale(res) ? this.target.findAll(scope, condition, sr) : res;
+        }
+
+        public int findFirst(final TreeScope scope, final Pointer condition, final PointerByReference sr) {
+            int res = this.target.findFirst(scope, condition, sr);
+            return this.isStale(res) ? this.target.findFirst(scope, condition, sr) : res;
+        }
+
+        public int getClickablePoint(final WinDef.POINT.ByReference clickable,
+                                     final WinDef.BOOLByReference gotClickable) {
+            int res = this.target.getClickablePoint(clickable, gotClickable);
+            return this.isStale(res) ? this.target.getClickablePoint(clickable, gotClickable) : res;
+        }
+
+        public int getCurrentIsPassword(final IntByReference value) {
+            int res = this.target.getCurrentIsPassword(value);
+            return this.isStale(res) ? this.target.getCurrentIsPassword(value) : res;
+        }
+
+        public int getCurrentAriaRole(final PointerByReference sr) {
+            int res = this.target.getCurrentAriaRole(sr);
+            return this.isStale(res) ? this.target.getCurrentAriaRole(sr) : res;
+        }
+
+        public int getCurrentPattern(final Integer patternId, final PointerByReference pbr) {
+            int res = this.target.getCurrentPattern(patternId, pbr);
+            return this.isStale(res) ? this.target.getCurrentPattern(patternId, pbr) : res;
+        }
+
+        public int getCurrentPropertyValue(final int propertyId, final Variant.VARIANT.ByReference value) {
+            int res = this.target.getCurrentPropertyValue(propertyId, value);
+            return this.isStale(res) ? this.target.getCurrentPropertyValue(propertyId, value) : res;
+        }
+
+        public int getCurrentControlType(final IntByReference ipr) {
+            int res = this.target.getCurrentControlType(ipr);
+            return this.isStale(res) ? this.target.getCurrentControlType(ipr) : res;
+        }
+
+        public int getCurrentProviderDescription(final PointerByReference sr) {
+            int res = this.target.getCurrentProviderDescription(sr);
+            return this.isStale(res) ? this.target.getCurrentProviderDescription(sr) : res;
+        }
+
+        public int getCurrentFrameworkId(final PointerByReference retVal) {
+            int res = this.target.getCurrentFrameworkId(retVal);
+            return this.isStale(res) ? this.target.getCurrentFrameworkId(retVal) : res;
+        }
+
+        public int getCurrentItemStatus(final PointerByReference retVal) {
+            int res = this.target.getCurrentItemStatus(retVal);
+            return this.isStale(res) ? this.target.getCurrentItemStatus(retVal) : res;
+        }
+
+        public int getCurrentOrientation(final IntByReference retVal) {
+            int res = this.target.getCurrentOrientation(retVal);
+            return this.isStale(res) ? this.target.getCurrentOrientation(retVal) : res;
+        }
+
+        public int getCurrentAcceleratorKey(final PointerByReference retVal) {
+            int res = this.target.getCurrentAcceleratorKey(retVal);
+            return this.isStale(res) ? this.target.getCurrentAcceleratorKey(retVal) : res;
+        }
+
+        public int getCurrentProcessId(final IntByReference retVal) {
+            int res = this.target.getCurrentProcessId(retVal);
+            return this.isStale(res) ? this.target.getCurrentProcessId(retVal) : res;
+        }
+
+        public int getCurrentBoundingRectangle(final WinDef.RECT retVal) {
+            int res = this.target.getCurrentBoundingRectangle(retVal);
+            return this.isStale(res) ? this.target.getCurrentBoundingRectangle(retVal) : res;
+        }
+
+        public int getCurrentLocalizedControlType(final PointerByReference retVal) {
+            int res = this.target.getCurrentLocalizedControlType(retVal);
+            return this.isStale(res) ? this.target.getCurrentLocalizedControlType(retVal) : res;
+        }
+
+        public int getCurrentIsOffscreen(final WinDef.BOOLByReference retVal) {
+            int res = this.target.getCurrentIsOffscreen(retVal);
+            return this.isStale(res) ? this.target.getCurrentIsOffscreen(retVal) : res;
+        }
+
+        public int getCurrentIsEnabled(final WinDef.BOOLByReference retVal) {
+            int res = this.target.getCurrentIsEnabled(retVal);
+            return this.isStale(res) ? this.target.getCurrentIsEnabled(retVal) : res;
+        }
+
+        public int getCurrentIsControlElement(final WinDef.BOOLByReference retVal) {
+            int res = this.target.getCurrentIsControlElement(retVal);
+            return this.isStale(res) ? this.target.getCurrentIsControlElement(retVal) : res;
+        }
+
+        public int getCurrentIsContentElement(final WinDef.BOOLByReference retVal) {
+            int res = this.target.getCurrentIsContentElement(retVal);
+            return this.isStale(res) ? this.target.getCurrentIsContentElement(retVal) : res;
+        }
+
+        public int getRuntimeId(final PointerByReference runtimeId) {
+            // Not retried, the runtime id is the element's identity, which doesn't change on recovery
+            return this.target.getRuntimeId(runtimeId);
+        }
+
+        public int getCurrentAutomationId(final PointerByReference retVal) {
+            int res = this.target.getCurrentAutomationId(retVal);
+            return this.isStale(res) ? this.target.getCurrentAutomationId(retVal) : res;
+        }
+
+        public int getCurrentCulture(final IntByReference retVal) {
+            int res = this.target.getCurrentCulture(retVal);
+            return this.isStale(res) ? this.target.getCurrentCulture(retVal) : res;
+        }
+
+        public int findFirstBuildCache(final TreeScope scope, final Pointer condition,
+                                       final Pointer cacheRequest, final PointerByReference sr) {
+            int res = this.target.findFirstBuildCache(scope, condition, cacheRequest, sr);
+            return this.isStale(res) ? this.target.findFirstBuildCache(scope, condition, cacheRequest, sr) : res;
+        }
+
+        public int findAllBuildCache(final TreeScope scope, final Pointer condition,
+                                     final Pointer cacheRequest, final PointerByReference sr) {
+            int res = this.target.findAllBuildCache(scope, condition, cacheRequest, sr);
+            return this.isStale(res) ? this.target.findAllBuildCache(scope, condition, cacheRequest, sr) : res;
+        }
+
+        public int buildUpdatedCache(final Pointer cacheRequest, final PointerByReference sr) {
+            int res = this.target.buildUpdatedCache(cacheRequest, sr);
+            return this.isStale(res) ? this.target.buildUpdatedCache(cacheRequest, sr) : res;
+        }
+
+        public int getCachedPropertyValue(final int propertyId, final Variant.VARIANT.ByReference value) {
+            return this.target.getCachedPropertyValue(propertyId, value);
+        }
+
+        public int getCachedPattern(final Integer patternId, final PointerByReference pbr) {
+            return this.target.getCachedPattern(patternId, pbr);
+        }
+
+        public int getCachedParent(final PointerByReference parent) {
+            return this.target.getCachedParent(parent);
+        }
+
+        public int getCachedChildren(final PointerByReference children) {
+            return this.target.getCachedChildren(children);
+        }
+
+        public int getCachedControlType(final IntByReference retVal) {
+            return this.target.getCachedControlType(retVal);
+        }
+
+        public int getCachedName(final PointerByReference retVal) {
+            return this.target.getCachedName(retVal);
+        }
+
+        public int getCachedAutomationId(final PointerByReference retVal) {
+            return this.target.getCachedAutomationId(retVal);
+        }
+
+        public int getCachedClassName(final PointerByReference retVal) {
+            return this.target.getCachedClassName(retVal);
+        }
+
+        public int getCachedBoundingRectangle(final WinDef.RECT retVal) {
+            return this.target.getCachedBoundingRectangle(retVal);
+        }
+
+        public int showContextMenu() {
+            int res = this.target.showContextMenu();
+            return this.isStale(res) ? this.target.showContextMenu() : res;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * The kinds of change reported by a StructureChanged event.
+ */
+public enum StructureChangeType {
+    /**
+     * A child was added, the sender is the new child.
+     */
+    ChildAdded(0),
+
+    /**
+     * A child was removed, the sender is the parent.
+     */
+    ChildRemoved(1),
+
+    /**
+     * The children of the sender have changed.
+     */
+    ChildrenInvalidated(2),
+
+    /**
+     * Children were added to the sender.
+     */
+    ChildrenBulkAdded(3),
+
+    /**
+     * Children were removed from the sender.
+     */
+    ChildrenBulkRemoved(4),
+
+    /**
+     * The children of the sender were reordered.
+     */
+    ChildrenReordered(5);
+
+    private int value;
+
+    public int getValue() {
+        return this.value;
+    }
+
+    StructureChangeType(int value) {
+        this.value = value;
+    }
+
+    /**
+     * Gets the change type for the value.
+     *
+     * @param value The value.
+     * @return The change type, ChildrenInvalidated if the value is not known.
+     */
+    public static StructureChangeType fromValue(final int value) {
+        for (StructureChangeType type : values()) {
+            if (type.getValue() == value) {
+                return type;
+            }
+        }
+        return ChildrenInvalidated;
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Receives StructureChanged events with the details of the change, see
+ * UIAutomation.addEventHandler.
+ *
+ * Events are delivered one at a time on the event dispatch thread, and
+ * handleEvent is not called for them.
+ */
+public interface StructureChangedEventListener extends AutomationEventListener {
+    /**
+     * Handles a structure changed event.
+     *
+     * @param sender The element that raised the event, owned by the listener.
+     * @param changeType The kind of change.
+     * @param runtimeId The runtime id of the element that changed, or null.
+     */
+    void handleStructureChangedEvent(AutomationElement sender,
+                                     StructureChangeType changeType,
+                                     int[] runtimeId);
+}
@@ -27,10 +27,19 @@ import mmarquee.automation.controls.AutomationWindow;
 import mmarquee.automation.controls.menu.AutomationMenu;
 import mmarquee.automation.pattern.PatternNotFoundException;
 import mmarquee.automation.uiautomation.*;
+import mmarquee.automation.utils.ComApartment;
+import mmarquee.automation.utils.PatternLiterals;
 import mmarquee.automation.utils.Utils;
 
+import java.io.Closeable;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
 
@@ -40,12 +49,21 @@ import java.util.regex.Pattern;
  *
  * The base automation wrapper.
  */
-public class UIAutomation extends BaseAutomation {
+public class UIAutomation extends BaseAutomation implements Closeable {
 
     protected Logger logger = Logger.getLogger(UIAutomation.class.getName());
 
-    protected static UIAutomation INSTANCE = null;
-    private static Ole32Wrapper Ole32 = null;
+    protected static volatile UIAutomation INSTANCE = null;
+
+    /**
+     * The instance for the current thread, when it is an AutomationPool worker.
+     */
+    private static final ThreadLocal<UIAutomation> WORKER_INSTANCE = new ThreadLocal<UIAutomation>();
+
+    /**
+     * The Ole32 wrapper the automation library was created with.
+     */
+    private Ole32Wrapper ole32 = null;
 
     private AutomationElement rootElement;
 
@@ -54,6 +72,43 @@ public class UIAutomation extends BaseAutomation {
      */
     private IUIAutomation automation;
 
+    /**
+     * Conditions that have already been built.
+     */
+    private final ConditionCache conditionCache = new ConditionCache(ConditionCache.DEFAULT_SIZE);
+
+    /**
+     * Cache requests for sets of properties, created when first needed.
+     */
+    private final Map<Set<PropertyID>, CacheRequest> cacheRequests =
+            new HashMap<Set<PropertyID>, CacheRequest>();
+
+    /**
+     * Whether substring conditions are supported, they need Windows 10 1809.
+     */
+    private volatile boolean substringConditionsSupported = true;
+
+    /**
+     * Delivers automation events to listeners.
+     */
+    private final EventDispatcher dispatcher = new EventDispatcher(EventDispatcher.DEFAULT_CAPACITY);
+
+    /**
+     * Waits for elements to appear, created when first needed.
+     */
+    private Waiter waiter;
+
+    /**
+     * The event handlers that have been added.
+     */
+    private final Set<EventSubscription> subscriptions =
+            Collections.synchronizedSet(new HashSet<EventSubscription>());
+
+    /**
+     * Whether the library has been released.
+     */
+    private boolean closed;
+
     /*final*/ static int FIND_DESKTOP_ATTEMPTS = 25; // not final to be set in tests
 
     /**
@@ -69,7 +124,21 @@ public class UIAutomation extends BaseAutomation {
      * Constructor for UIAutomation library.
      */
     protected UIAutomation() {
-        Ole32 = new Ole32Wrapper();
+        this(new Ole32Wrapper());
+    }
+
+    /**
+     * Constructor for UIAutomation library, creating it on the given
+     * apartment thread (e.g. a worker of an AutomationPool).
+     *
+     * @param apartment The apartment.
+     */
+    UIAutomation(final ComApartment apartment) {
+        this(new Ole32Wrapper(apartment));
+    }
+
+    private UIAutomation(final Ole32Wrapper inOle32) {
+        this.ole32 = inOle32;
 
         PointerByReference pbr1 = new PointerByReference();
 
@@ -86,6 +155,8 @@ public class UIAutomation extends BaseAutomation {
 
         WinNT.HRESULT result0 = uRoot.QueryInterface(new Guid.REFIID(IUIAutomationElement3.IID), pRoot);
 
+        uRoot.Release();
+
         if (COMUtils.SUCCEEDED(result0)) {
             this.rootElement = new AutomationElement(IUIAutomationElement3Converter.PointerToInterface(pRoot));
         }
@@ -96,7 +167,7 @@ public class UIAutomation extends BaseAutomation {
      * @return Unknown The COM Unknown value.
      */
     Unknown getOle32Unknown() {
-        return Ole32.getUnknown();
+        return this.ole32.getUnknown();
     }
 
     /**
@@ -124,16 +195,44 @@ public class UIAutomation extends BaseAutomation {
     }
 
     /**
-     * Gets the instance.
+     * Gets the instance. On an AutomationPool worker thread this is the
+     * worker's own instance, otherwise it is the shared instance, which is
+     * created the first time it is asked for.
      *
      * @return the instance of the ui automation library.
      */
     public static UIAutomation getInstance() {
-        if (INSTANCE == null) {
-            INSTANCE = new UIAutomation();
+        UIAutomation instance = WORKER_INSTANCE.get();
+        if (instance != null) {
+            return instance;
+        }
+
+        instance = INSTANCE;
+
+        if (instance == null) {
+            synchronized (UIAutomation.class) {
+                instance = INSTANCE;
+                if (instance == null) {
+                    instance = new UIAutomation();
+                    INSTANCE = instance;
+                }
+            }
         }
 
-        return INSTANCE;
+        return instance;
+    }
+
+    /**
+     * Sets the instance returned by getInstance on the current thread.
+     *
+     * @param instance The instance, or null to use the shared instance.
+     */
+    static void setWorkerInstance(final UIAutomation instance) {
+        if (instance == null) {
+            WORKER_INSTANCE.remove();
+        } else {
+            WORKER_INSTANCE.set(instance);
+        }
     }
 
     /**
@@ -265,31 +364,27 @@ public class UIAutomation extends BaseAutomation {
                                   final String title,
                                   final int numberOfRetries)
             throws AutomationException {
-        AutomationElement foundElement = null;
-        
-        // And Condition
-        PointerByReference pAndCondition = this.createAndCondition(
-        		this.createNamePropertyCondition(title), 
-        		this.createControlTypeCondition(controlType));
+        AutomationElement foundElement;
+        Conditions conditions = new Conditions();
 
-        for (int loop = 0; loop < numberOfRetries; loop++) {
-
-            try {
-            	foundElement = this.rootElement.findFirst(new TreeScope(TreeScope.Descendants), pAndCondition);
-            } catch (AutomationException ex) {
-                logger.info("Not found, retrying " + title);
-            }
-
-            if (foundElement != null) {
-                break;
-            }
+        try {
+            // And Condition
+            final PointerByReference pAndCondition = conditions.add(this.createAndCondition(
+                    conditions.add(this.createNamePropertyCondition(title)),
+                    conditions.add(this.createControlTypeCondition(controlType))));
+
+            foundElement = this.getWaiter().waitFor(new Waiter.Search() {
+                public AutomationElement find() throws AutomationException {
+                    return rootElement.findFirst(new TreeScope(TreeScope.Descendants), pAndCondition);
+                }
 
-            // Wait for it
-            try {
-				Thread.sleep(AutomationWindow.SLEEP_DURATION);
-			} catch (InterruptedException e) {
-                // interrupted
-			}
+                public boolean matches(final AutomationElement candidate) throws AutomationException {
+                    return candidate.getControlType() == controlType.getValue()
+                            && title.equals(candidate.getName());
+                }
+            }, numberOfRetries, AutomationWindow.SLEEP_DURATION);
+        } finally {
+            conditions.close();
         }
 
         if (foundElement == null) {
@@ -311,38 +406,44 @@ public class UIAutomation extends BaseAutomation {
                                   final Pattern titlePattern,
                                   final int numberOfRetries)
             throws AutomationException {
-    	
-        AutomationElement foundElement = null;
-        
-        // And Condition
-        PointerByReference condition = this.createControlTypeCondition(controlType);
+        AutomationElement foundElement;
+        Conditions conditions = new Conditions();
+
+        try {
+            // And Condition
+            final PointerByReference condition = conditions.add(this.createControlTypeCondition(controlType));
+
+            foundElement = this.getWaiter().waitFor(new Waiter.Search() {
+                public AutomationElement find() throws AutomationException {
+                    List<AutomationElement> collection =
+                            rootElement.findAll(new TreeScope(TreeScope.Descendants), condition);
+
+                    AutomationElement found = null;
+
+                    for (AutomationElement element : collection) {
+                        if (found == null && matchesTitle(element)) {
+                            found = element;
+                        } else {
+                            element.close();
+                        }
+                    }
+
+                    return found;
+                }
 
-        retry_loop: for (int loop = 0; loop < numberOfRetries; loop++) {
+                public boolean matches(final AutomationElement candidate) throws AutomationException {
+                    return candidate.getControlType() == controlType.getValue()
+                            && matchesTitle(candidate);
+                }
 
-            try {
-                List<AutomationElement> collection = 
-                		this.rootElement.findAll(new TreeScope(TreeScope.Descendants), condition);
-                
-                for (AutomationElement element : collection) {
+                private boolean matchesTitle(final AutomationElement element) throws AutomationException {
                     String name = element.getName();
 
-                    if (name != null && titlePattern.matcher(name).matches()) {
-                        foundElement = element;
-                        break retry_loop;
-                    }
+                    return name != null && titlePattern.matcher(name).matches();
                 }
-                
-            } catch (AutomationException ex) {
-            }
-            
-            logger.info("Not found, retrying matching " + titlePattern);
-
-            // Wait for it
-            try {
-				Thread.sleep(AutomationWindow.SLEEP_DURATION);
-			} catch (InterruptedException e) {
-                // interrupted
-			}
+            }, numberOfRetries, AutomationWindow.SLEEP_DURATION);
+        } finally {
+            conditions.close();
         }
 
         if (foundElement == null) {
@@ -408,6 +509,29 @@ public class UIAutomation extends BaseAutomation {
             throws PatternNotFoundException, AutomationException {
         return new AutomationWindow(this.get(ControlType.Window, titlePattern, retries));
     }
+    /**
+     * Gets the cache of conditions that have already been built.
+     *
+     * @return The condition cache.
+     */
+    public ConditionCache getConditionCache() {
+        return this.conditionCache;
+    }
+
+    /**
+     * Gets the structure of a condition, if it is known.
+     *
+     * @param condition The condition.
+     * @return The key, or null if not known.
+     */
+    private static ConditionKey keyOf(final PointerByReference condition) {
+        if (condition instanceof ConditionReference) {
+            return ((ConditionReference) condition).getKey();
+        }
+
+        return null;
+    }
+
     /**
      * Create an 'and' condition.
      *
@@ -416,14 +540,23 @@ public class UIAutomation extends BaseAutomation {
      * @return The new condition.
      * @throws AutomationException Something is wrong.
      */
-    public PointerByReference createAndCondition(final PointerByReference pCondition1,
+    public ConditionReference createAndCondition(final PointerByReference pCondition1,
                                                  final PointerByReference pCondition2)
             throws AutomationException {
-        PointerByReference pbr = new PointerByReference();
+        ConditionKey key = ConditionKey.and(keyOf(pCondition1), keyOf(pCondition2));
+
+        ConditionReference cached = this.conditionCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        ConditionReference pbr = new ConditionReference();
 
         final int res = this.automation.createAndCondition(pCondition1.getValue(), pCondition2.getValue(), pbr);
+        ReferenceTracker.reachabilityFence(pCondition1);
+        ReferenceTracker.reachabilityFence(pCondition2);
         if (res == 0) {
-            return pbr;
+            return this.conditionCache.put(key, pbr.track());
         } else {
             throw new AutomationException(res);
         }
@@ -437,14 +570,23 @@ public class UIAutomation extends BaseAutomation {
      * @return The new condition.
      * @throws AutomationException Something is wrong.
      */
-    public PointerByReference createOrCondition(final PointerByReference pCondition1,
+    public ConditionReference createOrCondition(final PointerByReference pCondition1,
                                                 final PointerByReference pCondition2)
             throws AutomationException {
-        PointerByReference pbr = new PointerByReference();
+        ConditionKey key = ConditionKey.or(keyOf(pCondition1), keyOf(pCondition2));
+
+        ConditionReference cached = this.conditionCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        ConditionReference pbr = new ConditionReference();
 
         final int res = this.automation.createOrCondition(pCondition1.getValue(), pCondition2.getValue(), pbr);
+        ReferenceTracker.reachabilityFence(pCondition1);
+        ReferenceTracker.reachabilityFence(pCondition2);
         if (res == 0) {
-            return pbr;
+            return this.conditionCache.put(key, pbr.track());
         } else {
             throw new AutomationException(res);
         }
@@ -457,12 +599,50 @@ public class UIAutomation extends BaseAutomation {
      * @return The condition.
      * @throws AutomationException Something went wrong.
      */
-    public PointerByReference createControlTypeCondition(final ControlType id)
+    public ConditionReference createControlTypeCondition(final ControlType id)
             throws AutomationException {
+        ConditionKey key = ConditionKey.property(PropertyID.ControlType.getValue(), id.getValue());
+
+        ConditionReference cached = this.conditionCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
         Variant.VARIANT.ByValue variant = new Variant.VARIANT.ByValue();
         variant.setValue(Variant.VT_INT, id.getValue());
 
-        return this.createPropertyCondition(PropertyID.ControlType.getValue(), variant);
+        return this.conditionCache.put(key,
+                this.createPropertyCondition(PropertyID.ControlType.getValue(), variant));
+    }
+
+    /**
+     * Creates a condition that matches any of the control types.
+     *
+     * @param id The first control type.
+     * @param others The other control types.
+     * @return The condition.
+     * @throws AutomationException Something went wrong.
+     */
+    public ConditionReference createControlTypeCondition(final ControlType id,
+                                                         final ControlType... others)
+            throws AutomationException {
+        ConditionReference condition = this.createControlTypeCondition(id);
+
+        for (ControlType other : others) {
+            ConditionReference otherCondition = this.createControlTypeCondition(other);
+            ConditionReference either;
+
+            try {
+                either = this.createOrCondition(condition, otherCondition);
+            } finally {
+                otherCondition.close();
+                condition.close();
+            }
+
+            condition = either;
+        }
+
+        return condition;
     }
 
     /**
@@ -472,14 +652,22 @@ public class UIAutomation extends BaseAutomation {
      * @return The condition.
      * @throws AutomationException Something went wrong.
      */
-    public PointerByReference createAutomationIdPropertyCondition(final String automationId)
+    public ConditionReference createAutomationIdPropertyCondition(final String automationId)
             throws AutomationException {
+        ConditionKey key = ConditionKey.property(PropertyID.AutomationId.getValue(), automationId);
+
+        ConditionReference cached = this.conditionCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
         Variant.VARIANT.ByValue variant = new Variant.VARIANT.ByValue();
         WTypes.BSTR sysAllocated = OleAuto.INSTANCE.SysAllocString(automationId);
         variant.setValue(Variant.VT_BSTR, sysAllocated);
 
         try {
-            return this.createPropertyCondition(PropertyID.AutomationId.getValue(), variant);
+            return this.conditionCache.put(key,
+                    this.createPropertyCondition(PropertyID.AutomationId.getValue(), variant));
         } finally {
             OleAuto.INSTANCE.SysFreeString(sysAllocated);
         }
@@ -492,19 +680,102 @@ public class UIAutomation extends BaseAutomation {
      * @return The condition.
      * @throws AutomationException Something went wrong.
      */
-    public PointerByReference createNamePropertyCondition(final String name)
+    public ConditionReference createNamePropertyCondition(final String name)
             throws AutomationException {
+        ConditionKey key = ConditionKey.property(PropertyID.Name.getValue(), name);
+
+        ConditionReference cached = this.conditionCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
         Variant.VARIANT.ByValue variant = new Variant.VARIANT.ByValue();
         WTypes.BSTR sysAllocated = OleAuto.INSTANCE.SysAllocString(name);
         variant.setValue(Variant.VT_BSTR, sysAllocated);
 
         try {
-            return this.createPropertyCondition(PropertyID.Name.getValue(), variant);
+            return this.conditionCache.put(key,
+                    this.createPropertyCondition(PropertyID.Name.getValue(), variant));
         } finally {
             OleAuto.INSTANCE.SysFreeString(sysAllocated);
         }
     }
 
+    /**
+     * Creates a condition, based on element name, with PropertyConditionFlags.
+     *
+     * @param name The name.
+     * @param flags The PropertyConditionFlags, e.g. to ignore case.
+     * @return The condition.
+     * @throws AutomationException Something went wrong.
+     */
+    public ConditionReference createNamePropertyCondition(final String name,
+                                                          final int flags)
+            throws AutomationException {
+        if (flags == PropertyConditionFlags.None) {
+            return this.createNamePropertyCondition(name);
+        }
+
+        ConditionKey key = ConditionKey.property(PropertyID.Name.getValue(), name, flags);
+
+        ConditionReference cached = this.conditionCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        Variant.VARIANT.ByValue variant = new Variant.VARIANT.ByValue();
+        WTypes.BSTR sysAllocated = OleAuto.INSTANCE.SysAllocString(name);
+        variant.setValue(Variant.VT_BSTR, sysAllocated);
+
+        try {
+            return this.conditionCache.put(key,
+                    this.createPropertyConditionEx(PropertyID.Name.getValue(), variant, flags));
+        } finally {
+            OleAuto.INSTANCE.SysFreeString(sysAllocated);
+        }
+    }
+
+    /**
+     * Creates a condition that is true for every element whose name could
+     * match the pattern, from the literal text in the pattern.
+     * <p>
+     * The condition does not check the whole pattern, so the names still
+     * need to be matched against it.
+     * </p>
+     * @param namePattern The pattern.
+     * @return The condition, or null if the pattern has no usable literal text.
+     * @throws AutomationException Something went wrong.
+     */
+    public ConditionReference createNamePatternCondition(final Pattern namePattern)
+            throws AutomationException {
+        PatternLiterals literals = PatternLiterals.analyse(namePattern);
+
+        if (literals.getText() == null) {
+            return null;
+        }
+
+        int flags = literals.isIgnoreCase()
+                ? PropertyConditionFlags.IgnoreCase : PropertyConditionFlags.None;
+
+        if (literals.isExact()) {
+            return this.createNamePropertyCondition(literals.getText(), flags);
+        }
+
+        if (!this.substringConditionsSupported) {
+            return null;
+        }
+
+        try {
+            return this.createNamePropertyCondition(literals.getText(),
+                    flags | PropertyConditionFlags.MatchSubstring);
+        } catch (AutomationException ex) {
+            // Older versions of Windows reject the flag
+            logger.info("Substring conditions are not supported - " + ex.getMessage());
+            this.substringConditionsSupported = false;
+            return null;
+        }
+    }
+
     /**
      * Creates a condition, based on element class name.
      *
@@ -512,14 +783,22 @@ public class UIAutomation extends BaseAutomation {
      * @return The condition.
      * @throws AutomationException Something went wrong.
      */
-	public PointerByReference createClassNamePropertyCondition(final String className)
+	public ConditionReference createClassNamePropertyCondition(final String className)
             throws AutomationException {
+        ConditionKey key = ConditionKey.property(PropertyID.ClassName.getValue(), className);
+
+        ConditionReference cached = this.conditionCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
         Variant.VARIANT.ByValue variant = new Variant.VARIANT.ByValue();
         WTypes.BSTR sysAllocated = OleAuto.INSTANCE.SysAllocString(className);
         variant.setValue(Variant.VT_BSTR, sysAllocated);
 
         try {
-            return this.createPropertyCondition(PropertyID.ClassName.getValue(), variant);
+            return this.conditionCache.put(key,
+                    this.createPropertyCondition(PropertyID.ClassName.getValue(), variant));
         } finally {
             OleAuto.INSTANCE.SysFreeString(sysAllocated);
         }
@@ -533,19 +812,21 @@ public class UIAutomation extends BaseAutomation {
      * @return The nre condition.
      * @throws AutomationException Something has gone wrong.
      */
-    public PointerByReference createPropertyCondition(final int id,
+    public ConditionReference createPropertyCondition(final int id,
                                                       final Variant.VARIANT.ByValue value)
             throws AutomationException {
-        PointerByReference pCondition = new PointerByReference();
+        ConditionReference pCondition = new ConditionReference();
 
         final int res = this.automation.createPropertyCondition(id, value, pCondition);
         if (res == 0) {
-            Unknown unkCondition = new Unknown(pCondition.getValue());
+            Unknown unkCondition = this.makeUnknown(pCondition.getValue());
             PointerByReference pUnknown = new PointerByReference();
 
             WinNT.HRESULT result1 = unkCondition.QueryInterface(new Guid.REFIID(IUIAutomationCondition.IID), pUnknown);
             if (COMUtils.SUCCEEDED(result1)) {
-                return pCondition;
+                // Only checking the interface, so release the extra reference
+                this.makeUnknown(pUnknown.getValue()).Release();
+                return pCondition.track();
             } else {
                 throw new AutomationException(result1.intValue());
             }
@@ -554,6 +835,54 @@ public class UIAutomation extends BaseAutomation {
         }
     }
 
+    /**
+     * Creates a condition that only matches the given element, by comparing
+     * the runtime id.
+     *
+     * @param element The element to match.
+     * @return The new condition.
+     * @throws AutomationException Something has gone wrong.
+     */
+    public ConditionReference createRuntimeIdCondition(final AutomationElement element)
+            throws AutomationException {
+        Variant.VARIANT.ByReference value = new Variant.VARIANT.ByReference();
+
+        final int res = element.getElement().getCurrentPropertyValue(PropertyID.RuntimeId.getValue(), value);
+        if (res != 0) {
+            throw new AutomationException(res);
+        }
+
+        try {
+            return this.createPropertyCondition(PropertyID.RuntimeId.getValue(),
+                    new Variant.VARIANT.ByValue(value));
+        } finally {
+            OleAuto.INSTANCE.VariantClear(value);
+        }
+    }
+
+    /**
+     * Creates a property condition, with PropertyConditionFlags.
+     *
+     * @param id Which property to check for.
+     * @param value The value of the property.
+     * @param flags The PropertyConditionFlags.
+     * @return The new condition.
+     * @throws AutomationException Something has gone wrong.
+     */
+    public ConditionReference createPropertyConditionEx(final int id,
+                                                        final Variant.VARIANT.ByValue value,
+                                                        final int flags)
+            throws AutomationException {
+        ConditionReference pCondition = new ConditionReference();
+
+        final int res = this.automation.createPropertyConditionEx(id, value, flags, pCondition);
+        if (res == 0) {
+            return pCondition.track();
+        } else {
+            throw new AutomationException(res);
+        }
+    }
+
     /**
      * Gets the main desktop object.
      *
@@ -588,31 +917,19 @@ public class UIAutomation extends BaseAutomation {
      */
     public AutomationMenu getDesktopMenu(final String title)
             throws AutomationException {
-        AutomationElement element = null;
-
         // Look for a specific title
-        Variant.VARIANT.ByValue variant = new Variant.VARIANT.ByValue();
-        WTypes.BSTR sysAllocated = OleAuto.INSTANCE.SysAllocString(title);
-        variant.setValue(Variant.VT_BSTR, sysAllocated);
+        final ConditionReference pCondition1 = this.createNamePropertyCondition(title);
 
-        try {
-            PointerByReference pCondition1 = this.createPropertyCondition(PropertyID.Name.getValue(), variant);
-
-            for (int loop = 0; loop < FIND_DESKTOP_ATTEMPTS; loop++) {
-
-                try {
-                    element = this.rootElement.findFirst(new TreeScope(TreeScope.Descendants),
-                            pCondition1);
-                } catch (AutomationException ex) {
-                    logger.info("Not found, retrying " + title);
-                }
+        AutomationElement element;
 
-                if (element != null) {
-                    break;
+        try {
+            element = this.getWaiter().waitFor(new Waiter.Search() {
+                public AutomationElement find() throws AutomationException {
+                    return rootElement.findFirst(new TreeScope(TreeScope.Descendants), pCondition1);
                 }
-            }
+            }, FIND_DESKTOP_ATTEMPTS, AutomationWindow.SLEEP_DURATION);
         } finally {
-            OleAuto.INSTANCE.SysFreeString(sysAllocated);
+            pCondition1.close();
         }
 
         if (element == null) {
@@ -665,11 +982,13 @@ public class UIAutomation extends BaseAutomation {
 
 	private List<AutomationElement> getRootChildren(final ControlType controlType)
             throws AutomationException {
-        PointerByReference pCondition = this.createControlTypeCondition(controlType);
+        ConditionReference pCondition = this.createControlTypeCondition(controlType);
 
-        List<AutomationElement> collection =
-                this.rootElement.findAll(new TreeScope(TreeScope.Children), pCondition);
-		return collection;
+        try {
+            return this.rootElement.findAll(new TreeScope(TreeScope.Children), pCondition);
+        } finally {
+            pCondition.close();
+        }
 	}
 
     /**
@@ -678,13 +997,18 @@ public class UIAutomation extends BaseAutomation {
      * @return The condition.
      * @throws AutomationException Something has gone wrong.
      */
-    public PointerByReference createTrueCondition()
+    public ConditionReference createTrueCondition()
             throws AutomationException {
-        PointerByReference pTrueCondition = new PointerByReference();
+        ConditionReference cached = this.conditionCache.get(ConditionKey.TRUE);
+        if (cached != null) {
+            return cached;
+        }
+
+        ConditionReference pTrueCondition = new ConditionReference();
 
         final int res = this.automation.createTrueCondition(pTrueCondition);
         if (res == 0) {
-            return pTrueCondition;
+            return this.conditionCache.put(ConditionKey.TRUE, pTrueCondition.track());
         } else {
             throw new AutomationException(res);
         }
@@ -696,13 +1020,18 @@ public class UIAutomation extends BaseAutomation {
      * @return The condition.
      * @throws AutomationException Something has gone wrong.
      */
-    public PointerByReference createFalseCondition()
+    public ConditionReference createFalseCondition()
             throws AutomationException {
-        PointerByReference condition = new PointerByReference();
+        ConditionReference cached = this.conditionCache.get(ConditionKey.FALSE);
+        if (cached != null) {
+            return cached;
+        }
+
+        ConditionReference condition = new ConditionReference();
 
         final int res = this.automation.createFalseCondition(condition);
         if (res == 0) {
-            return condition;
+            return this.conditionCache.put(ConditionKey.FALSE, condition.track());
         } else {
             throw new AutomationException(res);
         }
@@ -715,13 +1044,21 @@ public class UIAutomation extends BaseAutomation {
      * @return The new condition.
      * @throws AutomationException Something is wrong.
      */
-    public PointerByReference createNotCondition(final PointerByReference condition)
+    public ConditionReference createNotCondition(final PointerByReference condition)
             throws AutomationException {
-        PointerByReference pbr = new PointerByReference();
+        ConditionKey key = ConditionKey.not(keyOf(condition));
+
+        ConditionReference cached = this.conditionCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        ConditionReference pbr = new ConditionReference();
 
         final int res = this.automation.createNotCondition(condition.getValue(), pbr);
+        ReferenceTracker.reachabilityFence(condition);
         if (res == 0) {
-            return pbr;
+            return this.conditionCache.put(key, pbr.track());
         } else {
             throw new AutomationException(res);
         }
@@ -796,6 +1133,71 @@ public class UIAutomation extends BaseAutomation {
         return this.rootElement;
     }
 
+    /**
+     * Creates a cache request, to be used with the *BuildCache calls.
+     *
+     * @return The new (empty) cache request.
+     * @throws AutomationException Something has gone wrong.
+     */
+    public CacheRequest createCacheRequest()
+            throws AutomationException {
+        PointerByReference pbrRequest = new PointerByReference();
+
+        final int res = this.automation.createCacheRequest(pbrRequest);
+        if (res != 0) {
+            throw new AutomationException(res);
+        }
+
+        Unknown unkRequest = this.makeUnknown(pbrRequest.getValue());
+        PointerByReference pUnknown = new PointerByReference();
+
+        WinNT.HRESULT result = unkRequest.QueryInterface(new Guid.REFIID(IUIAutomationCacheRequest.IID), pUnknown);
+
+        unkRequest.Release();
+        if (COMUtils.SUCCEEDED(result)) {
+            IUIAutomationCacheRequest request =
+                    IUIAutomationCacheRequestConverter.PointerToInterface(pUnknown);
+
+            return new CacheRequest(request, pUnknown.getValue());
+        } else {
+            throw new AutomationException(result.intValue());
+        }
+    }
+
+    /**
+     * Gets a cache request for the name of elements, so that the names of
+     * all the elements found can be fetched in one call.
+     *
+     * @return The cache request.
+     * @throws AutomationException if something goes wrong.
+     */
+    public CacheRequest getNameCacheRequest()
+            throws AutomationException {
+        return this.getCacheRequest(PropertyID.Name);
+    }
+
+    /**
+     * Gets a shared cache request for the given properties, which is built
+     * the first time that set of properties is asked for.
+     *
+     * @param properties The properties to cache.
+     * @return The cache request.
+     * @throws AutomationException if something goes wrong.
+     */
+    public synchronized CacheRequest getCacheRequest(final PropertyID... properties)
+            throws AutomationException {
+        Set<PropertyID> key = EnumSet.noneOf(PropertyID.class);
+        Collections.addAll(key, properties);
+
+        CacheRequest request = this.cacheRequests.get(key);
+        if (request == null) {
+            request = this.createCacheRequest().addProperty(properties);
+            this.cacheRequests.put(key, request);
+        }
+
+        return request;
+    }
+
     /**
      * Gets the control view walker.
      * @return The tree walker object.
@@ -807,70 +1209,336 @@ public class UIAutomation extends BaseAutomation {
 
         this.automation.getControlViewWalker(pbrWalker);
 
+        return this.makeTreeWalker(pbrWalker);
+    }
+
+    /**
+     * Creates a tree walker for the view of the tree that only contains the
+     * elements that match the condition.
+     *
+     * @param condition The condition that the elements in the view match.
+     * @return The tree walker object.
+     * @throws AutomationException if something goes wrong.
+     */
+    public AutomationTreeWalker createTreeWalker(final PointerByReference condition)
+            throws AutomationException {
+        PointerByReference pbrWalker = new PointerByReference();
+
+        final int res = this.automation.createTreeWalker(condition.getValue(), pbrWalker);
+        ReferenceTracker.reachabilityFence(condition);
+        if (res != 0) {
+            throw new AutomationException(res);
+        }
+
+        return this.makeTreeWalker(pbrWalker);
+    }
+
+    /**
+     * Creates a tree walker for the view of the tree that only contains the
+     * elements that match the condition, where the walks fetch the cached
+     * properties and patterns with each element.
+     *
+     * @param condition The condition that the elements in the view match.
+     * @param cacheRequest The properties and patterns to cache.
+     * @return The tree walker object.
+     * @throws AutomationException if something goes wrong.
+     */
+    public AutomationTreeWalker createTreeWalker(final PointerByReference condition,
+                                                 final CacheRequest cacheRequest)
+            throws AutomationException {
+        PointerByReference pbrWalker = new PointerByReference();
+
+        final int res = this.automation.createTreeWalker(condition.getValue(), pbrWalker);
+        ReferenceTracker.reachabilityFence(condition);
+        if (res != 0) {
+            throw new AutomationException(res);
+        }
+
+        return this.makeTreeWalker(pbrWalker, cacheRequest);
+    }
+
+    /**
+     * Wraps the walker that has been returned by automation.
+     *
+     * @param pbrWalker The raw walker.
+     * @return The tree walker object.
+     * @throws AutomationException if something goes wrong.
+     */
+    private AutomationTreeWalker makeTreeWalker(final PointerByReference pbrWalker)
+            throws AutomationException {
+        return this.makeTreeWalker(pbrWalker, null);
+    }
+
+    /**
+     * Wraps the walker that has been returned by automation.
+     *
+     * @param pbrWalker The raw walker.
+     * @param cacheRequest The properties and patterns to cache, or null.
+     * @return The tree walker object.
+     * @throws AutomationException if something goes wrong.
+     */
+    private AutomationTreeWalker makeTreeWalker(final PointerByReference pbrWalker,
+                                                final CacheRequest cacheRequest)
+            throws AutomationException {
         Unknown unkConditionA = new Unknown(pbrWalker.getValue());
         PointerByReference pUnknownA = new PointerByReference();
 
         WinNT.HRESULT resultA = unkConditionA.QueryInterface(new Guid.REFIID(IUIAutomationTreeWalker.IID), pUnknownA);
+
+        unkConditionA.Release();
+
         if (COMUtils.SUCCEEDED(resultA)) {
 
             IUIAutomationTreeWalker walker =
                     IUIAutomationTreeWalkerConverter.PointerToInterface(pUnknownA);
 
-            return new AutomationTreeWalker(walker);
+            return new AutomationTreeWalker(walker, cacheRequest);
         } else {
             throw new AutomationException(resultA.intValue());
         }
     }
 
-    /*
-     * Adds an automation event handler.
+    /**
+     * Adds a handler for an automation event.
      *
-     IntByReference eventId,
-     TreeScope scope,
-     Pointer element,
-     PointerByReference cacheRequest,
-     PointerByReference handler
+     * The listener is called on the event dispatch thread, and owns the
+     * sender element it is given. StructureChanged events are added via the
+     * structure changed handler, as the automation library requires, and a
+     * StructureChangedEventListener is given the details of each change.
+     * PropertyChanged events are added via addPropertyChangedEventHandler.
      *
-     * @param event The identifier of the event that the method handles.
+     * @param event The event to handle.
      * @param scope The scope of events to be handled; that is, whether they are on the element itself, or on its ancestors and descendants.
-     * @param element The UI Automation element to associate with the event handler.
-     * @param handler The object that handles the event.
-     * @throws AutomationException
+     * @param element The element to associate with the event handler.
+     * @param listener The listener to pass the events on to.
+     * @return The subscription, close it to remove the handler.
+     * @throws AutomationException Something has gone wrong.
      */
-/*
-    public void addAutomationEventHandler(EventID event,
-                                          TreeScope scope,
-                                          AutomationElement element,
-                                          AutomationHandler handler) throws AutomationException {
+    public EventSubscription addEventHandler(final EventID event,
+                                             final TreeScope scope,
+                                             final AutomationElement element,
+                                             final AutomationEventListener listener)
+            throws AutomationException {
+        if (event == EventID.PropertyChanged) {
+            return this.addPropertyChangedEventHandler(scope, element, listener);
+        }
 
-        IntByReference ibr = new IntByReference();
-        ibr.setValue(event.getValue());
+        boolean structureChanged = event == EventID.StructureChanged;
 
-        PointerByReference handlerRef = new PointerByReference();
+        AutomationEventHandler handler =
+                new AutomationEventHandler(listener, this.dispatcher, event);
 
-        PointerByReference pElement = new PointerByReference();
+        Pointer pElement = this.getPointerFromElement(element.getElement());
 
-        WinNT.HRESULT resultA = element.element.QueryInterface(new Guid.REFIID(IUIAutomationElement3.IID), pElement);
-        if (COMUtils.SUCCEEDED(resultA)) {
-            throw new AutomationException();
+        try {
+            final int res;
+            if (structureChanged) {
+                res = this.automation.addStructureChangedEventHandler(
+                        pElement, scope, null, handler.getPointer());
+            } else {
+                res = this.automation.addAutomationEventHandler(event.getValue(),
+                        pElement, scope, null, handler.getPointer());
+            }
+            if (res != 0) {
+                throw new AutomationException(res);
+            }
+        } finally {
+            this.makeUnknown(pElement).Release();
+        }
+
+        EventSubscription subscription = new EventSubscription(this, event, element, handler);
+        this.subscriptions.add(subscription);
+
+        return subscription;
+    }
+
+    /**
+     * Adds a handler for changes to the properties of an element.
+     *
+     * The listener is called on the event dispatch thread, and owns the
+     * sender element it is given, a PropertyChangedEventListener is also
+     * given the property and its new value.
+     *
+     * @param scope The scope of events to be handled; that is, whether they are on the element itself, or on its ancestors and descendants.
+     * @param element The element to associate with the event handler.
+     * @param listener The listener to pass the events on to.
+     * @param properties The properties to handle the changes to, all of them if none are given.
+     * @return The subscription, close it to remove the handler.
+     * @throws AutomationException Something has gone wrong.
+     */
+    public EventSubscription addPropertyChangedEventHandler(final TreeScope scope,
+                                                            final AutomationElement element,
+                                                            final AutomationEventListener listener,
+                                                            final PropertyID... properties)
+            throws AutomationException {
+        AutomationEventHandler handler =
+                new AutomationEventHandler(listener, this.dispatcher, EventID.PropertyChanged);
+
+        PropertyID[] wanted = properties;
+        if (wanted.length == 0) {
+            wanted = PropertyID.values();
+        }
+
+        int[] propertyIds = new int[wanted.length];
+        for (int index = 0; index < wanted.length; index++) {
+            propertyIds[index] = wanted[index].getValue();
+        }
+
+        Pointer pElement = this.getPointerFromElement(element.getElement());
+
+        try {
+            final int res = this.automation.addPropertyChangedEventHandlerNativeArray(
+                    pElement, scope, null, handler.getPointer(), propertyIds, propertyIds.length);
+            if (res != 0) {
+                throw new AutomationException(res);
+            }
+        } finally {
+            this.makeUnknown(pElement).Release();
+        }
+
+        EventSubscription subscription =
+                new EventSubscription(this, EventID.PropertyChanged, element, handler);
+        this.subscriptions.add(subscription);
+
+        return subscription;
+    }
+
+    /**
+     * Removes a handler added by addEventHandler, removing it more than once
+     * has no effect.
+     *
+     * @param subscription The subscription returned when the handler was added.
+     * @return The subscription.
+     * @throws AutomationException Something has gone wrong.
+     */
+    public EventSubscription removeEventHandler(final EventSubscription subscription)
+            throws AutomationException {
+        if (!subscription.markRemoved()) {
+            return subscription;
+        }
+
+        this.subscriptions.remove(subscription);
+
+        Pointer pElement = this.getPointerFromElement(subscription.getElement().getElement());
+
+        try {
+            final int res;
+            if (subscription.getHandler().isStructureChanged()) {
+                res = this.automation.removeStructureChangedEventHandler(
+                        pElement,
+                        subscription.getHandler().getPointer());
+            } else if (subscription.getHandler().isPropertyChanged()) {
+                res = this.automation.removePropertyChangedEventHandler(
+                        pElement,
+                        subscription.getHandler().getPointer());
+            } else {
+                res = this.automation.removeAutomationEventHandler(
+                        subscription.getEventId().getValue(),
+                        pElement,
+                        subscription.getHandler().getPointer());
+            }
+            if (res != 0) {
+                throw new AutomationException(res);
+            }
+        } finally {
+            this.makeUnknown(pElement).Release();
+        }
+
+        return subscription;
+    }
+
+    /**
+     * Removes all of the event handlers.
+     *
+     * @throws AutomationException Something has gone wrong.
+     */
+    public void removeAllEventHandlers() throws AutomationException {
+        synchronized (this.subscriptions) {
+            for (EventSubscription subscription : this.subscriptions) {
+                subscription.markRemoved();
+            }
+            this.subscriptions.clear();
         }
 
-        if (automation.addAutomationEventHandler(ibr, scope, pElement.getValue(), null, handler) != 0) {
-            throw new AutomationException();
+        final int res = this.automation.removeAllEventHandlers();
+        if (res != 0) {
+            throw new AutomationException(res);
         }
     }
-*/
-          /*
-        IntByReference eventId, PointerByReference element, PointerByReference handler
-         */
-  /*
-    public void removeAutomationEventHandler(EventID event) {
 
-        IntByReference ibr = new IntByReference();
-        ibr.setValue(event.getValue());
+    /**
+     * Gets the waiter, used to wait for elements to appear.
+     *
+     * @return The waiter.
+     */
+    public synchronized Waiter getWaiter() {
+        if (this.waiter == null) {
+            this.waiter = new Waiter(this, this.rootElement);
+        }
 
+        return this.waiter;
+    }
 
-        automation.removeAutomationEventHandler(ibr);
+    /**
+     * Gets the dispatcher that delivers events to listeners.
+     *
+     * @return The event dispatcher.
+     */
+    public EventDispatcher getEventDispatcher() {
+        return this.dispatcher;
+    }
+
+    /**
+     * Releases the automation library, once it is no longer needed (e.g.
+     * when an AutomationPool worker stops). The event handlers are removed,
+     * and the waiter, the conditions and cache requests that have been kept,
+     * the root element and the library itself are released. This should be
+     * called on the thread the library was created on, and the instance
+     * cannot be used afterwards. Calling close more than once has no effect.
+     */
+    public void close() {
+        Waiter closing;
+
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+
+            closing = this.waiter;
+            this.waiter = null;
+        }
+
+        if (closing != null) {
+            closing.close();
+        }
+
+        try {
+            this.removeAllEventHandlers();
+        } catch (AutomationException ex) {
+            logger.warning("Failed to remove the event handlers - " + ex.getMessage());
+        }
+
+        this.dispatcher.shutdown();
+        this.conditionCache.clear();
+
+        synchronized (this) {
+            for (CacheRequest request : this.cacheRequests.values()) {
+                request.close();
+            }
+            this.cacheRequests.clear();
+        }
+
+        if (this.rootElement != null) {
+            this.rootElement.close();
+        }
+
+        if (this.automation != null) {
+            this.automation.Release();
+        }
+
+        if (this.ole32 != null && this.ole32.getUnknown() != null) {
+            this.ole32.getUnknown().Release();
+        }
     }
-*/
 }
@@ -0,0 +1,382 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+import mmarquee.automation.uiautomation.TreeScope;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Waits for elements to appear.
+ *
+ * Rather than just searching again after a fixed sleep, the waiter listens
+ * for windows opening and for windows being added to or removed from the
+ * desktop, and searches again as soon as something has changed. A newly
+ * opened window is checked directly before searching. If the events are
+ * not available it falls back to polling.
+ *
+ * The waiter is only subscribed to the events while something is waiting,
+ * the subscriptions are removed when the last wait finishes.
+ *
+ * The maximum time waited is the same as for polling, i.e. the number of
+ * attempts times the interval, and without any events the search is made
+ * exactly the given number of times.
+ */
+public class Waiter implements Closeable {
+
+    /**
+     * The shortest gap between searches that were triggered by events, so
+     * that a busy desktop does not lead to continual searching.
+     */
+    public static final long MIN_EVENT_INTERVAL = 250;
+
+    private final Logger logger = Logger.getLogger(Waiter.class.getName());
+
+    /**
+     * What to wait for.
+     */
+    public abstract static class Search {
+        /**
+         * Searches for the element.
+         *
+         * @return The element, or null if not found.
+         * @throws AutomationException Something has gone wrong.
+         */
+        public abstract AutomationElement find() throws AutomationException;
+
+        /**
+         * Checks whether a newly opened window is the element being waited
+         * for, without searching.
+         *
+         * @param candidate The window.
+         * @return True if this is the element.
+         * @throws AutomationException Something has gone wrong.
+         */
+        public boolean matches(final AutomationElement candidate) throws AutomationException {
+            return false;
+        }
+    }
+
+    /**
+     * A thread that is waiting.
+     */
+    private static final class Wait {
+        /**
+         * Number of events seen.
+         */
+        private long generation;
+
+        /**
+         * Windows that have opened, to be checked.
+         */
+        private final LinkedList<AutomationElement> candidates = new LinkedList<AutomationElement>();
+    }
+
+    /**
+     * The automation instance, used to subscribe to events.
+     */
+    private final UIAutomation automation;
+
+    /**
+     * The element to watch, normally the desktop.
+     */
+    private final AutomationElement root;
+
+    /**
+     * Guards the waits, and is notified when an event arrives.
+     */
+    private final Object lock = new Object();
+
+    /**
+     * The threads that are waiting.
+     */
+    private final Set<Wait> waits = new HashSet<Wait>();
+
+    /**
+     * The event subscriptions, if subscribed.
+     */
+    private final List<EventSubscription> subscriptions = new ArrayList<EventSubscription>();
+
+    /**
+     * The number of waits that need the subscriptions.
+     */
+    private int pending;
+
+    /**
+     * Whether subscribing has failed, after which the waiter just polls.
+     */
+    private boolean unavailable;
+
+    /**
+     * Passes events on to the waiting threads.
+     */
+    private final AutomationEventListener listener = new AutomationEventListener() {
+        public void handleEvent(final AutomationElement sender, final EventID eventId) {
+            onEvent(sender, eventId);
+        }
+    };
+
+    /**
+     * Constructor for the waiter.
+     *
+     * @param automation The automation instance, or null to just poll.
+     * @param root The element to watch for changes under.
+     */
+    public Waiter(final UIAutomation automation, final AutomationElement root) {
+        this.automation = automation;
+        this.root = root;
+    }
+
+    /**
+     * Subscribes to events when the first wait starts. Only the structure of
+     * the root's children is watched, as changes further down the tree are
+     * far too frequent to search again for each of them.
+     */
+    private synchronized void subscribe() {
+        if (this.pending++ > 0 || this.unavailable
+                || this.automation == null || this.root == null) {
+            return;
+        }
+
+        try {
+            this.subscriptions.add(this.automation.addEventHandler(EventID.Window_WindowOpened,
+                    new TreeScope(TreeScope.Subtree), this.root, this.listener));
+            this.subscriptions.add(this.automation.addEventHandler(EventID.StructureChanged,
+                    new TreeScope(TreeScope.Children), this.root, this.listener));
+        } catch (AutomationException ex) {
+            logger.info("Events not available, polling instead");
+            this.unavailable = true;
+            this.removeSubscriptions();
+        }
+    }
+
+    /**
+     * Removes the subscriptions when the last wait finishes.
+     */
+    private synchronized void unsubscribe() {
+        if (--this.pending > 0) {
+            return;
+        }
+
+        this.removeSubscriptions();
+    }
+
+    /**
+     * Removes the event handlers.
+     */
+    private void removeSubscriptions() {
+        for (EventSubscription subscription : this.subscriptions) {
+            try {
+                subscription.close();
+            } catch (IOException ex) {
+                logger.warning("Failed to remove event handler: " + ex.getMessage());
+            }
+        }
+        this.subscriptions.clear();
+    }
+
+    /**
+     * Is the waiter listening for events?
+     *
+     * @return True if subscribed to events.
+     */
+    public synchronized boolean isSubscribed() {
+        return !this.subscriptions.isEmpty();
+    }
+
+    /**
+     * Wakes the waiting threads.
+     *
+     * @param sender The element that raised the event.
+     * @param eventId The event.
+     */
+    void onEvent(final AutomationElement sender, final EventID eventId) {
+        boolean handedOver = false;
+
+        synchronized (this.lock) {
+            for (Wait wait : this.waits) {
+                wait.generation++;
+            }
+
+            // A new window can only be handed to a single thread, which then owns it
+            if (eventId == EventID.Window_WindowOpened && sender != null && this.waits.size() == 1) {
+                this.waits.iterator().next().candidates.add(sender);
+                handedOver = true;
+            }
+
+            this.lock.notifyAll();
+        }
+
+        if (!handedOver && sender != null) {
+            sender.close();
+        }
+    }
+
+    /**
+     * Waits for an element to appear.
+     *
+     * @param search What to wait for.
+     * @param attempts The number of times to search, if nothing changes.
+     * @param interval The time between searches, in milliseconds, if nothing changes.
+     * @return The element, or null if it did not appear in time.
+     */
+    public AutomationElement waitFor(final Search search,
+                                     final int attempts,
+                                     final long interval) {
+        this.subscribe();
+
+        Wait wait = new Wait();
+
+        synchronized (this.lock) {
+            this.waits.add(wait);
+        }
+
+        try {
+            long seen = this.generation(wait);
+            AutomationElement found = this.find(search);
+
+            int polls = 1;
+            long lastSearch = System.currentTimeMillis();
+            long nextPoll = lastSearch + interval;
+            boolean polled;
+
+            while (found == null && polls < attempts) {
+                List<AutomationElement> candidates = new ArrayList<AutomationElement>();
+
+                synchronized (this.lock) {
+                    long now = System.currentTimeMillis();
+                    long earliest = lastSearch + MIN_EVENT_INTERVAL;
+
+                    while ((wait.generation == seen || now < earliest) && now < nextPoll) {
+                        this.lock.wait(Math.min(nextPoll, wait.generation == seen ? nextPoll : earliest) - now);
+                        now = System.currentTimeMillis();
+                    }
+
+                    candidates.addAll(wait.candidates);
+                    wait.candidates.clear();
+
+                    seen = wait.generation;
+
+                    polled = now >= nextPoll;
+                    if (polled) {
+                        polls++;
+                    }
+                }
+
+                found = this.check(search, candidates);
+
+                if (found == null) {
+                    found = this.find(search);
+                }
+
+                lastSearch = System.currentTimeMillis();
+
+                if (polled) {
+                    nextPoll = lastSearch + interval;
+                }
+            }
+
+            return found;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            synchronized (this.lock) {
+                this.waits.remove(wait);
+
+                for (AutomationElement candidate : wait.candidates) {
+                    candidate.close();
+                }
+            }
+
+            this.unsubscribe();
+        }
+    }
+
+    /**
+     * Gets the number of events the wait has seen.
+     *
+     * @param wait The wait.
+     * @return The number of events.
+     */
+    private long generation(final Wait wait) {
+        synchronized (this.lock) {
+            return wait.generation;
+        }
+    }
+
+    /**
+     * Searches for the element.
+     *
+     * @param search What to search for.
+     * @return The element, or null if not found.
+     */
+    private AutomationElement find(final Search search) {
+        try {
+            return search.find();
+        } catch (AutomationException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether any of the newly opened windows are the element,
+     * closing the ones that are not.
+     *
+     * @param search What to check for.
+     * @param candidates The windows.
+     * @return The element, or null if none of them match.
+     */
+    private AutomationElement check(final Search search, final List<AutomationElement> candidates) {
+        AutomationElement found = null;
+
+        for (AutomationElement candidate : candidates) {
+            if (found == null) {
+                try {
+                    if (search.matches(candidate)) {
+                        found = candidate;
+                        continue;
+                    }
+                } catch (AutomationException ex) {
+                    // Probably closed again already
+                }
+            }
+
+            candidate.close();
+        }
+
+        return found;
+    }
+
+    /**
+     * Stops listening for events, waits that are still going on carry on by
+     * polling.
+     */
+    public synchronized void close() {
+        this.unavailable = true;
+        this.removeSubscriptions();
+    }
+}
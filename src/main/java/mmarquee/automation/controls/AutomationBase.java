@@ -18,6 +18,7 @@ package mmarquee.automation.controls;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.regex.Pattern;
 
 import org.apache.log4j.Logger;
 
@@ -28,11 +29,16 @@ import com.sun.jna.ptr.PointerByReference;
 
 import mmarquee.automation.AutomationElement;
 import mmarquee.automation.AutomationException;
+import mmarquee.automation.AutomationTreeWalker;
+import mmarquee.automation.CacheRequest;
+import mmarquee.automation.Conditions;
 import mmarquee.automation.ControlType;
 import mmarquee.automation.ElementNotFoundException;
+import mmarquee.automation.PatternAvailability;
 import mmarquee.automation.PatternID;
 import mmarquee.automation.PropertyID;
 import mmarquee.automation.UIAutomation;
+import mmarquee.automation.Waiter;
 import mmarquee.automation.pattern.ExpandCollapse;
 import mmarquee.automation.pattern.Grid;
 import mmarquee.automation.pattern.GridItem;
@@ -165,10 +171,23 @@ public abstract class AutomationBase implements Automatable {
     /**
      * Checks whether a pattern is available.
      *
+     * The availability of all the patterns is fetched together the first
+     * time, and kept with the element. If that fails, the single property
+     * is asked for instead.
+     *
      * @param property pattern to search for.
      * @return True if available.
      */
     private boolean isPatternAvailable(final PropertyID property) {
+        try {
+            int bits = this.element.getPatternAvailability(this.automation);
+            if (bits != 0) {
+                return PatternAvailability.isAvailable(bits, property);
+            }
+        } catch (AutomationException ex) {
+            logger.debug("Failed to fetch pattern availability: " + ex.getMessage());
+        }
+
         try {
             return !this.element.getPropertyValue(property.getValue()).equals(0);
         } catch (AutomationException ex) {
@@ -434,6 +453,26 @@ public abstract class AutomationBase implements Automatable {
         return this.element.findFirst(scope, condition);
    }
 
+    /**
+     * Runs a search for an element below this one, and records the search
+     * on the element that is found, so that it can be found again if it
+     * goes stale.
+     *
+     * @param search The search.
+     * @return The found element, or null.
+     * @throws AutomationException An error has occurred in automation.
+     */
+    protected AutomationElement locate(final Waiter.Search search)
+            throws AutomationException {
+        AutomationElement found = search.find();
+
+        if (found != null) {
+            found.setLocator(this.element, search);
+        }
+
+        return found;
+    }
+
     /**
      * Finds all of the elements that are associated with the given condition.
      *
@@ -443,8 +482,31 @@ public abstract class AutomationBase implements Automatable {
      */
     protected List<AutomationElement> findAll(final TreeScope scope)
             throws AutomationException {
-        PointerByReference condition = this.createTrueCondition();
-        return this.findAll(scope, condition);
+        Conditions conditions = new Conditions();
+        try {
+            return this.findAll(scope, conditions.add(this.createTrueCondition()));
+        } finally {
+            conditions.close();
+        }
+    }
+
+    /**
+     * Gets the waiter used to wait for elements to appear.
+     *
+     * @return The waiter, which just polls if events are not available.
+     */
+    protected Waiter getWaiter() {
+        Waiter waiter = null;
+
+        if (this.automation != null) {
+            waiter = this.automation.getWaiter();
+        }
+
+        if (waiter == null) {
+            waiter = new Waiter(null, null);
+        }
+
+        return waiter;
     }
 
     /**
@@ -532,6 +594,208 @@ public abstract class AutomationBase implements Automatable {
         return this.element.findAll(scope, condition);
     }
 
+    /**
+     * Finds all of the elements that are associated with the given condition,
+     * fetching the cached values in the same call.
+     *
+     * @param scope The scope of where to look
+     * @param condition The condition to check
+     * @param cacheRequest The properties and patterns to cache
+     * @return List of matching elements
+     * @throws AutomationException Error in automation library
+     */
+    protected List<AutomationElement> findAll(final TreeScope scope,
+                                              final PointerByReference condition,
+                                              final CacheRequest cacheRequest)
+            throws AutomationException {
+        return this.element.findAll(scope, condition, cacheRequest);
+    }
+
+    /**
+     * Closes the elements that are not being kept, e.g. the other matches of
+     * a search once the one that is wanted has been picked.
+     *
+     * @param elements The elements.
+     * @param keep The element to keep, may be null.
+     */
+    protected static void closeOthers(final List<AutomationElement> elements,
+                                      final AutomationElement keep) {
+        for (AutomationElement element : elements) {
+            if (element != keep) {
+                element.close();
+            }
+        }
+    }
+
+    /**
+     * Finds the first element for the condition with a name matching the
+     * given pattern.
+     * <p>
+     * Any literal text in the pattern is added to the condition, so the
+     * automation library only returns elements that could match, and their
+     * names are fetched in the same call rather than one at a time.
+     * </p>
+     * @param scope The scope of where to look
+     * @param condition The condition to check, or null for any element
+     * @param namePattern The pattern the name must match
+     * @return The first matching element, or null if none match
+     * @throws AutomationException Error in automation library
+     */
+    protected AutomationElement findFirstMatching(final TreeScope scope,
+                                                  final PointerByReference condition,
+                                                  final Pattern namePattern)
+            throws AutomationException {
+        Conditions conditions = new Conditions();
+        List<AutomationElement> collection;
+
+        try {
+            PointerByReference nameCondition =
+                    conditions.add(this.automation.createNamePatternCondition(namePattern));
+            PointerByReference filter;
+
+            if (nameCondition == null) {
+                filter = condition != null ? condition : conditions.add(this.createTrueCondition());
+            } else if (condition == null) {
+                filter = nameCondition;
+            } else {
+                filter = conditions.add(this.createAndCondition(condition, nameCondition));
+            }
+
+            collection = this.findAll(scope, filter, this.automation.getNameCacheRequest());
+        } finally {
+            conditions.close();
+        }
+
+        AutomationElement found = null;
+
+        try {
+            for (AutomationElement candidate : collection) {
+                String name = candidate.getCachedName();
+
+                if (name != null && namePattern.matcher(name).matches()) {
+                    found = candidate;
+                    break;
+                }
+            }
+        } finally {
+            closeOthers(collection, found);
+        }
+
+        return found;
+    }
+
+    /**
+     * Finds the element at the given index, in document order, of the
+     * elements that match the condition.
+     * <p>
+     * Rather than finding every match and picking one, the tree is walked in
+     * a view that only holds the matching elements (and this element, so the
+     * walk cannot go past the end of this element's subtree), stopping as
+     * soon as the match at the index is found.
+     * </p>
+     * @param scope Descendants, or Subtree to also count this element
+     * @param condition The condition to match
+     * @param index The index of the match
+     * @return The matching element, or null if there are not enough matches
+     * @throws AutomationException Error in automation library
+     */
+    protected AutomationElement findAt(final TreeScope scope,
+                                       final PointerByReference condition,
+                                       final int index)
+            throws AutomationException {
+        if (index < 0) {
+            return null;
+        }
+
+        int remaining = index;
+
+        if ((scope.value & TreeScope.Element) != 0) {
+            try {
+                AutomationElement self =
+                        this.element.findFirst(new TreeScope(TreeScope.Element), condition);
+
+                if (remaining == 0) {
+                    return self;
+                }
+
+                self.close();
+                remaining--;
+            } catch (ElementNotFoundException ex) {
+                // This element does not match, so is not counted
+            }
+        }
+
+        AutomationTreeWalker walker = this.createViewWalker(condition);
+
+        // Pre-order walk, the stack holds the ancestors whose next sibling
+        // is still to be visited
+        LinkedList<AutomationElement> ancestors = new LinkedList<AutomationElement>();
+        AutomationElement current = null;
+
+        try {
+            current = walker.getFirstChildElement(this.element);
+
+            while (current != null) {
+                if (remaining == 0) {
+                    AutomationElement found = current;
+                    current = null;
+                    return found;
+                }
+
+                remaining--;
+
+                AutomationElement next = walker.getFirstChildElement(current);
+
+                if (next != null) {
+                    ancestors.push(current);
+                } else {
+                    next = walker.getNextSiblingElement(current);
+                    current.close();
+
+                    while (next == null && !ancestors.isEmpty()) {
+                        AutomationElement ancestor = ancestors.pop();
+                        next = walker.getNextSiblingElement(ancestor);
+                        ancestor.close();
+                    }
+                }
+
+                current = next;
+            }
+
+            return null;
+        } finally {
+            if (current != null) {
+                current.close();
+            }
+
+            for (AutomationElement ancestor : ancestors) {
+                ancestor.close();
+            }
+
+            walker.close();
+        }
+    }
+
+    /**
+     * Creates a walker for the view of the tree that only holds the elements
+     * that match the condition, and this element.
+     *
+     * @param condition The condition to match
+     * @return The walker, which the caller closes
+     * @throws AutomationException Error in automation library
+     */
+    protected AutomationTreeWalker createViewWalker(final PointerByReference condition)
+            throws AutomationException {
+        Conditions conditions = new Conditions();
+
+        try {
+            return this.automation.createTreeWalker(conditions.add(this.automation.createOrCondition(
+                    condition, conditions.add(this.automation.createRuntimeIdCondition(this.element)))));
+        } finally {
+            conditions.close();
+        }
+    }
+
     /**
      * Gets the underlying automation pattern.
      *
@@ -571,6 +835,8 @@ public abstract class AutomationBase implements Automatable {
             }
             
             pattern.setPattern(unknown.getValue());
+            
+            pattern.setSource(this.element, PatternID.SelectionItem.getValue());
             return pattern;
         }
         return null;
@@ -595,6 +861,8 @@ public abstract class AutomationBase implements Automatable {
             }
             
             pattern.setPattern(unknown.getValue());
+            
+            pattern.setSource(this.element, PatternID.Selection.getValue());
             return pattern;
         }
         return null;
@@ -618,6 +886,8 @@ public abstract class AutomationBase implements Automatable {
             }
             
             pattern.setPattern(unknown.getValue());
+            
+            pattern.setSource(this.element, PatternID.Value.getValue());
             return pattern;
         }
         return null;
@@ -641,6 +911,8 @@ public abstract class AutomationBase implements Automatable {
             }
             
             pattern.setPattern(unknown.getValue());
+            
+            pattern.setSource(this.element, PatternID.GridItem.getValue());
             return pattern;
         }
         return null;
@@ -664,6 +936,8 @@ public abstract class AutomationBase implements Automatable {
             }
             
             pattern.setPattern(unknown.getValue());
+            
+            pattern.setSource(this.element, PatternID.RangeValue.getValue());
             return pattern;
         }
         return null;
@@ -687,6 +961,8 @@ public abstract class AutomationBase implements Automatable {
             }
             
             pattern.setPattern(unknown.getValue());
+            
+            pattern.setSource(this.element, PatternID.Table.getValue());
             return pattern;
         }
         return null;
@@ -710,6 +986,8 @@ public abstract class AutomationBase implements Automatable {
             }
             
             pattern.setPattern(unknown.getValue());
+            
+            pattern.setSource(this.element, PatternID.Window.getValue());
             return pattern;
         }
         return null;
@@ -734,6 +1012,8 @@ public abstract class AutomationBase implements Automatable {
             }
 
             pattern.setPattern(unknown.getValue());
+
+            pattern.setSource(this.element, PatternID.ExpandCollapse.getValue());
             return pattern;
         }
         return null;
@@ -757,6 +1037,8 @@ public abstract class AutomationBase implements Automatable {
             }
             
             pattern.setPattern(unknown.getValue());
+            
+            pattern.setSource(this.element, PatternID.Grid.getValue());
             return pattern;
         }
         return null;
@@ -780,6 +1062,8 @@ public abstract class AutomationBase implements Automatable {
             }
             
             pattern.setPattern(unknown.getValue());
+            
+            pattern.setSource(this.element, PatternID.Toggle.getValue());
             return pattern;
         }
         return null;
@@ -804,6 +1088,8 @@ public abstract class AutomationBase implements Automatable {
             }
             
             pattern.setPattern(unknown.getValue());
+            
+            pattern.setSource(this.element, PatternID.ItemContainer.getValue());
         }
 
         return pattern;
@@ -827,6 +1113,8 @@ public abstract class AutomationBase implements Automatable {
             }
             
             pattern.setPattern(unknown.getValue());
+            
+            pattern.setSource(this.element, PatternID.Invoke.getValue());
             return pattern;
         }
         return null;
@@ -850,6 +1138,8 @@ public abstract class AutomationBase implements Automatable {
             }
             
             pattern.setPattern(unknown.getValue());
+            
+            pattern.setSource(this.element, PatternID.Text.getValue());
             return pattern;
         }
         return null;
@@ -920,11 +1210,10 @@ public abstract class AutomationBase implements Automatable {
      * Gets the runtime id.
      *
      * @return The runtime id
-     * @throws AutomationException Throws big error, so not implemented
+     * @throws AutomationException Something has gone wrong
      */
     public int[] getRuntimeId() throws AutomationException {
-//        return this.element.getRuntimeId();
-        throw new AutomationException("Not supported");
+        return this.element.getRuntimeId();
     }
 
     /**
@@ -1010,7 +1299,8 @@ public abstract class AutomationBase implements Automatable {
     
 
     /**
-     * Gets child Elements.
+     * Gets child Elements, with their control types and class names cached
+     * so that the controls for them can be created without further calls.
      *
      * @param deep set to true to get also children of children
      * @return The matching element
@@ -1018,8 +1308,14 @@ public abstract class AutomationBase implements Automatable {
      */
     protected List<AutomationElement> getChildElements(final boolean deep)
             throws AutomationException {
-        return this.findAll(new TreeScope(deep ? TreeScope.Descendants : TreeScope.Children),
-        		this.createTrueCondition());
+        Conditions conditions = new Conditions();
+        try {
+            return this.findAll(new TreeScope(deep ? TreeScope.Descendants : TreeScope.Children),
+                    conditions.add(this.createTrueCondition()),
+                    this.automation.getCacheRequest(PropertyID.ControlType, PropertyID.ClassName));
+        } finally {
+            conditions.close();
+        }
     }
     
  // TreeScope.Parent is not yet supported, see https://docs.microsoft.com/en-us/dotnet/api/system.windows.automation.treescope
@@ -1052,6 +1348,24 @@ public abstract class AutomationBase implements Automatable {
         return collection;
     }
 
+    /**
+     * Gets child controls, which are only created as they are asked for, so
+     * getting all of the descendants of a large window doesn't create a
+     * control for each of them up front.
+     *
+     * As the controls are created by the list, an error creating a control
+     * is thrown from the list's get as an IllegalStateException, with the
+     * AutomationException or PatternNotFoundException as its cause.
+     *
+     * @param deep set to true to get also children of children
+     * @return The controls, a read only list
+     * @throws AutomationException Did not find the elements
+     */
+    public List<AutomationBase> getChildrenLazily(final boolean deep)
+            throws AutomationException {
+        return new LazyControlList(this, this.getChildElements(deep));
+    }
+
 // TreeScope.Parent is not yet supported, see https://docs.microsoft.com/en-us/dotnet/api/system.windows.automation.treescope
 //    /**
 //     * Gets the parent control
@@ -17,6 +17,7 @@ package mmarquee.automation.controls;
 
 import mmarquee.automation.AutomationElement;
 import mmarquee.automation.AutomationException;
+import mmarquee.automation.Conditions;
 import mmarquee.automation.ItemNotFoundException;
 import mmarquee.automation.ElementNotFoundException;
 import mmarquee.automation.ControlType;
@@ -178,9 +179,14 @@ public class AutomationComboBox
 
         List<AutomationListItem> list = new ArrayList<AutomationListItem>();
 
-        List<AutomationElement> collection =
-                this.findAll(new TreeScope(TreeScope.Children),
-                        this.createControlTypeCondition(ControlType.ListItem));
+        List<AutomationElement> collection;
+        Conditions conditions = new Conditions();
+        try {
+            collection = this.findAll(new TreeScope(TreeScope.Children),
+                    conditions.add(this.createControlTypeCondition(ControlType.ListItem)));
+        } finally {
+            conditions.close();
+        }
 
         for (AutomationElement element : collection) {
             list.add(new AutomationListItem(element));
@@ -199,10 +205,17 @@ public class AutomationComboBox
      */
     public AutomationListItem getItem(int index) throws PatternNotFoundException, AutomationException {
 
-        List<AutomationElement> items = this.findAll(new TreeScope(TreeScope.Children),
-                this.createControlTypeCondition(ControlType.ListItem));
+        List<AutomationElement> items;
+        Conditions conditions = new Conditions();
+        try {
+            items = this.findAll(new TreeScope(TreeScope.Children),
+                    conditions.add(this.createControlTypeCondition(ControlType.ListItem)));
+        } finally {
+            conditions.close();
+        }
 
         AutomationElement item = items.get(index);
+        closeOthers(items, item);
 
         if (item != null) {
             return new AutomationListItem(item);
@@ -219,10 +232,16 @@ public class AutomationComboBox
      * @throws PatternNotFoundException Expected pattern not found
      */
     public AutomationListItem getItem(String name) throws PatternNotFoundException, AutomationException {
-        AutomationElement item = this.findFirst(new TreeScope(TreeScope.Descendants),
-                this.createAndCondition(
-                        this.createNamePropertyCondition(name),
-                        this.createControlTypeCondition(ControlType.ListItem)));
+        AutomationElement item;
+        Conditions conditions = new Conditions();
+        try {
+            item = this.findFirst(new TreeScope(TreeScope.Descendants),
+                    conditions.add(this.createAndCondition(
+                            conditions.add(this.createNamePropertyCondition(name)),
+                            conditions.add(this.createControlTypeCondition(ControlType.ListItem)))));
+        } finally {
+            conditions.close();
+        }
 
         if (item != null) {
             return new AutomationListItem(item);
@@ -243,8 +262,13 @@ public class AutomationComboBox
 
         AutomationElement foundElement = null;
 
-        collection = this.findAll(new TreeScope(TreeScope.Descendants),
-        		this.createControlTypeCondition(ControlType.ListItem));
+        Conditions conditions = new Conditions();
+        try {
+            collection = this.findAll(new TreeScope(TreeScope.Descendants),
+                    conditions.add(this.createControlTypeCondition(ControlType.ListItem)));
+        } finally {
+            conditions.close();
+        }
 
         for (AutomationElement element : collection) {
             String name = element.getName();
@@ -255,6 +279,8 @@ public class AutomationComboBox
             }
         }
 
+        closeOthers(collection, foundElement);
+
         if (foundElement == null) {
             throw new ItemNotFoundException(namePattern.toString());
         }
@@ -270,10 +296,16 @@ public class AutomationComboBox
      * @throws PatternNotFoundException Expected pattern not found
      */
     public AutomationListItem getItemByAutomationId(String automationId) throws PatternNotFoundException, AutomationException {
-        AutomationElement item = this.findFirst(new TreeScope(TreeScope.Descendants),
-                this.createAndCondition(
-                        this.createAutomationIdPropertyCondition(automationId),
-                        this.createControlTypeCondition(ControlType.ListItem)));
+        AutomationElement item;
+        Conditions conditions = new Conditions();
+        try {
+            item = this.findFirst(new TreeScope(TreeScope.Descendants),
+                    conditions.add(this.createAndCondition(
+                            conditions.add(this.createAutomationIdPropertyCondition(automationId)),
+                            conditions.add(this.createControlTypeCondition(ControlType.ListItem)))));
+        } finally {
+            conditions.close();
+        }
 
         if (item != null) {
             return new AutomationListItem(item);
@@ -15,7 +15,12 @@
  */
 package mmarquee.automation.controls;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 import com.sun.jna.platform.win32.Variant;
@@ -23,10 +28,12 @@ import com.sun.jna.ptr.PointerByReference;
 
 import mmarquee.automation.AutomationElement;
 import mmarquee.automation.AutomationException;
+import mmarquee.automation.Conditions;
 import mmarquee.automation.ControlType;
 import mmarquee.automation.ElementNotFoundException;
 import mmarquee.automation.PropertyID;
 import mmarquee.automation.UIAutomation;
+import mmarquee.automation.Waiter;
 import mmarquee.automation.pattern.Invoke;
 import mmarquee.automation.pattern.ItemContainer;
 import mmarquee.automation.pattern.PatternNotFoundException;
@@ -112,14 +119,24 @@ public class AutomationContainer extends AutomationBase {
      * @return The matching element.
      * @throws AutomationException Error in the Automation library.
      */
-    AutomationElement getElementByControlType(int index, ControlType id) throws AutomationException {
-        PointerByReference condition =  this.automation.createPropertyCondition(PropertyID.ControlType.getValue(),
-                this.createIntegerVariant(id.getValue()));
+    AutomationElement getElementByControlType(final int index, final ControlType id) throws AutomationException {
+        AutomationElement found = this.locate(new Waiter.Search() {
+            public AutomationElement find() throws AutomationException {
+                Conditions conditions = new Conditions();
+                try {
+                    return findAt(new TreeScope(TreeScope.Subtree),
+                            conditions.add(createControlTypeCondition(id)), index);
+                } finally {
+                    conditions.close();
+                }
+            }
+        });
 
-        List<AutomationElement> collection = this.findAll(
-                new TreeScope(TreeScope.Subtree), condition);
+        if (found == null) {
+            throw new IndexOutOfBoundsException("Index: " + index); // Backward compatibility
+        }
 
-        return collection.get(index);
+        return found;
     }
 
     /**
@@ -132,20 +149,27 @@ public class AutomationContainer extends AutomationBase {
      * @throws AutomationException Automation issue.
      * @throws ElementNotFoundException Failed to find element.
      */
-    protected AutomationElement getElementByControlType(int index, ControlType id, String className) throws AutomationException, ElementNotFoundException {
-        PointerByReference condition =  
-        		this.createAndCondition(this.automation.createPropertyCondition(PropertyID.ControlType.getValue(),
-        				this.createIntegerVariant(id.getValue())),
-        				this.createClassNamePropertyCondition(className));
-        
-        List<AutomationElement> collection;
+    protected AutomationElement getElementByControlType(final int index, final ControlType id, final String className) throws AutomationException, ElementNotFoundException {
+        AutomationElement found = this.locate(new Waiter.Search() {
+            public AutomationElement find() throws AutomationException {
+                Conditions conditions = new Conditions();
+                try {
+                    PointerByReference condition = conditions.add(createAndCondition(
+                            conditions.add(createControlTypeCondition(id)),
+                            conditions.add(createClassNamePropertyCondition(className))));
+
+                    return findAt(new TreeScope(TreeScope.Descendants), condition, index);
+                } finally {
+                    conditions.close();
+                }
+            }
+        });
 
-        try {
-        	collection = this.findAll(new TreeScope(TreeScope.Descendants), condition);
-        	return collection.get(index);
-        } catch (IndexOutOfBoundsException ex) {
-        	throw new ElementNotFoundException(ex); // Backward compatibility
+        if (found == null) {
+        	throw new ElementNotFoundException();
         }
+
+        return found;
     }
 
     /**
@@ -156,11 +180,20 @@ public class AutomationContainer extends AutomationBase {
      * @return The matching element.
      * @throws ElementNotFoundException Did not find the element.
      */
-    protected AutomationElement getElementByControlType(String name, ControlType id) throws AutomationException {
-        return this.findFirst(new TreeScope(TreeScope.Descendants),
-                this.createAndCondition(
-                        this.createNamePropertyCondition(name),
-                        this.createControlTypeCondition(id)));
+    protected AutomationElement getElementByControlType(final String name, final ControlType id) throws AutomationException {
+        return this.locate(new Waiter.Search() {
+            public AutomationElement find() throws AutomationException {
+                Conditions conditions = new Conditions();
+                try {
+                    return findFirst(new TreeScope(TreeScope.Descendants),
+                            conditions.add(createAndCondition(
+                                    conditions.add(createNamePropertyCondition(name)),
+                                    conditions.add(createControlTypeCondition(id)))));
+                } finally {
+                    conditions.close();
+                }
+            }
+        });
     }
 
     /**
@@ -171,22 +204,18 @@ public class AutomationContainer extends AutomationBase {
      * @return The matching element.
      * @throws ElementNotFoundException Did not find the element.
      */
-    protected AutomationElement getElementByControlType(Pattern namePattern, ControlType id) throws AutomationException {
-    	List<AutomationElement> collection;
-
-        AutomationElement foundElement = null;
-
-        collection = this.findAll(new TreeScope(TreeScope.Descendants),
-        		this.createControlTypeCondition(id));
-
-        for (AutomationElement element : collection) {
-            String name = element.getName();
-
-            if (name != null && namePattern.matcher(name).matches()) {
-                foundElement = element;
-                break;
+    protected AutomationElement getElementByControlType(final Pattern namePattern, final ControlType id) throws AutomationException {
+        AutomationElement foundElement = this.locate(new Waiter.Search() {
+            public AutomationElement find() throws AutomationException {
+                Conditions conditions = new Conditions();
+                try {
+                    return findFirstMatching(new TreeScope(TreeScope.Descendants),
+                            conditions.add(createControlTypeCondition(id)), namePattern);
+                } finally {
+                    conditions.close();
+                }
             }
-        }
+        });
 
         if (foundElement == null) {
             throw new ElementNotFoundException("matching " + namePattern);
@@ -204,13 +233,22 @@ public class AutomationContainer extends AutomationBase {
      * @return The matching element
      * @throws AutomationException Did not find the element
      */
-    protected AutomationElement getElementByControlType(String name, ControlType id, String className) throws AutomationException {
-        return this.findFirst(new TreeScope(TreeScope.Descendants),
-        		this.createAndCondition(
-        				this.createAndCondition(
-	                        this.createNamePropertyCondition(name),
-	                        this.createControlTypeCondition(id)),
-        				this.createClassNamePropertyCondition(className)));
+    protected AutomationElement getElementByControlType(final String name, final ControlType id, final String className) throws AutomationException {
+        return this.locate(new Waiter.Search() {
+            public AutomationElement find() throws AutomationException {
+                Conditions conditions = new Conditions();
+                try {
+                    return findFirst(new TreeScope(TreeScope.Descendants),
+                            conditions.add(createAndCondition(
+                                    conditions.add(createAndCondition(
+                                            conditions.add(createNamePropertyCondition(name)),
+                                            conditions.add(createControlTypeCondition(id)))),
+                                    conditions.add(createClassNamePropertyCondition(className)))));
+                } finally {
+                    conditions.close();
+                }
+            }
+        });
     }
     
     /**
@@ -222,24 +260,21 @@ public class AutomationContainer extends AutomationBase {
      * @return The matching element
      * @throws AutomationException Did not find the element
      */
-    protected AutomationElement getElementByControlType(Pattern namePattern, ControlType id, String className) throws AutomationException {
-        List<AutomationElement> collection;
-
-        AutomationElement foundElement = null;
-
-        collection = this.findAll(new TreeScope(TreeScope.Descendants),
-        		this.createAndCondition(
-        				this.createControlTypeCondition(id),
-        				this.createClassNamePropertyCondition(className)));
-
-        for (AutomationElement element : collection) {
-            String name = element.getName();
-
-            if (name != null && namePattern.matcher(name).matches()) {
-                foundElement = element;
-                break;
+    protected AutomationElement getElementByControlType(final Pattern namePattern, final ControlType id, final String className) throws AutomationException {
+        AutomationElement foundElement = this.locate(new Waiter.Search() {
+            public AutomationElement find() throws AutomationException {
+                Conditions conditions = new Conditions();
+                try {
+                    return findFirstMatching(new TreeScope(TreeScope.Descendants),
+                            conditions.add(createAndCondition(
+                                    conditions.add(createControlTypeCondition(id)),
+                                    conditions.add(createClassNamePropertyCondition(className)))),
+                            namePattern);
+                } finally {
+                    conditions.close();
+                }
             }
-        }
+        });
 
         if (foundElement == null) {
             throw new ElementNotFoundException("matching " + namePattern);
@@ -255,9 +290,18 @@ public class AutomationContainer extends AutomationBase {
      * @return The matching element
      * @throws AutomationException Did not find the element
      */
-    protected AutomationElement getElementByName(String name) throws AutomationException {
-        return this.findFirst(new TreeScope(TreeScope.Descendants),
-        		this.createNamePropertyCondition(name));
+    protected AutomationElement getElementByName(final String name) throws AutomationException {
+        return this.locate(new Waiter.Search() {
+            public AutomationElement find() throws AutomationException {
+                Conditions conditions = new Conditions();
+                try {
+                    return findFirst(new TreeScope(TreeScope.Descendants),
+                            conditions.add(createNamePropertyCondition(name)));
+                } finally {
+                    conditions.close();
+                }
+            }
+        });
     }
 
     /**
@@ -267,22 +311,12 @@ public class AutomationContainer extends AutomationBase {
      * @return The matching element
      * @throws AutomationException Did not find the element
      */
-    protected AutomationElement getElementByName(Pattern namePattern) throws AutomationException {
-    	List<AutomationElement> collection;
-
-        AutomationElement foundElement = null;
-
-        collection = this.findAll(new TreeScope(TreeScope.Descendants),
-        		this.createTrueCondition());
-
-        for (AutomationElement element : collection) {
-            String name = element.getName();
-
-            if (name != null && namePattern.matcher(name).matches()) {
-                foundElement = element;
-                break;
+    protected AutomationElement getElementByName(final Pattern namePattern) throws AutomationException {
+        AutomationElement foundElement = this.locate(new Waiter.Search() {
+            public AutomationElement find() throws AutomationException {
+                return findFirstMatching(new TreeScope(TreeScope.Descendants), null, namePattern);
             }
-        }
+        });
 
         if (foundElement == null) {
             throw new ElementNotFoundException("matching " + namePattern);
@@ -299,11 +333,20 @@ public class AutomationContainer extends AutomationBase {
      * @return The matching element
      * @throws AutomationException Did not find the element
      */
-    protected AutomationElement getElementByName(String name, String className) throws AutomationException {
-        return this.findFirst(new TreeScope(TreeScope.Descendants),
-        		this.createAndCondition(
-        				this.createNamePropertyCondition(name),
-        				this.createClassNamePropertyCondition(className)));
+    protected AutomationElement getElementByName(final String name, final String className) throws AutomationException {
+        return this.locate(new Waiter.Search() {
+            public AutomationElement find() throws AutomationException {
+                Conditions conditions = new Conditions();
+                try {
+                    return findFirst(new TreeScope(TreeScope.Descendants),
+                            conditions.add(createAndCondition(
+                                    conditions.add(createNamePropertyCondition(name)),
+                                    conditions.add(createClassNamePropertyCondition(className)))));
+                } finally {
+                    conditions.close();
+                }
+            }
+        });
     }
 
     /**
@@ -314,22 +357,18 @@ public class AutomationContainer extends AutomationBase {
      * @return The matching element
      * @throws AutomationException Did not find the element
      */
-    protected AutomationElement getElementByName(Pattern namePattern, String className) throws AutomationException {
-    	List<AutomationElement> collection;
-
-        AutomationElement foundElement = null;
-
-        collection = this.findAll(new TreeScope(TreeScope.Descendants),
-        		this.createClassNamePropertyCondition(className));
-
-        for (AutomationElement element : collection) {
-            String name = element.getName();
-
-            if (name != null && namePattern.matcher(name).matches()) {
-                foundElement = element;
-                break;
+    protected AutomationElement getElementByName(final Pattern namePattern, final String className) throws AutomationException {
+        AutomationElement foundElement = this.locate(new Waiter.Search() {
+            public AutomationElement find() throws AutomationException {
+                Conditions conditions = new Conditions();
+                try {
+                    return findFirstMatching(new TreeScope(TreeScope.Descendants),
+                            conditions.add(createClassNamePropertyCondition(className)), namePattern);
+                } finally {
+                    conditions.close();
+                }
             }
-        }
+        });
 
         if (foundElement == null) {
             throw new ElementNotFoundException("matching " + namePattern + " and className " + className);
@@ -347,16 +386,24 @@ public class AutomationContainer extends AutomationBase {
      * @throws AutomationException Automation issue
      * @throws ElementNotFoundException Failed to find element
      */
-    protected AutomationElement getElementByIndex(int index, String className) throws AutomationException, ElementNotFoundException {
-        List<AutomationElement> collection;
-
-        collection = this.findAll(new TreeScope(TreeScope.Descendants), this.createClassNamePropertyCondition(className));
+    protected AutomationElement getElementByIndex(final int index, final String className) throws AutomationException, ElementNotFoundException {
+        AutomationElement found = this.locate(new Waiter.Search() {
+            public AutomationElement find() throws AutomationException {
+                Conditions conditions = new Conditions();
+                try {
+                    return findAt(new TreeScope(TreeScope.Descendants),
+                            conditions.add(createClassNamePropertyCondition(className)), index);
+                } finally {
+                    conditions.close();
+                }
+            }
+        });
 
-        try {
-        	return collection.get(index);
-        } catch (IndexOutOfBoundsException ex) {
-        	throw new ElementNotFoundException(ex); // backward compatibility
+        if (found == null) {
+        	throw new ElementNotFoundException();
         }
+
+        return found;
     }
 
     /**
@@ -366,11 +413,20 @@ public class AutomationContainer extends AutomationBase {
      * @return The matching element
      * @throws AutomationException An error has occurred in automation
      */
-    protected AutomationElement getElementByAutomationId(String automationId, ControlType controlType) throws AutomationException {
-        return this.findFirst(new TreeScope(TreeScope.Descendants),
-                this.createAndCondition(
-                        this.createAutomationIdPropertyCondition(automationId),
-                        this.createControlTypeCondition(controlType)));
+    protected AutomationElement getElementByAutomationId(final String automationId, final ControlType controlType) throws AutomationException {
+        return this.locate(new Waiter.Search() {
+            public AutomationElement find() throws AutomationException {
+                Conditions conditions = new Conditions();
+                try {
+                    return findFirst(new TreeScope(TreeScope.Descendants),
+                            conditions.add(createAndCondition(
+                                    conditions.add(createAutomationIdPropertyCondition(automationId)),
+                                    conditions.add(createControlTypeCondition(controlType)))));
+                } finally {
+                    conditions.close();
+                }
+            }
+        });
     }
 
     /**
@@ -379,8 +435,18 @@ public class AutomationContainer extends AutomationBase {
      * @return The matching element
      * @throws AutomationException An error has occurred in automation
      */
-    protected AutomationElement getElementByAutomationId(String automationId) throws AutomationException {
-        return this.findFirst(new TreeScope(TreeScope.Descendants),this.createAutomationIdPropertyCondition(automationId));
+    protected AutomationElement getElementByAutomationId(final String automationId) throws AutomationException {
+        return this.locate(new Waiter.Search() {
+            public AutomationElement find() throws AutomationException {
+                Conditions conditions = new Conditions();
+                try {
+                    return findFirst(new TreeScope(TreeScope.Descendants),
+                            conditions.add(createAutomationIdPropertyCondition(automationId)));
+                } finally {
+                    conditions.close();
+                }
+            }
+        });
     }
 
 
@@ -1937,6 +2003,131 @@ public class AutomationContainer extends AutomationBase {
     	return AutomationControlFactory.get(this, el);
     }
 
+    /**
+     * Gets the first control matching the selector,
+     * e.g. "Pane#main Button[name~='^OK']".
+     *
+     * @param selector The selector, see Selector for the syntax
+     * @return The found control
+     * @throws AutomationException Something has gone wrong
+     * @throws ElementNotFoundException Did not find the element
+     * @throws PatternNotFoundException Expected pattern not found
+     */
+    public AutomationBase find(String selector) throws AutomationException, PatternNotFoundException {
+        return Selector.compile(selector).find(this);
+    }
+
+    /**
+     * Finds the controls for a set of locators with a single search, rather
+     * than searching the whole container once per control.
+     *
+     * @param locators The locators, by key
+     * @return The controls found, along with the locators that found nothing or more than one control
+     * @throws AutomationException Something has gone wrong
+     * @throws PatternNotFoundException Expected pattern not found
+     */
+    public LocatorResults resolveAll(Map<String, Locator> locators) throws AutomationException, PatternNotFoundException {
+        Map<String, AutomationElement> found = new LinkedHashMap<String, AutomationElement>();
+        Set<String> ambiguous = new LinkedHashSet<String>();
+
+        if (!locators.isEmpty()) {
+            List<AutomationElement> candidates;
+            Conditions built = new Conditions();
+
+            try {
+                List<PointerByReference> conditions = new ArrayList<PointerByReference>();
+                for (Locator locator : locators.values()) {
+                    conditions.add(locator.buildCondition(this.automation, built));
+                }
+
+                candidates = this.findAll(new TreeScope(TreeScope.Descendants),
+                        this.createOrCondition(conditions, 0, conditions.size(), built),
+                        this.automation.getCacheRequest(PropertyID.ControlType, PropertyID.Name,
+                                PropertyID.AutomationId, PropertyID.ClassName));
+            } finally {
+                built.close();
+            }
+
+            int next = 0;
+
+            try {
+                for (; next < candidates.size(); next++) {
+                    AutomationElement candidate = candidates.get(next);
+
+                    int controlType = candidate.getCachedControlType();
+                    String name = candidate.getCachedName();
+                    String automationId = candidate.getCachedAutomationId();
+                    String className = candidate.getCachedClassName();
+
+                    boolean kept = false;
+
+                    for (Map.Entry<String, Locator> entry : locators.entrySet()) {
+                        if (entry.getValue().matches(controlType, name, automationId, className)) {
+                            if (found.containsKey(entry.getKey())) {
+                                ambiguous.add(entry.getKey());
+                            } else {
+                                // Each control gets its own reference to the element
+                                found.put(entry.getKey(), kept ? candidate.copy() : candidate);
+                                kept = true;
+                            }
+                        }
+                    }
+
+                    if (!kept) {
+                        candidate.close();
+                    }
+                }
+            } finally {
+                if (next < candidates.size()) {
+                    // Failed part way through, so nothing is handed back
+                    closeOthers(candidates.subList(next, candidates.size()), null);
+                    closeOthers(new ArrayList<AutomationElement>(found.values()), null);
+                }
+            }
+        }
+
+        Map<String, AutomationBase> controls = new LinkedHashMap<String, AutomationBase>();
+        Set<String> missing = new LinkedHashSet<String>();
+
+        for (Map.Entry<String, Locator> entry : locators.entrySet()) {
+            AutomationElement element = found.get(entry.getKey());
+            ControlType controlType = entry.getValue().getControlType();
+
+            if (element == null) {
+                missing.add(entry.getKey());
+            } else if (controlType == null) {
+                controls.put(entry.getKey(), AutomationControlFactory.get(this, element));
+            } else {
+                controls.put(entry.getKey(), AutomationControlFactory.get(this, controlType, element));
+            }
+        }
+
+        return new LocatorResults(controls, missing, ambiguous);
+    }
+
+    /**
+     * Combines conditions into a balanced tree of 'or' conditions.
+     *
+     * @param conditions The conditions
+     * @param from The first condition to use
+     * @param to The end of the conditions to use
+     * @param built Collects the conditions built, to be closed by the caller
+     * @return The combined condition
+     * @throws AutomationException Something has gone wrong
+     */
+    private PointerByReference createOrCondition(List<PointerByReference> conditions, int from, int to,
+                                                 Conditions built) throws AutomationException {
+        if (to - from == 1) {
+            return conditions.get(from);
+        }
+
+        int middle = (from + to) >>> 1;
+
+        return built.add(this.automation.createOrCondition(
+                this.createOrCondition(conditions, from, middle, built),
+                this.createOrCondition(conditions, middle, to, built)));
+    }
+
     
     /////////////////// Heap /////////////////////////////7
 
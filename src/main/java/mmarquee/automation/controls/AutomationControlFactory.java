@@ -1,166 +1,471 @@
-/*
- * Copyright 2016-17 inpwtepydjuf@gmail.com
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *     http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-
-package mmarquee.automation.controls;
-
-import mmarquee.automation.AutomationElement;
-import mmarquee.automation.AutomationException;
-import mmarquee.automation.ControlType;
-import mmarquee.automation.ElementNotFoundException;
-import mmarquee.automation.controls.menu.AutomationMainMenu;
-import mmarquee.automation.controls.menu.AutomationMenu;
-import mmarquee.automation.controls.menu.AutomationMenuItem;
-import mmarquee.automation.pattern.PatternNotFoundException;
-
-/**
- * A Factory which creates concrete controls for AutomationElements
- */
-public class AutomationControlFactory {
-	
-	/**
-	 * Returns an Automation Control for the given element.
-	 * 
-	 * @param parent the parent control of the new automation control (Only relevant for menuBars).
-	 * @param element The AutomationElement for which to create a specific control object.
-	 * @return The AutomationBase child which best describes the given element.
-	 * @throws AutomationException Automation library error.
-	 * @throws PatternNotFoundException Expected pattern not found.
-	 */
-	public static AutomationBase get(final AutomationBase parent,
-									 final AutomationElement element)
-			throws AutomationException, PatternNotFoundException {
-		if (element == null) {
-			throw new ElementNotFoundException("null");
-		}
-		
-    	ControlType controlType = ControlType.fromValue(element.getControlType());
-		return get(parent, controlType, element);
-	}
-
-	/**
-	 * Returns an Automation Control for the given element.
-	 *
-	 * @param parent the parent control of the new automation control (Only relevant for menuBars).
-	 * @param controlType The Control type to get.
-	 * @param element The AutomationElement for which to create a specific control object.
-	 * @return The AutomationBase child which best describes the given element.
-	 * @throws AutomationException Automation library error.
-	 * @throws PatternNotFoundException Expected pattern not found.
-	 */
-	static AutomationBase get(final AutomationBase parent,
-							  final ControlType controlType,
-							  final AutomationElement element)
-            throws AutomationException, PatternNotFoundException {
-
-    	String className = element.getClassName();
-    	switch (controlType) {
-    	case Button:
-    		return new AutomationButton(element);
-    	case Calendar:
-    		return new AutomationCalendar(element);
-    	case CheckBox:
-    		return new AutomationCheckBox(element);
-    	case ComboBox:
-    		return new AutomationComboBox(element);
-    	case Edit:
-			if (AutomationPasswordEditBox.CLASS_NAME.equals(className)) {
-				return new AutomationPasswordEditBox(element);
-			} else if (AutomationMaskedEdit.CLASS_NAME.equals(className)) {
-				return new AutomationMaskedEdit(element);
-			}
-    		return new AutomationEditBox(element);
-    	case Hyperlink:
-    		return new AutomationHyperlink(element);
-    	case Image:
-    		return new AutomationImage(element);
-    	case ListItem:
-    		return new AutomationListItem(element);
-    	case List:
-    		return new AutomationList(element);
-    	case Menu:
-    		return new AutomationMenu(element);
-    	case MenuBar:
-    		return new AutomationMainMenu(parent.getElement(), element);
-    	case MenuItem:
-    		return new AutomationMenuItem(element);
-    	case ProgressBar:
-    		return new AutomationProgressBar(element);
-    	case RadioButton:
-    		return new AutomationRadioButton(element);
-    	case Slider:
-    		return new AutomationSlider(element);
-    	case Spinner:
-    		return new AutomationSpinner(element);
-    	case StatusBar:
-    		return new AutomationStatusBar(element);
-    	case Tab:
-    		return new AutomationTab(element);
-    	case TabItem:
-    		return new AutomationTabItem(element);
-    	case Text:
-    		return new AutomationTextBox(element);
-    	case ToolBar:
-    		return new AutomationToolBar(element);
-    	case Tree:
-    		return new AutomationTreeView(element);
-    	case TreeItem:
-    		return new AutomationTreeViewItem(element);
-    	case Custom:
-    		return new AutomationCustom(element);
-    	case DataGrid:
-    		return new AutomationDataGrid(element);
-    	case Document:
-    		return new AutomationDocument(element);
-    	case SplitButton:
-    		return new AutomationSplitButton(element);
-    	case Window:
-    		return new AutomationWindow(element);
-    	case Pane:
-			if (AutomationReBar.CLASS_NAME.equals(className)) {
-				return new AutomationReBar(element);
-			} else if (AutomationRibbonBar.CLASS_NAME.equals(className)) {
-				return new AutomationRibbonBar(element);
-			} else if (AutomationRibbonCommandBar.CLASS_NAME.equals(className)) {
-				return new AutomationRibbonCommandBar(element);
-			} else if (AutomationRibbonWorkPane.CLASS_NAME.equals(className)) {
-				return new AutomationRibbonWorkPane(element);
-			} else if (AutomationNUIPane.CLASS_NAME.equals(className)) {
-				return new AutomationNUIPane(element);
-			} else if (AutomationNetUIHWND.CLASS_NAME.equals(className)) {
-				return new AutomationNetUIHWND(element);
-			}
-    		return new AutomationPanel(element);
-    	case TitleBar:
-    		return new AutomationTitleBar(element);
-    	case AppBar:
-    		return new AutomationAppBar(element);
-    		// No Custom controls, yet:
-    	case ScrollBar:
-    	case ToolTip:
-    	case Group:
-    	case Thumb:
-    	case DataItem:
-    	case Header:
-    	case HeaderItem:
-    	case Table:
-    	case Separator:
-    	case SemanticZoom:
-    	default:
-    		// best try
-            return new AutomationContainer(element);
-    	}
-    }
-}
\ No newline at end of file
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package mmarquee.automation.controls;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import mmarquee.automation.AutomationElement;
+import mmarquee.automation.AutomationException;
+import mmarquee.automation.ControlType;
+import mmarquee.automation.ElementNotFoundException;
+import mmarquee.automation.controls.menu.AutomationMainMenu;
+import mmarquee.automation.controls.menu.AutomationMenu;
+import mmarquee.automation.controls.menu.AutomationMenuItem;
+import mmarquee.automation.pattern.PatternNotFoundException;
+
+/**
+ * A Factory which creates concrete controls for AutomationElements.
+ * <p>
+ * The control is chosen from a table of the control types, and for the
+ * control types that have more than one control, their class names. The
+ * class name is only asked for when it is needed. Other controls can be
+ * added to the table with {@link #register(ControlType, Creator)} and
+ * {@link #register(ControlType, String, Creator)}.
+ * </p>
+ */
+public class AutomationControlFactory {
+
+	/**
+	 * Creates the control for an element.
+	 */
+	public interface Creator {
+		/**
+		 * Creates the control.
+		 *
+		 * @param parent the parent control of the new automation control (Only relevant for menuBars).
+		 * @param element The AutomationElement to create the control for.
+		 * @return The control.
+		 * @throws AutomationException Automation library error.
+		 * @throws PatternNotFoundException Expected pattern not found.
+		 */
+		AutomationBase create(AutomationBase parent, AutomationElement element)
+				throws AutomationException, PatternNotFoundException;
+	}
+
+	/**
+	 * Used when nothing has been registered for the control type.
+	 */
+	private static final Creator CONTAINER = new Creator() {
+		public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+				throws AutomationException, PatternNotFoundException {
+			return new AutomationContainer(element);
+		}
+	};
+
+	/**
+	 * The creators for each control type.
+	 */
+	private static final Map<ControlType, Creator> CREATORS =
+			new ConcurrentHashMap<ControlType, Creator>();
+
+	/**
+	 * The creators for particular class names of a control type.
+	 */
+	private static final Map<ControlType, Map<String, Creator>> CLASS_NAME_CREATORS =
+			new ConcurrentHashMap<ControlType, Map<String, Creator>>();
+
+	static {
+		register(ControlType.Button, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationButton(element);
+			}
+		});
+		register(ControlType.Calendar, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationCalendar(element);
+			}
+		});
+		register(ControlType.CheckBox, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationCheckBox(element);
+			}
+		});
+		register(ControlType.ComboBox, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationComboBox(element);
+			}
+		});
+		register(ControlType.Edit, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationEditBox(element);
+			}
+		});
+		register(ControlType.Hyperlink, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationHyperlink(element);
+			}
+		});
+		register(ControlType.Image, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationImage(element);
+			}
+		});
+		register(ControlType.ListItem, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationListItem(element);
+			}
+		});
+		register(ControlType.List, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationList(element);
+			}
+		});
+		register(ControlType.Menu, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationMenu(element);
+			}
+		});
+		register(ControlType.MenuBar, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationMainMenu(parent.getElement(), element);
+			}
+		});
+		register(ControlType.MenuItem, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationMenuItem(element);
+			}
+		});
+		register(ControlType.ProgressBar, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationProgressBar(element);
+			}
+		});
+		register(ControlType.RadioButton, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationRadioButton(element);
+			}
+		});
+		register(ControlType.Slider, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationSlider(element);
+			}
+		});
+		register(ControlType.Spinner, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationSpinner(element);
+			}
+		});
+		register(ControlType.StatusBar, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationStatusBar(element);
+			}
+		});
+		register(ControlType.Tab, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationTab(element);
+			}
+		});
+		register(ControlType.TabItem, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationTabItem(element);
+			}
+		});
+		register(ControlType.Text, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationTextBox(element);
+			}
+		});
+		register(ControlType.ToolBar, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationToolBar(element);
+			}
+		});
+		register(ControlType.Tree, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationTreeView(element);
+			}
+		});
+		register(ControlType.TreeItem, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationTreeViewItem(element);
+			}
+		});
+		register(ControlType.Custom, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationCustom(element);
+			}
+		});
+		register(ControlType.DataGrid, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationDataGrid(element);
+			}
+		});
+		register(ControlType.Document, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationDocument(element);
+			}
+		});
+		register(ControlType.SplitButton, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationSplitButton(element);
+			}
+		});
+		register(ControlType.Window, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationWindow(element);
+			}
+		});
+		register(ControlType.Pane, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationPanel(element);
+			}
+		});
+		register(ControlType.TitleBar, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationTitleBar(element);
+			}
+		});
+		register(ControlType.AppBar, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationAppBar(element);
+			}
+		});
+		register(ControlType.Edit, AutomationPasswordEditBox.CLASS_NAME, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationPasswordEditBox(element);
+			}
+		});
+		register(ControlType.Edit, AutomationMaskedEdit.CLASS_NAME, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationMaskedEdit(element);
+			}
+		});
+		register(ControlType.Pane, AutomationReBar.CLASS_NAME, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationReBar(element);
+			}
+		});
+		register(ControlType.Pane, AutomationRibbonBar.CLASS_NAME, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationRibbonBar(element);
+			}
+		});
+		register(ControlType.Pane, AutomationRibbonCommandBar.CLASS_NAME, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationRibbonCommandBar(element);
+			}
+		});
+		register(ControlType.Pane, AutomationRibbonWorkPane.CLASS_NAME, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationRibbonWorkPane(element);
+			}
+		});
+		register(ControlType.Pane, AutomationNUIPane.CLASS_NAME, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationNUIPane(element);
+			}
+		});
+		register(ControlType.Pane, AutomationNetUIHWND.CLASS_NAME, new Creator() {
+			public AutomationBase create(final AutomationBase parent, final AutomationElement element)
+					throws AutomationException, PatternNotFoundException {
+				return new AutomationNetUIHWND(element);
+			}
+		});
+	}
+
+	/**
+	 * Registers the control to create for a control type, when there isn't
+	 * one registered for the element's class name.
+	 *
+	 * @param controlType The control type.
+	 * @param creator Creates the control.
+	 * @return The creator that was registered before, or null.
+	 */
+	public static Creator register(final ControlType controlType,
+								   final Creator creator) {
+		return CREATORS.put(controlType, creator);
+	}
+
+	/**
+	 * Registers the control to create for a control type with a particular
+	 * class name.
+	 *
+	 * @param controlType The control type.
+	 * @param className The class name.
+	 * @param creator Creates the control.
+	 * @return The creator that was registered before, or null.
+	 */
+	public static Creator register(final ControlType controlType,
+								   final String className,
+								   final Creator creator) {
+		synchronized (CLASS_NAME_CREATORS) {
+			Map<String, Creator> creators = CLASS_NAME_CREATORS.get(controlType);
+			if (creators == null) {
+				creators = new ConcurrentHashMap<String, Creator>();
+				CLASS_NAME_CREATORS.put(controlType, creators);
+			}
+
+			return creators.put(className, creator);
+		}
+	}
+
+	/**
+	 * Removes the control registered for a control type, so that a
+	 * container is created instead.
+	 *
+	 * @param controlType The control type.
+	 * @return The creator that was registered, or null.
+	 */
+	public static Creator unregister(final ControlType controlType) {
+		return CREATORS.remove(controlType);
+	}
+
+	/**
+	 * Removes the control registered for a control type with a particular
+	 * class name.
+	 *
+	 * @param controlType The control type.
+	 * @param className The class name.
+	 * @return The creator that was registered, or null.
+	 */
+	public static Creator unregister(final ControlType controlType,
+									 final String className) {
+		Map<String, Creator> creators = CLASS_NAME_CREATORS.get(controlType);
+		return creators == null ? null : creators.remove(className);
+	}
+	
+	/**
+	 * Returns an Automation Control for the given element.
+	 * 
+	 * @param parent the parent control of the new automation control (Only relevant for menuBars).
+	 * @param element The AutomationElement for which to create a specific control object.
+	 * @return The AutomationBase child which best describes the given element.
+	 * @throws AutomationException Automation library error.
+	 * @throws PatternNotFoundException Expected pattern not found.
+	 */
+	public static AutomationBase get(final AutomationBase parent,
+									 final AutomationElement element)
+			throws AutomationException, PatternNotFoundException {
+		if (element == null) {
+			throw new ElementNotFoundException("null");
+		}
+		
+    	ControlType controlType = ControlType.fromValue(controlTypeOf(element));
+		return get(parent, controlType, element);
+	}
+
+	/**
+	 * Returns an Automation Control for the given element.
+	 *
+	 * @param parent the parent control of the new automation control (Only relevant for menuBars).
+	 * @param controlType The Control type to get.
+	 * @param element The AutomationElement for which to create a specific control object.
+	 * @return The AutomationBase child which best describes the given element.
+	 * @throws AutomationException Automation library error.
+	 * @throws PatternNotFoundException Expected pattern not found.
+	 */
+	static AutomationBase get(final AutomationBase parent,
+							  final ControlType controlType,
+							  final AutomationElement element)
+            throws AutomationException, PatternNotFoundException {
+		Creator creator = null;
+
+		Map<String, Creator> creators = CLASS_NAME_CREATORS.get(controlType);
+		if (creators != null && !creators.isEmpty()) {
+			String className = classNameOf(element);
+			if (className != null) {
+				creator = creators.get(className);
+			}
+		}
+
+		if (creator == null) {
+			creator = CREATORS.get(controlType);
+		}
+
+		if (creator == null) {
+			// best try
+			creator = CONTAINER;
+		}
+
+		return creator.create(parent, element);
+    }
+
+	/**
+	 * Gets the control type, from the cache if the element was found with
+	 * it cached.
+	 */
+	private static int controlTypeOf(final AutomationElement element)
+			throws AutomationException {
+		try {
+			int controlType = element.getCachedControlType();
+			if (controlType != 0) {
+				return controlType;
+			}
+		} catch (AutomationException ex) {
+			// Not cached
+		}
+
+		return element.getControlType();
+	}
+
+	/**
+	 * Gets the class name, from the cache if the element was found with
+	 * it cached.
+	 */
+	private static String classNameOf(final AutomationElement element)
+			throws AutomationException {
+		try {
+			String className = element.getCachedClassName();
+			if (className != null) {
+				return className;
+			}
+		} catch (AutomationException ex) {
+			// Not cached
+		}
+
+		return element.getClassName();
+	}
+}
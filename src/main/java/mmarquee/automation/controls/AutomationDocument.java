@@ -18,6 +18,7 @@ package mmarquee.automation.controls;
 
 import mmarquee.automation.AutomationElement;
 import mmarquee.automation.AutomationException;
+import mmarquee.automation.Conditions;
 import mmarquee.automation.ControlType;
 import mmarquee.automation.UIAutomation;
 import mmarquee.automation.pattern.PatternNotFoundException;
@@ -87,10 +88,19 @@ public class AutomationDocument extends AutomationBase {
     }
 
     public AutomationDocumentPage getPage(int index) throws PatternNotFoundException, AutomationException {
-        List<AutomationElement> items = this.findAll(
-                new TreeScope(TreeScope.Descendants),
-                this.createControlTypeCondition(ControlType.Custom));
+        List<AutomationElement> items;
+        Conditions conditions = new Conditions();
+        try {
+            items = this.findAll(
+                    new TreeScope(TreeScope.Descendants),
+                    conditions.add(this.createControlTypeCondition(ControlType.Custom)));
+        } finally {
+            conditions.close();
+        }
+
+        AutomationElement item = items.get(index);
+        closeOthers(items, item);
 
-        return new AutomationDocumentPage(items.get(index));
+        return new AutomationDocumentPage(item);
     }
 }
@@ -18,6 +18,7 @@ package mmarquee.automation.controls;
 
 import mmarquee.automation.AutomationElement;
 import mmarquee.automation.AutomationException;
+import mmarquee.automation.Conditions;
 import mmarquee.automation.ControlType;
 import mmarquee.automation.ElementNotFoundException;
 import mmarquee.automation.ItemNotFoundException;
@@ -81,10 +82,17 @@ public class AutomationList extends AutomationBase {
     public AutomationListItem getItem(final int index)
             throws PatternNotFoundException, AutomationException {
 
-        List<AutomationElement> items = this.findAll(new TreeScope(TreeScope.Children),
-                this.createControlTypeCondition(ControlType.ListItem));
+        List<AutomationElement> items;
+        Conditions conditions = new Conditions();
+        try {
+            items = this.findAll(new TreeScope(TreeScope.Children),
+                    conditions.add(this.createControlTypeCondition(ControlType.ListItem)));
+        } finally {
+            conditions.close();
+        }
 
         AutomationElement item = items.get(index);
+        closeOthers(items, item);
 
         if (item != null) {
             return new AutomationListItem(item);
@@ -103,10 +111,16 @@ public class AutomationList extends AutomationBase {
      */
     public AutomationListItem getItem(final String name)
             throws PatternNotFoundException, AutomationException {
-        AutomationElement item = this.findFirst(new TreeScope(TreeScope.Descendants),
-                this.createAndCondition(
-                        this.createNamePropertyCondition(name),
-                        this.createControlTypeCondition(ControlType.ListItem)));
+        AutomationElement item;
+        Conditions conditions = new Conditions();
+        try {
+            item = this.findFirst(new TreeScope(TreeScope.Descendants),
+                    conditions.add(this.createAndCondition(
+                            conditions.add(this.createNamePropertyCondition(name)),
+                            conditions.add(this.createControlTypeCondition(ControlType.ListItem)))));
+        } finally {
+            conditions.close();
+        }
 
         if (item != null) {
             return new AutomationListItem(item);
@@ -124,20 +138,13 @@ public class AutomationList extends AutomationBase {
      * @throws PatternNotFoundException Expected pattern not found
      */
     public AutomationListItem getItem(Pattern namePattern) throws PatternNotFoundException, AutomationException {
-        List<AutomationElement> collection;
-
-        AutomationElement foundElement = null;
-
-        collection = this.findAll(new TreeScope(TreeScope.Descendants),
-        		this.createControlTypeCondition(ControlType.ListItem));
-
-        for (AutomationElement element : collection) {
-            String name = element.getName();
-
-            if (name != null && namePattern.matcher(name).matches()) {
-                foundElement = element;
-                break;
-            }
+        AutomationElement foundElement;
+        Conditions conditions = new Conditions();
+        try {
+            foundElement = this.findFirstMatching(new TreeScope(TreeScope.Descendants),
+                    conditions.add(this.createControlTypeCondition(ControlType.ListItem)), namePattern);
+        } finally {
+            conditions.close();
         }
 
         if (foundElement == null) {
@@ -157,10 +164,16 @@ public class AutomationList extends AutomationBase {
      */
     public AutomationListItem getItemByAutomationId(final String automationId)
             throws PatternNotFoundException, AutomationException {
-        AutomationElement item = this.findFirst(new TreeScope(TreeScope.Descendants),
-                this.createAndCondition(
-                        this.createAutomationIdPropertyCondition(automationId),
-                        this.createControlTypeCondition(ControlType.ListItem)));
+        AutomationElement item;
+        Conditions conditions = new Conditions();
+        try {
+            item = this.findFirst(new TreeScope(TreeScope.Descendants),
+                    conditions.add(this.createAndCondition(
+                            conditions.add(this.createAutomationIdPropertyCondition(automationId)),
+                            conditions.add(this.createControlTypeCondition(ControlType.ListItem)))));
+        } finally {
+            conditions.close();
+        }
 
         if (item != null) {
             return new AutomationListItem(item);
@@ -193,7 +206,14 @@ public class AutomationList extends AutomationBase {
      */
     public List<AutomationListItem> getItems()
             throws PatternNotFoundException, AutomationException {
-        List<AutomationElement> items = this.findAll(new TreeScope(TreeScope.Descendants),this.createControlTypeCondition(ControlType.ListItem));
+        List<AutomationElement> items;
+        Conditions conditions = new Conditions();
+        try {
+            items = this.findAll(new TreeScope(TreeScope.Descendants),
+                    conditions.add(this.createControlTypeCondition(ControlType.ListItem)));
+        } finally {
+            conditions.close();
+        }
 
         List<AutomationListItem> list = new ArrayList<AutomationListItem>();
 
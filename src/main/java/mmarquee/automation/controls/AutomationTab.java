@@ -18,6 +18,7 @@ package mmarquee.automation.controls;
 
 import mmarquee.automation.AutomationElement;
 import mmarquee.automation.AutomationException;
+import mmarquee.automation.Conditions;
 import mmarquee.automation.ControlType;
 import mmarquee.automation.pattern.ItemContainer;
 import mmarquee.automation.UIAutomation;
@@ -47,7 +48,14 @@ public class AutomationTab extends AutomationContainer {
         List<AutomationTabItem> tabItems = new ArrayList<AutomationTabItem>();
 
         try {
-            List<AutomationElement> collection = this.findAll(new TreeScope(TreeScope.Descendants),this.createControlTypeCondition(ControlType.TabItem));
+            List<AutomationElement> collection;
+            Conditions conditions = new Conditions();
+            try {
+                collection = this.findAll(new TreeScope(TreeScope.Descendants),
+                        conditions.add(this.createControlTypeCondition(ControlType.TabItem)));
+            } finally {
+                conditions.close();
+            }
 
             for (AutomationElement elem : collection) {
                 tabItems.add(new AutomationTabItem(elem, this.automation));
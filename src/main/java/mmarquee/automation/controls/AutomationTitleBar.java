@@ -15,9 +15,9 @@
  */
 package mmarquee.automation.controls;
 
-import com.sun.jna.ptr.PointerByReference;
 import mmarquee.automation.AutomationElement;
 import mmarquee.automation.AutomationException;
+import mmarquee.automation.Conditions;
 import mmarquee.automation.ControlType;
 import mmarquee.automation.ElementNotFoundException;
 import mmarquee.automation.controls.menu.AutomationMainMenu;
@@ -62,10 +62,14 @@ public class AutomationTitleBar extends AutomationContainer {
      * @throws ElementNotFoundException When the element is not found
      */
     public AutomationMainMenu getMenuBar() throws AutomationException {
-        PointerByReference condition = this.automation.createControlTypeCondition(ControlType.MenuBar);
-
-        AutomationElement element = this.element.findFirst(new TreeScope(TreeScope.Descendants),
-                condition);
+        AutomationElement element;
+        Conditions conditions = new Conditions();
+        try {
+            element = this.element.findFirst(new TreeScope(TreeScope.Descendants),
+                    conditions.add(this.automation.createControlTypeCondition(ControlType.MenuBar)));
+        } finally {
+            conditions.close();
+        }
 
         return new AutomationMainMenu(this.element, element);
     }
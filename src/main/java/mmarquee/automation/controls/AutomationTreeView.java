@@ -15,7 +15,6 @@
  */
 package mmarquee.automation.controls;
 
-import java.util.List;
 import java.util.regex.Pattern;
 
 import mmarquee.automation.*;
@@ -62,10 +61,16 @@ public class AutomationTreeView extends AutomationBase {
      * @throws PatternNotFoundException Expected pattern not found
      */
     public AutomationTreeViewItem getItem(String name) throws PatternNotFoundException, AutomationException {
-        AutomationElement item = this.findFirst(new TreeScope(TreeScope.Descendants),
-                this.createAndCondition(
-                        this.createNamePropertyCondition(name),
-                        this.createControlTypeCondition(ControlType.TreeItem)));
+        AutomationElement item;
+        Conditions conditions = new Conditions();
+        try {
+            item = this.findFirst(new TreeScope(TreeScope.Descendants),
+                    conditions.add(this.createAndCondition(
+                            conditions.add(this.createNamePropertyCondition(name)),
+                            conditions.add(this.createControlTypeCondition(ControlType.TreeItem)))));
+        } finally {
+            conditions.close();
+        }
 
         if (item != null) {
             return new AutomationTreeViewItem(item);
@@ -83,20 +88,13 @@ public class AutomationTreeView extends AutomationBase {
      * @throws PatternNotFoundException Expected pattern not found
      */
     public AutomationTreeViewItem getItem(Pattern namePattern) throws PatternNotFoundException, AutomationException {
-        List<AutomationElement> collection;
-
-        AutomationElement foundElement = null;
-
-        collection = this.findAll(new TreeScope(TreeScope.Descendants),
-        		this.createControlTypeCondition(ControlType.TreeItem));
-
-        for (AutomationElement element : collection) {
-            String name = element.getName();
-
-            if (name != null && namePattern.matcher(name).matches()) {
-                foundElement = element;
-                break;
-            }
+        AutomationElement foundElement;
+        Conditions conditions = new Conditions();
+        try {
+            foundElement = this.findFirstMatching(new TreeScope(TreeScope.Descendants),
+                    conditions.add(this.createControlTypeCondition(ControlType.TreeItem)), namePattern);
+        } finally {
+            conditions.close();
         }
 
         if (foundElement == null) {
@@ -114,10 +112,16 @@ public class AutomationTreeView extends AutomationBase {
      * @throws PatternNotFoundException Expected pattern not found
      */
     public AutomationTreeViewItem getItemByAutomationId(String automationId) throws PatternNotFoundException, AutomationException {
-        AutomationElement item = this.findFirst(new TreeScope(TreeScope.Descendants),
-                this.createAndCondition(
-                        this.createAutomationIdPropertyCondition(automationId),
-                        this.createControlTypeCondition(ControlType.TreeItem)));
+        AutomationElement item;
+        Conditions conditions = new Conditions();
+        try {
+            item = this.findFirst(new TreeScope(TreeScope.Descendants),
+                    conditions.add(this.createAndCondition(
+                            conditions.add(this.createAutomationIdPropertyCondition(automationId)),
+                            conditions.add(this.createControlTypeCondition(ControlType.TreeItem)))));
+        } finally {
+            conditions.close();
+        }
 
         if (item != null) {
             return new AutomationTreeViewItem(item);
@@ -22,9 +22,13 @@ import com.sun.jna.platform.win32.WinDef;
 import com.sun.jna.ptr.PointerByReference;
 import mmarquee.automation.AutomationElement;
 import mmarquee.automation.AutomationException;
+import mmarquee.automation.Conditions;
 import mmarquee.automation.ElementNotFoundException;
+import mmarquee.automation.LiveTree;
+import mmarquee.automation.PropertyID;
 import mmarquee.automation.ControlType;
 import mmarquee.automation.UIAutomation;
+import mmarquee.automation.Waiter;
 import mmarquee.automation.controls.menu.AutomationMainMenu;
 import mmarquee.automation.controls.menu.AutomationSystemMenu;
 import mmarquee.automation.pattern.ItemContainer;
@@ -59,6 +63,11 @@ public class AutomationWindow extends AutomationContainer implements Focusable {
      */
     public static final int SLEEP_DURATION = 500;
 
+    /**
+     * The number of times to look for a child window.
+     */
+    private static final int GET_WINDOW_ATTEMPTS = 10;
+
     /**
      * Focuses this control.
      */
@@ -155,22 +164,29 @@ public class AutomationWindow extends AutomationContainer implements Focusable {
      * @throws PatternNotFoundException Did not find the pattern.
      */
     public AutomationStatusBar getStatusBar() throws AutomationException, PatternNotFoundException {
-        PointerByReference condition = this.createTrueCondition();
-
-        List<AutomationElement> collection = this.findAll(new TreeScope(TreeScope.Descendants), condition);
+        List<AutomationElement> collection;
+        Conditions conditions = new Conditions();
+        try {
+            collection = this.findAll(new TreeScope(TreeScope.Descendants),
+                    conditions.add(this.createTrueCondition()));
+        } finally {
+            conditions.close();
+        }
 
-        AutomationStatusBar found = null;
+        AutomationElement statusBar = null;
 
         for(AutomationElement element: collection) {
             int retVal = element.getControlType();
 
             if (retVal == ControlType.StatusBar.getValue()) {
-                found = new AutomationStatusBar(element);
+                statusBar = element;
                 break;
             }
         }
 
-        return found;
+        closeOthers(collection, statusBar);
+
+        return statusBar == null ? null : new AutomationStatusBar(statusBar);
     }
 
     /**
@@ -274,34 +290,26 @@ public class AutomationWindow extends AutomationContainer implements Focusable {
      * @throws AutomationException Something has gone wrong.
      * @throws PatternNotFoundException Expected pattern not found.
      */
-    public AutomationWindow getWindow(String title) throws PatternNotFoundException, AutomationException {
-        AutomationElement item = null;
-
-        for (int count = 0; count < 10; count++) {
-            try {
-                item = this.findFirst(new TreeScope(TreeScope.Descendants),
-                        this.createAndCondition(
-                                this.createNamePropertyCondition(title),
-                                this.createControlTypeCondition(ControlType.Window)));
-            } catch (ElementNotFoundException ex) {
-                logger.warn("Failed to find `" + title + "` window");
-            }
-
-            if (item != null) {
-                logger.warn("Found window");
-                break;
-            } else {
-                try {
-                    logger.warn("Did not find `" + title + "` window, retrying");
-                    // Wait for it
-                    Thread.sleep(SLEEP_DURATION);
-                } catch (InterruptedException ex) {
-                    // interrupted
+    public AutomationWindow getWindow(final String title) throws PatternNotFoundException, AutomationException {
+        Conditions conditions = new Conditions();
+        AutomationElement item;
+
+        try {
+            final PointerByReference condition = conditions.add(this.createAndCondition(
+                    conditions.add(this.createNamePropertyCondition(title)),
+                    conditions.add(this.createControlTypeCondition(ControlType.Window))));
+
+            item = this.getWaiter().waitFor(new Waiter.Search() {
+                public AutomationElement find() throws AutomationException {
+                    return findFirst(new TreeScope(TreeScope.Descendants), condition);
                 }
-            }
+            }, GET_WINDOW_ATTEMPTS, SLEEP_DURATION);
+        } finally {
+            conditions.close();
         }
 
         if (item == null) {
+            logger.warn("Failed to find `" + title + "` window");
             throw new ElementNotFoundException(title);
         }
 
@@ -315,38 +323,41 @@ public class AutomationWindow extends AutomationContainer implements Focusable {
      * @throws AutomationException Something has gone wrong.
      * @throws PatternNotFoundException Expected pattern not found.
      */
-    public AutomationWindow getWindow(Pattern titlePattern) throws PatternNotFoundException, AutomationException {
-        AutomationElement item = null;
-
-        retry_loop: for (int loop = 0; loop < 10; loop++) {
-
-            try {
-                List<AutomationElement> collection = 
-                		this.findAll(new TreeScope(TreeScope.Descendants), 
-                				this.createControlTypeCondition(ControlType.Window));
-                
-                for (AutomationElement element : collection) {
-                    String name = element.getName();
-
-                    if (name != null && titlePattern.matcher(name).matches()) {
-                    	item = element;
-                        break retry_loop;
+    public AutomationWindow getWindow(final Pattern titlePattern) throws PatternNotFoundException, AutomationException {
+        Conditions conditions = new Conditions();
+        AutomationElement item;
+
+        try {
+            final PointerByReference condition =
+                    conditions.add(this.createControlTypeCondition(ControlType.Window));
+
+            item = this.getWaiter().waitFor(new Waiter.Search() {
+                public AutomationElement find() throws AutomationException {
+                    List<AutomationElement> collection =
+                            findAll(new TreeScope(TreeScope.Descendants), condition);
+
+                    AutomationElement found = null;
+
+                    for (AutomationElement element : collection) {
+                        String name = element.getName();
+
+                        if (name != null && titlePattern.matcher(name).matches()) {
+                            found = element;
+                            break;
+                        }
                     }
-                }
-                
-            } catch (AutomationException ex) {
-            }
 
-            logger.warn("Did not find window matching `" + titlePattern + "`, retrying");
-            // Wait for it
-            try {
-				Thread.sleep(SLEEP_DURATION);
-			} catch (InterruptedException e) {
-                // interrupted
-			}
+                    closeOthers(collection, found);
+
+                    return found;
+                }
+            }, GET_WINDOW_ATTEMPTS, SLEEP_DURATION);
+        } finally {
+            conditions.close();
         }
-        
+
         if (item == null) {
+            logger.warn("Did not find window matching `" + titlePattern + "`");
             throw new ElementNotFoundException("matching " + titlePattern.toString());
         }
 
@@ -408,4 +419,15 @@ public class AutomationWindow extends AutomationContainer implements Focusable {
             throw new Win32Exception(Kernel32.INSTANCE.GetLastError());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Creates a live copy of the tree below the window, which is kept up to
+     * date by automation events.
+     * @param properties Any extra properties to keep for each element.
+     * @return The live tree, which must be closed when finished with.
+     * @throws AutomationException Something is wrong in automation.
+     */
+    public LiveTree createLiveTree(PropertyID... properties) throws AutomationException {
+        return new LiveTree(this.automation, this.element, properties);
+    }
+}
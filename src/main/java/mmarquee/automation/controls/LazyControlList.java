@@ -0,0 +1,121 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation.controls;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import mmarquee.automation.AutomationElement;
+import mmarquee.automation.AutomationException;
+import mmarquee.automation.pattern.PatternNotFoundException;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * A read only list of the controls for a list of elements, where each
+ * control is only created (by the AutomationControlFactory) the first time
+ * it is asked for, used by getChildrenLazily. Errors from the automation
+ * library are thrown as an IllegalStateException.
+ */
+final class LazyControlList extends AbstractList<AutomationBase> implements RandomAccess {
+
+    /**
+     * The parent of the controls.
+     */
+    private final AutomationBase parent;
+
+    /**
+     * The elements.
+     */
+    private final List<AutomationElement> elements;
+
+    /**
+     * The controls that have been created so far.
+     */
+    private final AtomicReferenceArray<AutomationBase> controls;
+
+    /**
+     * Constructor for the LazyControlList.
+     *
+     * @param parent The parent of the controls.
+     * @param elements The elements.
+     */
+    LazyControlList(final AutomationBase parent,
+                    final List<AutomationElement> elements) {
+        this.parent = parent;
+        this.elements = elements instanceof RandomAccess
+                ? elements
+                : new ArrayList<AutomationElement>(elements);
+        this.controls = new AtomicReferenceArray<AutomationBase>(this.elements.size());
+    }
+
+    @Override
+    public AutomationBase get(final int index) {
+        AutomationBase control = this.controls.get(index);
+
+        if (control == null) {
+            try {
+                control = AutomationControlFactory.get(this.parent, this.elements.get(index));
+            } catch (AutomationException ex) {
+                throw new IllegalStateException(ex);
+            } catch (PatternNotFoundException ex) {
+                throw new IllegalStateException(ex);
+            }
+
+            if (!this.controls.compareAndSet(index, null, control)) {
+                control = this.controls.get(index);
+            }
+        }
+
+        return control;
+    }
+
+    @Override
+    public int size() {
+        return this.controls.length();
+    }
+
+    /**
+     * Gets the element at the index, without creating the control.
+     *
+     * @param index The index.
+     * @return The element.
+     */
+    AutomationElement getElement(final int index) {
+        return this.elements.get(index);
+    }
+
+    /**
+     * Gets how many of the controls have been created.
+     *
+     * @return The number created.
+     */
+    int getCreatedCount() {
+        int count = 0;
+
+        for (int index = 0; index < this.controls.length(); index++) {
+            if (this.controls.get(index) != null) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation.controls;
+
+import com.sun.jna.ptr.PointerByReference;
+import mmarquee.automation.AutomationException;
+import mmarquee.automation.Conditions;
+import mmarquee.automation.ControlType;
+import mmarquee.automation.UIAutomation;
+
+import java.util.regex.Pattern;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Describes how to find a control, so that many controls can be found
+ * together via AutomationContainer.resolveAll.
+ */
+public final class Locator {
+
+    /**
+     * The control type, or null for any.
+     */
+    private final ControlType controlType;
+
+    /**
+     * The name, or null for any.
+     */
+    private final String name;
+
+    /**
+     * The pattern the name must match, or null for any.
+     */
+    private final Pattern namePattern;
+
+    /**
+     * The automation id, or null for any.
+     */
+    private final String automationId;
+
+    /**
+     * The class name, or null for any.
+     */
+    private final String className;
+
+    /**
+     * Constructor for a locator.
+     *
+     * @param controlType The control type.
+     * @param name The name.
+     * @param namePattern The name pattern.
+     * @param automationId The automation id.
+     * @param className The class name.
+     */
+    private Locator(final ControlType controlType,
+                    final String name,
+                    final Pattern namePattern,
+                    final String automationId,
+                    final String className) {
+        this.controlType = controlType;
+        this.name = name;
+        this.namePattern = namePattern;
+        this.automationId = automationId;
+        this.className = className;
+    }
+
+    /**
+     * Locates a control by its control type and name.
+     *
+     * @param controlType The control type.
+     * @param name The name.
+     * @return The locator.
+     */
+    public static Locator byName(final ControlType controlType, final String name) {
+        return new Locator(controlType, name, null, null, null);
+    }
+
+    /**
+     * Locates a control by its control type and a pattern matching its name.
+     *
+     * @param controlType The control type.
+     * @param namePattern The pattern the name must match.
+     * @return The locator.
+     */
+    public static Locator byName(final ControlType controlType, final Pattern namePattern) {
+        return new Locator(controlType, null, namePattern, null, null);
+    }
+
+    /**
+     * Locates a control by its control type and automation id.
+     *
+     * @param controlType The control type.
+     * @param automationId The automation id.
+     * @return The locator.
+     */
+    public static Locator byAutomationId(final ControlType controlType, final String automationId) {
+        return new Locator(controlType, null, null, automationId, null);
+    }
+
+    /**
+     * Also requires the class name to match.
+     *
+     * @param className The class name.
+     * @return A new locator.
+     */
+    public Locator withClassName(final String className) {
+        return new Locator(this.controlType, this.name, this.namePattern, this.automationId, className);
+    }
+
+    /**
+     * Gets the control type.
+     *
+     * @return The control type, or null for any.
+     */
+    public ControlType getControlType() {
+        return this.controlType;
+    }
+
+    /**
+     * Builds the condition for the locator.
+     *
+     * @param automation The automation instance.
+     * @param conditions Collects the conditions built, to be closed by the caller.
+     * @return The condition.
+     * @throws AutomationException Something has gone wrong.
+     */
+    PointerByReference buildCondition(final UIAutomation automation,
+                                      final Conditions conditions)
+            throws AutomationException {
+        PointerByReference condition = null;
+
+        if (this.controlType != null) {
+            condition = conditions.add(automation.createControlTypeCondition(this.controlType));
+        }
+        if (this.name != null) {
+            condition = and(automation, conditions, condition,
+                    automation.createNamePropertyCondition(this.name));
+        }
+        if (this.namePattern != null) {
+            condition = and(automation, conditions, condition,
+                    automation.createNamePatternCondition(this.namePattern));
+        }
+        if (this.automationId != null) {
+            condition = and(automation, conditions, condition,
+                    automation.createAutomationIdPropertyCondition(this.automationId));
+        }
+        if (this.className != null) {
+            condition = and(automation, conditions, condition,
+                    automation.createClassNamePropertyCondition(this.className));
+        }
+
+        return condition == null ? conditions.add(automation.createTrueCondition()) : condition;
+    }
+
+    private static PointerByReference and(final UIAutomation automation,
+                                          final Conditions conditions,
+                                          final PointerByReference condition1,
+                                          final PointerByReference condition2)
+            throws AutomationException {
+        conditions.add(condition2);
+
+        if (condition1 == null) {
+            return condition2;
+        } else if (condition2 == null) {
+            return condition1;
+        }
+
+        return conditions.add(automation.createAndCondition(condition1, condition2));
+    }
+
+    /**
+     * Checks the locator against the cached values of an element.
+     *
+     * @param controlTypeValue The control type.
+     * @param elementName The name.
+     * @param elementAutomationId The automation id.
+     * @param elementClassName The class name.
+     * @return True if the element matches.
+     */
+    boolean matches(final int controlTypeValue,
+                    final String elementName,
+                    final String elementAutomationId,
+                    final String elementClassName) {
+        return (this.controlType == null || this.controlType.getValue() == controlTypeValue)
+                && (this.name == null || this.name.equals(elementName))
+                && (this.namePattern == null
+                        || (elementName != null && this.namePattern.matcher(elementName).matches()))
+                && (this.automationId == null || this.automationId.equals(elementAutomationId))
+                && (this.className == null || this.className.equals(elementClassName));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(this.controlType == null ? "*" : this.controlType.name());
+
+        if (this.name != null) {
+            builder.append("[name='").append(this.name).append("']");
+        }
+        if (this.namePattern != null) {
+            builder.append("[name~='").append(this.namePattern).append("']");
+        }
+        if (this.automationId != null) {
+            builder.append("[id='").append(this.automationId).append("']");
+        }
+        if (this.className != null) {
+            builder.append("[class='").append(this.className).append("']");
+        }
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation.controls;
+
+import mmarquee.automation.ElementNotFoundException;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * The controls found by AutomationContainer.resolveAll, along with the
+ * locators that found nothing or more than one control.
+ */
+public final class LocatorResults {
+
+    /**
+     * The controls that were found, by key.
+     */
+    private final Map<String, AutomationBase> controls;
+
+    /**
+     * The keys of the locators that found nothing.
+     */
+    private final Set<String> missing;
+
+    /**
+     * The keys of the locators that found more than one control.
+     */
+    private final Set<String> ambiguous;
+
+    /**
+     * Constructor for the results.
+     *
+     * @param controls The controls found.
+     * @param missing The locators that found nothing.
+     * @param ambiguous The locators that found more than one control.
+     */
+    LocatorResults(final Map<String, AutomationBase> controls,
+                   final Set<String> missing,
+                   final Set<String> ambiguous) {
+        this.controls = Collections.unmodifiableMap(controls);
+        this.missing = Collections.unmodifiableSet(missing);
+        this.ambiguous = Collections.unmodifiableSet(ambiguous);
+    }
+
+    /**
+     * Gets the control found for a locator.
+     *
+     * @param key The key of the locator.
+     * @return The control, the first one if the locator was ambiguous.
+     * @throws ElementNotFoundException The locator found nothing.
+     */
+    public AutomationBase get(final String key) throws ElementNotFoundException {
+        AutomationBase control = this.controls.get(key);
+
+        if (control == null) {
+            throw new ElementNotFoundException(key);
+        }
+
+        return control;
+    }
+
+    /**
+     * Gets the control found for a locator, as the expected type.
+     *
+     * @param key The key of the locator.
+     * @param type The type of control.
+     * @param <T> The type of control.
+     * @return The control.
+     * @throws ElementNotFoundException The locator found nothing.
+     */
+    public <T extends AutomationBase> T get(final String key, final Class<T> type)
+            throws ElementNotFoundException {
+        return type.cast(this.get(key));
+    }
+
+    /**
+     * Gets all of the controls that were found.
+     *
+     * @return The controls, by key.
+     */
+    public Map<String, AutomationBase> getControls() {
+        return this.controls;
+    }
+
+    /**
+     * Gets the keys of the locators that found nothing.
+     *
+     * @return The keys.
+     */
+    public Set<String> getMissing() {
+        return this.missing;
+    }
+
+    /**
+     * Gets the keys of the locators that found more than one control.
+     *
+     * @return The keys.
+     */
+    public Set<String> getAmbiguous() {
+        return this.ambiguous;
+    }
+
+    /**
+     * Whether every locator found exactly one control.
+     *
+     * @return True if nothing is missing or ambiguous.
+     */
+    public boolean isComplete() {
+        return this.missing.isEmpty() && this.ambiguous.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return this.controls.keySet() + ", missing " + this.missing + ", ambiguous " + this.ambiguous;
+    }
+}
@@ -0,0 +1,827 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation.controls;
+
+import com.sun.jna.ptr.PointerByReference;
+import mmarquee.automation.AutomationElement;
+import mmarquee.automation.AutomationException;
+import mmarquee.automation.Conditions;
+import mmarquee.automation.ControlType;
+import mmarquee.automation.ElementNotFoundException;
+import mmarquee.automation.PropertyID;
+import mmarquee.automation.UIAutomation;
+import mmarquee.automation.pattern.PatternNotFoundException;
+import mmarquee.automation.uiautomation.TreeScope;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * A compiled selector, which finds a control from a short description of
+ * where it is, e.g.
+ * <pre>
+ *   Window[name='Form1'] &gt; Pane#main Button[name~='^OK']
+ * </pre>
+ * Each step has an optional control type (or *), an optional #automationId
+ * and any number of [property op 'value'] filters, where the property is
+ * name, id or class and the op is = (equals), ~= (contains a match for
+ * the regular expression) or *= (contains). Steps separated by &gt; are
+ * looked for in the children of the previous step, otherwise in all of its
+ * descendants. Selectors separated by commas are tried in turn, the first
+ * one that matches anything wins.
+ * <p>
+ * Selectors are parsed once and kept, and the conditions are built through
+ * UIAutomation, so they are shared via the condition cache.
+ * </p>
+ */
+public final class Selector {
+
+    /**
+     * The number of compiled selectors to keep.
+     */
+    private static final int PLAN_CACHE_SIZE = 128;
+
+    /**
+     * Compiled selectors, by their source.
+     */
+    private static final Map<String, Selector> PLANS = new PlanCache();
+
+    /**
+     * Keeps the most recently used compiled selectors.
+     */
+    private static final class PlanCache extends LinkedHashMap<String, Selector> {
+        private static final long serialVersionUID = 1L;
+
+        PlanCache() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, Selector> eldest) {
+            return this.size() > PLAN_CACHE_SIZE;
+        }
+    }
+
+    /**
+     * The source of the selector.
+     */
+    private final String source;
+
+    /**
+     * The alternatives, each a list of steps.
+     */
+    private final List<List<Step>> alternatives;
+
+    /**
+     * Constructor for a selector.
+     *
+     * @param source The source.
+     * @param alternatives The parsed alternatives.
+     */
+    private Selector(final String source, final List<List<Step>> alternatives) {
+        this.source = source;
+        this.alternatives = alternatives;
+    }
+
+    /**
+     * Compiles a selector, or gets the already compiled one.
+     *
+     * @param source The selector.
+     * @return The compiled selector.
+     * @throws IllegalArgumentException if the selector is not valid.
+     */
+    public static Selector compile(final String source) {
+        synchronized (PLANS) {
+            Selector selector = PLANS.get(source);
+            if (selector != null) {
+                return selector;
+            }
+        }
+
+        Selector selector = new Parser(source).parse();
+
+        synchronized (PLANS) {
+            PLANS.put(source, selector);
+        }
+
+        return selector;
+    }
+
+    /**
+     * Gets the source of the selector.
+     *
+     * @return The source.
+     */
+    public String getSource() {
+        return this.source;
+    }
+
+    /**
+     * Gets the steps of each alternative.
+     *
+     * @return The steps.
+     */
+    public List<List<Step>> getAlternatives() {
+        return this.alternatives;
+    }
+
+    /**
+     * Finds the first control that matches, below the given control.
+     *
+     * @param root The control to look in.
+     * @return The matching control, wrapped via the AutomationControlFactory.
+     * @throws AutomationException Something has gone wrong.
+     * @throws PatternNotFoundException Expected pattern not found.
+     * @throws ElementNotFoundException Nothing matches.
+     */
+    public AutomationBase find(final AutomationBase root)
+            throws AutomationException, PatternNotFoundException {
+        final UIAutomation automation = root.automation;
+
+        // Simple alternatives can all be looked for in one call, and the
+        // results checked against each alternative in turn
+        if (this.alternatives.size() > 1 && this.isSingleCondition()) {
+            final Step first = this.alternatives.get(0).get(0);
+            Conditions conditions = new Conditions();
+            List<AutomationElement> candidates;
+
+            try {
+                PointerByReference condition = null;
+
+                for (List<Step> alternative : this.alternatives) {
+                    PointerByReference next = alternative.get(0).buildCondition(automation, conditions);
+                    condition = condition == null
+                            ? next
+                            : conditions.add(automation.createOrCondition(condition, next));
+                }
+
+                candidates = root.element.findAll(first.getScope(), condition,
+                        automation.getCacheRequest(PropertyID.ControlType, PropertyID.Name,
+                                PropertyID.AutomationId, PropertyID.ClassName));
+            } finally {
+                conditions.close();
+            }
+
+            AutomationElement found = null;
+            ControlType type = null;
+
+            try {
+                for (int index = 0; index < this.alternatives.size() && found == null; index++) {
+                    Step step = this.alternatives.get(index).get(0);
+
+                    for (AutomationElement candidate : candidates) {
+                        if (step.matchesCached(candidate)) {
+                            found = candidate;
+                            type = step.getControlType();
+                            break;
+                        }
+                    }
+                }
+            } finally {
+                AutomationBase.closeOthers(candidates, found);
+            }
+
+            if (found == null) {
+                throw new ElementNotFoundException(this.source);
+            }
+
+            return type == null
+                    ? AutomationControlFactory.get(root, found)
+                    : AutomationControlFactory.get(root, type, found);
+        }
+
+        for (List<Step> alternative : this.alternatives) {
+            AutomationElement found = this.match(automation, root.element, alternative, 0);
+
+            if (found != null) {
+                ControlType type = alternative.get(alternative.size() - 1).getControlType();
+
+                return type == null
+                        ? AutomationControlFactory.get(root, found)
+                        : AutomationControlFactory.get(root, type, found);
+            }
+        }
+
+        throw new ElementNotFoundException(this.source);
+    }
+
+    /**
+     * Whether every alternative is a single step, and they all look in the
+     * same scope.
+     *
+     * @return True if they can be combined.
+     */
+    private boolean isSingleCondition() {
+        final boolean children = this.alternatives.get(0).get(0).isChildren();
+
+        for (List<Step> alternative : this.alternatives) {
+            if (alternative.size() != 1
+                    || alternative.get(0).isChildren() != children) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Finds the first element below the given one that matches the steps,
+     * trying each candidate for a step in turn.
+     *
+     * @param automation The automation instance.
+     * @param from The element to look in.
+     * @param steps The steps.
+     * @param index The step to match.
+     * @return The element, or null if not found.
+     * @throws AutomationException Something has gone wrong.
+     */
+    private AutomationElement match(final UIAutomation automation,
+                                    final AutomationElement from,
+                                    final List<Step> steps,
+                                    final int index)
+            throws AutomationException {
+        final Step step = steps.get(index);
+        final boolean last = index == steps.size() - 1;
+        Conditions conditions = new Conditions();
+
+        List<AutomationElement> candidates;
+
+        try {
+            final PointerByReference condition = step.buildCondition(automation, conditions);
+
+            if (!step.needsCache()) {
+                if (last) {
+                    try {
+                        return from.findFirst(step.getScope(), condition);
+                    } catch (ElementNotFoundException ex) {
+                        return null;
+                    }
+                }
+
+                candidates = from.findAll(step.getScope(), condition);
+            } else {
+                candidates = from.findAll(step.getScope(), condition,
+                        automation.getCacheRequest(step.getCachedProperties()));
+            }
+        } finally {
+            conditions.close();
+        }
+
+        AutomationElement found = null;
+
+        try {
+            for (AutomationElement candidate : candidates) {
+                if (!step.accepts(candidate)) {
+                    continue;
+                }
+
+                if (last) {
+                    found = candidate;
+                    break;
+                }
+
+                found = this.match(automation, candidate, steps, index + 1);
+                if (found != null) {
+                    break;
+                }
+            }
+        } finally {
+            // Only the last step's match is handed back, the ancestors it
+            // was found through are finished with
+            AutomationBase.closeOthers(candidates, found);
+        }
+
+        return found;
+    }
+
+    @Override
+    public String toString() {
+        return this.source;
+    }
+
+    /**
+     * One step of a selector.
+     */
+    public static final class Step {
+        private final boolean children;
+        private final ControlType controlType;
+        private final List<Filter> filters;
+
+        /**
+         * Constructor for a step.
+         *
+         * @param children Whether to only look in the children.
+         * @param controlType The control type, or null for any.
+         * @param filters The property filters.
+         */
+        Step(final boolean children,
+             final ControlType controlType,
+             final List<Filter> filters) {
+            this.children = children;
+            this.controlType = controlType;
+            this.filters = Collections.unmodifiableList(filters);
+        }
+
+        /**
+         * Whether only the children are searched.
+         *
+         * @return True for children, false for all descendants.
+         */
+        public boolean isChildren() {
+            return this.children;
+        }
+
+        /**
+         * Gets the scope to search.
+         *
+         * @return The tree scope.
+         */
+        public TreeScope getScope() {
+            return new TreeScope(this.children ? TreeScope.Children : TreeScope.Descendants);
+        }
+
+        /**
+         * Gets the control type.
+         *
+         * @return The control type, or null for any.
+         */
+        public ControlType getControlType() {
+            return this.controlType;
+        }
+
+        /**
+         * Gets the property filters.
+         *
+         * @return The filters.
+         */
+        public List<Filter> getFilters() {
+            return this.filters;
+        }
+
+        /**
+         * Whether any filter has to be checked once the elements are found.
+         *
+         * @return True if the properties need to be cached.
+         */
+        public boolean needsCache() {
+            for (Filter filter : this.filters) {
+                if (filter.getPattern() != null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Gets the properties that have to be cached.
+         *
+         * @return The properties.
+         */
+        PropertyID[] getCachedProperties() {
+            List<PropertyID> properties = new ArrayList<PropertyID>();
+
+            for (Filter filter : this.filters) {
+                if (filter.getPattern() != null && !properties.contains(filter.getProperty())) {
+                    properties.add(filter.getProperty());
+                }
+            }
+
+            return properties.toArray(new PropertyID[properties.size()]);
+        }
+
+        /**
+         * Builds the condition for the step.
+         *
+         * @param automation The automation instance.
+         * @param conditions Collects the conditions built, to be closed by the caller.
+         * @return The condition.
+         * @throws AutomationException Something has gone wrong.
+         */
+        PointerByReference buildCondition(final UIAutomation automation,
+                                          final Conditions conditions)
+                throws AutomationException {
+            PointerByReference condition = null;
+
+            if (this.controlType != null) {
+                condition = conditions.add(automation.createControlTypeCondition(this.controlType));
+            }
+
+            for (Filter filter : this.filters) {
+                PointerByReference next = conditions.add(filter.buildCondition(automation));
+
+                if (next != null) {
+                    condition = condition == null
+                            ? next
+                            : conditions.add(automation.createAndCondition(condition, next));
+                }
+            }
+
+            return condition == null ? conditions.add(automation.createTrueCondition()) : condition;
+        }
+
+        /**
+         * Checks the filters that the automation library can not.
+         *
+         * @param candidate The element, with the properties cached.
+         * @return True if it matches.
+         * @throws AutomationException Something has gone wrong.
+         */
+        boolean accepts(final AutomationElement candidate)
+                throws AutomationException {
+            for (Filter filter : this.filters) {
+                if (!filter.accepts(candidate)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Checks the whole step, the control type and every filter, against
+         * the cached properties.
+         *
+         * @param candidate The element, with all of the properties cached.
+         * @return True if it matches.
+         * @throws AutomationException Something has gone wrong.
+         */
+        boolean matchesCached(final AutomationElement candidate)
+                throws AutomationException {
+            if (this.controlType != null
+                    && candidate.getCachedControlType() != this.controlType.getValue()) {
+                return false;
+            }
+
+            for (Filter filter : this.filters) {
+                if (!filter.matchesCached(candidate)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return (this.children ? "> " : "")
+                    + (this.controlType == null ? "*" : this.controlType.name())
+                    + this.filters;
+        }
+    }
+
+    /**
+     * A filter on a property of the element.
+     */
+    public static final class Filter {
+        private final PropertyID property;
+        private final String value;
+        private final Pattern pattern;
+
+        /**
+         * The pattern in the form the automation library works with, which
+         * matches the whole of the text rather than searching it.
+         */
+        private final Pattern wholePattern;
+
+        /**
+         * Constructor for a filter.
+         *
+         * @param property The property, Name, AutomationId or ClassName.
+         * @param value The value to equal, or null.
+         * @param pattern The pattern to match, or null.
+         */
+        Filter(final PropertyID property, final String value, final Pattern pattern) {
+            this.property = property;
+            this.value = value;
+            this.pattern = pattern;
+            this.wholePattern = pattern == null
+                    ? null
+                    : Pattern.compile(".*(?:" + pattern.pattern() + ").*", pattern.flags());
+        }
+
+        /**
+         * Gets the property.
+         *
+         * @return The property.
+         */
+        public PropertyID getProperty() {
+            return this.property;
+        }
+
+        /**
+         * Gets the value the property must equal.
+         *
+         * @return The value, or null if it is matched against a pattern.
+         */
+        public String getValue() {
+            return this.value;
+        }
+
+        /**
+         * Gets the pattern that the property must contain a match for.
+         *
+         * @return The pattern, or null if it must equal a value.
+         */
+        public Pattern getPattern() {
+            return this.pattern;
+        }
+
+        /**
+         * Builds the condition for the filter.
+         *
+         * @param automation The automation instance.
+         * @return The condition, or null if it can only be checked afterwards.
+         * @throws AutomationException Something has gone wrong.
+         */
+        PointerByReference buildCondition(final UIAutomation automation)
+                throws AutomationException {
+            if (this.pattern != null) {
+                return this.property == PropertyID.Name
+                        ? automation.createNamePatternCondition(this.wholePattern)
+                        : null;
+            }
+
+            switch (this.property) {
+                case Name:
+                    return automation.createNamePropertyCondition(this.value);
+                case AutomationId:
+                    return automation.createAutomationIdPropertyCondition(this.value);
+                default:
+                    return automation.createClassNamePropertyCondition(this.value);
+            }
+        }
+
+        /**
+         * Checks the pattern against the cached property.
+         *
+         * @param candidate The element.
+         * @return True if it matches.
+         * @throws AutomationException Something has gone wrong.
+         */
+        boolean accepts(final AutomationElement candidate)
+                throws AutomationException {
+            if (this.pattern == null) {
+                return true;
+            }
+
+            String text = this.getCachedText(candidate);
+
+            return text != null && this.pattern.matcher(text).find();
+        }
+
+        /**
+         * Checks the filter against the cached property, whether it is a
+         * value or a pattern.
+         *
+         * @param candidate The element.
+         * @return True if it matches.
+         * @throws AutomationException Something has gone wrong.
+         */
+        boolean matchesCached(final AutomationElement candidate)
+                throws AutomationException {
+            if (this.pattern != null) {
+                return this.accepts(candidate);
+            }
+
+            return this.value.equals(this.getCachedText(candidate));
+        }
+
+        private String getCachedText(final AutomationElement candidate)
+                throws AutomationException {
+            switch (this.property) {
+                case Name:
+                    return candidate.getCachedName();
+                case AutomationId:
+                    return candidate.getCachedAutomationId();
+                default:
+                    return candidate.getCachedClassName();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "[" + this.property + (this.pattern != null ? "~=" + this.pattern : "=" + this.value) + "]";
+        }
+    }
+
+    /**
+     * Parses the source of a selector.
+     */
+    private static final class Parser {
+        private final String source;
+        private int pos = 0;
+
+        Parser(final String source) {
+            if (source == null) {
+                throw new IllegalArgumentException("No selector");
+            }
+            this.source = source;
+        }
+
+        Selector parse() {
+            List<List<Step>> alternatives = new ArrayList<List<Step>>();
+
+            do {
+                alternatives.add(Collections.unmodifiableList(this.parseSteps()));
+            } while (this.accept(','));
+
+            if (this.pos < this.source.length()) {
+                throw this.error("Unexpected '" + this.source.charAt(this.pos) + "'");
+            }
+
+            return new Selector(this.source, Collections.unmodifiableList(alternatives));
+        }
+
+        private List<Step> parseSteps() {
+            List<Step> steps = new ArrayList<Step>();
+
+            this.skipSpaces();
+
+            while (this.pos < this.source.length() && this.source.charAt(this.pos) != ',') {
+                boolean children = this.accept('>');
+                steps.add(this.parseStep(children));
+                this.skipSpaces();
+            }
+
+            if (steps.isEmpty()) {
+                throw this.error("Expected a step");
+            }
+
+            return steps;
+        }
+
+        private Step parseStep(final boolean children) {
+            this.skipSpaces();
+
+            ControlType controlType = null;
+            List<Filter> filters = new ArrayList<Filter>();
+
+            if (this.accept('*')) {
+                controlType = null;
+            } else if (this.pos < this.source.length()
+                    && Character.isLetter(this.source.charAt(this.pos))) {
+                String name = this.identifier();
+                try {
+                    controlType = ControlType.valueOf(name);
+                } catch (IllegalArgumentException ex) {
+                    throw this.error("Unknown control type '" + name + "'");
+                }
+            } else if (this.pos >= this.source.length()
+                    || (this.source.charAt(this.pos) != '#' && this.source.charAt(this.pos) != '[')) {
+                throw this.error("Expected a step");
+            }
+
+            while (this.pos < this.source.length()) {
+                if (this.accept('#')) {
+                    filters.add(new Filter(PropertyID.AutomationId, this.identifier(), null));
+                } else if (this.accept('[')) {
+                    filters.add(this.parseFilter());
+                } else {
+                    break;
+                }
+            }
+
+            return new Step(children, controlType, filters);
+        }
+
+        private Filter parseFilter() {
+            this.skipSpaces();
+
+            String name = this.identifier();
+            PropertyID property;
+
+            if ("name".equals(name)) {
+                property = PropertyID.Name;
+            } else if ("id".equals(name) || "automationId".equals(name)) {
+                property = PropertyID.AutomationId;
+            } else if ("class".equals(name) || "className".equals(name)) {
+                property = PropertyID.ClassName;
+            } else {
+                throw this.error("Unknown property '" + name + "'");
+            }
+
+            this.skipSpaces();
+
+            char op = '=';
+            if (this.accept('~')) {
+                op = '~';
+            } else if (this.accept('*')) {
+                op = '*';
+            }
+
+            if (!this.accept('=')) {
+                throw this.error("Expected =, ~= or *=");
+            }
+
+            this.skipSpaces();
+            String value = this.quoted();
+            this.skipSpaces();
+
+            if (!this.accept(']')) {
+                throw this.error("Expected ]");
+            }
+
+            switch (op) {
+                case '~':
+                    try {
+                        return new Filter(property, null, Pattern.compile(value));
+                    } catch (PatternSyntaxException ex) {
+                        throw this.error("Invalid pattern '" + value + "'");
+                    }
+                case '*':
+                    return new Filter(property, null,
+                            Pattern.compile(".*" + Pattern.quote(value) + ".*", Pattern.DOTALL));
+                default:
+                    return new Filter(property, value, null);
+            }
+        }
+
+        private String identifier() {
+            final int start = this.pos;
+
+            while (this.pos < this.source.length()) {
+                char c = this.source.charAt(this.pos);
+                if (!Character.isLetterOrDigit(c) && c != '_' && c != '-' && c != '.') {
+                    break;
+                }
+                this.pos++;
+            }
+
+            if (this.pos == start) {
+                throw this.error("Expected a name");
+            }
+
+            return this.source.substring(start, this.pos);
+        }
+
+        private String quoted() {
+            if (this.pos >= this.source.length()) {
+                throw this.error("Expected a quoted value");
+            }
+
+            final char quote = this.source.charAt(this.pos);
+            if (quote != '\'' && quote != '"') {
+                throw this.error("Expected a quoted value");
+            }
+            this.pos++;
+
+            StringBuilder value = new StringBuilder();
+
+            while (this.pos < this.source.length()) {
+                char c = this.source.charAt(this.pos++);
+
+                if (c == quote) {
+                    return value.toString();
+                }
+
+                if (c == '\\' && this.pos < this.source.length()
+                        && (this.source.charAt(this.pos) == quote || this.source.charAt(this.pos) == '\\')) {
+                    c = this.source.charAt(this.pos++);
+                }
+
+                value.append(c);
+            }
+
+            throw this.error("Unterminated value");
+        }
+
+        private boolean accept(final char c) {
+            if (this.pos < this.source.length() && this.source.charAt(this.pos) == c) {
+                this.pos++;
+                return true;
+            }
+
+            return false;
+        }
+
+        private void skipSpaces() {
+            while (this.pos < this.source.length()
+                    && Character.isWhitespace(this.source.charAt(this.pos))) {
+                this.pos++;
+            }
+        }
+
+        private IllegalArgumentException error(final String message) {
+            return new IllegalArgumentException(message + " at " + this.pos + " in '" + this.source + "'");
+        }
+    }
+}
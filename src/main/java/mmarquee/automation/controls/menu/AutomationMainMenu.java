@@ -27,6 +27,7 @@ import com.sun.jna.ptr.PointerByReference;
 
 import mmarquee.automation.AutomationElement;
 import mmarquee.automation.AutomationException;
+import mmarquee.automation.Conditions;
 import mmarquee.automation.ControlType;
 import mmarquee.automation.ItemNotFoundException;
 import mmarquee.automation.PatternID;
@@ -116,10 +117,16 @@ public class AutomationMainMenu extends AutomationMenu {
             throws PatternNotFoundException, AutomationException {
 
 
-        AutomationElement item = this.findFirst(new TreeScope(TreeScope.Children),
-                this.createAndCondition(
-                        this.createNamePropertyCondition(name0),
-                        this.createControlTypeCondition(ControlType.MenuItem)));
+        AutomationElement item;
+        Conditions conditions = new Conditions();
+        try {
+            item = this.findFirst(new TreeScope(TreeScope.Children),
+                    conditions.add(this.createAndCondition(
+                            conditions.add(this.createNamePropertyCondition(name0)),
+                            conditions.add(this.createControlTypeCondition(ControlType.MenuItem)))));
+        } finally {
+            conditions.close();
+        }
 
         if (item == null) {
             throw new ItemNotFoundException("Failed to find element: " + name0);
@@ -155,20 +162,13 @@ public class AutomationMainMenu extends AutomationMenu {
      */
     public AutomationMenuItem getMenuItem (Pattern name0Pattern, Pattern name1Pattern)
             throws PatternNotFoundException, AutomationException {
-    	List<AutomationElement> collection;
-
-        AutomationElement item = null;
-
-        collection = this.findAll(new TreeScope(TreeScope.Children),
-        		this.createControlTypeCondition(ControlType.MenuItem));
-
-        for (AutomationElement element : collection) {
-            String name = element.getName();
-
-            if (name != null && name0Pattern.matcher(name).matches()) {
-                item = element;
-                break;
-            }
+        AutomationElement item;
+        Conditions conditions = new Conditions();
+        try {
+            item = this.findFirstMatching(new TreeScope(TreeScope.Children),
+                    conditions.add(this.createControlTypeCondition(ControlType.MenuItem)), name0Pattern);
+        } finally {
+            conditions.close();
         }
         
         if (item == null) {
@@ -205,10 +205,16 @@ public class AutomationMainMenu extends AutomationMenu {
     public AutomationMenuItem getMenuItemByAutomationId (String automationId)
             throws PatternNotFoundException, AutomationException {
     	
-        AutomationElement item = this.findFirst(new TreeScope(TreeScope.Descendants),
-                this.createAndCondition(
-                        this.createAutomationIdPropertyCondition(automationId),
-                        this.createControlTypeCondition(ControlType.MenuItem)));
+        AutomationElement item;
+        Conditions conditions = new Conditions();
+        try {
+            item = this.findFirst(new TreeScope(TreeScope.Descendants),
+                    conditions.add(this.createAndCondition(
+                            conditions.add(this.createAutomationIdPropertyCondition(automationId)),
+                            conditions.add(this.createControlTypeCondition(ControlType.MenuItem)))));
+        } finally {
+            conditions.close();
+        }
 
         return new AutomationMenuItem(item);
     }
@@ -220,8 +226,14 @@ public class AutomationMainMenu extends AutomationMenu {
      * @throws PatternNotFoundException Expected pattern not found
      */
     public List<AutomationMenuItem> getItems() throws PatternNotFoundException, AutomationException {
-        List<AutomationElement> items = this.findAll(new TreeScope(TreeScope.Descendants),
-                this.createControlTypeCondition(ControlType.MenuItem));
+        List<AutomationElement> items;
+        Conditions conditions = new Conditions();
+        try {
+            items = this.findAll(new TreeScope(TreeScope.Descendants),
+                    conditions.add(this.createControlTypeCondition(ControlType.MenuItem)));
+        } finally {
+            conditions.close();
+        }
 
         List<AutomationMenuItem> list = new ArrayList<AutomationMenuItem>();
         
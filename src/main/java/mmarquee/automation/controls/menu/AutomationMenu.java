@@ -23,6 +23,7 @@ import java.util.regex.Pattern;
 
 import mmarquee.automation.AutomationElement;
 import mmarquee.automation.AutomationException;
+import mmarquee.automation.Conditions;
 import mmarquee.automation.ControlType;
 import mmarquee.automation.ItemNotFoundException;
 import mmarquee.automation.controls.AutomationBase;
@@ -59,8 +60,14 @@ public class AutomationMenu extends AutomationBase {
      */
     public List<AutomationMenuItem> getItems() throws PatternNotFoundException, AutomationException {
     	
-        List<AutomationElement> items = this.findAll(new TreeScope(TreeScope.Children),
-                this.createControlTypeCondition(ControlType.MenuItem));
+        List<AutomationElement> items;
+        Conditions conditions = new Conditions();
+        try {
+            items = this.findAll(new TreeScope(TreeScope.Children),
+                    conditions.add(this.createControlTypeCondition(ControlType.MenuItem)));
+        } finally {
+            conditions.close();
+        }
 
         List<AutomationMenuItem> list = new ArrayList<AutomationMenuItem>();
 
@@ -81,7 +88,10 @@ public class AutomationMenu extends AutomationBase {
     public AutomationMenuItem getMenuItem (int index) throws PatternNotFoundException, AutomationException {
         List<AutomationElement> items = this.findAll(new TreeScope(TreeScope.Children));
 
-        return new AutomationMenuItem(items.get(index));
+        AutomationElement item = items.get(index);
+        closeOthers(items, item);
+
+        return new AutomationMenuItem(item);
     }
 
     /**
@@ -93,10 +103,16 @@ public class AutomationMenu extends AutomationBase {
      */
     public AutomationMenuItem getMenuItem (String name) throws PatternNotFoundException, AutomationException {
 
-        AutomationElement item = this.findFirst(new TreeScope(TreeScope.Children),
-                this.createAndCondition(
-                        this.createNamePropertyCondition(name),
-                        this.createControlTypeCondition(ControlType.MenuItem)));
+        AutomationElement item;
+        Conditions conditions = new Conditions();
+        try {
+            item = this.findFirst(new TreeScope(TreeScope.Children),
+                    conditions.add(this.createAndCondition(
+                            conditions.add(this.createNamePropertyCondition(name)),
+                            conditions.add(this.createControlTypeCondition(ControlType.MenuItem)))));
+        } finally {
+            conditions.close();
+        }
 
         return new AutomationMenuItem(item);
     }
@@ -113,8 +129,13 @@ public class AutomationMenu extends AutomationBase {
 
         AutomationElement item = null;
 
-        collection = this.findAll(new TreeScope(TreeScope.Children),
-        		this.createControlTypeCondition(ControlType.MenuItem));
+        Conditions conditions = new Conditions();
+        try {
+            collection = this.findAll(new TreeScope(TreeScope.Children),
+                    conditions.add(this.createControlTypeCondition(ControlType.MenuItem)));
+        } finally {
+            conditions.close();
+        }
 
         for (AutomationElement element : collection) {
             String name = element.getName();
@@ -125,6 +146,8 @@ public class AutomationMenu extends AutomationBase {
             }
         }
 
+        closeOthers(collection, item);
+
         if (item == null) {
             throw new ItemNotFoundException("Failed to find element matching " + namePattern);
         }
@@ -141,10 +164,16 @@ public class AutomationMenu extends AutomationBase {
     public AutomationMenuItem getMenuItemByAutomationId (String automationId)
             throws PatternNotFoundException, AutomationException {
     	
-        AutomationElement item = this.findFirst(new TreeScope(TreeScope.Descendants),
-                this.createAndCondition(
-                        this.createAutomationIdPropertyCondition(automationId),
-                        this.createControlTypeCondition(ControlType.MenuItem)));
+        AutomationElement item;
+        Conditions conditions = new Conditions();
+        try {
+            item = this.findFirst(new TreeScope(TreeScope.Descendants),
+                    conditions.add(this.createAndCondition(
+                            conditions.add(this.createAutomationIdPropertyCondition(automationId)),
+                            conditions.add(this.createControlTypeCondition(ControlType.MenuItem)))));
+        } finally {
+            conditions.close();
+        }
 
         return new AutomationMenuItem(item);
     }
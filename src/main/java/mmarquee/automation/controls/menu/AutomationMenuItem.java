@@ -21,6 +21,7 @@ import java.util.regex.Pattern;
 
 import mmarquee.automation.AutomationElement;
 import mmarquee.automation.AutomationException;
+import mmarquee.automation.Conditions;
 import mmarquee.automation.ControlType;
 import mmarquee.automation.ElementNotFoundException;
 import mmarquee.automation.controls.AutomationBase;
@@ -97,8 +98,14 @@ public class AutomationMenuItem extends AutomationBase implements Clickable, Exp
     		return realMenu.getItems();
     	}
     	
-        List<AutomationElement> items = this.findAll(new TreeScope(TreeScope.Descendants),
-                this.createControlTypeCondition(ControlType.MenuItem));
+        List<AutomationElement> items;
+        Conditions conditions = new Conditions();
+        try {
+            items = this.findAll(new TreeScope(TreeScope.Descendants),
+                    conditions.add(this.createControlTypeCondition(ControlType.MenuItem)));
+        } finally {
+            conditions.close();
+        }
 
         List<AutomationMenuItem> list = new ArrayList<AutomationMenuItem>();
 
@@ -128,7 +135,10 @@ public class AutomationMenuItem extends AutomationBase implements Clickable, Exp
     	
         List<AutomationElement> items = this.findAll(new TreeScope(TreeScope.Children));
 
-        return new AutomationMenuItem(items.get(index));
+        AutomationElement item = items.get(index);
+        closeOthers(items, item);
+
+        return new AutomationMenuItem(item);
     }
     
     /**
@@ -149,10 +159,16 @@ public class AutomationMenuItem extends AutomationBase implements Clickable, Exp
     		return realMenu.getMenuItem(name);
     	}
 
-        AutomationElement item = this.findFirst(new TreeScope(TreeScope.Children),
-                this.createAndCondition(
-                        this.createNamePropertyCondition(name),
-                        this.createControlTypeCondition(ControlType.MenuItem)));
+        AutomationElement item;
+        Conditions conditions = new Conditions();
+        try {
+            item = this.findFirst(new TreeScope(TreeScope.Children),
+                    conditions.add(this.createAndCondition(
+                            conditions.add(this.createNamePropertyCondition(name)),
+                            conditions.add(this.createControlTypeCondition(ControlType.MenuItem)))));
+        } finally {
+            conditions.close();
+        }
 
         return new AutomationMenuItem(item);
     }
@@ -179,8 +195,13 @@ public class AutomationMenuItem extends AutomationBase implements Clickable, Exp
 
         AutomationElement item = null;
 
-        collection = this.findAll(new TreeScope(TreeScope.Children),
-        		this.createControlTypeCondition(ControlType.MenuItem));
+        Conditions conditions = new Conditions();
+        try {
+            collection = this.findAll(new TreeScope(TreeScope.Children),
+                    conditions.add(this.createControlTypeCondition(ControlType.MenuItem)));
+        } finally {
+            conditions.close();
+        }
 
         for (AutomationElement element : collection) {
             String name = element.getName();
@@ -191,6 +212,8 @@ public class AutomationMenuItem extends AutomationBase implements Clickable, Exp
             }
         }
 
+        closeOthers(collection, item);
+
         if (item == null) {
             throw new ElementNotFoundException("Failed to find element matching " + namePattern);
         }
@@ -216,10 +239,16 @@ public class AutomationMenuItem extends AutomationBase implements Clickable, Exp
     		return realMenu.getMenuItemByAutomationId(automationId);
     	}
 
-        AutomationElement item = this.findFirst(new TreeScope(TreeScope.Descendants),
-                this.createAndCondition(
-                        this.createAutomationIdPropertyCondition(automationId),
-                        this.createControlTypeCondition(ControlType.MenuItem)));
+        AutomationElement item;
+        Conditions conditions = new Conditions();
+        try {
+            item = this.findFirst(new TreeScope(TreeScope.Descendants),
+                    conditions.add(this.createAndCondition(
+                            conditions.add(this.createAutomationIdPropertyCondition(automationId)),
+                            conditions.add(this.createControlTypeCondition(ControlType.MenuItem)))));
+        } finally {
+            conditions.close();
+        }
 
         return new AutomationMenuItem(item);
     }
@@ -230,10 +259,16 @@ public class AutomationMenuItem extends AutomationBase implements Clickable, Exp
     		return null;
     	}
     	try {
-	    	AutomationElement item = mainMenuParentElement.findFirst(new TreeScope(TreeScope.Descendants),
-	                this.createAndCondition(
-	                        this.createNamePropertyCondition(parentMenuName),
-	                        this.createControlTypeCondition(ControlType.Menu)));
+	    	AutomationElement item;
+	    	Conditions conditions = new Conditions();
+	    	try {
+	    	    item = mainMenuParentElement.findFirst(new TreeScope(TreeScope.Descendants),
+	                    conditions.add(this.createAndCondition(
+	                            conditions.add(this.createNamePropertyCondition(parentMenuName)),
+	                            conditions.add(this.createControlTypeCondition(ControlType.Menu)))));
+	    	} finally {
+	    	    conditions.close();
+	    	}
 	    	if (item == null) {
 	    		return null;
 	    	}
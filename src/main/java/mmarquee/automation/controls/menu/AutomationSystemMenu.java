@@ -16,9 +16,9 @@
 
 package mmarquee.automation.controls.menu;
 
-import com.sun.jna.ptr.PointerByReference;
 import mmarquee.automation.AutomationElement;
 import mmarquee.automation.AutomationException;
+import mmarquee.automation.Conditions;
 import mmarquee.automation.ControlType;
 import mmarquee.automation.ItemNotFoundException;
 import mmarquee.automation.controls.AutomationBase;
@@ -60,10 +60,14 @@ public class AutomationSystemMenu extends AutomationBase {
      */
     public AutomationMenuItem getItem(String name) throws PatternNotFoundException, AutomationException {
 
-        PointerByReference condition = this.createTrueCondition();
-
-        List<AutomationElement> collection =
-                this.findAll(new TreeScope(TreeScope.Descendants), condition);
+        List<AutomationElement> collection;
+        Conditions conditions = new Conditions();
+        try {
+            collection = this.findAll(new TreeScope(TreeScope.Descendants),
+                    conditions.add(this.createTrueCondition()));
+        } finally {
+            conditions.close();
+        }
 
         AutomationElement foundElement = null;
         boolean found = false;
@@ -78,6 +82,8 @@ public class AutomationSystemMenu extends AutomationBase {
             }
         }
 
+        closeOthers(collection, foundElement);
+
         if (found) {
             return new AutomationMenuItem(foundElement);
         } else {
@@ -96,10 +102,14 @@ public class AutomationSystemMenu extends AutomationBase {
      */
     public AutomationMenuItem getItem(Pattern namePattern) throws PatternNotFoundException, AutomationException {
 
-        PointerByReference condition = this.createTrueCondition();
-
-        List<AutomationElement> collection =
-                this.findAll(new TreeScope(TreeScope.Descendants), condition);
+        List<AutomationElement> collection;
+        Conditions conditions = new Conditions();
+        try {
+            collection = this.findAll(new TreeScope(TreeScope.Descendants),
+                    conditions.add(this.createTrueCondition()));
+        } finally {
+            conditions.close();
+        }
 
         AutomationElement foundElement = null;
         boolean found = false;
@@ -114,6 +124,8 @@ public class AutomationSystemMenu extends AutomationBase {
             }
         }
 
+        closeOthers(collection, foundElement);
+
         if (found) {
             return new AutomationMenuItem(foundElement);
         } else {
@@ -130,10 +142,14 @@ public class AutomationSystemMenu extends AutomationBase {
      * @throws PatternNotFoundException Expected pattern not found
      */
     protected List<AutomationMenuItem> getItems() throws PatternNotFoundException, AutomationException {
-        PointerByReference condition = this.createTrueCondition();
-
-        List<AutomationElement> items =
-                this.findAll(new TreeScope(TreeScope.Children), condition);
+        List<AutomationElement> items;
+        Conditions conditions = new Conditions();
+        try {
+            items = this.findAll(new TreeScope(TreeScope.Children),
+                    conditions.add(this.createTrueCondition()));
+        } finally {
+            conditions.close();
+        }
 
         List<AutomationMenuItem> list = new ArrayList<AutomationMenuItem>();
 
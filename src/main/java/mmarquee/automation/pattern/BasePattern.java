@@ -16,11 +16,16 @@
 package mmarquee.automation.pattern;
 
 import com.sun.jna.Pointer;
+import com.sun.jna.platform.win32.COM.COMUtils;
 import com.sun.jna.platform.win32.COM.Unknown;
 import com.sun.jna.platform.win32.Guid;
 import com.sun.jna.platform.win32.WinNT;
 import com.sun.jna.ptr.PointerByReference;
+import mmarquee.automation.AutomationElement;
+import mmarquee.automation.AutomationException;
 import mmarquee.automation.BaseAutomation;
+import mmarquee.automation.ReferenceTracker;
+import mmarquee.automation.StaleElementRecovery;
 import mmarquee.automation.uiautomation.IUIAutomationElement3;
 import mmarquee.automation.uiautomation.IUIAutomationElement3Converter;
 import mmarquee.automation.uiautomation.IUIAutomationElementArray;
@@ -31,6 +36,15 @@ import mmarquee.automation.uiautomation.IUIAutomationElementArrayConverter;
  * Date 29/02/2016.
  *
  * Base for the pattern wrappers
+ *
+ * The pattern owns the reference passed to setPattern, which is released by
+ * release (not close, as the Window pattern already has a close method), or
+ * failing that once the pattern has been garbage collected. The same goes
+ * for the pattern interface, which is only asked for once.
+ *
+ * If the element the pattern was got from is known (see setSource), a call
+ * that fails because the element has gone stale recovers the element, gets
+ * the pattern from the element that is found, and makes the call again.
  */
 public abstract class BasePattern extends BaseAutomation implements Pattern {
 
@@ -44,6 +58,26 @@ public abstract class BasePattern extends BaseAutomation implements Pattern {
      */
     protected Pointer pattern;
 
+    /**
+     * The tracked reference to the pattern
+     */
+    private ReferenceTracker.Handle handle;
+
+    /**
+     * The tracked reference to the pattern interface, once it has been asked for
+     */
+    private ReferenceTracker.Handle interfaceHandle;
+
+    /**
+     * The element the pattern was got from, or null if it isn't known
+     */
+    private AutomationElement source;
+
+    /**
+     * The id of the pattern on the source element
+     */
+    private int patternId;
+
     /**
      * Constructs a Pattern
      */
@@ -56,7 +90,89 @@ public abstract class BasePattern extends BaseAutomation implements Pattern {
      * @param pattern The pattern to set
      */
     public void setPattern(Pointer pattern) {
+        ReferenceTracker.close(this.handle);
+        ReferenceTracker.close(this.interfaceHandle);
+        this.handle = null;
+        this.interfaceHandle = null;
         this.pattern =  pattern;
+        this.resetPattern();
+
+        if (pattern != null) {
+            this.handle = ReferenceTracker.track(this, makeUnknown(pattern));
+        }
+    }
+
+    /**
+     * Sets the element the pattern was got from, so that the pattern can be
+     * got again if the element goes stale and is recovered. This needs to
+     * be set before the pattern is first used.
+     *
+     * @param element The element
+     * @param id The id of the pattern
+     */
+    public void setSource(AutomationElement element, int id) {
+        this.source = element;
+        this.patternId = id;
+    }
+
+    /**
+     * Releases the reference to the underlying pattern, the pattern cannot
+     * be used afterwards. Calling release more than once has no effect.
+     */
+    public void release() {
+        ReferenceTracker.close(this.interfaceHandle);
+        ReferenceTracker.close(this.handle);
+        this.resetPattern();
+    }
+
+    /**
+     * Forgets the pattern interface that the wrapper has converted and kept,
+     * as the reference to it has been released. Called whenever the
+     * interface reference is released, the wrappers that keep the interface
+     * override this.
+     */
+    protected void resetPattern() {
+    }
+
+    /**
+     * Whether a call failed because the element has gone stale, in which
+     * case the element is recovered and the pattern is got again from the
+     * element that is found. The call should then be made once more, e.g.
+     * <pre>
+     * int res = this.getPattern().toggle();
+     * if (this.isStale(res)) {
+     *     res = this.getPattern().toggle();
+     * }
+     * </pre>
+     *
+     * @param res The result of the call
+     * @return True to make the call again
+     */
+    protected boolean isStale(final int res) {
+        return res == StaleElementRecovery.UIA_E_ELEMENTNOTAVAILABLE && this.recoverPattern();
+    }
+
+    /**
+     * Recovers the source element, and gets the pattern from the element
+     * that is found.
+     *
+     * @return True if the pattern has been got again
+     */
+    private boolean recoverPattern() {
+        if (this.source == null
+                || this.source.isClosed()
+                || !StaleElementRecovery.isEnabled()
+                || !this.source.recover()) {
+            return false;
+        }
+
+        try {
+            PointerByReference unknown = this.source.getPattern(this.patternId);
+            this.setPattern(unknown.getValue());
+            return unknown.getValue() != null;
+        } catch (AutomationException ex) {
+            return false;
+        }
     }
 
     /**
@@ -77,6 +193,30 @@ public abstract class BasePattern extends BaseAutomation implements Pattern {
         return uElement.QueryInterface(new Guid.REFIID(this.IID), pbr);
     }
 
+    /**
+     * Asks the pattern for its interface. The pattern wrappers convert this
+     * once and keep it, the reference is owned by the pattern.
+     *
+     * @return The interface pointer
+     * @throws AutomationException The pattern doesn't support the interface
+     */
+    protected PointerByReference queryPatternInterface() throws AutomationException {
+        PointerByReference pbr = new PointerByReference();
+
+        WinNT.HRESULT result = this.getRawPatternPointer(pbr);
+        if (!COMUtils.SUCCEEDED(result)) {
+            throw new AutomationException(result.intValue());
+        }
+
+        ReferenceTracker.close(this.interfaceHandle);
+        this.resetPattern();
+        this.interfaceHandle = pbr.getValue() == null
+                ? null
+                : ReferenceTracker.track(this, makeUnknown(pbr.getValue()));
+
+        return pbr;
+    }
+
     /**
      * Converts the unknown value to a IUIAutomationElement3
      * @param pUnknownA The Unknown pointer
@@ -15,8 +15,6 @@
  */
 package mmarquee.automation.pattern;
 
-import com.sun.jna.platform.win32.COM.COMUtils;
-import com.sun.jna.platform.win32.WinNT;
 import com.sun.jna.ptr.IntByReference;
 import com.sun.jna.ptr.PointerByReference;
 import mmarquee.automation.AutomationException;
@@ -52,19 +50,18 @@ public class ExpandCollapse extends BasePattern {
      * @throws AutomationException Something went wrong getting the pattern
      */
     private IUIAutomationExpandCollapsePattern getPattern() throws AutomationException {
-        if (this.rawPattern != null) {
-            return this.rawPattern;
-        } else {
-            PointerByReference pbr = new PointerByReference();
+        if (this.rawPattern == null) {
+            this.rawPattern = this.convertPointerToInterface(this.queryPatternInterface());
+        }
 
-            WinNT.HRESULT result0 = this.getRawPatternPointer(pbr);
+        return this.rawPattern;
+    }
 
-            if (COMUtils.SUCCEEDED(result0)) {
-                return this.convertPointerToInterface(pbr);
-            } else {
-                throw new AutomationException(result0.intValue());
-            }
-        }
+    /**
+     * Forgets the pattern interface, once its reference has been released.
+     */
+    protected void resetPattern() {
+        this.rawPattern = null;
     }
 
     /**
@@ -72,7 +69,10 @@ public class ExpandCollapse extends BasePattern {
      * @throws AutomationException Something has gone wrong
      */
     public void expand() throws AutomationException {
-        final int res = this.getPattern().expand();
+        int res = this.getPattern().expand();
+        if (this.isStale(res)) {
+            res = this.getPattern().expand();
+        }
         if (res != 0) {
             throw new AutomationException(res);
         }
@@ -83,7 +83,10 @@ public class ExpandCollapse extends BasePattern {
      * @throws AutomationException Something has gone wrong
      */
     public void collapse()throws AutomationException  {
-        final int res = this.getPattern().collapse();
+        int res = this.getPattern().collapse();
+        if (this.isStale(res)) {
+            res = this.getPattern().collapse();
+        }
         if (res != 0) {
             throw new AutomationException(res);
         }
@@ -97,7 +100,10 @@ public class ExpandCollapse extends BasePattern {
     public boolean isExpanded() throws AutomationException {
         IntByReference ibr = new IntByReference();
 
-        final int res = this.getPattern().getCurrentExpandCollapseState(ibr);
+        int res = this.getPattern().getCurrentExpandCollapseState(ibr);
+        if (this.isStale(res)) {
+            res = this.getPattern().getCurrentExpandCollapseState(ibr);
+        }
         if (res != 0) {
             throw new AutomationException(res);
         }
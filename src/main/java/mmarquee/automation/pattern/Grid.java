@@ -52,19 +52,18 @@ public class Grid extends BasePattern {
     }
 
     private IUIAutomationGridPattern getPattern() throws AutomationException {
-        if (this.rawPattern != null) {
-            return this.rawPattern;
-        } else {
-            PointerByReference pbr = new PointerByReference();
+        if (this.rawPattern == null) {
+            this.rawPattern = this.convertPointerToInterface(this.queryPatternInterface());
+        }
 
-            WinNT.HRESULT result0 = this.getRawPatternPointer(pbr);
+        return this.rawPattern;
+    }
 
-            if (COMUtils.SUCCEEDED(result0)) {
-                return this.convertPointerToInterface(pbr);
-            } else {
-                throw new AutomationException(result0.intValue());
-            }
-        }
+    /**
+     * Forgets the pattern interface, once its reference has been released.
+     */
+    protected void resetPattern() {
+        this.rawPattern = null;
     }
 
     /**
@@ -77,7 +76,10 @@ public class Grid extends BasePattern {
     protected PointerByReference getRawItem(int x, int y) throws AutomationException{
         PointerByReference pbr = new PointerByReference();
 
-        final int res = this.getPattern().getItem(x, y, pbr);
+        int res = this.getPattern().getItem(x, y, pbr);
+        if (this.isStale(res)) {
+            res = this.getPattern().getItem(x, y, pbr);
+        }
         if (res != 0) {
             throw new AutomationException(res);
         }
@@ -116,7 +118,10 @@ public class Grid extends BasePattern {
     public int rowCount() throws AutomationException {
         IntByReference ibr = new IntByReference();
 
-        final int res = this.getPattern().getCurrentRowCount(ibr);
+        int res = this.getPattern().getCurrentRowCount(ibr);
+        if (this.isStale(res)) {
+            res = this.getPattern().getCurrentRowCount(ibr);
+        }
         if (res != 0) {
             throw new AutomationException(res);
         }
@@ -133,7 +138,10 @@ public class Grid extends BasePattern {
 
         IntByReference ibr = new IntByReference();
 
-        final int res = this.getPattern().getCurrentColumnCount(ibr);
+        int res = this.getPattern().getCurrentColumnCount(ibr);
+        if (this.isStale(res)) {
+            res = this.getPattern().getCurrentColumnCount(ibr);
+        }
         if (res != 0) {
             throw new AutomationException(res);
         }
@@ -15,8 +15,6 @@
  */
 package mmarquee.automation.pattern;
 
-import com.sun.jna.platform.win32.COM.COMUtils;
-import com.sun.jna.platform.win32.WinNT;
 import com.sun.jna.ptr.IntByReference;
 import com.sun.jna.ptr.PointerByReference;
 import mmarquee.automation.AutomationException;
@@ -49,19 +47,18 @@ public class GridItem extends BasePattern {
     }
 
     private IUIAutomationGridItemPattern getPattern() throws AutomationException {
-        if (this.rawPattern != null) {
-            return this.rawPattern;
-        } else {
-            PointerByReference pbr = new PointerByReference();
+        if (this.rawPattern == null) {
+            this.rawPattern = this.convertPointerToInterface(this.queryPatternInterface());
+        }
 
-            WinNT.HRESULT result0 = this.getRawPatternPointer(pbr);
+        return this.rawPattern;
+    }
 
-            if (COMUtils.SUCCEEDED(result0)) {
-                return this.convertPointerToInterface(pbr);
-            } else {
-                throw new AutomationException(result0.intValue());
-            }
-        }
+    /**
+     * Forgets the pattern interface, once its reference has been released.
+     */
+    protected void resetPattern() {
+        this.rawPattern = null;
     }
 
     public IUIAutomationGridItemPattern convertPointerToInterface(PointerByReference pUnknownA) {
@@ -76,7 +73,10 @@ public class GridItem extends BasePattern {
     public int getColumn() throws AutomationException {
         IntByReference ibr = new IntByReference();
 
-        final int res = this.getPattern().getCurrentColumn(ibr);
+        int res = this.getPattern().getCurrentColumn(ibr);
+        if (this.isStale(res)) {
+            res = this.getPattern().getCurrentColumn(ibr);
+        }
         if (res != 0) {
             throw new AutomationException(res);
         }
@@ -92,7 +92,10 @@ public class GridItem extends BasePattern {
     public int getRow() throws AutomationException {
         IntByReference ibr = new IntByReference();
 
-        final int res = this.getPattern().getCurrentRow(ibr);
+        int res = this.getPattern().getCurrentRow(ibr);
+        if (this.isStale(res)) {
+            res = this.getPattern().getCurrentRow(ibr);
+        }
         if (res != 0) {
             throw new AutomationException(res);
         }
@@ -15,8 +15,6 @@
  */
 package mmarquee.automation.pattern;
 
-import com.sun.jna.platform.win32.COM.COMUtils;
-import com.sun.jna.platform.win32.WinNT;
 import com.sun.jna.ptr.PointerByReference;
 import mmarquee.automation.AutomationException;
 import mmarquee.automation.uiautomation.IUIAutomationInvokePattern;
@@ -51,19 +49,18 @@ public class Invoke extends BasePattern {
      * @throws AutomationException Something went wrong getting the pattern
      */
     private IUIAutomationInvokePattern getPattern() throws AutomationException {
-        if (this.rawPattern != null) {
-            return this.rawPattern;
-        } else {
-            PointerByReference pbr = new PointerByReference();
+        if (this.rawPattern == null) {
+            this.rawPattern = this.convertPointerToInterface(this.queryPatternInterface());
+        }
 
-            WinNT.HRESULT result0 = this.getRawPatternPointer(pbr);
+        return this.rawPattern;
+    }
 
-            if (COMUtils.SUCCEEDED(result0)) {
-                return this.convertPointerToInterface(pbr);
-            } else {
-                throw new AutomationException(result0.intValue());
-            }
-        }
+    /**
+     * Forgets the pattern interface, once its reference has been released.
+     */
+    protected void resetPattern() {
+        this.rawPattern = null;
     }
 
     /**
@@ -71,7 +68,10 @@ public class Invoke extends BasePattern {
      * @throws AutomationException Something went wrong getting the pattern
      */
     public void invoke() throws AutomationException {
-        final int res = this.getPattern().invoke();
+        int res = this.getPattern().invoke();
+        if (this.isStale(res)) {
+            res = this.getPattern().invoke();
+        }
         if (res != 0) {
             throw new AutomationException(res);
         }
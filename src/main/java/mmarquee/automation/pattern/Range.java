@@ -15,8 +15,6 @@
  */
 package mmarquee.automation.pattern;
 
-import com.sun.jna.platform.win32.COM.COMUtils;
-import com.sun.jna.platform.win32.WinNT;
 import com.sun.jna.ptr.DoubleByReference;
 import com.sun.jna.ptr.PointerByReference;
 import mmarquee.automation.AutomationException;
@@ -52,19 +50,18 @@ public class Range extends BasePattern {
     }
 
     private IUIAutomationRangeValuePattern getPattern() throws AutomationException {
-        if (this.rawPattern != null) {
-            return this.rawPattern;
-        } else {
-            PointerByReference pbr = new PointerByReference();
+        if (this.rawPattern == null) {
+            this.rawPattern = this.convertPointerToInterface(this.queryPatternInterface());
+        }
 
-            WinNT.HRESULT result0 = this.getRawPatternPointer(pbr);
+        return this.rawPattern;
+    }
 
-            if (COMUtils.SUCCEEDED(result0)) {
-                return this.convertPointerToInterface(pbr);
-            } else {
-                throw new AutomationException(result0.intValue());
-            }
-        }
+    /**
+     * Forgets the pattern interface, once its reference has been released.
+     */
+    protected void resetPattern() {
+        this.rawPattern = null;
     }
 
     /**
@@ -73,7 +70,10 @@ public class Range extends BasePattern {
      * @throws AutomationException Something has gone wrong
      */
     public void setValue (double value) throws AutomationException {
-        final int res = this.getPattern().setValue(value);
+        int res = this.getPattern().setValue(value);
+        if (this.isStale(res)) {
+            res = this.getPattern().setValue(value);
+        }
         if (res != 0) {
             throw new AutomationException(res);
         }
@@ -87,7 +87,10 @@ public class Range extends BasePattern {
     public double getValue () throws AutomationException {
         DoubleByReference dbr = new DoubleByReference();
 
-        final int res = this.getPattern().getValue(dbr);
+        int res = this.getPattern().getValue(dbr);
+        if (this.isStale(res)) {
+            res = this.getPattern().getValue(dbr);
+        }
         if (res != 0) {
             throw new AutomationException(res);
         }
@@ -15,8 +15,6 @@
  */
 package mmarquee.automation.pattern;
 
-import com.sun.jna.platform.win32.COM.COMUtils;
-import com.sun.jna.platform.win32.WinNT;
 import com.sun.jna.ptr.IntByReference;
 import com.sun.jna.ptr.PointerByReference;
 import mmarquee.automation.AutomationElement;
@@ -60,19 +58,18 @@ public class Selection extends BasePattern {
      * @throws AutomationException Automation has gone wrong
      */
     private IUIAutomationSelectionPattern getPattern() throws AutomationException {
-        if (this.rawPattern != null) {
-            return this.rawPattern;
-        } else {
-            PointerByReference pbr = new PointerByReference();
-
-            WinNT.HRESULT result0 = this.getRawPatternPointer(pbr);
-
-            if (COMUtils.SUCCEEDED(result0)) {
-                return this.convertPointerToInterface(pbr);
-            } else {
-                throw new AutomationException(result0.intValue());
-            }
+        if (this.rawPattern == null) {
+            this.rawPattern = this.convertPointerToInterface(this.queryPatternInterface());
         }
+
+        return this.rawPattern;
+    }
+
+    /**
+     * Forgets the pattern interface, once its reference has been released.
+     */
+    protected void resetPattern() {
+        this.rawPattern = null;
     }
 
     /**
@@ -84,7 +81,10 @@ public class Selection extends BasePattern {
 
         PointerByReference pbr = new PointerByReference();
 
-        final int res = this.getPattern().getCurrentSelection(pbr);
+        int res = this.getPattern().getCurrentSelection(pbr);
+        if (this.isStale(res)) {
+            res = this.getPattern().getCurrentSelection(pbr);
+        }
         if (res != 0) {
             throw new AutomationException(res);
         }
@@ -129,7 +129,10 @@ public class Selection extends BasePattern {
     public boolean canSelectMultiple() throws AutomationException {
         IntByReference ibr = new IntByReference();
 
-        final int res = this.getPattern().getCurrentCanSelectMultiple(ibr);
+        int res = this.getPattern().getCurrentCanSelectMultiple(ibr);
+        if (this.isStale(res)) {
+            res = this.getPattern().getCurrentCanSelectMultiple(ibr);
+        }
         if (res != 0) {
             throw new AutomationException(res);
         }
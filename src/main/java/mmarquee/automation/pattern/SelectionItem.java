@@ -55,19 +55,18 @@ public class SelectionItem extends BasePattern {
     }
 
     private IUIAutomationSelectionItemPattern getPattern() throws AutomationException {
-        if (this.rawPattern != null) {
-            return this.rawPattern;
-        } else {
-            PointerByReference pbr = new PointerByReference();
+        if (this.rawPattern == null) {
+            this.rawPattern = this.convertPointerToInterface(this.queryPatternInterface());
+        }
 
-            WinNT.HRESULT result0 = this.getRawPatternPointer(pbr);
+        return this.rawPattern;
+    }
 
-            if (COMUtils.SUCCEEDED(result0)) {
-                return convertPointerToInterface(pbr);
-            } else {
-                throw new AutomationException(result0.intValue());
-            }
-        }
+    /**
+     * Forgets the pattern interface, once its reference has been released.
+     */
+    protected void resetPattern() {
+        this.rawPattern = null;
     }
 
     /**
@@ -75,7 +74,9 @@ public class SelectionItem extends BasePattern {
      * @throws AutomationException Something has gone wrong
      */
     public void select() throws AutomationException {
-        this.getPattern().select();
+        if (this.isStale(this.getPattern().select())) {
+            this.getPattern().select();
+        }
     }
 
     /**
@@ -85,7 +86,10 @@ public class SelectionItem extends BasePattern {
      */
     public boolean isSelected() throws AutomationException {
         IntByReference ibr = new IntByReference();
-        final int res = this.getPattern().getCurrentIsSelected(ibr);
+        int res = this.getPattern().getCurrentIsSelected(ibr);
+        if (this.isStale(res)) {
+            res = this.getPattern().getCurrentIsSelected(ibr);
+        }
         if (res != 0) {
             throw new AutomationException(res);
         }
@@ -98,7 +102,9 @@ public class SelectionItem extends BasePattern {
      * @throws AutomationException Something went wrong in the automation library
      */
     public void addToSelection() throws AutomationException {
-        this.getPattern().addToSelection();
+        if (this.isStale(this.getPattern().addToSelection())) {
+            this.getPattern().addToSelection();
+        }
     }
 
     /**
@@ -109,7 +115,10 @@ public class SelectionItem extends BasePattern {
     public AutomationElement getSelectionContainer() throws AutomationException {
         PointerByReference pbr = new PointerByReference();
 
-        final int res = this.getPattern().getCurrentSelectionContainer(pbr);
+        int res = this.getPattern().getCurrentSelectionContainer(pbr);
+        if (this.isStale(res)) {
+            res = this.getPattern().getCurrentSelectionContainer(pbr);
+        }
         if (res != 0) {
             throw new AutomationException(res);
         }
@@ -130,7 +139,9 @@ public class SelectionItem extends BasePattern {
      * @throws AutomationException Something went wrong in the automation library
      */
     public void removeFromSelection() throws AutomationException {
-        this.getPattern().removeFromSelection();
+        if (this.isStale(this.getPattern().removeFromSelection())) {
+            this.getPattern().removeFromSelection();
+        }
     }
 
     public IUIAutomationSelectionItemPattern convertPointerToInterface(PointerByReference ref) {
@@ -15,13 +15,12 @@
  */
 package mmarquee.automation.pattern;
 
-import com.sun.jna.platform.win32.COM.COMUtils;
-import com.sun.jna.platform.win32.WinNT;
 import com.sun.jna.ptr.IntByReference;
 import com.sun.jna.ptr.PointerByReference;
 import mmarquee.automation.AutomationException;
 import mmarquee.automation.uiautomation.IUIAutomationStylesPattern;
 import mmarquee.automation.uiautomation.IUIAutomationStylesPatternConverter;
+import mmarquee.automation.utils.BSTRUtils;
 
 /**
  * @author Mark Humphreys
@@ -48,19 +47,18 @@ public class Styles extends BasePattern {
     }
 
     private IUIAutomationStylesPattern getPattern() throws AutomationException {
-        if (this.rawPattern != null) {
-            return this.rawPattern;
-        } else {
-            PointerByReference pbr = new PointerByReference();
+        if (this.rawPattern == null) {
+            this.rawPattern = this.convertPointerToInterface(this.queryPatternInterface());
+        }
 
-            WinNT.HRESULT result0 = this.getRawPatternPointer(pbr);
+        return this.rawPattern;
+    }
 
-            if (COMUtils.SUCCEEDED(result0)) {
-                return this.convertPointerToInterface(pbr);
-            } else {
-                throw new AutomationException(result0.intValue());
-            }
-        }
+    /**
+     * Forgets the pattern interface, once its reference has been released.
+     */
+    protected void resetPattern() {
+        this.rawPattern = null;
     }
 
     /**
@@ -71,12 +69,15 @@ public class Styles extends BasePattern {
     public String getStyleName() throws AutomationException {
         PointerByReference sr = new PointerByReference();
 
-        final int res = this.getPattern().getCurrentStyleName(sr);
+        int res = this.getPattern().getCurrentStyleName(sr);
+        if (this.isStale(res)) {
+            res = this.getPattern().getCurrentStyleName(sr);
+        }
         if (res != 0) {
             throw new AutomationException(res);
         }
 
-        return sr.getValue().getWideString(0);
+        return BSTRUtils.readAndFree(sr);
     }
 
     /**
@@ -87,7 +88,10 @@ public class Styles extends BasePattern {
     public int getStyleId() throws AutomationException {
         IntByReference ipr = new IntByReference();
 
-        final int res = this.getPattern().getCurrentStyleId(ipr);
+        int res = this.getPattern().getCurrentStyleId(ipr);
+        if (this.isStale(res)) {
+            res = this.getPattern().getCurrentStyleId(ipr);
+        }
         if (res != 0) {
             throw new AutomationException(res);
         }
@@ -15,10 +15,8 @@
  */
 package mmarquee.automation.pattern;
 
-import com.sun.jna.platform.win32.COM.COMUtils;
 import com.sun.jna.platform.win32.COM.Unknown;
 import com.sun.jna.platform.win32.Guid;
-import com.sun.jna.platform.win32.WinNT;
 import com.sun.jna.ptr.IntByReference;
 import com.sun.jna.ptr.PointerByReference;
 import mmarquee.automation.AutomationElement;
@@ -50,19 +48,18 @@ public class Table extends BasePattern {
     }
 
     private IUIAutomationTablePattern getPattern() throws AutomationException {
-        if (this.rawPattern != null) {
-            return this.rawPattern;
-        } else {
-            PointerByReference pbr = new PointerByReference();
-
-            WinNT.HRESULT result0 = this.getRawPatternPointer(pbr);
-
-            if (COMUtils.SUCCEEDED(result0)) {
-                return convertPointerToInterface(pbr);
-            } else {
-                throw new AutomationException(result0.intValue());
-            }
+        if (this.rawPattern == null) {
+            this.rawPattern = this.convertPointerToInterface(this.queryPatternInterface());
         }
+
+        return this.rawPattern;
+    }
+
+    /**
+     * Forgets the pattern interface, once its reference has been released.
+     */
+    protected void resetPattern() {
+        this.rawPattern = null;
     }
 
     /**
@@ -73,7 +70,10 @@ public class Table extends BasePattern {
     public List<AutomationElement> getCurrentColumnHeaders() throws AutomationException {
         PointerByReference pbr = new PointerByReference();
 
-        final int res = this.getPattern().getCurrentColumnHeaders(pbr);
+        int res = this.getPattern().getCurrentColumnHeaders(pbr);
+        if (this.isStale(res)) {
+            res = this.getPattern().getCurrentColumnHeaders(pbr);
+        }
         if (res != 0) {
             throw new AutomationException(res);
         }
@@ -89,7 +89,10 @@ public class Table extends BasePattern {
     public RowOrColumnMajor getRowOrColumnMajor() throws AutomationException {
         IntByReference ibr = new IntByReference();
 
-        final int res = this.getPattern().getCurrentRowOrColumnMajor(ibr);
+        int res = this.getPattern().getCurrentRowOrColumnMajor(ibr);
+        if (this.isStale(res)) {
+            res = this.getPattern().getCurrentRowOrColumnMajor(ibr);
+        }
         if (res != 0) {
             throw new AutomationException(res);
         }
@@ -105,7 +108,10 @@ public class Table extends BasePattern {
     public List<AutomationElement> getCurrentRowHeaders() throws AutomationException {
         PointerByReference pbr = new PointerByReference();
 
-        final int res = this.getPattern().getCurrentRowHeaders(pbr);
+        int res = this.getPattern().getCurrentRowHeaders(pbr);
+        if (this.isStale(res)) {
+            res = this.getPattern().getCurrentRowHeaders(pbr);
+        }
         if (res != 0) {
             throw new AutomationException(res);
         }
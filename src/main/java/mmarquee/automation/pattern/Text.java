@@ -23,6 +23,7 @@ import com.sun.jna.ptr.IntByReference;
 import com.sun.jna.ptr.PointerByReference;
 import mmarquee.automation.AutomationException;
 import mmarquee.automation.uiautomation.*;
+import mmarquee.automation.utils.BSTRUtils;
 
 /**
  * @author Mark Humphreys
@@ -47,19 +48,18 @@ public class Text extends BasePattern {
     }
 
     private IUIAutomationTextPattern getPattern() throws AutomationException {
-        if (this.rawPattern != null) {
-            return this.rawPattern;
-        } else {
-            PointerByReference pbr = new PointerByReference();
+        if (this.rawPattern == null) {
+            this.rawPattern = IUIAutomationTextPatternConverter.PointerToInterface(this.queryPatternInterface());
+        }
 
-            WinNT.HRESULT result0 = this.getRawPatternPointer(pbr);
+        return this.rawPattern;
+    }
 
-            if (COMUtils.SUCCEEDED(result0)) {
-                return IUIAutomationTextPatternConverter.PointerToInterface(pbr);
-            } else {
-                throw new AutomationException(result0.intValue());
-            }
-        }
+    /**
+     * Forgets the pattern interface, once its reference has been released.
+     */
+    protected void resetPattern() {
+        this.rawPattern = null;
     }
 
     public IUIAutomationTextRangeArray convertPointerToArrayInterface(PointerByReference pUnknownA) {
@@ -75,7 +75,10 @@ public class Text extends BasePattern {
     public String getSelection() throws AutomationException {
         PointerByReference pbr = new PointerByReference();
 
-        final int res = this.getPattern().getSelection(pbr);
+        int res = this.getPattern().getSelection(pbr);
+        if (this.isStale(res)) {
+            res = this.getPattern().getSelection(pbr);
+        }
         if (res != 0) {
             throw new AutomationException(res);
         }
@@ -122,7 +125,7 @@ public class Text extends BasePattern {
                         throw new AutomationException(res3);
                     }
 
-                    selectionResult = sr.getValue().getWideString(0);
+                    selectionResult = BSTRUtils.readAndFree(sr);
                 } else {
                     throw new AutomationException(result.intValue());
                 }
@@ -143,7 +146,10 @@ public class Text extends BasePattern {
     public String getText() throws AutomationException {
         PointerByReference pbr = new PointerByReference();
 
-        final int res = this.getPattern().getDocumentRange(pbr);
+        int res = this.getPattern().getDocumentRange(pbr);
+        if (this.isStale(res)) {
+            res = this.getPattern().getDocumentRange(pbr);
+        }
         if (res != 0) {
             throw new AutomationException(res);
         }
@@ -162,7 +168,7 @@ public class Text extends BasePattern {
                 throw new AutomationException(res1);
             }
 
-            return sr.getValue().getWideString(0);
+            return BSTRUtils.readAndFree(sr);
         } else {
             throw new AutomationException(resultA.intValue());
         }
@@ -1,7 +1,5 @@
 package mmarquee.automation.pattern;
 
-import com.sun.jna.platform.win32.COM.COMUtils;
-import com.sun.jna.platform.win32.WinNT;
 import com.sun.jna.ptr.IntByReference;
 import com.sun.jna.ptr.PointerByReference;
 import mmarquee.automation.AutomationException;
@@ -45,19 +43,18 @@ public class Toggle extends BasePattern {
      * @throws AutomationException Something went wrong with the automation library.
      */
     private IUIAutomationTogglePattern getPattern() throws AutomationException {
-        if (this.rawPattern != null) {
-            return this.rawPattern;
-        } else {
-            PointerByReference pbr = new PointerByReference();
+        if (this.rawPattern == null) {
+            this.rawPattern = this.convertPointerToInterface(this.queryPatternInterface());
+        }
 
-            WinNT.HRESULT result0 = this.getRawPatternPointer(pbr);
+        return this.rawPattern;
+    }
 
-            if (COMUtils.SUCCEEDED(result0)) {
-                return this.convertPointerToInterface(pbr);
-            } else {
-                throw new AutomationException(result0.intValue());
-            }
-        }
+    /**
+     * Forgets the pattern interface, once its reference has been released.
+     */
+    protected void resetPattern() {
+        this.rawPattern = null;
     }
 
     /**
@@ -66,7 +63,10 @@ public class Toggle extends BasePattern {
      * @throws AutomationException Something has gone wrong
      */
     public void toggle () throws AutomationException {
-        final int res = this.getPattern().toggle();
+        int res = this.getPattern().toggle();
+        if (this.isStale(res)) {
+            res = this.getPattern().toggle();
+        }
         if (res != 0) {
             throw new AutomationException(res);
         }
@@ -81,7 +81,10 @@ public class Toggle extends BasePattern {
     public ToggleState currentToggleState() throws AutomationException {
         IntByReference ibr = new IntByReference();
 
-        final int res = this.getPattern().getCurrentToggleState(ibr);
+        int res = this.getPattern().getCurrentToggleState(ibr);
+        if (this.isStale(res)) {
+            res = this.getPattern().getCurrentToggleState(ibr);
+        }
         if (res != 0) {
             throw new AutomationException(res);
         }
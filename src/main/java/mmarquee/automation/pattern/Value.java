@@ -16,13 +16,13 @@
 package mmarquee.automation.pattern;
 
 import com.sun.jna.platform.win32.*;
-import com.sun.jna.platform.win32.COM.COMUtils;
 import com.sun.jna.ptr.IntByReference;
 import com.sun.jna.ptr.PointerByReference;
 import mmarquee.automation.AutomationException;
 import mmarquee.automation.uiautomation.IUIAutomationTablePatternConverter;
 import mmarquee.automation.uiautomation.IUIAutomationValuePattern;
 import mmarquee.automation.uiautomation.IUIAutomationValuePatternConverter;
+import mmarquee.automation.utils.BSTRUtils;
 
 /**
  * @author Mark Humphreys
@@ -51,19 +51,18 @@ public class Value extends BasePattern {
      * @return The actual pattern itself
      */
     private IUIAutomationValuePattern getPattern() throws AutomationException {
-        if (this.rawPattern != null) {
-            return this.rawPattern;
-        } else {
-            PointerByReference pbr = new PointerByReference();
+        if (this.rawPattern == null) {
+            this.rawPattern = this.convertPointerToInterface(this.queryPatternInterface());
+        }
 
-            WinNT.HRESULT result0 = this.getRawPatternPointer(pbr);
+        return this.rawPattern;
+    }
 
-            if (COMUtils.SUCCEEDED(result0)) {
-                return this.convertPointerToInterface(pbr);
-            } else {
-                throw new AutomationException(result0.intValue());
-            }
-        }
+    /**
+     * Forgets the pattern interface, once its reference has been released.
+     */
+    protected void resetPattern() {
+        this.rawPattern = null;
     }
 
     /**
@@ -74,12 +73,15 @@ public class Value extends BasePattern {
     public String value() throws AutomationException {
         PointerByReference sr = new PointerByReference();
 
-        final int res = this.getPattern().getValue(sr);
+        int res = this.getPattern().getValue(sr);
+        if (this.isStale(res)) {
+            res = this.getPattern().getValue(sr);
+        }
         if (res != 0) {
             throw new AutomationException(res);
         }
 
-        return sr.getValue().getWideString(0);
+        return BSTRUtils.readAndFree(sr);
     }
 
     /**
@@ -89,7 +91,10 @@ public class Value extends BasePattern {
      */
     public boolean isReadOnly() throws AutomationException {
         IntByReference ibr = new IntByReference();
-        final int res = this.getPattern().getCurrentIsReadOnly(ibr);
+        int res = this.getPattern().getCurrentIsReadOnly(ibr);
+        if (this.isStale(res)) {
+            res = this.getPattern().getCurrentIsReadOnly(ibr);
+        }
         if (res != 0) {
             throw new AutomationException(res);
         }
@@ -107,7 +112,10 @@ public class Value extends BasePattern {
         WTypes.BSTR sysAllocated = OleAuto.INSTANCE.SysAllocString(value);
 
         try {
-            final int res = this.getPattern().setValue(sysAllocated);
+            int res = this.getPattern().setValue(sysAllocated);
+            if (this.isStale(res)) {
+                res = this.getPattern().setValue(sysAllocated);
+            }
             if (res != 0) {
                 throw new AutomationException(res);
             }
@@ -15,10 +15,7 @@
  */
 package mmarquee.automation.pattern;
 
-import com.sun.jna.platform.win32.COM.COMUtils;
-import com.sun.jna.platform.win32.WinNT;
 import com.sun.jna.ptr.IntByReference;
-import com.sun.jna.ptr.PointerByReference;
 import mmarquee.automation.AutomationException;
 import mmarquee.automation.uiautomation.IUIAutomationValuePattern;
 import mmarquee.automation.uiautomation.IUIAutomationWindowPattern;
@@ -47,19 +44,18 @@ public class Window extends BasePattern {
     }
 
     private IUIAutomationWindowPattern getPattern() throws AutomationException {
-        if (this.rawPattern != null) {
-            return this.rawPattern;
-        } else {
-            PointerByReference pbr = new PointerByReference();
-
-            WinNT.HRESULT result0 = this.getRawPatternPointer(pbr);
-
-            if (COMUtils.SUCCEEDED(result0)) {
-                return IUIAutomationWindowPatternConverter.PointerToInterface(pbr);
-            } else {
-                throw new AutomationException(result0.intValue());
-            }
+        if (this.rawPattern == null) {
+            this.rawPattern = IUIAutomationWindowPatternConverter.PointerToInterface(this.queryPatternInterface());
         }
+
+        return this.rawPattern;
+    }
+
+    /**
+     * Forgets the pattern interface, once its reference has been released.
+     */
+    protected void resetPattern() {
+        this.rawPattern = null;
     }
 
     /**
@@ -69,7 +65,10 @@ public class Window extends BasePattern {
      */
     public void waitForInputIdle(int timeout) throws AutomationException {
         IntByReference ibr = new IntByReference();
-        final int res = this.getPattern().waitForInputIdle(timeout, ibr);
+        int res = this.getPattern().waitForInputIdle(timeout, ibr);
+        if (this.isStale(res)) {
+            res = this.getPattern().waitForInputIdle(timeout, ibr);
+        }
         if (res != 0) {
             throw new AutomationException(res);
         }
@@ -98,7 +97,10 @@ public class Window extends BasePattern {
      */
     public boolean isModal() throws AutomationException {
         IntByReference ibr = new IntByReference();
-        final int res = this.getPattern().getCurrentIsModal(ibr);
+        int res = this.getPattern().getCurrentIsModal(ibr);
+        if (this.isStale(res)) {
+            res = this.getPattern().getCurrentIsModal(ibr);
+        }
         if (res != 0) {
             throw new AutomationException(res);
         }
@@ -113,7 +115,10 @@ public class Window extends BasePattern {
      */
     public boolean isTopMost() throws AutomationException {
         IntByReference ibr = new IntByReference();
-        final int res = this.getPattern().getCurrentIsTopmost(ibr);
+        int res = this.getPattern().getCurrentIsTopmost(ibr);
+        if (this.isStale(res)) {
+            res = this.getPattern().getCurrentIsTopmost(ibr);
+        }
         if (res != 0) {
             throw new AutomationException(res);
         }
@@ -126,7 +131,10 @@ public class Window extends BasePattern {
      * @throws AutomationException Something has gone wrong
      */
     public void close() throws AutomationException {
-        final int res = this.getPattern().close();
+        int res = this.getPattern().close();
+        if (this.isStale(res)) {
+            res = this.getPattern().close();
+        }
         if (res != 0) {
             throw new AutomationException(res);
         }
@@ -138,7 +146,10 @@ public class Window extends BasePattern {
      * @throws AutomationException Something has gone wrong
      */
     public void setWindowState(WindowVisualState state) throws AutomationException {
-        final int res = this.getPattern().setWindowVisualState(state.getValue());
+        int res = this.getPattern().setWindowVisualState(state.getValue());
+        if (this.isStale(res)) {
+            res = this.getPattern().setWindowVisualState(state.getValue());
+        }
         if (res != 0) {
             throw new AutomationException(res);
         }
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation.uiautomation;
+
+import com.sun.jna.Function;
+import com.sun.jna.Pointer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * The functions of a COM vtable, read once and then shared by every
+ * interface pointer that has the same vtable.
+ */
+public final class FunctionTable {
+    /**
+     * The address of the vtable.
+     */
+    private final long address;
+
+    /**
+     * The functions, one per vtable entry.
+     */
+    private final Function[] functions;
+
+    /**
+     * Reads the functions of the vtable.
+     *
+     * @param vTablePointer The vtable.
+     * @param methods The number of entries to read.
+     */
+    private FunctionTable(final Pointer vTablePointer, final int methods) {
+        this.address = Pointer.nativeValue(vTablePointer);
+
+        final Pointer[] vTable = new Pointer[methods];
+        vTablePointer.read(0, vTable, 0, vTable.length);
+
+        this.functions = new Function[methods];
+        for (int index = 0; index < methods; index++) {
+            this.functions[index] = Function.getFunction(vTable[index], Function.ALT_CONVENTION);
+        }
+    }
+
+    /**
+     * Gets the function at the given vtable index.
+     *
+     * @param index The vtable index.
+     * @return The function.
+     */
+    public Function get(final int index) {
+        return this.functions[index];
+    }
+
+    /**
+     * Gets the number of entries in the table.
+     *
+     * @return The number of entries.
+     */
+    public int size() {
+        return this.functions.length;
+    }
+
+    /**
+     * Cache of the tables for one interface, keyed by vtable address.
+     */
+    public static final class Cache {
+        /**
+         * The number of vtable entries of the interface.
+         */
+        private final int methods;
+
+        /**
+         * The tables seen so far.
+         */
+        private final ConcurrentMap<Long, FunctionTable> tables =
+                new ConcurrentHashMap<Long, FunctionTable>();
+
+        /**
+         * The last table used, nearly every pointer of an interface shares
+         * the same vtable, so this avoids the map lookup.
+         */
+        private volatile FunctionTable last;
+
+        /**
+         * Constructor for the cache.
+         *
+         * @param methods The number of vtable entries of the interface.
+         */
+        public Cache(final int methods) {
+            this.methods = methods;
+        }
+
+        /**
+         * Gets the table for the given interface pointer.
+         *
+         * @param interfacePointer The interface pointer.
+         * @return The (shared) table.
+         */
+        public FunctionTable forInterface(final Pointer interfacePointer) {
+            final Pointer vTablePointer = interfacePointer.getPointer(0);
+            final long address = Pointer.nativeValue(vTablePointer);
+
+            FunctionTable table = this.last;
+            if (table != null && table.address == address) {
+                return table;
+            }
+
+            table = this.tables.get(address);
+            if (table == null) {
+                FunctionTable created = new FunctionTable(vTablePointer, this.methods);
+                table = this.tables.putIfAbsent(address, created);
+                if (table == null) {
+                    table = created;
+                }
+            }
+
+            this.last = table;
+            return table;
+        }
+    }
+}
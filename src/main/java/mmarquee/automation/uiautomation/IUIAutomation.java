@@ -56,6 +56,7 @@ public interface IUIAutomation extends IUnknown {
     int getElementFromHandle(WinDef.HWND hwnd, PointerByReference element);
     int createAndCondition(Pointer condition1, Pointer condition2, PointerByReference condition);
     int createPropertyCondition(int propertyId, Variant.VARIANT.ByValue value, PointerByReference condition);
+    int createPropertyConditionEx(int propertyId, Variant.VARIANT.ByValue value, int flags, PointerByReference condition);
     int createOrCondition(Pointer condition1, Pointer condition2, PointerByReference condition);
     int createTrueCondition(PointerByReference condition);
     int createFalseCondition(PointerByReference condition);
@@ -63,11 +64,17 @@ public interface IUIAutomation extends IUnknown {
     int createNotCondition(Pointer condition, PointerByReference retval);
     int getPatternProgrammaticName(int patternId, PointerByReference retval);
     int getFocusedElement(PointerByReference element);
-    int createTreeWalker(PointerByReference condition, PointerByReference walker);
+    int createTreeWalker(Pointer condition, PointerByReference walker);
     int getControlViewWalker(PointerByReference walker);
-    int addAutomationEventHandler(IntByReference eventId, TreeScope scope, Pointer element, PointerByReference cacheRequest, PointerByReference handler);
-    int removeAutomationEventHandler(IntByReference eventId, PointerByReference element, PointerByReference handler);
+    int addAutomationEventHandler(int eventId, Pointer element, TreeScope scope, Pointer cacheRequest, Pointer handler);
+    int removeAutomationEventHandler(int eventId, Pointer element, Pointer handler);
+    int addStructureChangedEventHandler(Pointer element, TreeScope scope, Pointer cacheRequest, Pointer handler);
+    int removeStructureChangedEventHandler(Pointer element, Pointer handler);
+    int addPropertyChangedEventHandlerNativeArray(Pointer element, TreeScope scope, Pointer cacheRequest, Pointer handler, int[] propertyArray, int propertyCount);
+    int removePropertyChangedEventHandler(Pointer element, Pointer handler);
+    int removeAllEventHandlers();
     int elementFromPoint(WinDef.POINT pt, PointerByReference element);
+    int createCacheRequest(PointerByReference request);
 
     class Converter {
         private static int UIA_COMPARE_ELEMENTS = 3;
@@ -78,125 +85,164 @@ public interface IUIAutomation extends IUnknown {
         private static int UIA_GET_FOCUSED_ELEMENT = 8;
         private static int UIA_CREATE_TREE_WALKER = 13;
         private static int UIA_GET_CONTROL_VIEW_WALKER = 14;
+        private static int UIA_CREATE_CACHE_REQUEST = 20;
         private static int UIA_CREATE_TRUE_CONDITION = 21;
         private static int UIA_CREATE_FALSE_CONDITION = 22;
         private static int UIA_CREATE_PROPERTY_CONDITION = 23;
+        private static int UIA_CREATE_PROPERTY_CONDITION_EX = 24;
         private static int UIA_CREATE_AND_CONDITION = 25;
         private static int UIA_CREATE_OR_CONDITION = 28;
         private static int UIA_CREATE_NOT_CONDITION = 31;
         private static int UIA_ADD_AUTOMATION_EVENT_HANDLER = 32;
         private static int UIA_REMOVE_AUTOMATION_EVENT_HANDLER = 33;
+        private static int UIA_ADD_PROPERTY_CHANGED_EVENT_HANDLER_NATIVE_ARRAY = 34;
+        private static int UIA_REMOVE_PROPERTY_CHANGED_EVENT_HANDLER = 36;
+        private static int UIA_ADD_STRUCTURE_CHANGED_EVENT_HANDLER = 37;
+        private static int UIA_REMOVE_STRUCTURE_CHANGED_EVENT_HANDLER = 38;
+        private static int UIA_REMOVE_ALL_EVENT_HANDLERS = 41;
         private static int UIA_GET_PATTERN_PROGRAMMATIC_NAME = 50;
         private static int UIA_ELEMENT_FROM_IACCESSIBLE = 56;
 
         private static int UIAutomation_Methods  = 58; // 0-2 IUnknown, 3-57 IUIAutomation
 
-        private static Pointer myInterfacePointer;
+        private static final FunctionTable.Cache FUNCTIONS = new FunctionTable.Cache(UIAutomation_Methods);
 
         public static IUIAutomation PointerToInterface(final PointerByReference ptr) {
-            myInterfacePointer = ptr.getValue();
-            Pointer vTablePointer = myInterfacePointer.getPointer(0);
-
-            final Pointer[] vTable = new Pointer[UIAutomation_Methods];
-            vTablePointer.read(0, vTable, 0, vTable.length);
+            final Pointer myInterfacePointer = ptr.getValue();
+            final FunctionTable vTable = FUNCTIONS.forInterface(myInterfacePointer);
             return new IUIAutomation() {
 
                 @Override
                 public WinNT.HRESULT QueryInterface(Guid.REFIID byValue, PointerByReference pointerByReference) {
-                    Function f = Function.getFunction(vTable[0], Function.ALT_CONVENTION);
+                    Function f = vTable.get(0);
                     return new WinNT.HRESULT(f.invokeInt(new Object[]{myInterfacePointer, byValue, pointerByReference}));
                 }
 
                 @Override
                 public int AddRef() {
-                    Function f = Function.getFunction(vTable[1], Function.ALT_CONVENTION);
+                    Function f = vTable.get(1);
                     return f.invokeInt(new Object[]{myInterfacePointer});
                 }
 
                 public int Release() {
-                    Function f = Function.getFunction(vTable[2], Function.ALT_CONVENTION);
+                    Function f = vTable.get(2);
                     return f.invokeInt(new Object[]{myInterfacePointer});
                 }
 
                 public int compareElements(Pointer element1, Pointer element2, IntByReference same) {
-                    Function f = Function.getFunction(vTable[UIA_COMPARE_ELEMENTS], Function.ALT_CONVENTION);
+                    Function f = vTable.get(UIA_COMPARE_ELEMENTS);
                     return f.invokeInt(new Object[]{myInterfacePointer, element1, element2, same});
                 }
 
                 public int getRootElement(PointerByReference root) {
-                    Function f = Function.getFunction(vTable[UIA_GET_ROOT_ELEMENT], Function.ALT_CONVENTION);
+                    Function f = vTable.get(UIA_GET_ROOT_ELEMENT);
                     return f.invokeInt(new Object[]{myInterfacePointer, root});
                 }
 
                 public int getFocusedElement(PointerByReference element) {
-                    Function f = Function.getFunction(vTable[UIA_GET_FOCUSED_ELEMENT], Function.ALT_CONVENTION);
+                    Function f = vTable.get(UIA_GET_FOCUSED_ELEMENT);
                     return f.invokeInt(new Object[]{myInterfacePointer, element});
                 }
 
                 public int getElementFromHandle(WinDef.HWND hwnd, PointerByReference element) {
-                    Function f = Function.getFunction(vTable[UIA_GET_ELEMENT_FROM_HANDLE], Function.ALT_CONVENTION);
+                    Function f = vTable.get(UIA_GET_ELEMENT_FROM_HANDLE);
                     return f.invokeInt(new Object[]{myInterfacePointer, hwnd, element});
                 }
 
                 public int elementFromPoint(WinDef.POINT pt, PointerByReference element) {
-                    Function f = Function.getFunction(vTable[UIA_GET_ELEMENT_FROM_POINT], Function.ALT_CONVENTION);
+                    Function f = vTable.get(UIA_GET_ELEMENT_FROM_POINT);
                     return f.invokeInt(new Object[]{myInterfacePointer, new PointNativeLong(pt.x, pt.y), element});
                 }
 
                 public int createPropertyCondition(int propertyId, Variant.VARIANT.ByValue value, PointerByReference condition) {
-                    Function f = Function.getFunction(vTable[UIA_CREATE_PROPERTY_CONDITION], Function.ALT_CONVENTION);
+                    Function f = vTable.get(UIA_CREATE_PROPERTY_CONDITION);
                     return f.invokeInt(new Object[]{myInterfacePointer, propertyId, value, condition});
                 }
 
+                public int createPropertyConditionEx(int propertyId, Variant.VARIANT.ByValue value, int flags, PointerByReference condition) {
+                    Function f = vTable.get(UIA_CREATE_PROPERTY_CONDITION_EX);
+                    return f.invokeInt(new Object[]{myInterfacePointer, propertyId, value, flags, condition});
+                }
+
                 public int createAndCondition(Pointer condition1, Pointer condition2, PointerByReference condition) {
-                    Function f = Function.getFunction(vTable[UIA_CREATE_AND_CONDITION], Function.ALT_CONVENTION);
+                    Function f = vTable.get(UIA_CREATE_AND_CONDITION);
                     return f.invokeInt(new Object[]{myInterfacePointer, condition1, condition2, condition});
                 }
 
                 public int createOrCondition(Pointer condition1, Pointer condition2, PointerByReference condition) {
-                    Function f = Function.getFunction(vTable[UIA_CREATE_OR_CONDITION], Function.ALT_CONVENTION);
+                    Function f = vTable.get(UIA_CREATE_OR_CONDITION);
                     return f.invokeInt(new Object[]{myInterfacePointer, condition1, condition2, condition});
                 }
 
+                public int createCacheRequest(PointerByReference request) {
+                    Function f = vTable.get(UIA_CREATE_CACHE_REQUEST);
+                    return f.invokeInt(new Object[]{myInterfacePointer, request});
+                }
+
                 public int createTrueCondition(PointerByReference condition) {
-                    Function f = Function.getFunction(vTable[UIA_CREATE_TRUE_CONDITION], Function.ALT_CONVENTION);
+                    Function f = vTable.get(UIA_CREATE_TRUE_CONDITION);
                     return f.invokeInt(new Object[]{myInterfacePointer, condition});
                 }
 
                 public int createFalseCondition(PointerByReference condition) {
-                    Function f = Function.getFunction(vTable[UIA_CREATE_FALSE_CONDITION], Function.ALT_CONVENTION);
+                    Function f = vTable.get(UIA_CREATE_FALSE_CONDITION);
                     return f.invokeInt(new Object[]{myInterfacePointer, condition});
                 }
 
                 public int createNotCondition(Pointer condition, PointerByReference retval) {
-                    Function f = Function.getFunction(vTable[UIA_CREATE_NOT_CONDITION], Function.ALT_CONVENTION);
+                    Function f = vTable.get(UIA_CREATE_NOT_CONDITION);
                     return f.invokeInt(new Object[]{myInterfacePointer, condition, retval});
                 }
 
                 public int getPatternProgrammaticName(int patternId, PointerByReference retval) {
-                    Function f = Function.getFunction(vTable[UIA_GET_PATTERN_PROGRAMMATIC_NAME], Function.ALT_CONVENTION);
+                    Function f = vTable.get(UIA_GET_PATTERN_PROGRAMMATIC_NAME);
                     return f.invokeInt(new Object[]{myInterfacePointer, patternId, retval});
                 }
 
-                public int createTreeWalker(PointerByReference condition, PointerByReference walker) {
-                    Function f = Function.getFunction(vTable[UIA_CREATE_TREE_WALKER], Function.ALT_CONVENTION);
+                public int createTreeWalker(Pointer condition, PointerByReference walker) {
+                    Function f = vTable.get(UIA_CREATE_TREE_WALKER);
                     return f.invokeInt(new Object[]{myInterfacePointer, condition, walker});
                 }
 
                 public int getControlViewWalker(PointerByReference walker) {
-                    Function f = Function.getFunction(vTable[UIA_GET_CONTROL_VIEW_WALKER], Function.ALT_CONVENTION);
+                    Function f = vTable.get(UIA_GET_CONTROL_VIEW_WALKER);
                     return f.invokeInt(new Object[]{myInterfacePointer, walker});
                 }
 
-                public int addAutomationEventHandler(IntByReference eventId, TreeScope scope, Pointer element, PointerByReference cacheRequest, PointerByReference handler) {
-                    Function f = Function.getFunction(vTable[UIA_ADD_AUTOMATION_EVENT_HANDLER], Function.ALT_CONVENTION);
-                    return f.invokeInt(new Object[]{myInterfacePointer, eventId, element, scope, cacheRequest, handler});
+                public int addAutomationEventHandler(int eventId, Pointer element, TreeScope scope, Pointer cacheRequest, Pointer handler) {
+                    Function f = vTable.get(UIA_ADD_AUTOMATION_EVENT_HANDLER);
+                    return f.invokeInt(new Object[]{myInterfacePointer, eventId, element, scope.value, cacheRequest, handler});
                 }
 
-                public int removeAutomationEventHandler(IntByReference eventId, PointerByReference element, PointerByReference handler) {
-                    Function f = Function.getFunction(vTable[UIA_REMOVE_AUTOMATION_EVENT_HANDLER], Function.ALT_CONVENTION);
+                public int removeAutomationEventHandler(int eventId, Pointer element, Pointer handler) {
+                    Function f = vTable.get(UIA_REMOVE_AUTOMATION_EVENT_HANDLER);
                     return f.invokeInt(new Object[]{myInterfacePointer, eventId, element, handler});
                 }
+
+                public int addStructureChangedEventHandler(Pointer element, TreeScope scope, Pointer cacheRequest, Pointer handler) {
+                    Function f = vTable.get(UIA_ADD_STRUCTURE_CHANGED_EVENT_HANDLER);
+                    return f.invokeInt(new Object[]{myInterfacePointer, element, scope.value, cacheRequest, handler});
+                }
+
+                public int removeStructureChangedEventHandler(Pointer element, Pointer handler) {
+                    Function f = vTable.get(UIA_REMOVE_STRUCTURE_CHANGED_EVENT_HANDLER);
+                    return f.invokeInt(new Object[]{myInterfacePointer, element, handler});
+                }
+
+                public int addPropertyChangedEventHandlerNativeArray(Pointer element, TreeScope scope, Pointer cacheRequest, Pointer handler, int[] propertyArray, int propertyCount) {
+                    Function f = vTable.get(UIA_ADD_PROPERTY_CHANGED_EVENT_HANDLER_NATIVE_ARRAY);
+                    return f.invokeInt(new Object[]{myInterfacePointer, element, scope.value, cacheRequest, handler, propertyArray, propertyCount});
+                }
+
+                public int removePropertyChangedEventHandler(Pointer element, Pointer handler) {
+                    Function f = vTable.get(UIA_REMOVE_PROPERTY_CHANGED_EVENT_HANDLER);
+                    return f.invokeInt(new Object[]{myInterfacePointer, element, handler});
+                }
+
+                public int removeAllEventHandlers() {
+                    Function f = vTable.get(UIA_REMOVE_ALL_EVENT_HANDLERS);
+                    return f.invokeInt(new Object[]{myInterfacePointer});
+                }
             };
         }
     }
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation.uiautomation;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.platform.win32.COM.IUnknown;
+import com.sun.jna.platform.win32.Guid;
+import com.sun.jna.platform.win32.WinNT;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.PointerByReference;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Wrapper for the IUIAutomationCacheRequest interface.
+ */
+public interface IUIAutomationCacheRequest extends IUnknown {
+
+    /**
+     * The interface IID for QueryInterface et al
+     */
+    Guid.IID IID = new Guid.IID("{B32A92B5-BC25-4078-9C08-D7EE95C48E03}");
+
+    int AddRef();
+    int Release();
+    WinNT.HRESULT QueryInterface(Guid.REFIID byValue, PointerByReference pointerByReference);
+
+    int addProperty(int propertyId); // 3
+    int addPattern(int patternId); // 4
+    int clone(PointerByReference clonedRequest); // 5
+    int getTreeScope(IntByReference scope); // 6
+    int setTreeScope(TreeScope scope); // 7
+    int getTreeFilter(PointerByReference filter); // 8
+    int setTreeFilter(Pointer filter); // 9
+    int getAutomationElementMode(IntByReference mode); // 10
+    int setAutomationElementMode(int mode); // 11
+}
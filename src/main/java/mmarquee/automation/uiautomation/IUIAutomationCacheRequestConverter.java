@@ -0,0 +1,102 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation.uiautomation;
+
+import com.sun.jna.Function;
+import com.sun.jna.Pointer;
+import com.sun.jna.platform.win32.Guid;
+import com.sun.jna.platform.win32.WinNT;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.PointerByReference;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ */
+public class IUIAutomationCacheRequestConverter {
+    private static int UIAutomationCacheRequest_Methods = 12; // 0-2 IUnknown, 3-11 IUIAutomationCacheRequest
+
+    private static final FunctionTable.Cache FUNCTIONS = new FunctionTable.Cache(UIAutomationCacheRequest_Methods);
+
+    public static IUIAutomationCacheRequest PointerToInterface(final PointerByReference ptr) {
+        final Pointer interfacePointer = ptr.getValue();
+        final FunctionTable vTable = FUNCTIONS.forInterface(interfacePointer);
+        return new IUIAutomationCacheRequest() {
+            // IUnknown
+            @Override
+            public WinNT.HRESULT QueryInterface(Guid.REFIID byValue, PointerByReference pointerByReference) {
+                Function f = vTable.get(0);
+                return new WinNT.HRESULT(f.invokeInt(new Object[]{interfacePointer, byValue, pointerByReference}));
+            }
+
+            @Override
+            public int AddRef() {
+                Function f = vTable.get(1);
+                return f.invokeInt(new Object[]{interfacePointer});
+            }
+
+            public int Release() {
+                Function f = vTable.get(2);
+                return f.invokeInt(new Object[]{interfacePointer});
+            }
+
+            public int addProperty(int propertyId) {
+                Function f = vTable.get(3);
+                return f.invokeInt(new Object[]{interfacePointer, propertyId});
+            }
+
+            public int addPattern(int patternId) {
+                Function f = vTable.get(4);
+                return f.invokeInt(new Object[]{interfacePointer, patternId});
+            }
+
+            public int clone(PointerByReference clonedRequest) {
+                Function f = vTable.get(5);
+                return f.invokeInt(new Object[]{interfacePointer, clonedRequest});
+            }
+
+            public int getTreeScope(IntByReference scope) {
+                Function f = vTable.get(6);
+                return f.invokeInt(new Object[]{interfacePointer, scope});
+            }
+
+            public int setTreeScope(TreeScope scope) {
+                Function f = vTable.get(7);
+                return f.invokeInt(new Object[]{interfacePointer, scope.value});
+            }
+
+            public int getTreeFilter(PointerByReference filter) {
+                Function f = vTable.get(8);
+                return f.invokeInt(new Object[]{interfacePointer, filter});
+            }
+
+            public int setTreeFilter(Pointer filter) {
+                Function f = vTable.get(9);
+                return f.invokeInt(new Object[]{interfacePointer, filter});
+            }
+
+            public int getAutomationElementMode(IntByReference mode) {
+                Function f = vTable.get(10);
+                return f.invokeInt(new Object[]{interfacePointer, mode});
+            }
+
+            public int setAutomationElementMode(int mode) {
+                Function f = vTable.get(11);
+                return f.invokeInt(new Object[]{interfacePointer, mode});
+            }
+        };
+    }
+}
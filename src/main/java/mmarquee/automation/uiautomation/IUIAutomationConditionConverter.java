@@ -28,28 +28,28 @@ import com.sun.jna.ptr.PointerByReference;
  * Converter for the IUIAutomationCondition.
  */
 public class IUIAutomationConditionConverter {
+    private static final FunctionTable.Cache FUNCTIONS = new FunctionTable.Cache(3); // 0-2 IUnknown
+
     public static IUIAutomationCondition PointerToInterface(final PointerByReference ptr) {
         final Pointer interfacePointer = ptr.getValue();
-        final Pointer vTablePointer = interfacePointer.getPointer(0);
-        final Pointer[] vTable = new Pointer[85];  //  82 + 3 from IUnknown
-        vTablePointer.read(0, vTable, 0, vTable.length);
+        final FunctionTable vTable = FUNCTIONS.forInterface(interfacePointer);
         return new IUIAutomationCondition() {
 
             // IUnknown
             @Override
             public WinNT.HRESULT QueryInterface(Guid.REFIID byValue, PointerByReference pointerByReference) {
-                Function f = Function.getFunction(vTable[0], Function.ALT_CONVENTION);
+                Function f = vTable.get(0);
                 return new WinNT.HRESULT(f.invokeInt(new Object[]{interfacePointer, byValue, pointerByReference}));
             }
 
             @Override
             public int AddRef() {
-                Function f = Function.getFunction(vTable[1], Function.ALT_CONVENTION);
+                Function f = vTable.get(1);
                 return f.invokeInt(new Object[]{interfacePointer});
             }
 
             public int Release() {
-                Function f = Function.getFunction(vTable[2], Function.ALT_CONVENTION);
+                Function f = vTable.get(2);
                 return f.invokeInt(new Object[]{interfacePointer});
             }
         };
@@ -70,6 +70,18 @@ public interface IUIAutomationElement3 extends IUnknown {
     int getRuntimeId(PointerByReference runtimeId);
     int getCurrentAutomationId(PointerByReference retVal);
     int getCurrentCulture (IntByReference retVal);
+    int findFirstBuildCache (TreeScope scope, Pointer condition, Pointer cacheRequest, PointerByReference sr);
+    int findAllBuildCache (TreeScope scope, Pointer condition, Pointer cacheRequest, PointerByReference sr);
+    int buildUpdatedCache (Pointer cacheRequest, PointerByReference sr);
+    int getCachedPropertyValue(int propertyId, Variant.VARIANT.ByReference value);
+    int getCachedPattern(Integer patternId, PointerByReference pbr);
+    int getCachedParent(PointerByReference parent);
+    int getCachedChildren(PointerByReference children);
+    int getCachedControlType(IntByReference retVal);
+    int getCachedName(PointerByReference retVal);
+    int getCachedAutomationId(PointerByReference retVal);
+    int getCachedClassName(PointerByReference retVal);
+    int getCachedBoundingRectangle(WinDef.RECT retVal);
 
     // IUIAutomationElement2
     // IUIAutomationElement3
@@ -29,37 +29,37 @@ import com.sun.jna.ptr.PointerByReference;
 public class IUIAutomationElementArrayConverter {
     private static int UIAutomationElementArray_Methods = 5; // 0-2 IUnknown, 3-4 IUIAutomationElement3
 
+    private static final FunctionTable.Cache FUNCTIONS = new FunctionTable.Cache(UIAutomationElementArray_Methods);
+
     public static IUIAutomationElementArray PointerToInterface(final PointerByReference ptr) {
         final Pointer interfacePointer = ptr.getValue();
-        final Pointer vTablePointer = interfacePointer.getPointer(0);
-        final Pointer[] vTable = new Pointer[UIAutomationElementArray_Methods];
-        vTablePointer.read(0, vTable, 0, vTable.length);
+        final FunctionTable vTable = FUNCTIONS.forInterface(interfacePointer);
         return new IUIAutomationElementArray() {
             // IUnknown
             @Override
             public WinNT.HRESULT QueryInterface(Guid.REFIID byValue, PointerByReference pointerByReference) {
-                Function f = Function.getFunction(vTable[0], Function.ALT_CONVENTION);
+                Function f = vTable.get(0);
                 return new WinNT.HRESULT(f.invokeInt(new Object[]{interfacePointer, byValue, pointerByReference}));
             }
 
             @Override
             public int AddRef() {
-                Function f = Function.getFunction(vTable[1], Function.ALT_CONVENTION);
+                Function f = vTable.get(1);
                 return f.invokeInt(new Object[]{interfacePointer});
             }
 
             public int Release() {
-                Function f = Function.getFunction(vTable[2], Function.ALT_CONVENTION);
+                Function f = vTable.get(2);
                 return f.invokeInt(new Object[]{interfacePointer});
             }
 
             public int getLength(IntByReference length) {
-                Function f = Function.getFunction(vTable[3], Function.ALT_CONVENTION);
+                Function f = vTable.get(3);
                 return f.invokeInt(new Object[]{interfacePointer, length});
             }
 
             public int getElement(int index, PointerByReference element) {
-                Function f = Function.getFunction(vTable[4], Function.ALT_CONVENTION);
+                Function f = vTable.get(4);
                 return f.invokeInt(new Object[]{interfacePointer, index, element});
             }
         };
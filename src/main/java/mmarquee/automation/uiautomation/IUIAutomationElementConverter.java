@@ -32,15 +32,15 @@ import com.sun.jna.ptr.PointerByReference;
 class IUIAutomationElementConverter {
     private static int UIAutomationElement_Methods  = 85; // 0-2 IUnknown, 3-84 IUIAutomationElement3
 
+    private static final FunctionTable.Cache FUNCTIONS = new FunctionTable.Cache(UIAutomationElement_Methods);
+
     public static IUIAutomationElement PointerToInterface(final PointerByReference ptr) {
         final Pointer interfacePointer = ptr.getValue();
-        final Pointer vTablePointer = interfacePointer.getPointer(0);
-        final Pointer[] vTable = new Pointer[UIAutomationElement_Methods];
-        vTablePointer.read(0, vTable, 0, vTable.length);
+        final FunctionTable vTable = FUNCTIONS.forInterface(interfacePointer);
         return new IUIAutomationElement() {
 
             private Function getFunction(int offset) {
-                return Function.getFunction(vTable[offset], Function.ALT_CONVENTION);
+                return vTable.get(offset);
             }
 
             // IUnknown
@@ -81,20 +81,20 @@ class IUIAutomationElementConverter {
                 return f.invokeInt(new Object[]{interfacePointer, scope.value, condition, sr});
             }
 
-//                public int FindFirstBuildCache (/* [in] */ int scope, /* [in] */ /* IUIAutomationCondition */ Pointer condition, /* [in] */ /* IUIAutomationCacheRequest */ Pointer cacheRequest, /* IUIAutomationElement3 */ PointerByReference found) {
-//                    Function f = Function.getFunction(vTable[7], Function.ALT_CONVENTION);
-//                    return f.invokeInt(new Object[]{interfacePointer, scope, condition, cacheRequest, found});
-//                }
+            public int findFirstBuildCache(TreeScope scope, Pointer condition, Pointer cacheRequest, PointerByReference sr) {
+                Function f = this.getFunction(7);
+                return f.invokeInt(new Object[]{interfacePointer, scope.value, condition, cacheRequest, sr});
+            }
 
-//                public int FindAllBuildCache (/* [in] */ int scope, /* [in] */ /* IUIAutomationCondition */ Pointer condition, /* [in] */ /* IUIAutomationCacheRequest */ Pointer cacheRequest, /* IUIAutomationElementArray */ PointerByReference found) {
-//                    Function f = Function.getFunction(vTable[8], Function.ALT_CONVENTION);
-//                    return f.invokeInt(new Object[]{interfacePointer, scope, condition, cacheRequest, found});
-//                }
+            public int findAllBuildCache(TreeScope scope, Pointer condition, Pointer cacheRequest, PointerByReference sr) {
+                Function f = this.getFunction(8);
+                return f.invokeInt(new Object[]{interfacePointer, scope.value, condition, cacheRequest, sr});
+            }
 
-//                public int BuildUpdatedCache (/* [in] */ /* IUIAutomationCacheRequest */ Pointer cacheRequest, /* IUIAutomationElement3 */ PointerByReference updatedElement) {
-//                    Function f = Function.getFunction(vTable[9], Function.ALT_CONVENTION);
-//                    return f.invokeInt(new Object[]{interfacePointer, cacheRequest, updatedElement});
-//                }
+            public int buildUpdatedCache(Pointer cacheRequest, PointerByReference sr) {
+                Function f = this.getFunction(9);
+                return f.invokeInt(new Object[]{interfacePointer, cacheRequest, sr});
+            }
 
             public int getCurrentPropertyValue(int propertyId, Variant.VARIANT.ByReference value) {
                 Function f = this.getFunction(10);
@@ -106,13 +106,13 @@ class IUIAutomationElementConverter {
                 return f.invokeInt(new Object[]{interfacePointer, propertyId, ignoreDefaultValue, retVal});
             }
 
-//                public int GetCachedPropertyValue (/* [in] */ int propertyId, Variant.VARIANT retVal) {
-//                    Function f = Function.getFunction(vTable[12], Function.ALT_CONVENTION);
-//                    return f.invokeInt(new Object[]{interfacePointer, propertyId, retVal});
-//                }
+            public int getCachedPropertyValue(int propertyId, Variant.VARIANT.ByReference value) {
+                Function f = this.getFunction(12);
+                return f.invokeInt(new Object[]{interfacePointer, propertyId, value});
+            }
 
 //                public int GetCachedPropertyValueEx (/* [in] */ int propertyId, /* [in] */ WinDef.BOOL ignoreDefaultValue, Variant.VARIANT retVal) {
-//                    Function f = Function.getFunction(vTable[13], Function.ALT_CONVENTION);
+//                    Function f = vTable.get(13);
 //                    return f.invokeInt(new Object[]{interfacePointer, propertyId, ignoreDefaultValue, retVal});
 //                }
 
@@ -122,7 +122,7 @@ class IUIAutomationElementConverter {
             }
 
 //                public int GetCachedPatternAs (/* [in] */ int patternId, /* [in] */ Guid.REFIID riid, /* [retval][iid_is][out] */ PointerByReference patternObject) {
-//                    Function f = Function.getFunction(vTable[15], Function.ALT_CONVENTION);
+//                    Function f = vTable.get(15);
 //                    return f.invokeInt(new Object[]{interfacePointer, patternId, riid, patternObject});
 //                }
 
@@ -131,20 +131,20 @@ class IUIAutomationElementConverter {
                 return f.invokeInt(new Object[]{interfacePointer, patternId, pbr});
             }
 
-//                public int GetCachedPattern (/* [in] */ int patternId, PointerByReference patternObject) {
-//                    Function f = Function.getFunction(vTable[17], Function.ALT_CONVENTION);
-//                    return f.invokeInt(new Object[]{interfacePointer, patternId, patternObject});
-//                }
+            public int getCachedPattern(Integer patternId, PointerByReference pbr) {
+                Function f = this.getFunction(17);
+                return f.invokeInt(new Object[]{interfacePointer, patternId, pbr});
+            }
 
-//                public int GetCachedParent (/* IUIAutomationElement3 */ PointerByReference parent) {
-//                    Function f = Function.getFunction(vTable[18], Function.ALT_CONVENTION);
-//                    return f.invokeInt(new Object[]{interfacePointer, parent});
-//                }
+            public int getCachedParent(PointerByReference parent) {
+                Function f = this.getFunction(18);
+                return f.invokeInt(new Object[]{interfacePointer, parent});
+            }
 
-//                public int GetCachedChildren (/* IUIAutomationElementArray */ PointerByReference children) {
-//                    Function f = Function.getFunction(vTable[19], Function.ALT_CONVENTION);
-//                    return f.invokeInt(new Object[]{interfacePointer, children});
-//                }
+            public int getCachedChildren(PointerByReference children) {
+                Function f = this.getFunction(19);
+                return f.invokeInt(new Object[]{interfacePointer, children});
+            }
 
             public int getCurrentProcessId (IntByReference retVal) {
                 Function f = this.getFunction(20);
@@ -306,158 +306,158 @@ class IUIAutomationElementConverter {
                 return f.invokeInt(new Object[]{interfacePointer, sr});
             }
 
-//                public int get_CachedControlType (IntByReference retVal) {
-//                    Function f = Function.getFunction(vTable[53], Function.ALT_CONVENTION);
-//                    return f.invokeInt(new Object[]{interfacePointer, retVal});
-//                }
+            public int getCachedControlType(IntByReference retVal) {
+                Function f = this.getFunction(53);
+                return f.invokeInt(new Object[]{interfacePointer, retVal});
+            }
 
 //                public int get_CachedLocalizedControlType (PointerByReference retVal) {
-//                    Function f = Function.getFunction(vTable[54], Function.ALT_CONVENTION);
+//                    Function f = vTable.get(54);
 //                    return f.invokeInt(new Object[]{interfacePointer, retVal});
 //                }
 
-//                public int get_CachedName (PointerByReference retVal) {
-//                    Function f = Function.getFunction(vTable[55], Function.ALT_CONVENTION);
-//                    return f.invokeInt(new Object[]{interfacePointer, retVal});
-//                }
+            public int getCachedName(PointerByReference retVal) {
+                Function f = this.getFunction(55);
+                return f.invokeInt(new Object[]{interfacePointer, retVal});
+            }
 
 //                public int get_CachedAcceleratorKey (PointerByReference retVal) {
-//                    Function f = Function.getFunction(vTable[56], Function.ALT_CONVENTION);
+//                    Function f = vTable.get(56);
 //                    return f.invokeInt(new Object[]{interfacePointer, retVal});
 //                }
 
 //                public int get_CachedAccessKey (PointerByReference retVal) {
-//                    Function f = Function.getFunction(vTable[57], Function.ALT_CONVENTION);
+//                    Function f = vTable.get(57);
 //                    return f.invokeInt(new Object[]{interfacePointer, retVal});
 //                }
 
 //                public int get_CachedHasKeyboardFocus (WinDef.BOOLByReference retVal) {
-//                    Function f = Function.getFunction(vTable[58], Function.ALT_CONVENTION);
+//                    Function f = vTable.get(58);
 //                    return f.invokeInt(new Object[]{interfacePointer, retVal});
 //                }
 
 //                public int get_CachedIsKeyboardFocusable (WinDef.BOOLByReference retVal) {
-//                    Function f = Function.getFunction(vTable[59], Function.ALT_CONVENTION);
+//                    Function f = vTable.get(59);
 //                    return f.invokeInt(new Object[]{interfacePointer, retVal});
             //               }
 
 //                public int get_CachedIsEnabled (WinDef.BOOLByReference retVal) {
-//                    Function f = Function.getFunction(vTable[60], Function.ALT_CONVENTION);
+//                    Function f = vTable.get(60);
 //                    return f.invokeInt(new Object[]{interfacePointer, retVal});
 //                }
 
-//                public int get_CachedAutomationId (PointerByReference retVal) {
-            //                   Function f = Function.getFunction(vTable[61], Function.ALT_CONVENTION);
-//                    return f.invokeInt(new Object[]{interfacePointer, retVal});
-//                }
+            public int getCachedAutomationId(PointerByReference retVal) {
+                Function f = this.getFunction(61);
+                return f.invokeInt(new Object[]{interfacePointer, retVal});
+            }
 
-//                public int get_CachedClassName (PointerByReference retVal) {
-//                    Function f = Function.getFunction(vTable[62], Function.ALT_CONVENTION);
-//                    return f.invokeInt(new Object[]{interfacePointer, retVal});
-//                }
+            public int getCachedClassName(PointerByReference retVal) {
+                Function f = this.getFunction(62);
+                return f.invokeInt(new Object[]{interfacePointer, retVal});
+            }
 
 //                public int get_CachedHelpText (PointerByReference retVal) {
-//                    Function f = Function.getFunction(vTable[63], Function.ALT_CONVENTION);
+//                    Function f = vTable.get(63);
 //                    return f.invokeInt(new Object[]{interfacePointer, retVal});
 //                }
 
 //                public int get_CachedCulture (IntByReference retVal) {
-//                    Function f = Function.getFunction(vTable[64], Function.ALT_CONVENTION);
+//                    Function f = vTable.get(64);
 //                    return f.invokeInt(new Object[]{interfacePointer, retVal});
 //                }
 
 //                public int get_CachedIsControlElement (WinDef.BOOLByReference retVal) {
-//                    Function f = Function.getFunction(vTable[65], Function.ALT_CONVENTION);
+//                    Function f = vTable.get(65);
 //                    return f.invokeInt(new Object[]{interfacePointer, retVal});
 //                }
 
 //                public int get_CachedIsContentElement (WinDef.BOOLByReference retVal) {
-//                    Function f = Function.getFunction(vTable[66], Function.ALT_CONVENTION);
+//                    Function f = vTable.get(66);
 //                    return f.invokeInt(new Object[]{interfacePointer, retVal});
 //                }
 
 //                public int get_CachedIsPassword (WinDef.BOOLByReference retVal) {
-//                    Function f = Function.getFunction(vTable[67], Function.ALT_CONVENTION);
+//                    Function f = vTable.get(67);
 //                    return f.invokeInt(new Object[]{interfacePointer, retVal});
 //                }
 
 //                public int get_CachedNativeWindowHandle (WinDef.HWND retVal) {
-//                    Function f = Function.getFunction(vTable[68], Function.ALT_CONVENTION);
+//                    Function f = vTable.get(68);
 //                    return f.invokeInt(new Object[]{interfacePointer, retVal});
 //                }
 
 //                public int get_CachedItemType (PointerByReference retVal) {
-//                    Function f = Function.getFunction(vTable[69], Function.ALT_CONVENTION);
+//                    Function f = vTable.get(69);
 //                    return f.invokeInt(new Object[]{interfacePointer, retVal});
 //                }
 
 //                public int get_CachedIsOffscreen (WinDef.BOOLByReference retVal) {
-//                    Function f = Function.getFunction(vTable[70], Function.ALT_CONVENTION);
+//                    Function f = vTable.get(70);
 //                    return f.invokeInt(new Object[]{interfacePointer, retVal});
 //                }
 
 //                public int get_CachedOrientation (IntByReference retVal) {
-//                    Function f = Function.getFunction(vTable[71], Function.ALT_CONVENTION);
+//                    Function f = vTable.get(71);
 //                    return f.invokeInt(new Object[]{interfacePointer, retVal});
 //                }
 
 //                public int get_CachedFrameworkId (PointerByReference retVal) {
-//                    Function f = Function.getFunction(vTable[72], Function.ALT_CONVENTION);
+//                    Function f = vTable.get(72);
 //                    return f.invokeInt(new Object[]{interfacePointer, retVal});
 //                }
 
 //                public int get_CachedIsRequiredForForm (WinDef.BOOLByReference retVal) {
-//                    Function f = Function.getFunction(vTable[73], Function.ALT_CONVENTION);
+//                    Function f = vTable.get(73);
 //                    return f.invokeInt(new Object[]{interfacePointer, retVal});
 //                }
 
 //                public int get_CachedItemStatus (PointerByReference retVal) {
-//                    Function f = Function.getFunction(vTable[74], Function.ALT_CONVENTION);
+//                    Function f = vTable.get(74);
 //                    return f.invokeInt(new Object[]{interfacePointer, retVal});
 //                }
 
-//                public int get_CachedBoundingRectangle (WinDef.RECT retVal) {
-//                    Function f = Function.getFunction(vTable[75], Function.ALT_CONVENTION);
-//                    return f.invokeInt(new Object[]{interfacePointer, retVal});
-//                }
+            public int getCachedBoundingRectangle(WinDef.RECT retVal) {
+                Function f = this.getFunction(75);
+                return f.invokeInt(new Object[]{interfacePointer, retVal});
+            }
 
 //                public int get_CachedLabeledBy (/* IUIAutomationElement3 */ PointerByReference retVal) {
-//                    Function f = Function.getFunction(vTable[76], Function.ALT_CONVENTION);
+//                    Function f = vTable.get(76);
 //                    return f.invokeInt(new Object[]{interfacePointer, retVal});
 //                }
 
 //                public int get_CachedAriaRole (PointerByReference retVal) {
-//                    Function f = Function.getFunction(vTable[77], Function.ALT_CONVENTION);
+//                    Function f = vTable.get(77);
 //                    return f.invokeInt(new Object[]{interfacePointer, retVal});
 //                }
 
 //                public int get_CachedAriaProperties (PointerByReference retVal) {
-//                    Function f = Function.getFunction(vTable[78], Function.ALT_CONVENTION);
+//                    Function f = vTable.get(78);
 //                    return f.invokeInt(new Object[]{interfacePointer, retVal});
 //                }
 
 //                public int get_CachedIsDataValidForForm (WinDef.BOOLByReference retVal) {
-//                    Function f = Function.getFunction(vTable[79], Function.ALT_CONVENTION);
+//                    Function f = vTable.get(79);
 //                    return f.invokeInt(new Object[]{interfacePointer, retVal});
 //                }
 
 //                public int get_CachedControllerFor (/* IUIAutomationElementArray */ PointerByReference retVal) {
-//                    Function f = Function.getFunction(vTable[80], Function.ALT_CONVENTION);
+//                    Function f = vTable.get(80);
 //                    return f.invokeInt(new Object[]{interfacePointer, retVal});
 //                }
 
 //                public int get_CachedDescribedBy (/* IUIAutomationElementArray */ PointerByReference retVal) {
-//                    Function f = Function.getFunction(vTable[81], Function.ALT_CONVENTION);
+//                    Function f = vTable.get(81);
 //                    return f.invokeInt(new Object[]{interfacePointer, retVal});
 //                }
 
 //                public int get_CachedFlowsTo (/* IUIAutomationElementArray */ PointerByReference retVal) {
-//                    Function f = Function.getFunction(vTable[82], Function.ALT_CONVENTION);
+//                    Function f = vTable.get(82);
 //                    return f.invokeInt(new Object[]{interfacePointer, retVal});
 //                }
 
 //                public int get_CachedProviderDescription (PointerByReference retVal) {
-//                    Function f = Function.getFunction(vTable[83], Function.ALT_CONVENTION);
+//                    Function f = vTable.get(83);
             //                   return f.invokeInt(new Object[]{interfacePointer, retVal});
 ///                }
 
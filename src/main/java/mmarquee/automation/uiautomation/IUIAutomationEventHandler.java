@@ -20,7 +20,6 @@ import com.sun.jna.Pointer;
 import com.sun.jna.platform.win32.COM.IUnknown;
 import com.sun.jna.platform.win32.Guid;
 import com.sun.jna.platform.win32.WinNT;
-import com.sun.jna.ptr.IntByReference;
 import com.sun.jna.ptr.PointerByReference;
 
 /**
@@ -39,38 +38,38 @@ public interface IUIAutomationEventHandler extends IUnknown {
     int Release();
     WinNT.HRESULT QueryInterface(Guid.REFIID byValue, PointerByReference pointerByReference);
 
-    int handleAutomationEvent(PointerByReference sender, IntByReference event);
+    int handleAutomationEvent(Pointer sender, int eventId);
 
     class Converter {
         private static int IUIAutomationEventHandlerArray_Methods = 4; // 0-2 IUnknown, 3 IUIAutomationEventHandler
 
+        private static final FunctionTable.Cache FUNCTIONS = new FunctionTable.Cache(IUIAutomationEventHandlerArray_Methods);
+
         public static IUIAutomationEventHandler PointerToInterface(final PointerByReference ptr) {
             final Pointer interfacePointer = ptr.getValue();
-            final Pointer vTablePointer = interfacePointer.getPointer(0);
-            final Pointer[] vTable = new Pointer[IUIAutomationEventHandlerArray_Methods];
-            vTablePointer.read(0, vTable, 0, vTable.length);
+            final FunctionTable vTable = FUNCTIONS.forInterface(interfacePointer);
             return new IUIAutomationEventHandler() {
                 // IUnknown
                 @Override
                 public WinNT.HRESULT QueryInterface(Guid.REFIID byValue, PointerByReference pointerByReference) {
-                    Function f = Function.getFunction(vTable[0], Function.ALT_CONVENTION);
+                    Function f = vTable.get(0);
                     return new WinNT.HRESULT(f.invokeInt(new Object[]{interfacePointer, byValue, pointerByReference}));
                 }
 
                 @Override
                 public int AddRef() {
-                    Function f = Function.getFunction(vTable[1], Function.ALT_CONVENTION);
+                    Function f = vTable.get(1);
                     return f.invokeInt(new Object[]{interfacePointer});
                 }
 
                 public int Release() {
-                    Function f = Function.getFunction(vTable[2], Function.ALT_CONVENTION);
+                    Function f = vTable.get(2);
                     return f.invokeInt(new Object[]{interfacePointer});
                 }
 
-                public int handleAutomationEvent(PointerByReference sender, IntByReference event) {
-                    Function f = Function.getFunction(vTable[3], Function.ALT_CONVENTION);
-                    return f.invokeInt(new Object[]{interfacePointer, sender, event});
+                public int handleAutomationEvent(Pointer sender, int eventId) {
+                    Function f = vTable.get(3);
+                    return f.invokeInt(new Object[]{interfacePointer, sender, eventId});
                 }
             };
         }
@@ -29,43 +29,43 @@ import com.sun.jna.ptr.PointerByReference;
 public class IUIAutomationExpandCollapsePatternConverter {
     private static int METHODS = 6; // 0-2 IUnknown, 3-5 IUIAutomationInvokePattern
 
+    private static final FunctionTable.Cache FUNCTIONS = new FunctionTable.Cache(METHODS);
+
     public static IUIAutomationExpandCollapsePattern PointerToInterface(final PointerByReference ptr) {
         final Pointer interfacePointer = ptr.getValue();
-        final Pointer vTablePointer = interfacePointer.getPointer(0);
-        final Pointer[] vTable = new Pointer[METHODS];
-        vTablePointer.read(0, vTable, 0, vTable.length);
+        final FunctionTable vTable = FUNCTIONS.forInterface(interfacePointer);
         return new IUIAutomationExpandCollapsePattern() {
 
             // IUnknown
             @Override
             public WinNT.HRESULT QueryInterface(Guid.REFIID byValue, PointerByReference pointerByReference) {
-                Function f = Function.getFunction(vTable[0], Function.ALT_CONVENTION);
+                Function f = vTable.get(0);
                 return new WinNT.HRESULT(f.invokeInt(new Object[]{interfacePointer, byValue, pointerByReference}));
             }
 
             @Override
             public int AddRef() {
-                Function f = Function.getFunction(vTable[1], Function.ALT_CONVENTION);
+                Function f = vTable.get(1);
                 return f.invokeInt(new Object[]{interfacePointer});
             }
 
             public int Release() {
-                Function f = Function.getFunction(vTable[2], Function.ALT_CONVENTION);
+                Function f = vTable.get(2);
                 return f.invokeInt(new Object[]{interfacePointer});
             }
 
             public int expand() {
-                Function f = Function.getFunction(vTable[3], Function.ALT_CONVENTION);
+                Function f = vTable.get(3);
                 return f.invokeInt(new Object[]{interfacePointer});
             }
 
             public int collapse() {
-                Function f = Function.getFunction(vTable[4], Function.ALT_CONVENTION);
+                Function f = vTable.get(4);
                 return f.invokeInt(new Object[]{interfacePointer});
             }
 
             public int getCurrentExpandCollapseState(IntByReference retVal) {
-                Function f = Function.getFunction(vTable[5], Function.ALT_CONVENTION);
+                Function f = vTable.get(5);
                 return f.invokeInt(new Object[]{interfacePointer, retVal});
             }
         };
@@ -29,28 +29,28 @@ import com.sun.jna.ptr.PointerByReference;
 public class IUIAutomationGridItemPatternConverter {
     private static int METHODS = 8; // 0-2 IUnknown, 3-7 IUIAutomationGridItemPattern
 
+    private static final FunctionTable.Cache FUNCTIONS = new FunctionTable.Cache(METHODS);
+
     public static IUIAutomationGridItemPattern PointerToInterface(final PointerByReference ptr) {
         final Pointer interfacePointer = ptr.getValue();
-        final Pointer vTablePointer = interfacePointer.getPointer(0);
-        final Pointer[] vTable = new Pointer[METHODS];
-        vTablePointer.read(0, vTable, 0, vTable.length);
+        final FunctionTable vTable = FUNCTIONS.forInterface(interfacePointer);
         return new IUIAutomationGridItemPattern() {
 
             // IUnknown
             @Override
             public WinNT.HRESULT QueryInterface(Guid.REFIID byValue, PointerByReference pointerByReference) {
-                Function f = Function.getFunction(vTable[0], Function.ALT_CONVENTION);
+                Function f = vTable.get(0);
                 return new WinNT.HRESULT(f.invokeInt(new Object[]{interfacePointer, byValue, pointerByReference}));
             }
 
             @Override
             public int AddRef() {
-                Function f = Function.getFunction(vTable[1], Function.ALT_CONVENTION);
+                Function f = vTable.get(1);
                 return f.invokeInt(new Object[]{interfacePointer});
             }
 
             public int Release() {
-                Function f = Function.getFunction(vTable[2], Function.ALT_CONVENTION);
+                Function f = vTable.get(2);
                 return f.invokeInt(new Object[]{interfacePointer});
             }
 
@@ -59,22 +59,22 @@ public class IUIAutomationGridItemPatternConverter {
                  */
 
             public int getCurrentRow(IntByReference retVal) {
-                Function f = Function.getFunction(vTable[4], Function.ALT_CONVENTION);
+                Function f = vTable.get(4);
                 return f.invokeInt(new Object[]{interfacePointer, retVal});
             }
 
             public int getCurrentColumn(IntByReference retVal) {
-                Function f = Function.getFunction(vTable[5], Function.ALT_CONVENTION);
+                Function f = vTable.get(5);
                 return f.invokeInt(new Object[]{interfacePointer, retVal});
             }
 
             public int getRowSpan(IntByReference retVal) {
-                Function f = Function.getFunction(vTable[6], Function.ALT_CONVENTION);
+                Function f = vTable.get(6);
                 return f.invokeInt(new Object[]{interfacePointer, retVal});
             }
 
             public int getColumnSpan(IntByReference retVal) {
-                Function f = Function.getFunction(vTable[7], Function.ALT_CONVENTION);
+                Function f = vTable.get(7);
                 return f.invokeInt(new Object[]{interfacePointer, retVal});
             }
         };
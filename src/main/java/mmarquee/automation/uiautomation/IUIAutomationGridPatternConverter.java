@@ -29,43 +29,43 @@ import com.sun.jna.ptr.PointerByReference;
 public class IUIAutomationGridPatternConverter {
     private static int METHODS = 8; // 0-2 IUnknown, 3-7 IUIAutomationGridPattern
 
+    private static final FunctionTable.Cache FUNCTIONS = new FunctionTable.Cache(METHODS);
+
     public static IUIAutomationGridPattern PointerToInterface(final PointerByReference ptr) {
         final Pointer interfacePointer = ptr.getValue();
-        final Pointer vTablePointer = interfacePointer.getPointer(0);
-        final Pointer[] vTable = new Pointer[METHODS];
-        vTablePointer.read(0, vTable, 0, vTable.length);
+        final FunctionTable vTable = FUNCTIONS.forInterface(interfacePointer);
         return new IUIAutomationGridPattern() {
 
             // IUnknown
             @Override
             public WinNT.HRESULT QueryInterface(Guid.REFIID byValue, PointerByReference pointerByReference) {
-                Function f = Function.getFunction(vTable[0], Function.ALT_CONVENTION);
+                Function f = vTable.get(0);
                 return new WinNT.HRESULT(f.invokeInt(new Object[]{interfacePointer, byValue, pointerByReference}));
             }
 
             @Override
             public int AddRef() {
-                Function f = Function.getFunction(vTable[1], Function.ALT_CONVENTION);
+                Function f = vTable.get(1);
                 return f.invokeInt(new Object[]{interfacePointer});
             }
 
             public int Release() {
-                Function f = Function.getFunction(vTable[2], Function.ALT_CONVENTION);
+                Function f = vTable.get(2);
                 return f.invokeInt(new Object[]{interfacePointer});
             }
 
             public int getItem(int row, int column, PointerByReference item) {
-                Function f = Function.getFunction(vTable[3], Function.ALT_CONVENTION);
+                Function f = vTable.get(3);
                 return f.invokeInt(new Object[]{interfacePointer, row, column, item});
             }
 
             public int getCurrentRowCount(IntByReference retVal) {
-                Function f = Function.getFunction(vTable[4], Function.ALT_CONVENTION);
+                Function f = vTable.get(4);
                 return f.invokeInt(new Object[]{interfacePointer, retVal});
             }
 
             public int getCurrentColumnCount(IntByReference retVal) {
-                Function f = Function.getFunction(vTable[5], Function.ALT_CONVENTION);
+                Function f = vTable.get(5);
                 return f.invokeInt(new Object[]{interfacePointer, retVal});
             }
 
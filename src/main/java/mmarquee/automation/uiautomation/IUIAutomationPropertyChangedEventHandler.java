@@ -0,0 +1,78 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation.uiautomation;
+
+import com.sun.jna.Function;
+import com.sun.jna.Pointer;
+import com.sun.jna.platform.win32.COM.IUnknown;
+import com.sun.jna.platform.win32.Guid;
+import com.sun.jna.platform.win32.Variant;
+import com.sun.jna.platform.win32.WinNT;
+import com.sun.jna.ptr.PointerByReference;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ */
+public interface IUIAutomationPropertyChangedEventHandler extends IUnknown {
+
+    /**
+     * The interface IID for QueryInterface et al
+     */
+    Guid.IID IID = new Guid.IID(
+            "{40CD37D4-C756-4B0C-8C6F-BDDFEEB13B50}");
+
+    int AddRef();
+    int Release();
+    WinNT.HRESULT QueryInterface(Guid.REFIID byValue, PointerByReference pointerByReference);
+
+    int handlePropertyChangedEvent(Pointer sender, int propertyId, Variant.VARIANT.ByValue newValue);
+
+    class Converter {
+        private static int IUIAutomationPropertyChangedEventHandler_Methods = 4; // 0-2 IUnknown, 3 IUIAutomationPropertyChangedEventHandler
+
+        private static final FunctionTable.Cache FUNCTIONS = new FunctionTable.Cache(IUIAutomationPropertyChangedEventHandler_Methods);
+
+        public static IUIAutomationPropertyChangedEventHandler PointerToInterface(final PointerByReference ptr) {
+            final Pointer interfacePointer = ptr.getValue();
+            final FunctionTable vTable = FUNCTIONS.forInterface(interfacePointer);
+            return new IUIAutomationPropertyChangedEventHandler() {
+                // IUnknown
+                @Override
+                public WinNT.HRESULT QueryInterface(Guid.REFIID byValue, PointerByReference pointerByReference) {
+                    Function f = vTable.get(0);
+                    return new WinNT.HRESULT(f.invokeInt(new Object[]{interfacePointer, byValue, pointerByReference}));
+                }
+
+                @Override
+                public int AddRef() {
+                    Function f = vTable.get(1);
+                    return f.invokeInt(new Object[]{interfacePointer});
+                }
+
+                public int Release() {
+                    Function f = vTable.get(2);
+                    return f.invokeInt(new Object[]{interfacePointer});
+                }
+
+                public int handlePropertyChangedEvent(Pointer sender, int propertyId, Variant.VARIANT.ByValue newValue) {
+                    Function f = vTable.get(3);
+                    return f.invokeInt(new Object[]{interfacePointer, sender, propertyId, newValue});
+                }
+            };
+        }
+    }
+}
\ No newline at end of file
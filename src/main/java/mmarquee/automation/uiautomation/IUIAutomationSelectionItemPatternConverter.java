@@ -30,53 +30,53 @@ public class IUIAutomationSelectionItemPatternConverter {
 
     private static int METHODS = 8; // 0-2 IUnknown, 3-7 IUIAutomationSelectionItemPattern
 
+    private static final FunctionTable.Cache FUNCTIONS = new FunctionTable.Cache(METHODS);
+
     public static IUIAutomationSelectionItemPattern PointerToInterface(final PointerByReference ptr) {
         final Pointer interfacePointer = ptr.getValue();
-        final Pointer vTablePointer = interfacePointer.getPointer(0);
-        final Pointer[] vTable = new Pointer[METHODS];
-        vTablePointer.read(0, vTable, 0, vTable.length);
+        final FunctionTable vTable = FUNCTIONS.forInterface(interfacePointer);
         return new IUIAutomationSelectionItemPattern() {
             // IUnknown
 
             @Override
             public WinNT.HRESULT QueryInterface(Guid.REFIID byValue, PointerByReference pointerByReference) {
-                Function f = Function.getFunction(vTable[0], Function.ALT_CONVENTION);
+                Function f = vTable.get(0);
                 return new WinNT.HRESULT(f.invokeInt(new Object[]{interfacePointer, byValue, pointerByReference}));
             }
 
             @Override
             public int AddRef() {
-                Function f = Function.getFunction(vTable[1], Function.ALT_CONVENTION);
+                Function f = vTable.get(1);
                 return f.invokeInt(new Object[]{interfacePointer});
             }
 
             public int Release() {
-                Function f = Function.getFunction(vTable[2], Function.ALT_CONVENTION);
+                Function f = vTable.get(2);
                 return f.invokeInt(new Object[]{interfacePointer});
             }
 
             public int select() {
-                Function f = Function.getFunction(vTable[3], Function.ALT_CONVENTION);
+                Function f = vTable.get(3);
                 return f.invokeInt(new Object[]{interfacePointer});
             }
 
             public int addToSelection() {
-                Function f = Function.getFunction(vTable[4], Function.ALT_CONVENTION);
+                Function f = vTable.get(4);
                 return f.invokeInt(new Object[]{interfacePointer});
             }
 
             public int removeFromSelection() {
-                Function f = Function.getFunction(vTable[5], Function.ALT_CONVENTION);
+                Function f = vTable.get(5);
                 return f.invokeInt(new Object[]{interfacePointer});
             }
 
             public int getCurrentIsSelected(IntByReference ibr) {
-                Function f = Function.getFunction(vTable[6], Function.ALT_CONVENTION);
+                Function f = vTable.get(6);
                 return f.invokeInt(new Object[]{interfacePointer, ibr});
             }
 
             public int getCurrentSelectionContainer(PointerByReference pbr) {
-                Function f = Function.getFunction(vTable[7], Function.ALT_CONVENTION);
+                Function f = vTable.get(7);
                 return f.invokeInt(new Object[]{interfacePointer, pbr});
             }
         };
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation.uiautomation;
+
+import com.sun.jna.Function;
+import com.sun.jna.Pointer;
+import com.sun.jna.platform.win32.COM.IUnknown;
+import com.sun.jna.platform.win32.Guid;
+import com.sun.jna.platform.win32.WinNT;
+import com.sun.jna.ptr.PointerByReference;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ */
+public interface IUIAutomationStructureChangedEventHandler extends IUnknown {
+
+    /**
+     * The interface IID for QueryInterface et al
+     */
+    Guid.IID IID = new Guid.IID(
+            "{E81D1B4E-11C5-42F8-9754-E7036C79F054}");
+
+    int AddRef();
+    int Release();
+    WinNT.HRESULT QueryInterface(Guid.REFIID byValue, PointerByReference pointerByReference);
+
+    int handleStructureChangedEvent(Pointer sender, int changeType, Pointer runtimeId);
+
+    class Converter {
+        private static int IUIAutomationStructureChangedEventHandler_Methods = 4; // 0-2 IUnknown, 3 IUIAutomationStructureChangedEventHandler
+
+        private static final FunctionTable.Cache FUNCTIONS = new FunctionTable.Cache(IUIAutomationStructureChangedEventHandler_Methods);
+
+        public static IUIAutomationStructureChangedEventHandler PointerToInterface(final PointerByReference ptr) {
+            final Pointer interfacePointer = ptr.getValue();
+            final FunctionTable vTable = FUNCTIONS.forInterface(interfacePointer);
+            return new IUIAutomationStructureChangedEventHandler() {
+                // IUnknown
+                @Override
+                public WinNT.HRESULT QueryInterface(Guid.REFIID byValue, PointerByReference pointerByReference) {
+                    Function f = vTable.get(0);
+                    return new WinNT.HRESULT(f.invokeInt(new Object[]{interfacePointer, byValue, pointerByReference}));
+                }
+
+                @Override
+                public int AddRef() {
+                    Function f = vTable.get(1);
+                    return f.invokeInt(new Object[]{interfacePointer});
+                }
+
+                public int Release() {
+                    Function f = vTable.get(2);
+                    return f.invokeInt(new Object[]{interfacePointer});
+                }
+
+                public int handleStructureChangedEvent(Pointer sender, int changeType, Pointer runtimeId) {
+                    Function f = vTable.get(3);
+                    return f.invokeInt(new Object[]{interfacePointer, sender, changeType, runtimeId});
+                }
+            };
+        }
+    }
+}
\ No newline at end of file
@@ -28,43 +28,43 @@ import com.sun.jna.ptr.PointerByReference;
 public class IUIAutomationTextPatternConverter {
     private static int METHODS = 9; // 0-2 IUnknown, 3-8 IUIAutomationTextPattern
 
+    private static final FunctionTable.Cache FUNCTIONS = new FunctionTable.Cache(METHODS);
+
     public static IUIAutomationTextPattern PointerToInterface(final PointerByReference ptr) {
         final Pointer interfacePointer = ptr.getValue();
-        final Pointer vTablePointer = interfacePointer.getPointer(0);
-        final Pointer[] vTable = new Pointer[METHODS];
-        vTablePointer.read(0, vTable, 0, vTable.length);
+        final FunctionTable vTable = FUNCTIONS.forInterface(interfacePointer);
         return new IUIAutomationTextPattern() {
             // IUnknown
 
             @Override
             public WinNT.HRESULT QueryInterface(Guid.REFIID byValue, PointerByReference pointerByReference) {
-                Function f = Function.getFunction(vTable[0], Function.ALT_CONVENTION);
+                Function f = vTable.get(0);
                 return new WinNT.HRESULT(f.invokeInt(new Object[]{interfacePointer, byValue, pointerByReference}));
             }
 
             @Override
             public int AddRef() {
-                Function f = Function.getFunction(vTable[1], Function.ALT_CONVENTION);
+                Function f = vTable.get(1);
                 return f.invokeInt(new Object[]{interfacePointer});
             }
 
             public int Release() {
-                Function f = Function.getFunction(vTable[2], Function.ALT_CONVENTION);
+                Function f = vTable.get(2);
                 return f.invokeInt(new Object[]{interfacePointer});
             }
 
             public int getSelection(PointerByReference result) {
-                Function f = Function.getFunction(vTable[5], Function.ALT_CONVENTION);
+                Function f = vTable.get(5);
                 return f.invokeInt(new Object[]{interfacePointer, result});
             }
 
             public int getVisibleRanges(PointerByReference ranges) {
-                Function f = Function.getFunction(vTable[6], Function.ALT_CONVENTION);
+                Function f = vTable.get(6);
                 return f.invokeInt(new Object[]{interfacePointer, ranges});
             }
 
             public int getDocumentRange(PointerByReference range) {
-                Function f = Function.getFunction(vTable[7], Function.ALT_CONVENTION);
+                Function f = vTable.get(7);
                 return f.invokeInt(new Object[]{interfacePointer, range});
             }
         };
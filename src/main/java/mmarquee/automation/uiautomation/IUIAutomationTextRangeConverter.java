@@ -28,38 +28,38 @@ import com.sun.jna.ptr.PointerByReference;
 public class IUIAutomationTextRangeConverter {
     private static int METHODS = 21; // 0-2 IUnknown, 3-8 IUIAutomationTextPattern
 
+    private static final FunctionTable.Cache FUNCTIONS = new FunctionTable.Cache(METHODS);
+
     public static IUIAutomationTextRange PointerToInterface(final PointerByReference ptr) {
         final Pointer interfacePointer = ptr.getValue();
-        final Pointer vTablePointer = interfacePointer.getPointer(0);
-        final Pointer[] vTable = new Pointer[METHODS];
-        vTablePointer.read(0, vTable, 0, vTable.length);
+        final FunctionTable vTable = FUNCTIONS.forInterface(interfacePointer);
         return new IUIAutomationTextRange() {
             // IUnknown
 
             @Override
             public WinNT.HRESULT QueryInterface(Guid.REFIID byValue, PointerByReference pointerByReference) {
-                Function f = Function.getFunction(vTable[0], Function.ALT_CONVENTION);
+                Function f = vTable.get(0);
                 return new WinNT.HRESULT(f.invokeInt(new Object[]{interfacePointer, byValue, pointerByReference}));
             }
 
             @Override
             public int AddRef() {
-                Function f = Function.getFunction(vTable[1], Function.ALT_CONVENTION);
+                Function f = vTable.get(1);
                 return f.invokeInt(new Object[]{interfacePointer});
             }
 
             public int Release() {
-                Function f = Function.getFunction(vTable[2], Function.ALT_CONVENTION);
+                Function f = vTable.get(2);
                 return f.invokeInt(new Object[]{interfacePointer});
             }
 
             public int getText(Integer maxLength, PointerByReference sr) {
-                Function f = Function.getFunction(vTable[12], Function.ALT_CONVENTION);
+                Function f = vTable.get(12);
                 return f.invokeInt(new Object[]{interfacePointer, maxLength, sr});
             }
 
             public int select() {
-                Function f = Function.getFunction(vTable[16], Function.ALT_CONVENTION);
+                Function f = vTable.get(16);
                 return f.invokeInt(new Object[]{interfacePointer});
             }
         };
@@ -42,64 +42,105 @@ public interface IUIAutomationTreeWalker extends IUnknown {
     int getLastChildElement(Pointer element, PointerByReference last);
     int getNextSiblingElement(Pointer element, PointerByReference next);
     int getPreviousSiblingElement(Pointer element, PointerByReference previous);
-/* 8-14 cache equivalents */
+    int getParentElementBuildCache(Pointer element, Pointer cacheRequest, PointerByReference parent);
+    int getFirstChildElementBuildCache(Pointer element, Pointer cacheRequest, PointerByReference first);
+    int getLastChildElementBuildCache(Pointer element, Pointer cacheRequest, PointerByReference last);
+    int getNextSiblingElementBuildCache(Pointer element, Pointer cacheRequest, PointerByReference next);
+    int getPreviousSiblingElementBuildCache(Pointer element, Pointer cacheRequest, PointerByReference previous);
+    int normalizeElement(Pointer element, PointerByReference normalized);
+    int normalizeElementBuildCache(Pointer element, Pointer cacheRequest, PointerByReference normalized);
     int getCondition(PointerByReference condition);
 
     class Converter {
         private static int METHODS = 16; // 0-2 IUnknown, 3-15 IUIAutomationTreeWalker
 
+        private static final FunctionTable.Cache FUNCTIONS = new FunctionTable.Cache(METHODS);
+
         public static IUIAutomationTreeWalker PointerToInterface(final PointerByReference ptr) {
             final Pointer interfacePointer = ptr.getValue();
-            final Pointer vTablePointer = interfacePointer.getPointer(0);
-            final Pointer[] vTable = new Pointer[METHODS];
-            vTablePointer.read(0, vTable, 0, vTable.length);
+            final FunctionTable vTable = FUNCTIONS.forInterface(interfacePointer);
             return new IUIAutomationTreeWalker() {
                 // IUnknown
 
                 @Override
                 public WinNT.HRESULT QueryInterface(Guid.REFIID byValue, PointerByReference pointerByReference) {
-                    Function f = Function.getFunction(vTable[0], Function.ALT_CONVENTION);
+                    Function f = vTable.get(0);
                     return new WinNT.HRESULT(f.invokeInt(new Object[]{interfacePointer, byValue, pointerByReference}));
                 }
 
                 @Override
                 public int AddRef() {
-                    Function f = Function.getFunction(vTable[1], Function.ALT_CONVENTION);
+                    Function f = vTable.get(1);
                     return f.invokeInt(new Object[]{interfacePointer});
                 }
 
                 public int Release() {
-                    Function f = Function.getFunction(vTable[2], Function.ALT_CONVENTION);
+                    Function f = vTable.get(2);
                     return f.invokeInt(new Object[]{interfacePointer});
                 }
 
                 public int getParentElement(Pointer element, PointerByReference parent) {
-                    Function f = Function.getFunction(vTable[3], Function.ALT_CONVENTION);
+                    Function f = vTable.get(3);
                     return f.invokeInt(new Object[]{interfacePointer, element, parent});
                 }
 
                 public int getFirstChildElement(Pointer element, PointerByReference first) {
-                    Function f = Function.getFunction(vTable[4], Function.ALT_CONVENTION);
+                    Function f = vTable.get(4);
                     return f.invokeInt(new Object[]{interfacePointer, element, first});
                 }
 
                 public int getLastChildElement(Pointer element, PointerByReference last) {
-                    Function f = Function.getFunction(vTable[5], Function.ALT_CONVENTION);
+                    Function f = vTable.get(5);
                     return f.invokeInt(new Object[]{interfacePointer, element, last});
                 }
 
                 public int getNextSiblingElement(Pointer element, PointerByReference next) {
-                    Function f = Function.getFunction(vTable[6], Function.ALT_CONVENTION);
+                    Function f = vTable.get(6);
                     return f.invokeInt(new Object[]{interfacePointer, element, next});
                 }
 
                 public int getPreviousSiblingElement(Pointer element, PointerByReference previous) {
-                    Function f = Function.getFunction(vTable[7], Function.ALT_CONVENTION);
+                    Function f = vTable.get(7);
                     return f.invokeInt(new Object[]{interfacePointer, element, previous});
                 }
 
+                public int getParentElementBuildCache(Pointer element, Pointer cacheRequest, PointerByReference parent) {
+                    Function f = vTable.get(8);
+                    return f.invokeInt(new Object[]{interfacePointer, element, cacheRequest, parent});
+                }
+
+                public int getFirstChildElementBuildCache(Pointer element, Pointer cacheRequest, PointerByReference first) {
+                    Function f = vTable.get(9);
+                    return f.invokeInt(new Object[]{interfacePointer, element, cacheRequest, first});
+                }
+
+                public int getLastChildElementBuildCache(Pointer element, Pointer cacheRequest, PointerByReference last) {
+                    Function f = vTable.get(10);
+                    return f.invokeInt(new Object[]{interfacePointer, element, cacheRequest, last});
+                }
+
+                public int getNextSiblingElementBuildCache(Pointer element, Pointer cacheRequest, PointerByReference next) {
+                    Function f = vTable.get(11);
+                    return f.invokeInt(new Object[]{interfacePointer, element, cacheRequest, next});
+                }
+
+                public int getPreviousSiblingElementBuildCache(Pointer element, Pointer cacheRequest, PointerByReference previous) {
+                    Function f = vTable.get(12);
+                    return f.invokeInt(new Object[]{interfacePointer, element, cacheRequest, previous});
+                }
+
+                public int normalizeElement(Pointer element, PointerByReference normalized) {
+                    Function f = vTable.get(13);
+                    return f.invokeInt(new Object[]{interfacePointer, element, normalized});
+                }
+
+                public int normalizeElementBuildCache(Pointer element, Pointer cacheRequest, PointerByReference normalized) {
+                    Function f = vTable.get(14);
+                    return f.invokeInt(new Object[]{interfacePointer, element, cacheRequest, normalized});
+                }
+
                 public int getCondition(PointerByReference condition) {
-                    Function f = Function.getFunction(vTable[15], Function.ALT_CONVENTION);
+                    Function f = vTable.get(15);
                     return f.invokeInt(new Object[]{interfacePointer, condition});
                 }
 
@@ -14,62 +14,62 @@ import com.sun.jna.ptr.PointerByReference;
 public class IUIAutomationWindowPatternConverter {
     private static int METHODS = 18; // 0-2 IUnknown, 3-17 IUIAutomationInvokePattern
 
+    private static final FunctionTable.Cache FUNCTIONS = new FunctionTable.Cache(METHODS);
+
     public static IUIAutomationWindowPattern PointerToInterface(final PointerByReference ptr) {
         final Pointer interfacePointer = ptr.getValue();
-        final Pointer vTablePointer = interfacePointer.getPointer(0);
-        final Pointer[] vTable = new Pointer[METHODS];
-        vTablePointer.read(0, vTable, 0, vTable.length);
+        final FunctionTable vTable = FUNCTIONS.forInterface(interfacePointer);
         return new IUIAutomationWindowPattern() {
             // IUnknown
             @Override
             public WinNT.HRESULT QueryInterface(Guid.REFIID byValue, PointerByReference pointerByReference) {
-                Function f = Function.getFunction(vTable[0], Function.ALT_CONVENTION);
+                Function f = vTable.get(0);
                 return new WinNT.HRESULT(f.invokeInt(new Object[]{interfacePointer, byValue, pointerByReference}));
             }
 
             @Override
             public int AddRef() {
-                Function f = Function.getFunction(vTable[1], Function.ALT_CONVENTION);
+                Function f = vTable.get(1);
                 return f.invokeInt(new Object[]{interfacePointer});
             }
 
             public int Release() {
-                Function f = Function.getFunction(vTable[2], Function.ALT_CONVENTION);
+                Function f = vTable.get(2);
                 return f.invokeInt(new Object[]{interfacePointer});
             }
 
             public int close() {
-                Function f = Function.getFunction(vTable[3], Function.ALT_CONVENTION);
+                Function f = vTable.get(3);
                 return f.invokeInt(new Object[]{interfacePointer});
             }
 
             public int waitForInputIdle(Integer milliseconds, IntByReference success) {
-                Function f = Function.getFunction(vTable[4], Function.ALT_CONVENTION);
+                Function f = vTable.get(4);
                 return f.invokeInt(new Object[]{interfacePointer, milliseconds, success});
             }
 
             public int setWindowVisualState(Integer state){
-                Function f = Function.getFunction(vTable[5], Function.ALT_CONVENTION);
+                Function f = vTable.get(5);
                 return f.invokeInt(new Object[]{interfacePointer, state});
             }
 
             public int getCurrentCanMaximize(IntByReference retVal){
-                Function f = Function.getFunction(vTable[6], Function.ALT_CONVENTION);
+                Function f = vTable.get(6);
                 return f.invokeInt(new Object[]{interfacePointer, retVal});
             }
 
             public int getCurrentCanMinimize(IntByReference retVal){
-                Function f = Function.getFunction(vTable[7], Function.ALT_CONVENTION);
+                Function f = vTable.get(7);
                 return f.invokeInt(new Object[]{interfacePointer, retVal});
             }
 
             public int getCurrentIsModal(IntByReference retVal) {
-                Function f = Function.getFunction(vTable[8], Function.ALT_CONVENTION);
+                Function f = vTable.get(8);
                 return f.invokeInt(new Object[]{interfacePointer, retVal});
             }
 
             public int getCurrentIsTopmost(IntByReference retVal) {
-                Function f = Function.getFunction(vTable[9], Function.ALT_CONVENTION);
+                Function f = vTable.get(9);
                 return f.invokeInt(new Object[]{interfacePointer, retVal});
             }
         };
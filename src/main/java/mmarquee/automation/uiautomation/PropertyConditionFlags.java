@@ -0,0 +1,34 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation.uiautomation;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Flags used when creating property conditions via CreatePropertyConditionEx.
+ */
+public final class PropertyConditionFlags {
+    private PropertyConditionFlags() {
+    }
+
+    //PropertyConditionFlags_None
+    public static final int None = 0;
+    //PropertyConditionFlags_IgnoreCase
+    public static final int IgnoreCase = 1;
+    //PropertyConditionFlags_MatchSubstring, Windows 10 1809 onwards
+    public static final int MatchSubstring = 2;
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation.utils;
+
+import com.sun.jna.Platform;
+import com.sun.jna.Pointer;
+import com.sun.jna.platform.win32.OleAuto;
+import com.sun.jna.platform.win32.WTypes;
+import com.sun.jna.ptr.PointerByReference;
+
+import java.nio.charset.Charset;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Reads the BSTRs returned by the automation library.
+ *
+ * A BSTR returned from a COM call belongs to the caller, so it is always
+ * freed once it has been read. The length is taken from the 4 byte prefix
+ * rather than by searching for the terminator, as a BSTR may contain nulls.
+ */
+public final class BSTRUtils {
+
+    /**
+     * The OleAuto instance.
+     */
+    static OleAuto oleAuto; // can be mocked in tests
+
+    /**
+     * Size of the length prefix, in bytes.
+     */
+    private static final int PREFIX_SIZE = 4;
+
+    /**
+     * The encoding of a BSTR.
+     */
+    private static final Charset UTF_16LE = Charset.forName("UTF-16LE");
+
+    /**
+     * Not to be instantiated.
+     */
+    private BSTRUtils() {
+    }
+
+    /**
+     * Reads the string from a BSTR and then frees it.
+     *
+     * @param bstr The BSTR, may be null.
+     * @return The string, an empty string for a null BSTR.
+     */
+    public static String readAndFree(final Pointer bstr) {
+        if (bstr == null) {
+            return "";
+        }
+
+        try {
+            final int length = bstr.getInt(-PREFIX_SIZE);
+
+            return new String(bstr.getByteArray(0, length), UTF_16LE);
+        } finally {
+            free(bstr);
+        }
+    }
+
+    /**
+     * Reads the string from the BSTR returned via the reference, and then
+     * frees it.
+     *
+     * @param sr The reference the BSTR was returned in.
+     * @return The string, an empty string for a null BSTR.
+     */
+    public static String readAndFree(final PointerByReference sr) {
+        return readAndFree(sr.getValue());
+    }
+
+    /**
+     * Frees a BSTR.
+     *
+     * BSTRs only come from the COM library, so on other platforms (i.e. in
+     * tests) there is nothing to free them with.
+     *
+     * @param bstr The BSTR.
+     */
+    private static void free(final Pointer bstr) {
+        if (oleAuto == null && Platform.isWindows()) {
+            oleAuto = OleAuto.INSTANCE;
+        }
+
+        if (oleAuto != null) {
+            oleAuto.SysFreeString(new WTypes.BSTR(bstr));
+        }
+    }
+}
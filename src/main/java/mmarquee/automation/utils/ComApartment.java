@@ -0,0 +1,325 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation.utils;
+
+import com.sun.jna.Platform;
+import com.sun.jna.Pointer;
+import com.sun.jna.platform.win32.Ole32;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * A thread that has joined a COM apartment, which runs calls for other
+ * threads, so that all of the calls come from the same thread.
+ * <p>
+ * The calls are bound up front as {@link Call} objects and passed to the
+ * thread through a lock free queue, the calling thread parks until its
+ * call has been run. A list of calls can be run with one trip to the
+ * thread using {@link #submitAll(List)}, and calls made from the apartment
+ * thread itself are run straight away.
+ * </p>
+ */
+public final class ComApartment implements Closeable {
+
+    /**
+     * A call to be made on the apartment thread.
+     *
+     * @param <T> The type of the result.
+     */
+    public interface Call<T> {
+        /**
+         * Makes the call.
+         *
+         * @return The result.
+         * @throws Exception The call failed.
+         */
+        T call() throws Exception;
+    }
+
+    /**
+     * How long a caller spins for the result before parking.
+     */
+    private static final int SPINS = 64;
+
+    /**
+     * How long the caller parks for before checking the thread is still there.
+     */
+    private static final long CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * The calls waiting to be run, added to by any thread and only taken
+     * from by the apartment thread.
+     */
+    private final ConcurrentLinkedQueue<Task> queue = new ConcurrentLinkedQueue<Task>();
+
+    /**
+     * The apartment thread.
+     */
+    private final Thread thread;
+
+    /**
+     * Whether the apartment thread is parked waiting for calls.
+     */
+    private volatile boolean waiting;
+
+    /**
+     * Whether the apartment has been closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Number of trips made to the apartment thread.
+     */
+    private volatile long trips;
+
+    /**
+     * Creates an apartment with a single threaded apartment (STA) thread.
+     *
+     * @param name The name of the thread.
+     * @return The apartment.
+     */
+    public static ComApartment singleThreaded(final String name) {
+        return new ComApartment(name, Ole32.COINIT_APARTMENTTHREADED);
+    }
+
+    /**
+     * Creates an apartment with a thread in the multi-threaded apartment (MTA).
+     *
+     * @param name The name of the thread.
+     * @return The apartment.
+     */
+    public static ComApartment multiThreaded(final String name) {
+        return new ComApartment(name, Ole32.COINIT_MULTITHREADED);
+    }
+
+    /**
+     * Constructor for ComApartment, starts the thread.
+     *
+     * @param name The name of the thread.
+     * @param coInit The COINIT flags the thread joins the apartment with.
+     */
+    public ComApartment(final String name, final int coInit) {
+        this.thread = new Thread(new Runnable() {
+            public void run() {
+                if (Platform.isWindows()) {
+                    Ole32.INSTANCE.CoInitializeEx(Pointer.NULL, coInit);
+                }
+
+                try {
+                    loop();
+                } finally {
+                    if (Platform.isWindows()) {
+                        Ole32.INSTANCE.CoUninitialize();
+                    }
+                }
+            }
+        }, name);
+
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Runs the calls as they arrive, until the apartment is closed and
+     * there are no calls left.
+     */
+    private void loop() {
+        while (true) {
+            Task task = this.queue.poll();
+
+            if (task == null) {
+                if (this.closed) {
+                    return;
+                }
+
+                this.waiting = true;
+                if (this.queue.isEmpty() && !this.closed) {
+                    LockSupport.park(this);
+                }
+                this.waiting = false;
+            } else {
+                task.run();
+            }
+        }
+    }
+
+    /**
+     * Whether the current thread is the apartment thread.
+     *
+     * @return True if it is.
+     */
+    public boolean isApartmentThread() {
+        return Thread.currentThread() == this.thread;
+    }
+
+    /**
+     * Gets the number of trips that have been made to the apartment thread.
+     *
+     * @return The number of trips.
+     */
+    public long getTripCount() {
+        return this.trips;
+    }
+
+    /**
+     * Makes the call on the apartment thread, and waits for the result.
+     *
+     * @param call The call.
+     * @param <T> The type of the result.
+     * @return The result.
+     * @throws ExecutionException The call threw a checked exception, which is the cause.
+     * @throws RejectedExecutionException The apartment has been closed.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(final Call<T> call) throws ExecutionException {
+        if (this.isApartmentThread()) {
+            return run(call);
+        }
+
+        return (T) this.await(new Task(Arrays.<Call<?>>asList(call))).get(0);
+    }
+
+    /**
+     * Makes the calls on the apartment thread in order, in one trip to the
+     * thread, and waits for the results. If a call fails the calls after it
+     * are not made.
+     *
+     * @param calls The calls.
+     * @return The results, in the same order as the calls.
+     * @throws ExecutionException A call threw a checked exception, which is the cause.
+     * @throws RejectedExecutionException The apartment has been closed.
+     */
+    public List<Object> submitAll(final List<? extends Call<?>> calls)
+            throws ExecutionException {
+        if (this.isApartmentThread()) {
+            List<Object> results = new ArrayList<Object>(calls.size());
+            for (Call<?> call : calls) {
+                results.add(run(call));
+            }
+            return results;
+        }
+
+        return this.await(new Task(new ArrayList<Call<?>>(calls)));
+    }
+
+    /**
+     * Stops the thread once the calls that have already been made have
+     * been run. Calls made afterwards are rejected.
+     */
+    public void close() {
+        this.closed = true;
+        LockSupport.unpark(this.thread);
+    }
+
+    /**
+     * Whether the apartment has been closed.
+     *
+     * @return True if closed.
+     */
+    public boolean isClosed() {
+        return this.closed;
+    }
+
+    private List<Object> await(final Task task) throws ExecutionException {
+        if (this.closed) {
+            throw new RejectedExecutionException("Apartment " + this.thread.getName() + " is closed");
+        }
+
+        this.queue.offer(task);
+        if (this.waiting) {
+            LockSupport.unpark(this.thread);
+        }
+
+        for (int spin = 0; spin < SPINS && !task.done; spin++) {
+            Thread.yield();
+        }
+
+        while (!task.done) {
+            if (!this.thread.isAlive() && this.queue.remove(task)) {
+                throw new RejectedExecutionException("Apartment " + this.thread.getName() + " is closed");
+            }
+
+            LockSupport.parkNanos(this, CHECK_NANOS);
+        }
+
+        return task.getResults();
+    }
+
+    private static <T> T run(final Call<T> call) throws ExecutionException {
+        try {
+            return call.call();
+        } catch (RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new ExecutionException(ex);
+        }
+    }
+
+    /**
+     * The calls for one trip to the apartment thread.
+     */
+    private final class Task {
+        private final List<Call<?>> calls;
+        private final List<Object> results;
+        private final Thread caller = Thread.currentThread();
+
+        private Throwable failure;
+        private volatile boolean done;
+
+        Task(final List<Call<?>> inCalls) {
+            this.calls = inCalls;
+            this.results = new ArrayList<Object>(inCalls.size());
+        }
+
+        void run() {
+            trips++;
+
+            try {
+                for (Call<?> call : this.calls) {
+                    this.results.add(call.call());
+                }
+            } catch (Throwable ex) {
+                this.failure = ex;
+            }
+
+            this.done = true;
+            LockSupport.unpark(this.caller);
+        }
+
+        List<Object> getResults() throws ExecutionException {
+            if (this.failure instanceof RuntimeException) {
+                throw (RuntimeException) this.failure;
+            } else if (this.failure instanceof Error) {
+                throw (Error) this.failure;
+            } else if (this.failure != null) {
+                throw new ExecutionException(this.failure);
+            }
+
+            return this.results;
+        }
+    }
+}
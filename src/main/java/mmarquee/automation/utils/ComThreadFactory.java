@@ -0,0 +1,81 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation.utils;
+
+import com.sun.jna.Platform;
+import com.sun.jna.Pointer;
+import com.sun.jna.platform.win32.Ole32;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Creates daemon threads that join the multi-threaded COM apartment before
+ * running their work, and leave it afterwards, so that they can make
+ * automation calls.
+ */
+public class ComThreadFactory implements ThreadFactory {
+
+    /**
+     * The prefix of the thread names.
+     */
+    private final String name;
+
+    /**
+     * Number of threads created so far.
+     */
+    private final AtomicInteger count = new AtomicInteger();
+
+    /**
+     * Constructor for ComThreadFactory.
+     *
+     * @param inName The prefix of the thread names.
+     */
+    public ComThreadFactory(final String inName) {
+        this.name = inName;
+    }
+
+    /**
+     * Creates a thread that runs the work inside the COM apartment.
+     *
+     * @param work The work to run.
+     * @return The new thread, not yet started.
+     */
+    public Thread newThread(final Runnable work) {
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                if (Platform.isWindows()) {
+                    Ole32.INSTANCE.CoInitializeEx(Pointer.NULL, Ole32.COINIT_MULTITHREADED);
+                }
+
+                try {
+                    work.run();
+                } finally {
+                    if (Platform.isWindows()) {
+                        Ole32.INSTANCE.CoUninitialize();
+                    }
+                }
+            }
+        }, this.name + "-" + this.count.incrementAndGet());
+
+        thread.setDaemon(true);
+
+        return thread;
+    }
+}
@@ -0,0 +1,394 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation.utils;
+
+import java.util.regex.Pattern;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Finds the literal text that any string matching a regular expression must
+ * contain, so that it can be used to build a property condition and let the
+ * automation library discard elements that cannot match.
+ *
+ * The analysis is deliberately conservative, anything it does not understand
+ * (alternation, inline flags, escapes such as \d) simply stops the literal
+ * text from being used, so the result can only ever be a hint that is true
+ * for every match.
+ */
+public final class PatternLiterals {
+
+    /**
+     * Nothing is known about the pattern.
+     */
+    private static final PatternLiterals NONE = new PatternLiterals(null, false, false);
+
+    /**
+     * The literal text, or null if none was found.
+     */
+    private final String text;
+
+    /**
+     * Whether the pattern only matches the text itself.
+     */
+    private final boolean exact;
+
+    /**
+     * Whether the pattern ignores case.
+     */
+    private final boolean ignoreCase;
+
+    /**
+     * Constructor for the literals of a pattern.
+     *
+     * @param text The literal text.
+     * @param exact Whether the text is the only match.
+     * @param ignoreCase Whether case is ignored.
+     */
+    private PatternLiterals(final String text,
+                            final boolean exact,
+                            final boolean ignoreCase) {
+        this.text = text;
+        this.exact = exact;
+        this.ignoreCase = ignoreCase;
+    }
+
+    /**
+     * Analyses a pattern.
+     *
+     * @param pattern The pattern.
+     * @return The literals of the pattern.
+     */
+    public static PatternLiterals analyse(final Pattern pattern) {
+        final int flags = pattern.flags();
+        final boolean ignoreCase = (flags & Pattern.CASE_INSENSITIVE) != 0;
+
+        if ((flags & Pattern.LITERAL) != 0) {
+            return new PatternLiterals(pattern.pattern(), true, ignoreCase);
+        }
+
+        // Whitespace and canonical equivalence change what the text matches
+        if ((flags & (Pattern.COMMENTS | Pattern.CANON_EQ)) != 0) {
+            return NONE;
+        }
+
+        return new Scanner(pattern.pattern(), ignoreCase).scan();
+    }
+
+    /**
+     * Gets the literal text.
+     *
+     * @return The whole of the matching text if the pattern is exact,
+     * otherwise the longest text every match contains, or null if none.
+     */
+    public String getText() {
+        return this.text;
+    }
+
+    /**
+     * Whether the pattern only matches its literal text.
+     *
+     * @return True if exact.
+     */
+    public boolean isExact() {
+        return this.exact;
+    }
+
+    /**
+     * Whether the pattern ignores case.
+     *
+     * @return True if case is ignored.
+     */
+    public boolean isIgnoreCase() {
+        return this.ignoreCase;
+    }
+
+    @Override
+    public String toString() {
+        return (this.exact ? "exact " : "contains ") + this.text;
+    }
+
+    /**
+     * Scans the source of a pattern, one atom at a time.
+     */
+    private static final class Scanner {
+        private final String source;
+        private final boolean ignoreCase;
+        private final StringBuilder run = new StringBuilder();
+
+        private String longest = "";
+        private boolean exact = true;
+        private int pos = 0;
+        private int depth = 0;
+
+        /**
+         * The length in run of the last atom, or 0 if it was not a literal.
+         */
+        private int lastAtom = 0;
+
+        Scanner(final String source, final boolean ignoreCase) {
+            this.source = source;
+            this.ignoreCase = ignoreCase;
+        }
+
+        PatternLiterals scan() {
+            final int length = source.length();
+
+            while (pos < length) {
+                final char c = source.charAt(pos);
+
+                switch (c) {
+                    case '\\':
+                        if (!escape()) {
+                            return NONE;
+                        }
+                        break;
+                    case '[':
+                        other();
+                        pos = skipClass(pos);
+                        break;
+                    case '(':
+                        other();
+                        if (pos + 1 < length && source.charAt(pos + 1) == '?') {
+                            final char kind = pos + 2 < length ? source.charAt(pos + 2) : ')';
+                            if (":=!<>".indexOf(kind) < 0) {
+                                // Inline flags, e.g. (?i)
+                                return NONE;
+                            }
+                        }
+                        depth++;
+                        pos++;
+                        break;
+                    case ')':
+                        other();
+                        depth--;
+                        pos++;
+                        break;
+                    case '|':
+                        if (depth == 0) {
+                            return NONE;
+                        }
+                        pos++;
+                        break;
+                    case '^':
+                    case '$':
+                        // Zero width, so the text either side is still joined
+                        lastAtom = 0;
+                        pos++;
+                        break;
+                    case '.':
+                        other();
+                        pos++;
+                        break;
+                    case '*':
+                    case '?':
+                    case '+':
+                    case '{':
+                        if (!quantifier()) {
+                            return NONE;
+                        }
+                        break;
+                    default:
+                        final int cp = source.codePointAt(pos);
+                        literal(cp);
+                        pos += Character.charCount(cp);
+                        break;
+                }
+            }
+
+            endRun();
+
+            if (exact) {
+                return new PatternLiterals(longest, true, ignoreCase);
+            } else if (longest.length() > 0) {
+                return new PatternLiterals(longest, false, ignoreCase);
+            } else {
+                return NONE;
+            }
+        }
+
+        private boolean escape() {
+            final int length = source.length();
+
+            if (pos + 1 >= length) {
+                return false;
+            }
+
+            final char next = source.charAt(pos + 1);
+
+            if (next == 'Q') {
+                final int end = source.indexOf("\\E", pos + 2);
+                final String quoted = end < 0 ? source.substring(pos + 2) : source.substring(pos + 2, end);
+                pos = end < 0 ? length : end + 2;
+
+                for (int i = 0; i < quoted.length(); ) {
+                    final int cp = quoted.codePointAt(i);
+                    literal(cp);
+                    i += Character.charCount(cp);
+                }
+                return true;
+            }
+
+            if (Character.isLetterOrDigit(next)) {
+                // Character classes, boundaries, back references and
+                // escaped code points are all treated as unknown
+                other();
+                pos += 2;
+
+                if (pos < length && source.charAt(pos) == '{') {
+                    pos = skipTo('}');
+                } else if (next == 'k' && pos < length && source.charAt(pos) == '<') {
+                    pos = skipTo('>');
+                } else if (next == 'u') {
+                    pos = skipWhile("0123456789abcdefABCDEF", 4);
+                } else if (next == 'x') {
+                    pos = skipWhile("0123456789abcdefABCDEF", 2);
+                } else if (next == '0') {
+                    pos = skipWhile("01234567", 3);
+                } else if (next == 'c') {
+                    pos = Math.min(pos + 1, length);
+                } else if (Character.isDigit(next)) {
+                    pos = skipWhile("0123456789", length);
+                }
+                return true;
+            }
+
+            final int cp = source.codePointAt(pos + 1);
+            literal(cp);
+            pos += 1 + Character.charCount(cp);
+            return true;
+        }
+
+        private boolean quantifier() {
+            final char c = source.charAt(pos);
+            int min;
+
+            if (c == '{') {
+                final int end = source.indexOf('}', pos);
+                if (end < 0) {
+                    return false;
+                }
+
+                final String bounds = source.substring(pos + 1, end);
+                final int comma = bounds.indexOf(',');
+
+                try {
+                    min = Integer.parseInt((comma < 0 ? bounds : bounds.substring(0, comma)).trim());
+                } catch (NumberFormatException ex) {
+                    return false;
+                }
+
+                pos = end + 1;
+            } else {
+                min = c == '+' ? 1 : 0;
+                pos++;
+            }
+
+            // Lazy and possessive forms
+            if (pos < source.length() && (source.charAt(pos) == '?' || source.charAt(pos) == '+')) {
+                pos++;
+            }
+
+            exact = false;
+
+            if (depth == 0 && lastAtom > 0) {
+                if (min == 0) {
+                    run.setLength(run.length() - lastAtom);
+                }
+                endRun();
+            }
+
+            lastAtom = 0;
+            return true;
+        }
+
+        private void literal(final int cp) {
+            if (depth > 0) {
+                lastAtom = 0;
+                return;
+            }
+
+            run.appendCodePoint(cp);
+            lastAtom = Character.charCount(cp);
+        }
+
+        private void other() {
+            exact = false;
+            lastAtom = 0;
+            endRun();
+        }
+
+        private void endRun() {
+            if (run.length() > longest.length()) {
+                longest = run.toString();
+            }
+            run.setLength(0);
+        }
+
+        private int skipClass(final int start) {
+            final int length = source.length();
+            int i = start + 1;
+            int nesting = 1;
+
+            if (i < length && source.charAt(i) == '^') {
+                i++;
+            }
+            if (i < length && source.charAt(i) == ']') {
+                i++;
+            }
+
+            while (i < length) {
+                final char c = source.charAt(i);
+
+                if (c == '\\') {
+                    if (i + 1 < length && source.charAt(i + 1) == 'Q') {
+                        final int end = source.indexOf("\\E", i + 2);
+                        i = end < 0 ? length : end + 2;
+                    } else {
+                        i += 2;
+                    }
+                    continue;
+                }
+
+                if (c == '[') {
+                    nesting++;
+                } else if (c == ']') {
+                    nesting--;
+                    if (nesting == 0) {
+                        return i + 1;
+                    }
+                }
+                i++;
+            }
+
+            return length;
+        }
+
+        private int skipTo(final char end) {
+            final int index = source.indexOf(end, pos);
+            return index < 0 ? source.length() : index + 1;
+        }
+
+        private int skipWhile(final String chars, final int max) {
+            int i = pos;
+            while (i < source.length() && i - pos < max && chars.indexOf(source.charAt(i)) >= 0) {
+                i++;
+            }
+            return i;
+        }
+    }
+}
@@ -1,9 +1,14 @@
 package mmarquee.demo;
 
+import mmarquee.automation.AutomationElement;
+import mmarquee.automation.AutomationEventListener;
+import mmarquee.automation.EventID;
+import mmarquee.automation.EventSubscription;
 import mmarquee.automation.UIAutomation;
 import mmarquee.automation.controls.AutomationApplication;
 import mmarquee.automation.controls.AutomationButton;
 import mmarquee.automation.controls.AutomationWindow;
+import mmarquee.automation.uiautomation.TreeScope;
 
 /**
  * @author Mark Humphreys
@@ -38,13 +43,19 @@ public class DemoEventHandler extends TestBase {
             logger.info(name);
 
             AutomationButton button = window.getButton("OK");
-/*
-            automation.addAutomationEventHandler(
+EventSubscription subscription = automation.addEventHandler(
                     EventID.Invoke_Invoked,
                     new TreeScope(TreeScope.Element),
                     button.getElement(),
-                    new AutomationEventHandler());
-                    */
+                    new AutomationEventListener() {
+                        public void handleEvent(AutomationElement sender, EventID eventId) {
+                            logger.info("Event " + eventId + " raised");
+                        }
+                    });
+
+            button.click();
+
+            subscription.close();
         } catch (Throwable ex) {
             logger.error("Failed to get window properly");
         }
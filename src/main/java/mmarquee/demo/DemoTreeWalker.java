@@ -3,7 +3,8 @@ package mmarquee.demo;
 import mmarquee.automation.AutomationElement;
 import mmarquee.automation.AutomationException;
 import mmarquee.automation.AutomationTreeWalker;
-import mmarquee.automation.AutomationTreeWalker.AutomationElementVisitor;
+import mmarquee.automation.AutomationTreeWalker.TreeVisitor;
+import mmarquee.automation.AutomationTreeWalker.VisitResult;
 import mmarquee.automation.UIAutomation;
 
 /**
@@ -35,31 +36,22 @@ public class DemoTreeWalker extends TestBase {
 
             AutomationElement root = automation.getRootElement();
 
-            AutomationElementVisitor logVisitor = new AutomationElementVisitor() {			
-				
-            	int level = 0;
-            	
+            TreeVisitor logVisitor = new TreeVisitor() {
             	@Override
-				public boolean visit(AutomationTreeWalker walker, AutomationElement element) throws AutomationException {
+				public VisitResult visit(AutomationElement element, int depth) throws AutomationException {
 
 				    String name = element.getName();
 					String className = element.getClassName();
-					String indent = level == 0 ? "" : String.format("%"+ level*2 + "s","");
+					String indent = depth == 1 ? "" : String.format("%"+ (depth - 1)*2 + "s","");
 					String message = String.format("%s'%s' [%s]", indent, name, className);
 					
 					logger.info(message);
-					
-					if (recurseLevel > level) {
-						level++;
-						walker.walk(this, element);
-						level--;
-					}
-					
-					return true;
+
+					return VisitResult.CONTINUE;
 				}
 			};
             
-			walker.walk(logVisitor, root);
+			walker.walkDepthFirst(root, recurseLevel, logVisitor);
 
 			logger.info("All done");
 
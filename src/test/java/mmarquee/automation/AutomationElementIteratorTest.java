@@ -0,0 +1,126 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+import com.sun.jna.ptr.IntByReference;
+import mmarquee.automation.uiautomation.IUIAutomationElement3;
+import mmarquee.automation.uiautomation.IUIAutomationElementArray;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.NoSuchElementException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Tests for the AutomationElementIterator.
+ */
+public class AutomationElementIteratorTest {
+
+    private IUIAutomationElementArray createArray(final int length) {
+        IUIAutomationElementArray array = Mockito.mock(IUIAutomationElementArray.class);
+
+        doAnswer(invocation -> {
+            ((IntByReference) invocation.getArguments()[0]).setValue(length);
+            return 0;
+        }).when(array).getLength(any());
+
+        return array;
+    }
+
+    private AutomationElementIterator createIterator(final IUIAutomationElementArray array)
+            throws AutomationException {
+        AutomationElementIterator iterator = Mockito.spy(new AutomationElementIterator(array));
+
+        doReturn(Mockito.mock(IUIAutomationElement3.class))
+                .when(iterator).getAutomationElementFromReference(any());
+
+        return iterator;
+    }
+
+    @Test
+    public void testClose_Stops_Fetching_Elements() throws Exception {
+        IUIAutomationElementArray array = createArray(3);
+        AutomationElementIterator iterator = createIterator(array);
+
+        assertEquals(3, iterator.size());
+        assertTrue(iterator.hasNext());
+        iterator.next();
+
+        iterator.close();
+        iterator.close();
+
+        assertFalse(iterator.hasNext());
+        verify(array, times(1)).getElement(anyInt(), any());
+        verify(array, times(1)).Release();
+    }
+
+    @Test
+    public void testArray_Is_Released_After_Last_Element() throws Exception {
+        IUIAutomationElementArray array = createArray(2);
+        AutomationElementIterator iterator = createIterator(array);
+
+        int count = 0;
+        while (iterator.hasNext()) {
+            iterator.next();
+            count++;
+        }
+
+        assertEquals(2, count);
+        verify(array, times(1)).Release();
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testEmpty_Array_Is_Released_Straight_Away() throws Exception {
+        IUIAutomationElementArray array = createArray(0);
+        AutomationElementIterator iterator = createIterator(array);
+
+        assertFalse(iterator.hasNext());
+        verify(array, times(1)).Release();
+
+        iterator.next();
+    }
+
+    @Test
+    public void testNext_Wraps_Automation_Failures() throws Exception {
+        IUIAutomationElementArray array = createArray(1);
+        when(array.getElement(anyInt(), any())).thenReturn(-1);
+
+        AutomationElementIterator iterator = createIterator(array);
+
+        try {
+            iterator.next();
+            fail("Expected an exception");
+        } catch (IllegalStateException ex) {
+            assertTrue(ex.getCause() instanceof AutomationException);
+        }
+
+        verify(array, times(1)).Release();
+    }
+}
@@ -371,4 +371,26 @@ public class AutomationElementTest extends BaseAutomationTest {
 
 		verify(mocked, atLeastOnce()).getCurrentIsEnabled(any());
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testGetRuntimeId_Is_The_Same_For_The_Same_Element() throws AutomationException {
+		AutomationElement root = instance.getRootElement();
+		AutomationElement again = instance.getRootElement();
+
+		assertTrue(root.getRuntimeId().length > 0);
+		assertTrue(java.util.Arrays.equals(root.getRuntimeId(), again.getRuntimeId()));
+		assertEquals(root, again);
+		assertEquals(root.hashCode(), again.hashCode());
+	}
+
+	@Test
+	public void testCanonicalize_Shares_One_Wrapper() throws AutomationException {
+		CanonicalElementMap map = new CanonicalElementMap();
+
+		AutomationElement root = map.canonicalize(instance.getRootElement());
+		AutomationElement again = instance.getRootElement();
+
+		assertTrue(root == map.canonicalize(again));
+		assertTrue(again.isClosed());
+	}
+}
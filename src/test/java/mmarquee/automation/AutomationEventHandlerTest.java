@@ -0,0 +1,340 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.sun.jna.Function;
+import com.sun.jna.Memory;
+import com.sun.jna.Platform;
+import com.sun.jna.Pointer;
+import com.sun.jna.platform.win32.COM.IUnknown;
+import com.sun.jna.platform.win32.COM.Unknown;
+import com.sun.jna.platform.win32.Guid;
+import com.sun.jna.platform.win32.OaIdl;
+import com.sun.jna.platform.win32.WinDef;
+import com.sun.jna.platform.win32.WinError;
+import com.sun.jna.platform.win32.WinNT;
+import com.sun.jna.ptr.PointerByReference;
+
+import mmarquee.automation.uiautomation.IUIAutomation;
+import mmarquee.automation.uiautomation.IUIAutomationElement3;
+import mmarquee.automation.uiautomation.IUIAutomationEventHandler;
+import mmarquee.automation.uiautomation.TreeScope;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Tests for the Java implementation of IUIAutomationEventHandler, calling
+ * it through its vtable as the automation library would.
+ */
+public class AutomationEventHandlerTest {
+
+    private static final AutomationEventListener NO_LISTENER = new AutomationEventListener() {
+        public void handleEvent(AutomationElement sender, EventID eventId) {
+        }
+    };
+
+    private static Function method(Pointer instance, int index) {
+        Pointer vTable = instance.getPointer(0);
+        return Function.getFunction(vTable.getPointer(index * Pointer.SIZE));
+    }
+
+    private static int queryInterface(Pointer instance, Guid.GUID iid, PointerByReference ppv) {
+        iid.write();
+        return method(instance, 0).invokeInt(new Object[]{instance, iid.getPointer(), ppv});
+    }
+
+    @Test
+    public void testQueryInterface_Returns_Handler_For_Supported_Interfaces() {
+        AutomationEventHandler handler = new AutomationEventHandler(NO_LISTENER, new EventDispatcher(1));
+        Pointer instance = handler.getPointer();
+
+        PointerByReference ppv = new PointerByReference();
+
+        assertEquals(WinError.S_OK.intValue(),
+                queryInterface(instance, new Guid.GUID(IUIAutomationEventHandler.IID.toGuidString()), ppv));
+        assertEquals(instance, ppv.getValue());
+
+        assertEquals(WinError.S_OK.intValue(),
+                queryInterface(instance, new Guid.GUID(IUnknown.IID_IUNKNOWN.toGuidString()), ppv));
+        assertEquals(instance, ppv.getValue());
+
+        assertEquals(2, handler.getRefCount());
+    }
+
+    @Test
+    public void testQueryInterface_Rejects_Other_Interfaces() {
+        AutomationEventHandler handler = new AutomationEventHandler(NO_LISTENER, new EventDispatcher(1));
+
+        PointerByReference ppv = new PointerByReference(new Memory(1));
+
+        assertEquals(WinError.E_NOINTERFACE,
+                queryInterface(handler.getPointer(), new Guid.GUID(IUIAutomationElement3.IID.toGuidString()), ppv));
+        assertNull(ppv.getValue());
+        assertEquals(0, handler.getRefCount());
+    }
+
+    @Test
+    public void testAddRef_And_Release_Count_References() {
+        AutomationEventHandler handler = new AutomationEventHandler(NO_LISTENER, new EventDispatcher(1));
+        Pointer instance = handler.getPointer();
+
+        assertEquals(1, method(instance, 1).invokeInt(new Object[]{instance}));
+        assertEquals(2, method(instance, 1).invokeInt(new Object[]{instance}));
+        assertEquals(1, method(instance, 2).invokeInt(new Object[]{instance}));
+        assertEquals(0, method(instance, 2).invokeInt(new Object[]{instance}));
+    }
+
+    @Test
+    public void testHandleAutomationEvent_Delivers_To_Listener() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<EventID> received = new AtomicReference<EventID>();
+        final AtomicReference<Thread> thread = new AtomicReference<Thread>();
+
+        AutomationEventHandler handler = new AutomationEventHandler(new AutomationEventListener() {
+            public void handleEvent(AutomationElement sender, EventID eventId) {
+                received.set(eventId);
+                thread.set(Thread.currentThread());
+                latch.countDown();
+            }
+        }, new EventDispatcher(4));
+
+        Pointer instance = handler.getPointer();
+
+        int result = method(instance, 3).invokeInt(
+                new Object[]{instance, Pointer.NULL, EventID.Invoke_Invoked.getValue()});
+
+        assertEquals(WinError.S_OK.intValue(), result);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(EventID.Invoke_Invoked, received.get());
+        assertFalse(Thread.currentThread().equals(thread.get()));
+    }
+
+    @Test
+    public void testAddEventHandler_Registers_Handler_And_Close_Removes_It() throws Exception {
+        IUIAutomation mocked = Mockito.mock(IUIAutomation.class);
+        IUIAutomationElement3 mockedElement = Mockito.mock(IUIAutomationElement3.class);
+
+        final Pointer elementPointer = new Memory(8);
+
+        when(mockedElement.QueryInterface(any(Guid.REFIID.class), any(PointerByReference.class)))
+                .thenAnswer(invocation -> {
+                    PointerByReference reference = invocation.getArgument(1);
+                    reference.setValue(elementPointer);
+                    return new WinNT.HRESULT(0);
+                });
+
+        UIAutomation instance = Mockito.spy(new UIAutomation(mocked));
+        Unknown mockedUnknown = Mockito.mock(Unknown.class);
+        doReturn(mockedUnknown).when(instance).makeUnknown(elementPointer);
+
+        AutomationElement element = new AutomationElement(mockedElement);
+
+        EventSubscription subscription = instance.addEventHandler(EventID.Invoke_Invoked,
+                new TreeScope(TreeScope.Element), element, NO_LISTENER);
+
+        verify(mocked).addAutomationEventHandler(eq(EventID.Invoke_Invoked.getValue()),
+                eq(elementPointer), any(TreeScope.class), eq((Pointer) null),
+                eq(subscription.getHandler().getPointer()));
+        assertSame(element, subscription.getElement());
+
+        subscription.close();
+        subscription.close();
+
+        verify(mocked, times(1)).removeAutomationEventHandler(EventID.Invoke_Invoked.getValue(),
+                elementPointer, subscription.getHandler().getPointer());
+        verify(mockedUnknown, times(2)).Release();
+        assertTrue(subscription.isRemoved());
+    }
+
+    @Test(expected = AutomationException.class)
+    public void testAddEventHandler_Throws_Exception_When_Automation_Returns_Error() throws Exception {
+        IUIAutomation mocked = Mockito.mock(IUIAutomation.class);
+        IUIAutomationElement3 mockedElement = Mockito.mock(IUIAutomationElement3.class);
+
+        final Pointer elementPointer = new Memory(8);
+
+        when(mockedElement.QueryInterface(any(Guid.REFIID.class), any(PointerByReference.class)))
+                .thenAnswer(invocation -> {
+                    PointerByReference reference = invocation.getArgument(1);
+                    reference.setValue(elementPointer);
+                    return new WinNT.HRESULT(0);
+                });
+        when(mocked.addAutomationEventHandler(any(Integer.class), any(Pointer.class), any(TreeScope.class),
+                any(), any(Pointer.class))).thenReturn(-1);
+
+        UIAutomation instance = Mockito.spy(new UIAutomation(mocked));
+        doReturn(Mockito.mock(Unknown.class)).when(instance).makeUnknown(elementPointer);
+
+        instance.addEventHandler(EventID.Invoke_Invoked,
+                new TreeScope(TreeScope.Element), new AutomationElement(mockedElement), NO_LISTENER);
+    }
+
+    @Test
+    public void testRemoveAllEventHandlers_Marks_Subscriptions_Removed() throws Exception {
+        IUIAutomation mocked = Mockito.mock(IUIAutomation.class);
+        IUIAutomationElement3 mockedElement = Mockito.mock(IUIAutomationElement3.class);
+
+        final Pointer elementPointer = new Memory(8);
+
+        when(mockedElement.QueryInterface(any(Guid.REFIID.class), any(PointerByReference.class)))
+                .thenAnswer(invocation -> {
+                    PointerByReference reference = invocation.getArgument(1);
+                    reference.setValue(elementPointer);
+                    return new WinNT.HRESULT(0);
+                });
+
+        UIAutomation instance = Mockito.spy(new UIAutomation(mocked));
+        doReturn(Mockito.mock(Unknown.class)).when(instance).makeUnknown(elementPointer);
+
+        EventSubscription subscription = instance.addEventHandler(EventID.Window_WindowOpened,
+                new TreeScope(TreeScope.Subtree), new AutomationElement(mockedElement), NO_LISTENER);
+
+        instance.removeAllEventHandlers();
+
+        verify(mocked).removeAllEventHandlers();
+        assertTrue(subscription.isRemoved());
+    }
+
+    @Test
+    public void testHandleStructureChangedEvent_Delivers_Change_Type_And_RuntimeId() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<StructureChangeType> received = new AtomicReference<>();
+        final AtomicReference<int[]> receivedId = new AtomicReference<>();
+
+        AutomationEventHandler handler = new AutomationEventHandler(new StructureChangedEventListener() {
+            public void handleStructureChangedEvent(AutomationElement sender, StructureChangeType changeType,
+                                                    int[] runtimeId) {
+                received.set(changeType);
+                receivedId.set(runtimeId);
+                latch.countDown();
+            }
+
+            public void handleEvent(AutomationElement sender, EventID eventId) {
+            }
+        }, new EventDispatcher(4), EventID.StructureChanged);
+
+        Memory ids = new Memory(12);
+        ids.write(0, new int[] {42, 7, 3}, 0, 3);
+
+        OaIdl.SAFEARRAY array = new OaIdl.SAFEARRAY();
+        array.cDims = new WinDef.USHORT(1);
+        array.cbElements = new WinDef.ULONG(4);
+        array.pvData = new WinDef.PVOID(ids);
+        array.rgsabound[0].cElements = new WinDef.ULONG(3);
+        array.write();
+
+        Pointer instance = handler.getPointer();
+
+        int result = method(instance, 3).invokeInt(new Object[]{instance, Pointer.NULL,
+                StructureChangeType.ChildRemoved.getValue(), array.getPointer()});
+
+        assertEquals(WinError.S_OK.intValue(), result);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(StructureChangeType.ChildRemoved, received.get());
+        assertArrayEquals(new int[] {42, 7, 3}, receivedId.get());
+    }
+
+    @Test
+    public void testHandlePropertyChangedEvent_Delivers_Property() throws Exception {
+        // The value is passed as a pointer on 64 bit, a null one can be passed anywhere
+        Assume.assumeTrue(Platform.is64Bit());
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<Object> received = new AtomicReference<>();
+
+        AutomationEventHandler handler = new AutomationEventHandler(new PropertyChangedEventListener() {
+            public void handlePropertyChangedEvent(AutomationElement sender, int propertyId, Object newValue) {
+                received.set(propertyId + "=" + newValue);
+                latch.countDown();
+            }
+
+            public void handleEvent(AutomationElement sender, EventID eventId) {
+            }
+        }, new EventDispatcher(4), EventID.PropertyChanged);
+
+        Pointer instance = handler.getPointer();
+
+        int result = method(instance, 3).invokeInt(new Object[]{instance, Pointer.NULL,
+                PropertyID.ControlType.getValue(), Pointer.NULL});
+
+        assertEquals(WinError.S_OK.intValue(), result);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(PropertyID.ControlType.getValue() + "=null", received.get());
+        assertTrue(handler.isPropertyChanged());
+    }
+
+    @Test
+    public void testAddPropertyChangedEventHandler_Registers_Properties_And_Close_Removes_It() throws Exception {
+        IUIAutomation mocked = Mockito.mock(IUIAutomation.class);
+        IUIAutomationElement3 mockedElement = Mockito.mock(IUIAutomationElement3.class);
+
+        final Pointer elementPointer = new Memory(8);
+
+        when(mockedElement.QueryInterface(any(Guid.REFIID.class), any(PointerByReference.class)))
+                .thenAnswer(invocation -> {
+                    PointerByReference reference = invocation.getArgument(1);
+                    reference.setValue(elementPointer);
+                    return new WinNT.HRESULT(0);
+                });
+
+        UIAutomation instance = Mockito.spy(new UIAutomation(mocked));
+        doReturn(Mockito.mock(Unknown.class)).when(instance).makeUnknown(elementPointer);
+
+        EventSubscription subscription = instance.addPropertyChangedEventHandler(
+                new TreeScope(TreeScope.Subtree), new AutomationElement(mockedElement), NO_LISTENER,
+                PropertyID.Name, PropertyID.ValueValue);
+
+        verify(mocked).addPropertyChangedEventHandlerNativeArray(eq(elementPointer), any(TreeScope.class),
+                eq((Pointer) null), eq(subscription.getHandler().getPointer()),
+                eq(new int[] {PropertyID.Name.getValue(), PropertyID.ValueValue.getValue()}), eq(2));
+        assertEquals(EventID.PropertyChanged, subscription.getEventId());
+
+        subscription.close();
+
+        verify(mocked).removePropertyChangedEventHandler(elementPointer, subscription.getHandler().getPointer());
+    }
+
+    @Test
+    public void testEventID_FromValue() {
+        assertEquals(EventID.ToolTipOpened, EventID.fromValue(20000));
+        assertEquals(EventID.Window_WindowOpened, EventID.fromValue(20016));
+        assertEquals(EventID.InputDiscarded, EventID.fromValue(20022));
+        assertNull(EventID.fromValue(19999));
+        assertNull(EventID.fromValue(20023));
+    }
+}
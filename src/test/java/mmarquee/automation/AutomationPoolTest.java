@@ -0,0 +1,214 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+import mmarquee.automation.uiautomation.IUIAutomation;
+import mmarquee.automation.utils.ComApartment;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Tests for the pool of automation workers.
+ */
+public class AutomationPoolTest {
+
+    private final Map<UIAutomation, String> createdOn = new ConcurrentHashMap<>();
+
+    private final Map<String, Integer> releasedOn = new ConcurrentHashMap<>();
+
+    private final AutomationPool.Factory factory = apartment -> {
+        IUIAutomation raw = Mockito.mock(IUIAutomation.class);
+        when(raw.Release()).thenAnswer(invocation -> {
+            releasedOn.merge(Thread.currentThread().getName(), 1, Integer::sum);
+            return 0;
+        });
+
+        UIAutomation automation = new UIAutomation(raw);
+        createdOn.put(automation, Thread.currentThread().getName());
+        return automation;
+    };
+
+    @Test
+    public void testEach_Worker_Creates_Its_Own_Automation_On_Its_Thread() throws Exception {
+        try (AutomationPool pool = new AutomationPool(3, factory)) {
+            assertEquals(3, pool.getSize());
+
+            Set<UIAutomation> instances = new HashSet<>();
+            for (int index = 0; index < pool.getSize(); index++) {
+                AutomationPool.Worker worker = pool.getWorker(index);
+                instances.add(worker.getAutomation());
+
+                assertEquals("automation-worker-" + index, createdOn.get(worker.getAutomation()));
+                assertEquals("automation-worker-" + index,
+                        worker.execute(() -> Thread.currentThread().getName()));
+                assertSame(worker.getAutomation(), worker.execute(UIAutomation::getInstance));
+            }
+
+            assertEquals(3, instances.size());
+        }
+    }
+
+    @Test
+    public void testWorkerFor_Is_Stable_And_Next_Goes_Round() throws Exception {
+        try (AutomationPool pool = new AutomationPool(4, factory)) {
+            assertSame(pool.workerFor("notepad"), pool.workerFor("notepad"));
+            assertSame(pool.workerFor(1234), pool.workerFor(1234));
+
+            List<Integer> indexes = new ArrayList<>();
+            for (int count = 0; count < 8; count++) {
+                indexes.add(pool.next().getIndex());
+            }
+
+            assertEquals(java.util.Arrays.asList(0, 1, 2, 3, 0, 1, 2, 3), indexes);
+        }
+    }
+
+    @Test
+    public void testWorkers_Run_At_The_Same_Time() throws Exception {
+        try (AutomationPool pool = new AutomationPool(2, factory)) {
+            final CountDownLatch first = new CountDownLatch(1);
+            final CountDownLatch second = new CountDownLatch(1);
+
+            Thread other = new Thread(() -> {
+                try {
+                    pool.getWorker(1).execute(() -> {
+                        second.countDown();
+                        return first.await(5, TimeUnit.SECONDS);
+                    });
+                } catch (Exception ex) {
+                    throw new IllegalStateException(ex);
+                }
+            });
+            other.start();
+
+            // Only returns if worker 1 is running its call while worker 0 runs this one
+            boolean overlapped = pool.getWorker(0).execute(() -> {
+                boolean started = second.await(5, TimeUnit.SECONDS);
+                first.countDown();
+                return started;
+            });
+
+            other.join();
+            assertTrue(overlapped);
+        }
+    }
+
+    @Test
+    public void testFailure_Closes_The_Workers_Already_Created() throws Exception {
+        final List<ComApartment> apartments = new ArrayList<>();
+
+        try {
+            new AutomationPool(3, apartment -> {
+                apartments.add(apartment);
+                if (apartments.size() == 2) {
+                    throw new AutomationException(-1);
+                }
+                return factory.create(apartment);
+            });
+            fail("Expected an AutomationException");
+        } catch (AutomationException ex) {
+            assertEquals(-1, ex.getErrorcode());
+        }
+
+        assertEquals(2, apartments.size());
+        for (ComApartment apartment : apartments) {
+            assertTrue(apartment.isClosed());
+        }
+    }
+
+    @Test
+    public void testClose_Releases_Each_Automation_On_Its_Worker() throws Exception {
+        AutomationPool pool = new AutomationPool(2, factory);
+
+        pool.close();
+        pool.close();
+
+        assertEquals(2, releasedOn.size());
+        assertEquals(Integer.valueOf(1), releasedOn.get("automation-worker-0"));
+        assertEquals(Integer.valueOf(1), releasedOn.get("automation-worker-1"));
+        assertTrue(pool.getWorker(0).getApartment().isClosed());
+    }
+
+    @Test
+    public void testClose_Stops_Every_Worker_And_Throws_The_First_Failure() throws Exception {
+        AutomationPool pool = new AutomationPool(2, failingFactory("first"));
+
+        try {
+            pool.close();
+            fail("Expected the first worker's failure");
+        } catch (IllegalStateException ex) {
+            assertEquals("first", ex.getMessage());
+        }
+
+        assertTrue(pool.getWorker(0).getApartment().isClosed());
+        assertTrue(pool.getWorker(1).getApartment().isClosed());
+    }
+
+    @Test
+    public void testFailure_Is_Thrown_When_Closing_The_Workers_Also_Fails() throws Exception {
+        final List<ComApartment> apartments = new ArrayList<>();
+        final AutomationPool.Factory failing = failingFactory("close");
+
+        try {
+            new AutomationPool(3, apartment -> {
+                apartments.add(apartment);
+                if (apartments.size() == 3) {
+                    throw new AutomationException(-1);
+                }
+                return failing.create(apartment);
+            });
+            fail("Expected an AutomationException");
+        } catch (AutomationException ex) {
+            assertEquals(-1, ex.getErrorcode());
+        }
+
+        for (ComApartment apartment : apartments) {
+            assertTrue(apartment.isClosed());
+        }
+    }
+
+    private AutomationPool.Factory failingFactory(final String message) {
+        return apartment -> {
+            IUIAutomation raw = Mockito.mock(IUIAutomation.class);
+            when(raw.Release()).thenThrow(new IllegalStateException(message));
+
+            return new UIAutomation(raw);
+        };
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPool_Needs_A_Worker() throws Exception {
+        new AutomationPool(0, factory);
+    }
+}
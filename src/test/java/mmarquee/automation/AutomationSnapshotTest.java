@@ -0,0 +1,291 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+import com.sun.jna.platform.win32.WinDef;
+import mmarquee.automation.uiautomation.TreeScope;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.regex.Pattern;
+
+import static mmarquee.automation.BaseAutomationTest.isTreeScope;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Tests for the AutomationSnapshot.
+ */
+public class AutomationSnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static WinDef.RECT rect(int left, int top, int right, int bottom) {
+        WinDef.RECT rect = new WinDef.RECT();
+        rect.left = left;
+        rect.top = top;
+        rect.right = right;
+        rect.bottom = bottom;
+        return rect;
+    }
+
+    private AutomationSnapshot sample() {
+        AutomationSnapshot.Builder builder = new AutomationSnapshot.Builder(PropertyID.ItemStatus);
+
+        int window = builder.add(-1, new int[] {42, 7}, ControlType.Window.getValue(), "Main", "Form", "main",
+                rect(0, 0, 100, 100), 0, "ready");
+        int list = builder.add(window, null, ControlType.List.getValue(), "Items", "ListBox", "items",
+                rect(10, 10, 50, 90), 0, (Object) null);
+        builder.add(list, null, ControlType.ListItem.getValue(), "Item 1", "", "",
+                rect(10, 10, 50, 20), AutomationSnapshot.patternBits(PatternID.SelectionItem), "ready");
+        builder.add(list, null, ControlType.ListItem.getValue(), "Item 2", "", "",
+                rect(10, 20, 50, 30), AutomationSnapshot.patternBits(PatternID.SelectionItem), "busy");
+        builder.add(window, null, ControlType.Button.getValue(), "OK", "Button", "ok",
+                rect(60, 80, 90, 95), AutomationSnapshot.patternBits(PatternID.Invoke), (Object) null);
+
+        return builder.build();
+    }
+
+    @Test
+    public void testStructure() {
+        AutomationSnapshot snapshot = sample();
+
+        assertEquals(5, snapshot.size());
+        assertEquals(-1, snapshot.getParent(0));
+        assertEquals(1, snapshot.getParent(3));
+        assertEquals(2, snapshot.getDepth(3));
+        assertEquals(4, snapshot.getSubtreeEnd(1));
+        assertEquals(5, snapshot.getSubtreeEnd(0));
+        assertArrayEquals(new int[] {1, 4}, snapshot.getChildren(0));
+        assertArrayEquals(new int[] {2, 3}, snapshot.getChildren(1));
+        assertArrayEquals(new int[0], snapshot.getChildren(4));
+    }
+
+    @Test
+    public void testValues() {
+        AutomationSnapshot snapshot = sample();
+
+        assertEquals("Items", snapshot.getName(1));
+        assertEquals("ListBox", snapshot.getClassName(1));
+        assertEquals("ok", snapshot.getAutomationId(4));
+        assertEquals(ControlType.Button.getValue(), snapshot.getControlType(4));
+        assertEquals(90, snapshot.getBoundingRectangle(1).bottom);
+        assertArrayEquals(new int[] {42, 7}, snapshot.getRuntimeId(0));
+        assertNull(snapshot.getRuntimeId(1));
+        assertEquals("busy", snapshot.getPropertyValue(3, PropertyID.ItemStatus));
+        assertNull(snapshot.getPropertyValue(1, PropertyID.ItemStatus));
+        assertSame(snapshot.getPropertyValue(0, PropertyID.ItemStatus),
+                snapshot.getPropertyValue(2, PropertyID.ItemStatus));
+        assertTrue(snapshot.isPatternAvailable(4, PatternID.Invoke));
+        assertFalse(snapshot.isPatternAvailable(3, PatternID.Invoke));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPropertyValue_Not_Captured_Throws() {
+        sample().getPropertyValue(0, PropertyID.HelpText);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuilder_Rejects_Unknown_Parent() {
+        AutomationSnapshot.Builder builder = new AutomationSnapshot.Builder();
+        builder.add(-1, null, 0, "a", null, null, null, 0);
+        builder.add(5, null, 0, "b", null, null, null, 0);
+    }
+
+    @Test
+    public void testQueries() {
+        AutomationSnapshot snapshot = sample();
+
+        assertArrayEquals(new int[] {4}, snapshot.findByName("OK"));
+        assertArrayEquals(new int[0], snapshot.findByName("Cancel"));
+        assertArrayEquals(new int[] {2, 3}, snapshot.findByName(Pattern.compile("Item \\d")));
+        assertArrayEquals(new int[] {1}, snapshot.findByAutomationId("items"));
+        assertArrayEquals(new int[] {2, 3}, snapshot.findByControlType(ControlType.ListItem));
+        assertArrayEquals(new int[] {2, 3}, snapshot.findByPattern(PatternID.SelectionItem));
+        assertArrayEquals(new int[] {0, 1, 3}, snapshot.findAt(15, 25));
+        assertArrayEquals(new int[] {2, 3}, snapshot.findWithin(rect(0, 0, 60, 50)));
+    }
+
+    private AutomationElement cached(String name, AutomationElement... children) throws Exception {
+        AutomationElement element = Mockito.mock(AutomationElement.class);
+        when(element.getCachedName()).thenReturn(name);
+        when(element.getCachedControlType()).thenReturn(ControlType.Pane.getValue());
+        when(element.getCachedBoundingRectangle()).thenReturn(rect(0, 0, 1, 1));
+        when(element.getCachedPropertyValue(anyInt())).thenReturn(null);
+        when(element.getCachedPropertyValue(PropertyID.IsInvokePatternAvailable.getValue()))
+                .thenReturn(name.startsWith("b"));
+        when(element.getCachedChildren()).thenReturn(Arrays.asList(children));
+        return element;
+    }
+
+    @Test
+    public void testRead_Follows_Cached_Children_In_Document_Order() throws Exception {
+        AutomationElement root = cached("root", cached("a", cached("a1")), cached("b"));
+
+        AutomationSnapshot snapshot = AutomationSnapshot.read(root, Integer.MAX_VALUE);
+
+        assertEquals(4, snapshot.size());
+        assertEquals("a1", snapshot.getName(2));
+        assertEquals(1, snapshot.getParent(2));
+        assertEquals(0, snapshot.getParent(3));
+        assertTrue(snapshot.isPatternAvailable(3, PatternID.Invoke));
+        assertFalse(snapshot.isPatternAvailable(1, PatternID.Invoke));
+        verify(root).close();
+    }
+
+    @Test
+    public void testRead_Stops_At_Max_Depth() throws Exception {
+        AutomationElement root = cached("root", cached("a", cached("a1")), cached("b"));
+
+        assertEquals(3, AutomationSnapshot.read(root, 1).size());
+    }
+
+    @Test
+    public void testCapture_Uses_One_Cached_Search() throws Exception {
+        UIAutomation automation = Mockito.mock(UIAutomation.class);
+        CacheRequest request = Mockito.mock(CacheRequest.class, invocation ->
+                invocation.getMethod().getReturnType() == CacheRequest.class ? invocation.getMock() : null);
+        ConditionReference condition = Mockito.mock(ConditionReference.class);
+
+        when(automation.createCacheRequest()).thenReturn(request);
+        when(automation.createTrueCondition()).thenReturn(condition);
+
+        AutomationElement cachedRoot = cached("root", cached("a"));
+        AutomationElement root = Mockito.mock(AutomationElement.class);
+        when(root.findAll(any(), any(), any())).thenReturn(Collections.singletonList(cachedRoot));
+
+        AutomationSnapshot snapshot = AutomationSnapshot.capture(automation, root,
+                new TreeScope(TreeScope.Subtree), PropertyID.ItemStatus);
+
+        assertEquals(2, snapshot.size());
+        assertArrayEquals(new PropertyID[] {PropertyID.ItemStatus}, snapshot.getProperties());
+
+        verify(root).findAll(isTreeScope(TreeScope.Element), any(), any());
+        verify(request).setTreeScope(isTreeScope(TreeScope.Subtree));
+        verify(request).setAutomationElementMode(CacheRequest.ELEMENT_MODE_NONE);
+        verify(request).close();
+    }
+
+    @Test
+    public void testFind_By_Control_Type_And_Name() {
+        AutomationSnapshot snapshot = sample();
+
+        assertArrayEquals(new int[] {4}, snapshot.find(ControlType.Button, "OK"));
+        assertArrayEquals(new int[0], snapshot.find(ControlType.ListItem, "OK"));
+        assertArrayEquals(new int[] {3}, snapshot.find(ControlType.ListItem, Pattern.compile(".* 2")));
+    }
+
+    @Test
+    public void testWrite_And_Load() throws Exception {
+        AutomationSnapshot.Builder builder = new AutomationSnapshot.Builder(
+                PropertyID.ItemStatus, PropertyID.ProcessId, PropertyID.IsEnabled, PropertyID.ValueValue);
+
+        int window = builder.add(-1, new int[] {42, 7}, ControlType.Window.getValue(), "Fenêtre", "Form", "main",
+                rect(0, 0, 100, 100), 0, "ready", 1234, true, new int[] {1, 2});
+        builder.add(window, null, ControlType.Button.getValue(), "OK", "Button", null,
+                rect(60, 80, 90, 95), AutomationSnapshot.patternBits(PatternID.Invoke), null, 1234, false, rect(1, 2, 3, 4));
+
+        AutomationSnapshot snapshot = builder.build();
+
+        File file = folder.newFile("window.snapshot");
+        snapshot.write(file);
+
+        AutomationSnapshot loaded = AutomationSnapshot.load(file);
+
+        assertEquals(2, loaded.size());
+        assertArrayEquals(new int[] {42, 7}, loaded.getRuntimeId(0));
+        assertNull(loaded.getRuntimeId(1));
+        assertEquals("Fenêtre", loaded.getName(0));
+        assertEquals("Button", loaded.getClassName(1));
+        assertNull(loaded.getAutomationId(1));
+        assertEquals(0, loaded.getParent(1));
+        assertEquals(1, loaded.getDepth(1));
+        assertEquals(2, loaded.getSubtreeEnd(0));
+        assertEquals(95, loaded.getBoundingRectangle(1).bottom);
+        assertTrue(loaded.isPatternAvailable(1, PatternID.Invoke));
+        assertArrayEquals(snapshot.getProperties(), loaded.getProperties());
+
+        assertEquals("ready", loaded.getPropertyValue(0, PropertyID.ItemStatus));
+        assertNull(loaded.getPropertyValue(1, PropertyID.ItemStatus));
+        assertEquals(1234, loaded.getPropertyValue(1, PropertyID.ProcessId));
+        assertEquals(false, loaded.getPropertyValue(1, PropertyID.IsEnabled));
+        assertArrayEquals(new int[] {1, 2}, (int[]) loaded.getPropertyValue(0, PropertyID.ValueValue));
+        assertEquals(rect(1, 2, 3, 4).toString(), loaded.getPropertyValue(1, PropertyID.ValueValue));
+
+        assertArrayEquals(new int[] {1}, loaded.find(ControlType.Button, "OK"));
+        assertArrayEquals(new int[] {0}, loaded.findByName(Pattern.compile("Fen.*")));
+        assertArrayEquals(new int[0], loaded.findByName("Cancel"));
+
+        assertEquals(1, snapshot.diff(loaded).getChanges().size());
+    }
+
+    @Test
+    public void testLoad_Large_Snapshot() throws Exception {
+        AutomationSnapshot.Builder builder = new AutomationSnapshot.Builder();
+        int root = builder.add(-1, new int[] {1}, ControlType.Window.getValue(), "Main", null, null, null, 0);
+
+        for (int row = 0; row < 5000; row++) {
+            int item = builder.add(root, new int[] {2, row}, ControlType.DataItem.getValue(),
+                    "Row " + row, null, "row" + row, rect(0, row * 10, 100, row * 10 + 10), 0);
+            for (int cell = 0; cell < 9; cell++) {
+                builder.add(item, null, ControlType.Edit.getValue(), "Cell " + cell, null, null,
+                        rect(cell * 10, row * 10, cell * 10 + 10, row * 10 + 10), 0);
+            }
+        }
+
+        File file = folder.newFile("large.snapshot");
+        builder.build().write(file);
+
+        AutomationSnapshot loaded = AutomationSnapshot.load(file);
+
+        assertEquals(50001, loaded.size());
+        assertArrayEquals(new int[] {4991 * 10 + 1}, loaded.findByAutomationId("row4991"));
+        assertEquals(5000, loaded.find(ControlType.Edit, "Cell 3").length);
+        assertEquals(9, loaded.getChildren(loaded.findByName("Row 17")[0]).length);
+        assertArrayEquals(new int[] {2, 4991}, loaded.getRuntimeId(4991 * 10 + 1));
+        assertArrayEquals(new int[] {4991 * 10 + 1, 4991 * 10 + 5}, loaded.findAt(35, 49915));
+    }
+
+    @Test(expected = IOException.class)
+    public void testLoad_Rejects_Other_Files() throws Exception {
+        File file = folder.newFile("other.txt");
+
+        FileOutputStream stream = new FileOutputStream(file);
+        stream.write("Not a snapshot at all, honestly".getBytes("UTF-8"));
+        stream.close();
+
+        AutomationSnapshot.load(file);
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+import mmarquee.automation.AutomationTreeWalker.TreeVisitor;
+import mmarquee.automation.AutomationTreeWalker.VisitResult;
+import mmarquee.automation.uiautomation.IUIAutomationTreeWalker;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Tests for walking the tree with the AutomationTreeWalker.
+ */
+public class AutomationTreeWalkerTest {
+
+    private final Map<AutomationElement, String> names = new HashMap<>();
+    private final Map<AutomationElement, List<AutomationElement>> children = new HashMap<>();
+    private final Map<AutomationElement, AutomationElement> siblings = new HashMap<>();
+
+    private AutomationElement root;
+    private AutomationTreeWalker walker;
+
+    private AutomationElement node(String name, AutomationElement... kids) {
+        AutomationElement element = Mockito.mock(AutomationElement.class, name);
+        names.put(element, name);
+        children.put(element, Arrays.asList(kids));
+        return element;
+    }
+
+    @Before
+    public void setup() throws Exception {
+        // root -> a (a1 (a1x), a2), b (b1), c
+        root = node("root",
+                node("a", node("a1", node("a1x")), node("a2")),
+                node("b", node("b1")),
+                node("c"));
+
+        for (List<AutomationElement> kids : children.values()) {
+            for (int i = 0; i + 1 < kids.size(); i++) {
+                siblings.put(kids.get(i), kids.get(i + 1));
+            }
+        }
+
+        walker = Mockito.spy(new AutomationTreeWalker(Mockito.mock(IUIAutomationTreeWalker.class)));
+
+        doAnswer(invocation -> {
+            List<AutomationElement> kids = children.get(invocation.getArgument(0));
+            return kids.isEmpty() ? null : kids.get(0);
+        }).when(walker).getFirstChildElement(any());
+
+        doAnswer(invocation -> siblings.get(invocation.getArgument(0)))
+                .when(walker).getNextSiblingElement(any());
+    }
+
+    private TreeVisitor recorder(final List<String> visited, final Map<String, VisitResult> results) {
+        return (element, depth) -> {
+            String name = names.get(element);
+
+            synchronized (visited) {
+                visited.add(name + ":" + depth);
+            }
+
+            VisitResult result = results.get(name);
+            return result == null ? VisitResult.CONTINUE : result;
+        };
+    }
+
+    private List<String> namesOf(List<AutomationElement> elements) {
+        List<String> result = new ArrayList<>();
+        for (AutomationElement element : elements) {
+            result.add(names.get(element));
+        }
+        return result;
+    }
+
+    @Test
+    public void testWalkDepthFirst_Visits_In_Document_Order() throws Exception {
+        List<String> visited = new ArrayList<>();
+
+        assertTrue(walker.walkDepthFirst(root, 10, recorder(visited, Collections.emptyMap())));
+
+        assertEquals(Arrays.asList("a:1", "a1:2", "a1x:3", "a2:2", "b:1", "b1:2", "c:1"), visited);
+    }
+
+    @Test
+    public void testWalkDepthFirst_Stops_At_Max_Depth() throws Exception {
+        List<String> visited = new ArrayList<>();
+
+        walker.walkDepthFirst(root, 2, recorder(visited, Collections.emptyMap()));
+
+        assertEquals(Arrays.asList("a:1", "a1:2", "a2:2", "b:1", "b1:2", "c:1"), visited);
+    }
+
+    @Test
+    public void testWalkDepthFirst_Prunes() throws Exception {
+        List<String> visited = new ArrayList<>();
+        Map<String, VisitResult> results = new HashMap<>();
+        results.put("a1", VisitResult.SKIP_SIBLINGS);
+        results.put("b", VisitResult.SKIP_CHILDREN);
+
+        walker.walkDepthFirst(root, 10, recorder(visited, results));
+
+        assertEquals(Arrays.asList("a:1", "a1:2", "b:1", "c:1"), visited);
+    }
+
+    @Test
+    public void testWalkDepthFirst_Terminates() throws Exception {
+        List<String> visited = new ArrayList<>();
+
+        assertFalse(walker.walkDepthFirst(root, 10,
+                recorder(visited, Collections.singletonMap("a2", VisitResult.TERMINATE))));
+
+        assertEquals(Arrays.asList("a:1", "a1:2", "a1x:3", "a2:2"), visited);
+    }
+
+    @Test
+    public void testWalkBreadthFirst_Visits_Level_By_Level() throws Exception {
+        List<String> visited = new ArrayList<>();
+
+        assertTrue(walker.walkBreadthFirst(root, 10,
+                recorder(visited, Collections.singletonMap("b", VisitResult.SKIP_CHILDREN))));
+
+        assertEquals(Arrays.asList("a:1", "b:1", "c:1", "a1:2", "a2:2", "a1x:3"), visited);
+    }
+
+    @Test
+    public void testCollect_Returns_Document_Order() throws Exception {
+        List<String> visited = new ArrayList<>();
+
+        List<AutomationElement> found = walker.collect(root, 10,
+                recorder(visited, Collections.emptyMap()), 3);
+
+        assertEquals(Arrays.asList("a", "a1", "a1x", "a2", "b", "b1", "c"), namesOf(found));
+        assertEquals(7, visited.size());
+    }
+
+    @Test
+    public void testCollect_Drops_Elements_After_Termination() throws Exception {
+        List<String> visited = new ArrayList<>();
+
+        List<AutomationElement> found = walker.collect(root, 10,
+                recorder(visited, Collections.singletonMap("a2", VisitResult.TERMINATE)), 3);
+
+        assertEquals(Arrays.asList("a", "a1", "a1x"), namesOf(found));
+    }
+
+    @Test
+    public void testWalkDepthFirst_With_CacheRequest_Uses_Cached_Navigation() throws Exception {
+        CacheRequest request = Mockito.mock(CacheRequest.class);
+
+        AutomationTreeWalker cached = Mockito.spy(
+                new AutomationTreeWalker(Mockito.mock(IUIAutomationTreeWalker.class), request));
+
+        doAnswer(invocation -> {
+            List<AutomationElement> kids = children.get(invocation.getArgument(0));
+            return kids.isEmpty() ? null : kids.get(0);
+        }).when(cached).getFirstChildElement(any(), any());
+
+        doAnswer(invocation -> siblings.get(invocation.getArgument(0)))
+                .when(cached).getNextSiblingElement(any(), any());
+
+        List<String> visited = new ArrayList<>();
+
+        assertTrue(cached.walkDepthFirst(root, 10, recorder(visited, Collections.emptyMap())));
+
+        assertEquals(Arrays.asList("a:1", "a1:2", "a1x:3", "a2:2", "b:1", "b1:2", "c:1"), visited);
+        assertEquals(request, cached.getCacheRequest());
+
+        verify(cached).getFirstChildElement(root, request);
+        verify(cached, never()).getFirstChildElement(any());
+        verify(cached, never()).getNextSiblingElement(any());
+    }
+}
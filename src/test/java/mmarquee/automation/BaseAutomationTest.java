@@ -21,6 +21,8 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.ResourceBundle;
 
 import org.junit.After;
@@ -31,8 +33,9 @@ import org.mockito.stubbing.Answer;
 import org.mockito.stubbing.Stubber;
 
 import com.sun.jna.Memory;
-import com.sun.jna.Native;
+import com.sun.jna.Platform;
 import com.sun.jna.Pointer;
+import com.sun.jna.platform.win32.OleAuto;
 import com.sun.jna.platform.win32.User32;
 import com.sun.jna.platform.win32.Variant;
 import com.sun.jna.platform.win32.WinDef;
@@ -120,9 +123,7 @@ public class BaseAutomationTest {
               Object[] args = invocation.getArguments();
               PointerByReference pr = (PointerByReference)args[0];
 
-              Pointer m = new Memory(Native.WCHAR_SIZE * (expectedString.length() + 1));
-              m.setWideString(0, expectedString);
-              pr.setValue(m);
+              pr.setValue(createBSTR(expectedString));
               return 0;
             }
           };
@@ -146,6 +147,30 @@ public class BaseAutomationTest {
      * Special Matchers & Helpers
      ***************************************/
 
+	/**
+	 * Creates a BSTR, as returned by the automation library.
+	 *
+	 * On Windows this is a real BSTR, as it will be freed by the code
+	 * under test, elsewhere it is laid out in the same way in native memory.
+	 *
+	 * @param value The string value
+	 * @return Pointer to the BSTR
+	 */
+	public static Pointer createBSTR(String value) {
+		if (Platform.isWindows()) {
+			return OleAuto.INSTANCE.SysAllocString(value).getPointer();
+		}
+
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_16LE);
+
+		Memory memory = new Memory(4 + bytes.length + 2);
+		memory.setInt(0, bytes.length);
+		memory.write(4, bytes, 0, bytes.length);
+		memory.setShort(4 + bytes.length, (short) 0);
+
+		return memory.share(4);
+	}
+
     public static void setElementClassName(IUIAutomationElement3 elem, String className) {
 		answerStringByReference(className).when(elem).getCurrentClassName(any());
 	}
@@ -154,6 +179,10 @@ public class BaseAutomationTest {
 		answerStringByReference(name).when(elem).getCurrentName(any());
 	}
 
+	public static void setElementCachedName(IUIAutomationElement3 elem, String name) {
+		answerStringByReference(name).when(elem).getCachedName(any());
+	}
+
 	public static Stubber answerStringByReference(String value) {
 		return doAnswer(new Answer<Integer>() {
             @Override
@@ -162,16 +191,43 @@ public class BaseAutomationTest {
                 Object[] args = invocation.getArguments();
                 PointerByReference reference = (PointerByReference)args[0];
 
-                Pointer pointer = new Memory(Native.WCHAR_SIZE * (value.length() +1));
-                pointer.setWideString(0, value);
-
-                reference.setValue(pointer);
+                reference.setValue(createBSTR(value));
 
                 return 0;
             }
         });
 	}
 
+	public static Stubber answerFindAt(final List<AutomationElement> elements) {
+		return doAnswer(new Answer<AutomationElement>() {
+            @Override
+            public AutomationElement answer(InvocationOnMock invocation) throws Throwable {
+                int index = (Integer)invocation.getArguments()[2];
+
+                return index < elements.size() ? elements.get(index) : null;
+            }
+        });
+	}
+
+	/**
+	 * Creates a walker whose view holds the elements, in order, as the
+	 * children of the root.
+	 */
+	public static AutomationTreeWalker walkerOver(final AutomationElement root,
+	                                              final List<AutomationElement> elements) throws AutomationException {
+		AutomationTreeWalker walker = Mockito.mock(AutomationTreeWalker.class);
+
+		if (!elements.isEmpty()) {
+			when(walker.getFirstChildElement(root)).thenReturn(elements.get(0));
+		}
+
+		for (int index = 0; index + 1 < elements.size(); index++) {
+			when(walker.getNextSiblingElement(elements.get(index))).thenReturn(elements.get(index + 1));
+		}
+
+		return walker;
+	}
+
 	public static Stubber answerIntByReference(int value) {
 		return doAnswer(new Answer<Integer>() {
             @Override
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+import static mmarquee.automation.BaseAutomationTest.answerIntByReference;
+import static mmarquee.automation.BaseAutomationTest.answerStringByReference;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.PointerByReference;
+
+import mmarquee.automation.uiautomation.IUIAutomationCacheRequest;
+import mmarquee.automation.uiautomation.IUIAutomationElement3;
+import mmarquee.automation.uiautomation.TreeScope;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Tests for the CacheRequest and the cached values of AutomationElement.
+ */
+public class CacheRequestTest {
+
+    @Test
+    public void testAddProperty_Adds_Each_Property() throws Exception {
+        IUIAutomationCacheRequest mocked = Mockito.mock(IUIAutomationCacheRequest.class);
+        CacheRequest request = new CacheRequest(mocked, Pointer.NULL);
+
+        CacheRequest result = request.addProperty(PropertyID.Name, PropertyID.ClassName);
+
+        assertSame(request, result);
+        verify(mocked).addProperty(PropertyID.Name.getValue());
+        verify(mocked).addProperty(PropertyID.ClassName.getValue());
+    }
+
+    @Test
+    public void testAddPattern_Adds_Pattern() throws Exception {
+        IUIAutomationCacheRequest mocked = Mockito.mock(IUIAutomationCacheRequest.class);
+        CacheRequest request = new CacheRequest(mocked, Pointer.NULL);
+
+        request.addPattern(PatternID.Invoke);
+
+        verify(mocked).addPattern(PatternID.Invoke.getValue());
+    }
+
+    @Test(expected = AutomationException.class)
+    public void testAddProperty_Throws_Exception_When_Automation_Fails() throws Exception {
+        IUIAutomationCacheRequest mocked = Mockito.mock(IUIAutomationCacheRequest.class);
+        when(mocked.addProperty(anyInt())).thenReturn(-1);
+
+        new CacheRequest(mocked, Pointer.NULL).addProperty(PropertyID.Name);
+    }
+
+    @Test
+    public void testGetTreeScope() throws Exception {
+        IUIAutomationCacheRequest mocked = Mockito.mock(IUIAutomationCacheRequest.class);
+        answerIntByReference(TreeScope.Children).when(mocked).getTreeScope(any());
+
+        TreeScope scope = new CacheRequest(mocked, Pointer.NULL).getTreeScope();
+
+        assertEquals(TreeScope.Children, scope.value);
+    }
+
+    @Test
+    public void testFindAll_With_CacheRequest_Calls_FindAllBuildCache() throws Exception {
+        IUIAutomationElement3 mockedElement = Mockito.mock(IUIAutomationElement3.class);
+        when(mockedElement.findAllBuildCache(any(), any(), any(), any())).thenReturn(-1);
+
+        AutomationElement element = new AutomationElement(mockedElement);
+        CacheRequest request = new CacheRequest(Mockito.mock(IUIAutomationCacheRequest.class), Pointer.NULL);
+
+        try {
+            element.findAll(new TreeScope(TreeScope.Descendants), new PointerByReference(), request);
+        } catch (AutomationException ex) {
+            // expected, as the mock fails
+        }
+
+        verify(mockedElement).findAllBuildCache(any(), any(), eq(Pointer.NULL), any());
+        verify(mockedElement, Mockito.never()).findAll(any(), any(), any());
+    }
+
+    @Test
+    public void testFindFirst_With_CacheRequest_Throws_The_Failure() throws Exception {
+        IUIAutomationElement3 mockedElement = Mockito.mock(IUIAutomationElement3.class);
+        when(mockedElement.findFirstBuildCache(any(), any(), any(), any()))
+                .thenReturn(StaleElementRecovery.UIA_E_ELEMENTNOTAVAILABLE);
+
+        AutomationElement element = new AutomationElement(mockedElement);
+        CacheRequest request = new CacheRequest(Mockito.mock(IUIAutomationCacheRequest.class), Pointer.NULL);
+
+        try {
+            element.findFirst(new TreeScope(TreeScope.Descendants), new PointerByReference(), request);
+            fail("Expected an AutomationException");
+        } catch (ElementNotFoundException ex) {
+            fail("The failure should not be reported as not found");
+        } catch (AutomationException ex) {
+            assertEquals(StaleElementRecovery.UIA_E_ELEMENTNOTAVAILABLE, ex.getErrorcode());
+        }
+    }
+
+    @Test(expected = ElementNotFoundException.class)
+    public void testFindFirst_With_CacheRequest_Throws_Not_Found_When_Nothing_Matches() throws Exception {
+        IUIAutomationElement3 mockedElement = Mockito.mock(IUIAutomationElement3.class);
+
+        AutomationElement element = new AutomationElement(mockedElement);
+        CacheRequest request = new CacheRequest(Mockito.mock(IUIAutomationCacheRequest.class), Pointer.NULL);
+
+        element.findFirst(new TreeScope(TreeScope.Descendants), new PointerByReference(), request);
+    }
+
+    @Test
+    public void testGetCachedName() throws Exception {
+        IUIAutomationElement3 mockedElement = Mockito.mock(IUIAutomationElement3.class);
+        answerStringByReference("cached").when(mockedElement).getCachedName(any());
+
+        AutomationElement element = new AutomationElement(mockedElement);
+
+        assertEquals("cached", element.getCachedName());
+        verify(mockedElement, Mockito.never()).getCurrentName(any());
+    }
+
+    @Test
+    public void testGetCachedClassName() throws Exception {
+        IUIAutomationElement3 mockedElement = Mockito.mock(IUIAutomationElement3.class);
+        answerStringByReference("Button").when(mockedElement).getCachedClassName(any());
+
+        assertEquals("Button", new AutomationElement(mockedElement).getCachedClassName());
+    }
+
+    @Test
+    public void testGetCachedControlType() throws Exception {
+        IUIAutomationElement3 mockedElement = Mockito.mock(IUIAutomationElement3.class);
+        answerIntByReference(ControlType.Button.getValue()).when(mockedElement).getCachedControlType(any());
+
+        assertEquals(ControlType.Button.getValue(), new AutomationElement(mockedElement).getCachedControlType());
+    }
+
+    @Test(expected = AutomationException.class)
+    public void testGetCachedPattern_Throws_Exception_When_Not_Cached() throws Exception {
+        IUIAutomationElement3 mockedElement = Mockito.mock(IUIAutomationElement3.class);
+        when(mockedElement.getCachedPattern(anyInt(), any())).thenReturn(-1);
+
+        new AutomationElement(mockedElement).getCachedPattern(PatternID.Invoke.getValue());
+    }
+
+    @Test
+    public void testGetCachedParent_Returns_Null_When_No_Parent() throws Exception {
+        IUIAutomationElement3 mockedElement = Mockito.mock(IUIAutomationElement3.class);
+
+        assertNull(new AutomationElement(mockedElement).getCachedParent());
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+import mmarquee.automation.uiautomation.IUIAutomationElement3;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Tests for the CanonicalElementMap.
+ */
+public class CanonicalElementMapTest {
+
+    private AutomationElement element(int... id) throws Exception {
+        AutomationElement element = Mockito.mock(AutomationElement.class);
+        when(element.getRuntimeId()).thenReturn(id);
+        return element;
+    }
+
+    @Test
+    public void testCanonicalize_Returns_Existing_Wrapper_And_Closes_New_One() throws Exception {
+        CanonicalElementMap map = new CanonicalElementMap();
+
+        AutomationElement first = element(42, 1);
+        AutomationElement second = element(42, 1);
+        AutomationElement other = element(42, 2);
+
+        assertSame(first, map.canonicalize(first));
+        assertSame(first, map.canonicalize(second));
+        assertSame(other, map.canonicalize(other));
+
+        verify(second).close();
+        verify(first, never()).close();
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    public void testCanonicalize_Replaces_Closed_Wrapper() throws Exception {
+        CanonicalElementMap map = new CanonicalElementMap();
+
+        AutomationElement first = element(42, 1);
+        AutomationElement second = element(42, 1);
+
+        map.canonicalize(first);
+        when(first.isClosed()).thenReturn(true);
+
+        assertSame(second, map.canonicalize(second));
+        assertSame(second, map.canonicalize(element(42, 1)));
+    }
+
+    @Test
+    public void testCanonicalize_List_Removes_Duplicates() throws Exception {
+        CanonicalElementMap map = new CanonicalElementMap();
+
+        AutomationElement a = element(1);
+        AutomationElement b = element(2);
+        AutomationElement noId = element((int[]) null);
+
+        List<AutomationElement> result = map.canonicalize(Arrays.asList(a, b, element(1), noId, element(2)));
+
+        assertEquals(Arrays.asList(a, b, noId), result);
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    public void testElement_Without_Runtime_Id_Only_Equals_Itself() throws Exception {
+        IUIAutomationElement3 raw = Mockito.mock(IUIAutomationElement3.class);
+        when(raw.getRuntimeId(any())).thenReturn(-1);
+
+        AutomationElement element = new AutomationElement(raw);
+        AutomationElement other = new AutomationElement(raw);
+
+        assertEquals(element, element);
+        assertNotEquals(element, other);
+        assertEquals(System.identityHashCode(element), element.hashCode());
+    }
+
+    @Test
+    public void testFailed_Runtime_Id_Is_Asked_For_Again() throws Exception {
+        IUIAutomationElement3 raw = Mockito.mock(IUIAutomationElement3.class);
+        when(raw.getRuntimeId(any())).thenReturn(-1).thenReturn(0);
+
+        AutomationElement element = new AutomationElement(raw);
+
+        try {
+            element.getRuntimeId();
+        } catch (AutomationException ex) {
+            assertEquals(-1, ex.getErrorcode());
+        }
+        element.getRuntimeId();
+        element.getRuntimeId();
+
+        verify(raw, Mockito.times(2)).getRuntimeId(any());
+    }
+
+    @Test
+    public void testHashCode_Does_Not_Call_Automation_Or_Change() throws Exception {
+        IUIAutomationElement3 raw = Mockito.mock(IUIAutomationElement3.class);
+
+        AutomationElement element = new AutomationElement(raw);
+        int hash = element.hashCode();
+
+        element.getRuntimeId();
+
+        assertEquals(hash, element.hashCode());
+        assertEquals(element, element);
+        verify(raw, times(1)).getRuntimeId(any());
+    }
+
+    @Test
+    public void testReplaced_Element_Keeps_Its_Identity() throws Exception {
+        IUIAutomationElement3 raw = Mockito.mock(IUIAutomationElement3.class);
+        IUIAutomationElement3 replacement = Mockito.mock(IUIAutomationElement3.class);
+
+        AutomationElement element = new AutomationElement(raw);
+        int hash = element.hashCode();
+
+        element.setElement(replacement);
+
+        assertEquals(hash, element.hashCode());
+        verify(replacement, never()).getRuntimeId(any());
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import com.sun.jna.platform.win32.COM.Unknown;
+
+import mmarquee.automation.uiautomation.PropertyConditionFlags;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Tests for the ConditionCache.
+ */
+public class ConditionCacheTest {
+
+    private ConditionCache cache;
+
+    private Map<Pointer, Unknown> references;
+
+    @Before
+    public void setUp() {
+        references = new HashMap<Pointer, Unknown>();
+
+        cache = Mockito.spy(new ConditionCache(2));
+
+        Mockito.doAnswer(new Answer<Unknown>() {
+            @Override
+            public Unknown answer(InvocationOnMock invocation) {
+                Pointer pointer = invocation.getArgument(0);
+                Unknown reference = references.get(pointer);
+                if (reference == null) {
+                    reference = Mockito.mock(Unknown.class);
+                    references.put(pointer, reference);
+                }
+                return reference;
+            }
+        }).when(cache).makeUnknown(any(Pointer.class));
+    }
+
+    private ConditionReference createCondition() {
+        ConditionReference condition = new ConditionReference();
+        condition.setValue(new Memory(8));
+        return condition;
+    }
+
+    @Test
+    public void testKeys_Are_Structural() {
+        ConditionKey name = ConditionKey.property(PropertyID.Name.getValue(), "OK");
+        ConditionKey button = ConditionKey.property(PropertyID.ControlType.getValue(), ControlType.Button.getValue());
+
+        assertEquals(ConditionKey.and(name, button),
+                ConditionKey.and(ConditionKey.property(PropertyID.Name.getValue(), "OK"),
+                        ConditionKey.property(PropertyID.ControlType.getValue(), ControlType.Button.getValue())));
+        assertEquals(ConditionKey.and(name, button).hashCode(),
+                ConditionKey.and(ConditionKey.property(PropertyID.Name.getValue(), "OK"), button).hashCode());
+
+        assertNotEquals(ConditionKey.and(name, button), ConditionKey.or(name, button));
+        assertNotEquals(ConditionKey.and(name, button), ConditionKey.and(button, name));
+        assertNotEquals(ConditionKey.property(PropertyID.Name.getValue(), "1"),
+                ConditionKey.property(PropertyID.Name.getValue(), 1));
+        assertNotEquals(name,
+                ConditionKey.property(PropertyID.Name.getValue(), "OK", PropertyConditionFlags.IgnoreCase));
+        assertEquals(name,
+                ConditionKey.property(PropertyID.Name.getValue(), "OK", PropertyConditionFlags.None));
+    }
+
+    @Test
+    public void testKeys_Of_Unknown_Conditions_Are_Null() {
+        assertNull(ConditionKey.and(ConditionKey.TRUE, null));
+        assertNull(ConditionKey.or(null, ConditionKey.TRUE));
+        assertNull(ConditionKey.not(null));
+    }
+
+    @Test
+    public void testGet_Counts_Miss() {
+        assertNull(cache.get(ConditionKey.TRUE));
+
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testGet_Returns_New_Reference_To_Cached_Condition() {
+        ConditionReference condition = createCondition();
+
+        cache.put(ConditionKey.TRUE, condition);
+
+        ConditionReference first = cache.get(ConditionKey.TRUE);
+        ConditionReference second = cache.get(ConditionKey.TRUE);
+
+        assertNotSame(first, second);
+        assertEquals(condition.getValue(), first.getValue());
+        assertEquals(ConditionKey.TRUE, first.getKey());
+        assertEquals(2, cache.getHitCount());
+
+        // One reference for the cache, and one for each user
+        verify(references.get(condition.getValue()), times(3)).AddRef();
+    }
+
+    @Test
+    public void testClosing_Reference_Does_Not_Evict() {
+        ConditionReference condition = createCondition();
+
+        cache.put(ConditionKey.TRUE, condition);
+        cache.get(ConditionKey.TRUE).close();
+
+        verify(references.get(condition.getValue()), times(1)).Release();
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testPut_Evicts_Least_Recently_Used() {
+        ConditionReference trueCondition = createCondition();
+        ConditionReference falseCondition = createCondition();
+        ConditionReference other = createCondition();
+
+        ConditionKey otherKey = ConditionKey.property(PropertyID.Name.getValue(), "other");
+
+        cache.put(ConditionKey.TRUE, trueCondition);
+        cache.put(ConditionKey.FALSE, falseCondition);
+        cache.get(ConditionKey.TRUE);
+        cache.put(otherKey, other);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        verify(references.get(falseCondition.getValue()), times(1)).Release();
+        verify(references.get(trueCondition.getValue()), never()).Release();
+
+        assertNull(cache.get(ConditionKey.FALSE));
+    }
+
+    @Test
+    public void testPut_Ignores_Unknown_Condition() {
+        cache.put(null, createCondition());
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testPut_Ignores_Unset_Condition() {
+        cache.put(ConditionKey.TRUE, new ConditionReference());
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testSetMaxSize_Zero_Disables_Cache() {
+        ConditionReference condition = createCondition();
+
+        cache.put(ConditionKey.TRUE, condition);
+        cache.setMaxSize(0);
+
+        verify(references.get(condition.getValue()), times(1)).Release();
+
+        cache.put(ConditionKey.TRUE, condition);
+
+        assertNull(cache.get(ConditionKey.TRUE));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testClear_Releases_All() {
+        ConditionReference condition = createCondition();
+
+        cache.put(ConditionKey.TRUE, condition);
+        cache.clear();
+
+        verify(references.get(condition.getValue()), times(1)).Release();
+        assertFalse(cache.size() > 0);
+    }
+}
@@ -54,4 +54,32 @@ public class ControlTypeTest {
 		ControlType type = ControlType.fromValue(-123);
 		assertEquals(ControlType.None, type);
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void fromValue_All_Types() throws Exception {
+		for (ControlType type : ControlType.values()) {
+			assertEquals(type, ControlType.fromValue(type.getValue()));
+		}
+	}
+
+	@Test
+	public void fromValue_Above_Range() throws Exception {
+		assertEquals(ControlType.None, ControlType.fromValue(ControlType.AppBar.getValue() + 1));
+	}
+
+	@Test
+	public void propertyID_fromValue() throws Exception {
+		for (PropertyID property : PropertyID.values()) {
+			assertEquals(property, PropertyID.fromValue(property.getValue()));
+		}
+		assertNull(PropertyID.fromValue(12));
+	}
+
+	@Test
+	public void patternID_fromValue() throws Exception {
+		for (PatternID pattern : PatternID.values()) {
+			assertEquals(pattern, PatternID.fromValue(pattern.getValue()));
+		}
+		assertNull(PatternID.fromValue(50000));
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import mmarquee.automation.uiautomation.IUIAutomationElement3;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Tests for the EventDispatcher.
+ */
+public class EventDispatcherTest {
+
+    @Test
+    public void testDispatch_Delivers_In_Order() throws Exception {
+        final StringBuilder order = new StringBuilder();
+        final CountDownLatch latch = new CountDownLatch(3);
+
+        AutomationEventListener listener = (sender, eventId) -> {
+            order.append(eventId.getValue()).append(' ');
+            latch.countDown();
+        };
+
+        EventDispatcher dispatcher = new EventDispatcher(8);
+
+        dispatcher.dispatch(listener, null, EventID.MenuOpened);
+        dispatcher.dispatch(listener, null, EventID.Invoke_Invoked);
+        dispatcher.dispatch(listener, null, EventID.MenuClosed);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals("20003 20009 20007 ", order.toString());
+
+        dispatcher.shutdown();
+    }
+
+    @Test
+    public void testDispatch_Drops_Events_When_Full() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        AutomationEventListener listener = (sender, eventId) -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        EventDispatcher dispatcher = new EventDispatcher(1);
+
+        // The first is taken by the dispatch thread, and the second fills the queue
+        assertTrue(dispatcher.dispatch(listener, null, EventID.MenuOpened));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertTrue(dispatcher.dispatch(listener, null, EventID.MenuOpened));
+
+        IUIAutomationElement3 mocked = Mockito.mock(IUIAutomationElement3.class);
+
+        assertFalse(dispatcher.dispatch(listener, new AutomationElement(mocked), EventID.MenuOpened));
+        assertEquals(1, dispatcher.getDroppedCount());
+
+        // The dropped element is not going to be seen by the listener
+        verify(mocked).Release();
+
+        release.countDown();
+        dispatcher.shutdown();
+    }
+
+    @Test
+    public void testDispatch_Continues_After_Listener_Fails() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(2);
+
+        AutomationEventListener listener = (sender, eventId) -> {
+            latch.countDown();
+            throw new IllegalStateException("Failed");
+        };
+
+        EventDispatcher dispatcher = new EventDispatcher(4);
+
+        dispatcher.dispatch(listener, null, EventID.MenuOpened);
+        dispatcher.dispatch(listener, null, EventID.MenuClosed);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+        dispatcher.shutdown();
+    }
+}
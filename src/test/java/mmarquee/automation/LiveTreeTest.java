@@ -0,0 +1,215 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Tests for the LiveTree.
+ */
+public class LiveTreeTest {
+
+    private final Map<String, AutomationElement> elements = new HashMap<>();
+    private final Map<String, AutomationElement> copies = new HashMap<>();
+
+    private UIAutomation automation;
+    private AutomationElement root;
+    private AutomationTreeWalker walker;
+    private LiveTree tree;
+
+    /**
+     * Creates a cached element, with the runtime id {id}.
+     */
+    private AutomationElement cached(int id, String name, AutomationElement... kids) throws Exception {
+        AutomationElement element = Mockito.mock(AutomationElement.class, name);
+        when(element.getCachedPropertyValue(PropertyID.RuntimeId.getValue())).thenReturn(new int[] {id});
+        when(element.getPropertyValue(PropertyID.RuntimeId.getValue())).thenReturn(new int[] {id});
+        when(element.getCachedName()).thenReturn(name);
+        when(element.getCachedAutomationId()).thenReturn("id" + id);
+        when(element.getCachedControlType()).thenReturn(ControlType.Pane.getValue());
+        when(element.getCachedChildren()).thenReturn(new ArrayList<>(Arrays.asList(kids)));
+        elements.put(name, element);
+
+        AutomationElement copy = Mockito.mock(AutomationElement.class, name + " copy");
+        when(element.copy()).thenReturn(copy);
+        copies.put(name, copy);
+        return element;
+    }
+
+    /**
+     * Creates an element as passed to an event, with the runtime id {id}.
+     */
+    private AutomationElement sender(int id) throws Exception {
+        AutomationElement element = Mockito.mock(AutomationElement.class);
+        when(element.getPropertyValue(PropertyID.RuntimeId.getValue())).thenReturn(new int[] {id});
+        return element;
+    }
+
+    @Before
+    public void setup() throws Exception {
+        automation = Mockito.mock(UIAutomation.class);
+        walker = Mockito.mock(AutomationTreeWalker.class);
+
+        when(automation.createCacheRequest()).thenAnswer(invocation -> Mockito.mock(CacheRequest.class,
+                call -> call.getMethod().getReturnType() == CacheRequest.class ? call.getMock() : null));
+        when(automation.addEventHandler(any(), any(), any(), any())).thenReturn(Mockito.mock(EventSubscription.class));
+        when(automation.addPropertyChangedEventHandler(any(), any(), any(), any()))
+                .thenReturn(Mockito.mock(EventSubscription.class));
+        when(automation.getControlViewWalker()).thenReturn(walker);
+
+        // root(1) -> list(2) (item(3), item(4)), ok(5)
+        AutomationElement loaded = cached(1, "root",
+                cached(2, "list", cached(3, "one"), cached(4, "two")),
+                cached(5, "ok"));
+
+        root = Mockito.mock(AutomationElement.class);
+        when(root.buildUpdatedCache(any())).thenReturn(loaded);
+
+        tree = new LiveTree(automation, root, PropertyID.ItemStatus);
+    }
+
+    @Test
+    public void testLoads_Whole_Tree_Once() throws Exception {
+        assertEquals(5, tree.size());
+        assertSame(copies.get("two"), tree.findByName("two").get(0));
+        assertSame(copies.get("ok"), tree.findByAutomationId("id5").get(0));
+        assertSame(copies.get("list"), tree.findByRuntimeId(new int[] {2}));
+        assertEquals(Collections.emptyList(), tree.findByName("three"));
+
+        verify(root, times(1)).buildUpdatedCache(any());
+        verify(automation, times(3)).addEventHandler(any(), any(), any(), any());
+        assertEquals(0, tree.getRefetchCount());
+    }
+
+    @Test
+    public void testProperty_Change_Is_Applied_Without_Fetching() throws Exception {
+        tree.propertyChanged(sender(3), PropertyID.Name.getValue(), "uno");
+
+        assertEquals(Collections.emptyList(), tree.findByName("one"));
+        assertSame(copies.get("one"), tree.findByName("uno").get(0));
+        assertEquals("uno", tree.snapshot().getName(2));
+
+        tree.propertyChanged(sender(3), PropertyID.ItemStatus.getValue(), "busy");
+        assertEquals("busy", tree.snapshot().getPropertyValue(2, PropertyID.ItemStatus));
+
+        assertEquals(0, tree.getRefetchCount());
+        assertEquals(2, tree.getEventCount());
+    }
+
+    @Test
+    public void testChild_Removed_Is_Applied_Without_Fetching() throws Exception {
+        AutomationElement list = sender(2);
+
+        tree.structureChanged(list, StructureChangeType.ChildRemoved, new int[] {4});
+
+        assertEquals(4, tree.size());
+        assertNull(tree.findByRuntimeId(new int[] {4}));
+        assertEquals(0, tree.getRefetchCount());
+        verify(list).close();
+        verify(elements.get("two")).close();
+    }
+
+    @Test
+    public void testChild_Added_Refetches_Parent_Lazily() throws Exception {
+        AutomationElement added = sender(6);
+        AutomationElement parent = sender(2);
+        when(walker.getParentElement(added)).thenReturn(parent);
+
+        AutomationElement list = elements.get("list");
+        AutomationElement before = tree.findByRuntimeId(new int[] {2});
+        AutomationElement refetched = cached(2, "list",
+                cached(3, "one"), cached(4, "two"), cached(6, "three"));
+        when(list.buildUpdatedCache(any())).thenReturn(refetched);
+
+        tree.structureChanged(added, StructureChangeType.ChildAdded, new int[] {6});
+
+        assertEquals(1, tree.getStaleCount());
+        assertEquals(0, tree.getRefetchCount());
+
+        assertEquals(6, tree.size());
+        assertSame(copies.get("three"), tree.findByName("three").get(0));
+        assertSame(copies.get("list"), tree.findByRuntimeId(new int[] {2}));
+        assertEquals(1, tree.getRefetchCount());
+        assertEquals(0, tree.getStaleCount());
+
+        verify(list).close();
+        verify(added).close();
+        verify(parent).close();
+        verify(walker).close();
+
+        // The copy handed out before the refetch belongs to the caller
+        verify(before, never()).close();
+    }
+
+    @Test
+    public void testElement_That_Has_Gone_Is_Removed_On_Refetch() throws Exception {
+        when(elements.get("list").buildUpdatedCache(any())).thenThrow(new AutomationException(-1));
+
+        tree.structureChanged(sender(2), StructureChangeType.ChildrenInvalidated, null);
+
+        assertEquals(2, tree.size());
+        assertNull(tree.findByRuntimeId(new int[] {3}));
+    }
+
+    @Test
+    public void testWindow_Closed_Removes_Subtree() throws Exception {
+        tree.windowClosed(sender(2));
+
+        assertEquals(2, tree.size());
+        assertTrue(tree.findByName("one").isEmpty());
+    }
+
+    @Test
+    public void testClose_Removes_Handlers() throws Exception {
+        List<EventSubscription> subscriptions = new ArrayList<>();
+        when(automation.addEventHandler(any(), any(), any(), any())).thenAnswer(invocation -> {
+            EventSubscription subscription = Mockito.mock(EventSubscription.class);
+            subscriptions.add(subscription);
+            return subscription;
+        });
+
+        LiveTree other = new LiveTree(automation, root);
+        other.close();
+
+        assertEquals(3, subscriptions.size());
+        for (EventSubscription subscription : subscriptions) {
+            verify(subscription).close();
+        }
+        verify(elements.get("ok"), Mockito.atLeastOnce()).close();
+    }
+}
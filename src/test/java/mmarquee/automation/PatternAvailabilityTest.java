@@ -0,0 +1,112 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+import mmarquee.automation.uiautomation.IUIAutomationElement3;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Tests for fetching the pattern availability of an element.
+ */
+public class PatternAvailabilityTest {
+
+    private UIAutomation automation;
+    private CacheRequest request;
+    private AutomationElement cached;
+    private AutomationElement element;
+
+    @Before
+    public void setup() throws Exception {
+        automation = Mockito.mock(UIAutomation.class);
+        request = Mockito.mock(CacheRequest.class);
+        when(automation.getCacheRequest(PatternAvailability.getProperties())).thenReturn(request);
+
+        cached = Mockito.mock(AutomationElement.class);
+        when(cached.getCachedPropertyValue(anyInt())).thenReturn(false);
+        when(cached.getCachedPropertyValue(PropertyID.IsValuePatternAvailable.getValue())).thenReturn(true);
+        when(cached.getCachedPropertyValue(PropertyID.IsTextPatternAvailable.getValue())).thenReturn(true);
+
+        element = Mockito.spy(new AutomationElement(Mockito.mock(IUIAutomationElement3.class)));
+        doReturn(cached).when(element).buildUpdatedCache(any());
+    }
+
+    @Test
+    public void testGetPatternAvailability_Reads_All_Patterns_In_One_Call() throws Exception {
+        int bits = element.getPatternAvailability(automation);
+
+        assertTrue(PatternAvailability.isAvailable(bits, PropertyID.IsValuePatternAvailable));
+        assertTrue(PatternAvailability.isAvailable(bits, PropertyID.IsTextPatternAvailable));
+        assertFalse(PatternAvailability.isAvailable(bits, PropertyID.IsInvokePatternAvailable));
+        assertEquals(PatternAvailability.FETCHED, bits & PatternAvailability.FETCHED);
+
+        verify(element, times(1)).buildUpdatedCache(request);
+        verify(cached).close();
+    }
+
+    @Test
+    public void testGetPatternAvailability_Is_Only_Fetched_Once() throws Exception {
+        int first = element.getPatternAvailability(automation);
+        int second = element.getPatternAvailability(automation);
+
+        assertEquals(first, second);
+        verify(element, times(1)).buildUpdatedCache(any());
+    }
+
+    @Test
+    public void testGetPatternAvailability_Is_Fetched_Again_For_A_New_Element() throws Exception {
+        element.getPatternAvailability(automation);
+        element.setElement(Mockito.mock(IUIAutomationElement3.class));
+        element.getPatternAvailability(automation);
+
+        verify(element, times(2)).buildUpdatedCache(any());
+    }
+
+    @Test
+    public void testGetPatternAvailability_Returns_Zero_Without_A_Request() throws Exception {
+        when(automation.getCacheRequest(PatternAvailability.getProperties())).thenReturn(null);
+
+        assertEquals(0, element.getPatternAvailability(automation));
+    }
+
+    @Test
+    public void testBits_Match_The_Properties() {
+        int bits = PatternAvailability.bits(PatternID.Value, PatternID.Window);
+
+        assertTrue(PatternAvailability.isAvailable(bits, PropertyID.IsValuePatternAvailable));
+        assertTrue(PatternAvailability.isAvailable(bits, PropertyID.IsWindowPatternAvailable));
+        assertFalse(PatternAvailability.isAvailable(bits, PropertyID.IsSelectionPatternAvailable));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIsAvailable_Throws_For_Other_Properties() {
+        PatternAvailability.isAvailable(0, PropertyID.Name);
+    }
+}
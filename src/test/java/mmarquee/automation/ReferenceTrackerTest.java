@@ -0,0 +1,155 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.sun.jna.platform.win32.COM.IUnknown;
+
+import mmarquee.automation.uiautomation.IUIAutomationElement3;
+import mmarquee.automation.uiautomation.IUIAutomationTreeWalker;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Tests for the ReferenceTracker.
+ */
+public class ReferenceTrackerTest {
+
+    @Test
+    public void testClose_Releases_Reference_Once() {
+        IUIAutomationElement3 mocked = Mockito.mock(IUIAutomationElement3.class);
+        AutomationElement element = new AutomationElement(mocked);
+
+        long closed = ReferenceTracker.getClosedCount();
+
+        element.close();
+        element.close();
+
+        verify(mocked, times(1)).Release();
+        assertEquals(closed + 1, ReferenceTracker.getClosedCount());
+    }
+
+    @Test
+    public void testSetElement_Releases_Previous_Element() {
+        IUIAutomationElement3 first = Mockito.mock(IUIAutomationElement3.class);
+        IUIAutomationElement3 second = Mockito.mock(IUIAutomationElement3.class);
+
+        AutomationElement element = new AutomationElement(first);
+        element.setElement(second);
+
+        verify(first, times(1)).Release();
+        verify(second, times(0)).Release();
+    }
+
+    @Test
+    public void testCopy_Takes_Its_Own_Reference() {
+        IUIAutomationElement3 mocked = Mockito.mock(IUIAutomationElement3.class);
+        AutomationElement element = new AutomationElement(mocked);
+
+        AutomationElement copy = element.copy();
+        element.close();
+
+        verify(mocked, times(1)).AddRef();
+        verify(mocked, times(1)).Release();
+        assertFalse(copy.isClosed());
+
+        copy.close();
+
+        verify(mocked, times(2)).Release();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testClosed_Element_Cannot_Be_Used() throws AutomationException {
+        AutomationElement element = new AutomationElement(Mockito.mock(IUIAutomationElement3.class));
+
+        element.close();
+
+        assertTrue(element.isClosed());
+        element.getName();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testClosed_Condition_Cannot_Be_Used() {
+        ConditionReference condition = new ConditionReference().track();
+
+        condition.close();
+
+        assertTrue(condition.isClosed());
+        condition.getValue();
+    }
+
+    @Test
+    public void testClose_Walker_Releases_Reference_Once() {
+        IUIAutomationTreeWalker mocked = Mockito.mock(IUIAutomationTreeWalker.class);
+        AutomationTreeWalker walker = new AutomationTreeWalker(mocked);
+
+        walker.close();
+        walker.close();
+
+        verify(mocked, times(1)).Release();
+    }
+
+    @Test
+    public void testTrack_Null_Target_Returns_Null() {
+        assertEquals(null, ReferenceTracker.track(new Object(), null));
+    }
+
+    @Test
+    public void testClose_Unset_Condition_Does_Nothing() {
+        ConditionReference condition = new ConditionReference().track();
+
+        condition.close();
+    }
+
+    @Test
+    public void testHandle_Reports_Released() {
+        IUnknown mocked = Mockito.mock(IUnknown.class);
+        Object owner = new Object();
+
+        ReferenceTracker.Handle handle = ReferenceTracker.track(owner, mocked);
+        assertFalse(handle.isReleased());
+
+        ReferenceTracker.close(handle);
+        assertTrue(handle.isReleased());
+    }
+
+    @Test
+    public void testDrain_Releases_Collected_Owners() throws Exception {
+        IUnknown mocked = Mockito.mock(IUnknown.class);
+
+        long leaked = ReferenceTracker.getLeakedCount();
+
+        ReferenceTracker.track(new Object(), mocked);
+
+        for (int loop = 0; loop < 50 && ReferenceTracker.getLeakedCount() == leaked; loop++) {
+            System.gc();
+            Thread.sleep(10);
+            ReferenceTracker.drain();
+        }
+
+        verify(mocked, times(1)).Release();
+        assertTrue(ReferenceTracker.getLeakedCount() > leaked);
+    }
+}
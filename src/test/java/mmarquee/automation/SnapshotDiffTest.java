@@ -0,0 +1,121 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+import com.sun.jna.platform.win32.WinDef;
+import mmarquee.automation.SnapshotDiff.Change;
+import mmarquee.automation.SnapshotDiff.ChangeType;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Tests for comparing snapshots.
+ */
+public class SnapshotDiffTest {
+
+    private static WinDef.RECT rect(int top) {
+        WinDef.RECT rect = new WinDef.RECT();
+        rect.left = 0;
+        rect.top = top;
+        rect.right = 100;
+        rect.bottom = top + 10;
+        return rect;
+    }
+
+    private static List<String> describe(SnapshotDiff diff) {
+        List<String> result = new ArrayList<>();
+        for (Change change : diff.getChanges()) {
+            result.add(change.toString());
+        }
+        return result;
+    }
+
+    @Test
+    public void testDiff_Same_Snapshot_Is_Empty() {
+        AutomationSnapshot.Builder builder = new AutomationSnapshot.Builder(PropertyID.ValueValue);
+        int window = builder.add(-1, new int[] {1}, ControlType.Window.getValue(), "Main", null, "main", rect(0), 0, "");
+        builder.add(window, new int[] {2}, ControlType.Edit.getValue(), "Name", null, "name", rect(10), 0, "abc");
+        AutomationSnapshot snapshot = builder.build();
+
+        SnapshotDiff diff = snapshot.diff(snapshot);
+
+        assertTrue(diff.isEmpty());
+        assertEquals(1, diff.getMatch(1));
+    }
+
+    @Test
+    public void testDiff_Matches_By_RuntimeId() {
+        AutomationSnapshot.Builder first = new AutomationSnapshot.Builder(PropertyID.ValueValue);
+        int list = first.add(-1, new int[] {1}, ControlType.List.getValue(), "List", null, null, rect(0), 0, (Object) null);
+        first.add(list, new int[] {2}, ControlType.ListItem.getValue(), "One", null, null, rect(10), 0, "1");
+        first.add(list, new int[] {3}, ControlType.ListItem.getValue(), "Two", null, null, rect(20), 0, "2");
+        first.add(list, new int[] {4}, ControlType.ListItem.getValue(), "Three", null, null, rect(30), 0, "3");
+
+        // One removed, Two renamed and moved up, Three has a new value, Four added
+        AutomationSnapshot.Builder second = new AutomationSnapshot.Builder(PropertyID.ValueValue);
+        list = second.add(-1, new int[] {1}, ControlType.List.getValue(), "List", null, null, rect(0), 0, (Object) null);
+        second.add(list, new int[] {3}, ControlType.ListItem.getValue(), "Deux", null, null, rect(10), 0, "2");
+        second.add(list, new int[] {4}, ControlType.ListItem.getValue(), "Three", null, null, rect(30), 0, "three");
+        second.add(list, new int[] {5}, ControlType.ListItem.getValue(), "Four", null, null, rect(40), 0, "4");
+
+        SnapshotDiff diff = first.build().diff(second.build());
+
+        assertEquals(Arrays.asList(
+                "RENAMED ListItem 'Deux': 'Two' -> 'Deux'",
+                "BOUNDS_CHANGED ListItem 'Deux': (0,20,100,30) -> (0,10,100,20)",
+                "VALUE_CHANGED ListItem 'Three' ValueValue: '3' -> 'three'",
+                "ADDED ListItem 'Four'",
+                "REMOVED ListItem 'One'"), describe(diff));
+
+        assertEquals(2, diff.getMatch(1));
+        assertEquals(1, diff.getChanges(ChangeType.ADDED).size());
+    }
+
+    @Test
+    public void testDiff_Falls_Back_To_Position_Without_RuntimeIds() {
+        AutomationSnapshot.Builder first = new AutomationSnapshot.Builder();
+        int window = first.add(-1, null, ControlType.Window.getValue(), "Main", null, null, rect(0), 0);
+        int pane = first.add(window, null, ControlType.Pane.getValue(), "", null, "left", rect(0), 0);
+        first.add(pane, null, ControlType.Button.getValue(), "A", null, null, rect(10), 0);
+        first.add(pane, null, ControlType.Button.getValue(), "B", null, null, rect(20), 0);
+        first.add(window, null, ControlType.Pane.getValue(), "", null, "right", rect(0), 0);
+
+        AutomationSnapshot.Builder second = new AutomationSnapshot.Builder();
+        window = second.add(-1, null, ControlType.Window.getValue(), "Main", null, null, rect(0), 0);
+        second.add(window, null, ControlType.Pane.getValue(), "", null, "right", rect(0), 0);
+        pane = second.add(window, null, ControlType.Pane.getValue(), "", null, "left", rect(0), 0);
+        second.add(pane, null, ControlType.Button.getValue(), "A", null, null, rect(10), 0);
+        second.add(pane, null, ControlType.Button.getValue(), "C", null, null, rect(20), 0);
+        second.add(pane, null, ControlType.Edit.getValue(), "D", null, null, rect(30), 0);
+
+        SnapshotDiff diff = first.build().diff(second.build());
+
+        assertEquals(4, diff.getMatch(1));
+        assertEquals(1, diff.getMatch(2));
+        assertEquals(Arrays.asList(
+                "RENAMED Button 'C': 'B' -> 'C'",
+                "ADDED Edit 'D'"), describe(diff));
+    }
+}
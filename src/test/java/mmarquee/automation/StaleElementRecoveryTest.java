@@ -0,0 +1,182 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.platform.win32.COM.Unknown;
+import com.sun.jna.platform.win32.Guid;
+import com.sun.jna.platform.win32.WinNT;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.PointerByReference;
+import mmarquee.automation.pattern.Value;
+import mmarquee.automation.uiautomation.IUIAutomationElement3;
+import mmarquee.automation.uiautomation.IUIAutomationValuePattern;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Tests for recovering stale elements.
+ */
+public class StaleElementRecoveryTest {
+
+    private IUIAutomationElement3 stale;
+
+    @Before
+    public void setup() {
+        StaleElementRecovery.resetCounts();
+
+        stale = Mockito.mock(IUIAutomationElement3.class);
+        when(stale.getCurrentControlType(any())).thenReturn(StaleElementRecovery.UIA_E_ELEMENTNOTAVAILABLE);
+        when(stale.getRuntimeId(any())).thenReturn(StaleElementRecovery.UIA_E_ELEMENTNOTAVAILABLE);
+    }
+
+    @After
+    public void tearDown() {
+        StaleElementRecovery.setEnabled(true);
+    }
+
+    private static Waiter.Search search(final AutomationElement result) {
+        return new Waiter.Search() {
+            public AutomationElement find() {
+                return result;
+            }
+        };
+    }
+
+    @Test
+    public void testStale_Element_Is_Found_Again_And_Call_Retried() throws Exception {
+        IUIAutomationElement3 fresh = Mockito.mock(IUIAutomationElement3.class);
+        when(fresh.getCurrentControlType(any())).thenAnswer(invocation -> {
+            invocation.<IntByReference>getArgument(0).setValue(ControlType.Button.getValue());
+            return 0;
+        });
+
+        AutomationElement element = new AutomationElement(stale);
+        element.setLocator(Mockito.mock(AutomationElement.class), search(new AutomationElement(fresh)));
+
+        assertEquals(ControlType.Button.getValue(), element.getControlType());
+        assertEquals(ControlType.Button.getValue(), element.getControlType());
+
+        verify(stale, times(1)).getCurrentControlType(any());
+        verify(stale).Release();
+        verify(fresh).AddRef();
+        verify(fresh, times(2)).getCurrentControlType(any());
+        assertEquals(1, StaleElementRecovery.getRecoveredCount());
+    }
+
+    @Test
+    public void testElement_That_Cannot_Be_Found_Again_Fails() throws Exception {
+        AutomationElement element = new AutomationElement(stale);
+        element.setLocator(Mockito.mock(AutomationElement.class), search(null));
+
+        try {
+            element.getControlType();
+            fail("Expected the call to fail");
+        } catch (AutomationException ex) {
+            assertEquals(StaleElementRecovery.UIA_E_ELEMENTNOTAVAILABLE, ex.getErrorcode());
+        }
+
+        assertEquals(1, StaleElementRecovery.getFailedCount());
+        assertEquals(0, StaleElementRecovery.getRecoveredCount());
+    }
+
+    @Test
+    public void testNothing_Is_Retried_When_Disabled_Or_Without_Locator() throws Exception {
+        AutomationElement unlocated = new AutomationElement(stale);
+        assertFalse(unlocated.recover());
+
+        StaleElementRecovery.setEnabled(false);
+
+        AutomationElement element = new AutomationElement(stale);
+        element.setLocator(Mockito.mock(AutomationElement.class), search(new AutomationElement(stale)));
+
+        try {
+            element.getControlType();
+            fail("Expected the call to fail");
+        } catch (AutomationException ex) {
+            assertEquals(0, StaleElementRecovery.getRecoveredCount() + StaleElementRecovery.getFailedCount());
+        }
+    }
+
+    @Test
+    public void testLocator_Path_Follows_Search_Roots() throws Exception {
+        AutomationElement window = new AutomationElement(stale);
+        AutomationElement pane = new AutomationElement(stale);
+        AutomationElement button = new AutomationElement(stale);
+
+        pane.setLocator(window, search(null));
+        button.setLocator(pane, search(null));
+
+        assertSame(pane, button.getSearchRoot());
+
+        List<int[]> path = button.getLocatorPath();
+        assertEquals(2, path.size());
+        assertNull(path.get(0));
+    }
+
+    @Test
+    public void testPattern_Call_On_Stale_Element_Is_Retried_On_The_New_Pattern() throws Exception {
+        IUIAutomationElement3 fresh = Mockito.mock(IUIAutomationElement3.class);
+        when(fresh.getCurrentPattern(anyInt(), any())).thenAnswer(invocation -> {
+            invocation.<PointerByReference>getArgument(1).setValue(new Pointer(2));
+            return 0;
+        });
+
+        AutomationElement element = new AutomationElement(stale);
+        element.setLocator(Mockito.mock(AutomationElement.class), search(new AutomationElement(fresh)));
+
+        IUIAutomationValuePattern stalePattern = Mockito.mock(IUIAutomationValuePattern.class);
+        when(stalePattern.getCurrentIsReadOnly(any())).thenReturn(StaleElementRecovery.UIA_E_ELEMENTNOTAVAILABLE);
+        IUIAutomationValuePattern freshPattern = Mockito.mock(IUIAutomationValuePattern.class);
+
+        Unknown unknown = Mockito.mock(Unknown.class);
+        when(unknown.QueryInterface(any(Guid.REFIID.class), any(PointerByReference.class)))
+                .thenReturn(new WinNT.HRESULT(0));
+
+        Value pattern = Mockito.spy(new Value());
+        doReturn(unknown).when(pattern).makeUnknown(any());
+        doReturn(stalePattern).doReturn(freshPattern).when(pattern).convertPointerToInterface(any());
+
+        pattern.setSource(element, PatternID.Value.getValue());
+
+        pattern.isReadOnly();
+        pattern.isReadOnly();
+
+        verify(stalePattern, times(1)).getCurrentIsReadOnly(any());
+        verify(freshPattern, times(2)).getCurrentIsReadOnly(any());
+        verify(fresh).getCurrentPattern(Mockito.eq(PatternID.Value.getValue()), any());
+        assertEquals(1, StaleElementRecovery.getRecoveredCount());
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import mmarquee.automation.uiautomation.IUIAutomationElement3;
+import mmarquee.automation.uiautomation.TreeScope;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Tests for the Waiter, driving the events by hand.
+ */
+public class WaiterTest {
+
+    /**
+     * Counts the searches, and finds the element on the given search.
+     */
+    private static class CountingSearch extends Waiter.Search {
+        final AtomicInteger count = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final int foundOn;
+        final AutomationElement element;
+
+        CountingSearch(int foundOn, AutomationElement element) {
+            this.foundOn = foundOn;
+            this.element = element;
+        }
+
+        @Override
+        public AutomationElement find() throws AutomationException {
+            started.countDown();
+            if (count.incrementAndGet() == foundOn) {
+                return element;
+            }
+            throw new ElementNotFoundException();
+        }
+    }
+
+    private static AutomationElement element() {
+        return new AutomationElement(Mockito.mock(IUIAutomationElement3.class));
+    }
+
+    private static void raiseLater(final Waiter waiter,
+                                   final CountingSearch search,
+                                   final AutomationElement sender,
+                                   final EventID eventId) {
+        new Thread(() -> {
+            try {
+                search.started.await();
+                Thread.sleep(50);
+            } catch (InterruptedException ex) {
+                return;
+            }
+            waiter.onEvent(sender, eventId);
+        }).start();
+    }
+
+    @Test
+    public void testWaitFor_Polls_Given_Number_Of_Times_Without_Events() {
+        Waiter waiter = new Waiter(null, null);
+        CountingSearch search = new CountingSearch(-1, null);
+
+        assertNull(waiter.waitFor(search, 3, 20));
+        assertEquals(3, search.count.get());
+        assertFalse(waiter.isSubscribed());
+    }
+
+    @Test
+    public void testWaitFor_Returns_As_Soon_As_Found() {
+        Waiter waiter = new Waiter(null, null);
+        AutomationElement element = element();
+        CountingSearch search = new CountingSearch(1, element);
+
+        assertSame(element, waiter.waitFor(search, 3, 10000));
+        assertEquals(1, search.count.get());
+    }
+
+    @Test
+    public void testWaitFor_Searches_Again_When_Structure_Changes() {
+        Waiter waiter = new Waiter(null, null);
+        AutomationElement element = element();
+        CountingSearch search = new CountingSearch(2, element);
+
+        raiseLater(waiter, search, null, EventID.StructureChanged);
+
+        long start = System.currentTimeMillis();
+
+        assertSame(element, waiter.waitFor(search, 2, 60000));
+        assertTrue(System.currentTimeMillis() - start < 30000);
+        assertEquals(2, search.count.get());
+    }
+
+    @Test
+    public void testWaitFor_Checks_Opened_Window_Without_Searching() {
+        Waiter waiter = new Waiter(null, null);
+        final AutomationElement window = element();
+
+        CountingSearch search = new CountingSearch(-1, null) {
+            @Override
+            public boolean matches(AutomationElement candidate) {
+                return candidate == window;
+            }
+        };
+
+        raiseLater(waiter, search, window, EventID.Window_WindowOpened);
+
+        assertSame(window, waiter.waitFor(search, 2, 60000));
+        assertEquals(1, search.count.get());
+    }
+
+    @Test
+    public void testWaitFor_Closes_Opened_Windows_That_Do_Not_Match() {
+        Waiter waiter = new Waiter(null, null);
+
+        IUIAutomationElement3 mocked = Mockito.mock(IUIAutomationElement3.class);
+        AutomationElement other = new AutomationElement(mocked);
+
+        CountingSearch search = new CountingSearch(2, element());
+
+        raiseLater(waiter, search, other, EventID.Window_WindowOpened);
+
+        waiter.waitFor(search, 2, 60000);
+
+        verify(mocked).Release();
+    }
+
+    @Test
+    public void testOnEvent_Closes_Sender_When_Nobody_Is_Waiting() {
+        Waiter waiter = new Waiter(null, null);
+
+        IUIAutomationElement3 mocked = Mockito.mock(IUIAutomationElement3.class);
+
+        waiter.onEvent(new AutomationElement(mocked), EventID.Window_WindowOpened);
+
+        verify(mocked).Release();
+    }
+
+    @Test
+    public void testWaitFor_Only_Subscribes_While_Waiting() throws Exception {
+        UIAutomation automation = Mockito.mock(UIAutomation.class);
+        EventSubscription opened = Mockito.mock(EventSubscription.class);
+        EventSubscription changed = Mockito.mock(EventSubscription.class);
+
+        when(automation.addEventHandler(eq(EventID.Window_WindowOpened), any(TreeScope.class),
+                any(AutomationElement.class), any(AutomationEventListener.class))).thenReturn(opened);
+        when(automation.addEventHandler(eq(EventID.StructureChanged), any(TreeScope.class),
+                any(AutomationElement.class), any(AutomationEventListener.class))).thenReturn(changed);
+
+        final Waiter waiter = new Waiter(automation, element());
+        final AtomicInteger subscribedDuringSearch = new AtomicInteger();
+
+        CountingSearch search = new CountingSearch(-1, null) {
+            @Override
+            public AutomationElement find() throws AutomationException {
+                if (waiter.isSubscribed()) {
+                    subscribedDuringSearch.incrementAndGet();
+                }
+                return super.find();
+            }
+        };
+
+        assertNull(waiter.waitFor(search, 2, 10));
+
+        assertEquals(2, subscribedDuringSearch.get());
+        assertFalse(waiter.isSubscribed());
+        verify(opened).close();
+        verify(changed).close();
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation.controls;
+
+import com.sun.jna.ptr.PointerByReference;
+import mmarquee.automation.AutomationElement;
+import mmarquee.automation.AutomationTreeWalker;
+import mmarquee.automation.ConditionReference;
+import mmarquee.automation.ElementNotFoundException;
+import mmarquee.automation.UIAutomation;
+import mmarquee.automation.uiautomation.TreeScope;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static mmarquee.automation.BaseAutomationTest.isTreeScope;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Tests for finding an element by index, these do not need Windows.
+ */
+public class AutomationBaseIndexTest {
+
+    // Helper to test the abstract class
+    static class ConcreteAutomationBase extends AutomationBase {
+
+        ConcreteAutomationBase(AutomationElement element, UIAutomation automation) {
+            super(element, automation);
+        }
+    }
+
+    private AutomationElement root;
+    private AutomationElement a;
+    private AutomationElement a1;
+    private AutomationElement b;
+
+    private AutomationTreeWalker walker;
+    private UIAutomation automation;
+    private AutomationBase base;
+
+    private final PointerByReference condition = new PointerByReference();
+
+    @Before
+    public void setup() throws Exception {
+        root = Mockito.mock(AutomationElement.class);
+        a = Mockito.mock(AutomationElement.class);
+        a1 = Mockito.mock(AutomationElement.class);
+        b = Mockito.mock(AutomationElement.class);
+
+        // root -> (a -> a1), b
+        walker = Mockito.mock(AutomationTreeWalker.class);
+        when(walker.getFirstChildElement(root)).thenReturn(a);
+        when(walker.getFirstChildElement(a)).thenReturn(a1);
+        when(walker.getNextSiblingElement(a)).thenReturn(b);
+
+        automation = Mockito.mock(UIAutomation.class);
+        when(automation.createRuntimeIdCondition(root)).thenReturn(Mockito.mock(ConditionReference.class));
+        when(automation.createOrCondition(any(), any())).thenReturn(Mockito.mock(ConditionReference.class));
+        when(automation.createTreeWalker(any())).thenReturn(walker);
+
+        when(root.findFirst(isTreeScope(TreeScope.Element), any())).thenThrow(new ElementNotFoundException());
+
+        base = new ConcreteAutomationBase(root, automation);
+    }
+
+    @Test
+    public void testFindAt_Walks_In_Document_Order() throws Exception {
+        assertEquals(a, base.findAt(new TreeScope(TreeScope.Descendants), condition, 0));
+        assertEquals(a1, base.findAt(new TreeScope(TreeScope.Descendants), condition, 1));
+        assertEquals(b, base.findAt(new TreeScope(TreeScope.Descendants), condition, 2));
+    }
+
+    @Test
+    public void testFindAt_Stops_At_The_Match() throws Exception {
+        base.findAt(new TreeScope(TreeScope.Descendants), condition, 0);
+
+        verify(walker, never()).getNextSiblingElement(any());
+        verify(walker, never()).getFirstChildElement(a);
+    }
+
+    @Test
+    public void testFindAt_Returns_Null_When_Not_Enough_Matches() throws Exception {
+        assertNull(base.findAt(new TreeScope(TreeScope.Descendants), condition, 3));
+        assertNull(base.findAt(new TreeScope(TreeScope.Descendants), condition, -1));
+
+        verify(a).close();
+        verify(a1).close();
+        verify(b).close();
+    }
+
+    @Test
+    public void testFindAt_Closes_The_Walker() throws Exception {
+        base.findAt(new TreeScope(TreeScope.Descendants), condition, 0);
+        base.findAt(new TreeScope(TreeScope.Descendants), condition, 3);
+
+        verify(walker, Mockito.times(2)).close();
+    }
+
+    @Test
+    public void testFindAt_Counts_The_Element_For_Subtree() throws Exception {
+        AutomationElement self = Mockito.mock(AutomationElement.class);
+        Mockito.reset(root);
+        when(root.findFirst(isTreeScope(TreeScope.Element), any())).thenReturn(self);
+
+        assertEquals(self, base.findAt(new TreeScope(TreeScope.Subtree), condition, 0));
+        assertEquals(a, base.findAt(new TreeScope(TreeScope.Subtree), condition, 1));
+
+        verify(automation, Mockito.times(1)).createTreeWalker(any());
+    }
+
+    @Test
+    public void testFindAt_Skips_The_Element_When_It_Does_Not_Match() throws Exception {
+        assertEquals(a, base.findAt(new TreeScope(TreeScope.Subtree), condition, 0));
+    }
+}
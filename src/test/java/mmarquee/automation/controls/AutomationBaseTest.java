@@ -16,6 +16,7 @@
 package mmarquee.automation.controls;
 
 import static junit.framework.TestCase.assertFalse;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
@@ -23,6 +24,7 @@ import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -188,6 +190,22 @@ public class AutomationBaseTest {
         assertTrue(value);
     }
 
+    @Test
+    public void testIsPatternAvailable_Uses_The_Fetched_Availability () throws Exception {
+        when(element.getPatternAvailability(any())).thenReturn(
+                PatternAvailability.FETCHED | PatternAvailability.bits(PatternID.Value));
+
+        IUIAutomation mocked_automation = Mockito.mock(IUIAutomation.class);
+        UIAutomation instance = new UIAutomation(mocked_automation);
+
+        AutomationWindow window = new AutomationWindow(element, pattern, container, instance);
+
+        assertTrue(window.isValuePatternAvailable());
+        assertFalse(window.isInvokePatternAvailable());
+
+        verify(element, never()).getPropertyValue(anyInt());
+    }
+
     @Test
     public void testIsGridItemPatternAvailable () throws Exception {
         when(element.getPropertyValue(anyInt())).thenReturn(1);
@@ -454,16 +472,16 @@ public class AutomationBaseTest {
         assertTrue(value);
     }
 
-    @Test(expected = AutomationException.class)
-    public void testgetRuntimeIdThrowsException() throws Exception {
-        when(element.getPropertyValue(anyInt())).thenReturn(1);
+    @Test
+    public void testGetRuntimeId_Gets_Value_From_Element() throws Exception {
+        when(element.getRuntimeId()).thenReturn(new int[] {42, 1});
 
         IUIAutomation mocked_automation = Mockito.mock(IUIAutomation.class);
         UIAutomation instance = new UIAutomation(mocked_automation);
 
         AutomationWindow window = new AutomationWindow(element, pattern, container, instance);
 
-        window.getRuntimeId();
+        assertArrayEquals(new int[] {42, 1}, window.getRuntimeId());
     }
 
     @Test
@@ -637,7 +655,7 @@ public class AutomationBaseTest {
         list.add(targetElement);
         when(targetElement.getControlType()).thenReturn(ControlType.CheckBox.getValue());
 
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Children), any())).thenReturn(list);
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Children), any(), any())).thenReturn(list);
 
         AutomationBase base = new ConcreteAutomationBase(element);
 
@@ -647,7 +665,7 @@ public class AutomationBaseTest {
         assertEquals(targetElement, children.get(0).getElement());
         assertEquals(AutomationCheckBox.class, children.get(0).getClass());
 
-        verify(element).findAll(BaseAutomationTest.isTreeScope(TreeScope.Children), any());
+        verify(element).findAll(BaseAutomationTest.isTreeScope(TreeScope.Children), any(), any());
     }
 
     @Test
@@ -665,7 +683,7 @@ public class AutomationBaseTest {
         list.add(targetElement);
         when(targetElement.getControlType()).thenReturn(ControlType.ComboBox.getValue());
 
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
 
         AutomationBase base = new ConcreteAutomationBase(element);
 
@@ -675,7 +693,7 @@ public class AutomationBaseTest {
         assertEquals(targetElement, children.get(0).getElement());
         assertEquals(AutomationComboBox.class, children.get(0).getClass());
 
-        verify(element).findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any());
+        verify(element).findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any());
     }
 
     @Test
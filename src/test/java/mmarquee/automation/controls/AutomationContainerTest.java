@@ -1,14 +1,25 @@
 package mmarquee.automation.controls;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
 
 import org.junit.Assume;
@@ -24,7 +35,9 @@ import com.sun.jna.platform.win32.Variant;
 import com.sun.jna.ptr.PointerByReference;
 
 import mmarquee.automation.AutomationElement;
+import mmarquee.automation.AutomationTreeWalker;
 import mmarquee.automation.BaseAutomationTest;
+import mmarquee.automation.CacheRequest;
 import mmarquee.automation.ControlType;
 import mmarquee.automation.ElementNotFoundException;
 import mmarquee.automation.PropertyID;
@@ -85,30 +98,34 @@ public class AutomationContainerTest {
     
     @Test
     public void test_getEditBox_By_Index_Calls_findFirst_From_Element() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        AutomationEditBox edit = wndw.getEditBox(0);
+        AutomationEditBox edit = spyWndw.getEditBox(0);
         assertEquals(targetElement,edit.getElement());
 
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw).findAt(any(), any(), anyInt());
+        verify(walker).getFirstChildElement(element);
+        verify(walker).close();
     }
 
     @Test(expected=IndexOutOfBoundsException.class)
     public void test_getEditBox_By_Index_Throws_Exception_When_Out_Of_Bounds() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        AutomationEditBox edit = wndw.getEditBox(1);
+        AutomationEditBox edit = spyWndw.getEditBox(1);
         assertEquals(targetElement,edit.getElement());
     }
 
     @Test
     public void test_getAppBar_By_Index_Calls_findFirst_From_Element() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        AutomationAppBar appBar = wndw.getAppBar(0);
+        AutomationAppBar appBar = spyWndw.getAppBar(0);
         assertEquals(targetElement,appBar.getElement());
 
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw).findAt(any(), any(), anyInt());
+        verify(walker).getFirstChildElement(element);
+        verify(walker).close();
     }
 
     @Test
@@ -132,20 +149,39 @@ public class AutomationContainerTest {
 
     @Test
     public void test_GetAppBar_By_Name_with_RegExPattern() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         AutomationAppBar bar = spyWndw.getAppBar(Pattern.compile("myName"));
         assertEquals(targetElement,bar.getElement());
 
         verify(spyWndw).createControlTypeCondition(ControlType.AppBar);
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(element, atLeastOnce()).findAll(any(), any(), any());
+    }
+
+    @Test
+    public void test_GetAppBar_By_Name_with_RegExPattern_Closes_The_Other_Candidates() throws Exception {
+        IUIAutomationElement3 before = Mockito.mock(IUIAutomationElement3.class);
+        IUIAutomationElement3 after = Mockito.mock(IUIAutomationElement3.class);
+        BaseAutomationTest.setElementCachedName(before, "other");
+        BaseAutomationTest.setElementCachedName(elem, "myName");
+        BaseAutomationTest.setElementCachedName(after, "myName");
+
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(
+                Arrays.asList(new AutomationElement(before), targetElement, new AutomationElement(after)));
+
+        AutomationAppBar bar = spyWndw.getAppBar(Pattern.compile("myName"));
+        assertEquals(targetElement,bar.getElement());
+
+        verify(before).Release();
+        verify(after).Release();
+        verify(elem, never()).Release();
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void test_GetAppBar_By_Name_with_RegExPattern_Throws_Exception_When_Not_found() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         wndw.getAppBar(Pattern.compile("NotmyName"));
     }
@@ -172,29 +208,33 @@ public class AutomationContainerTest {
    
     @Test
     public void test_getSlider_By_Index_Calls_findFirst_From_Element() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        AutomationSlider slider = wndw.getSlider(0);
+        AutomationSlider slider = spyWndw.getSlider(0);
         assertEquals(targetElement,slider.getElement());
 
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw).findAt(any(), any(), anyInt());
+        verify(walker).getFirstChildElement(element);
+        verify(walker).close();
     }
 
     @Test
     public void test_getButton_By_Index_Calls_findFirst_From_Element() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        AutomationButton btn = wndw.getButton(0);
+        AutomationButton btn = spyWndw.getButton(0);
         assertEquals(targetElement,btn.getElement());
 
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw).findAt(any(), any(), anyInt());
+        verify(walker).getFirstChildElement(element);
+        verify(walker).close();
     }
 
     @Test (expected=IndexOutOfBoundsException.class)
     public void Button() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        wndw.getComboBox(99);
+        spyWndw.getComboBox(99);
     }
 
     @Test
@@ -218,20 +258,20 @@ public class AutomationContainerTest {
     
     @Test
     public void test_GetButton_By_Name_with_RegExPattern() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         AutomationButton button = spyWndw.getButton(Pattern.compile("myN.*"));
         assertEquals(targetElement,button.getElement());
 
         verify(spyWndw).createControlTypeCondition(ControlType.Button);
-        verify(element, atLeastOnce()).findAll(any(TreeScope.class), any(PointerByReference.class));
+        verify(element, atLeastOnce()).findAll(any(TreeScope.class), any(PointerByReference.class), any(CacheRequest.class));
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void test_GetButton_By_Name_with_RegExPattern_Throws_Exception_When_Not_found() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         wndw.getButton(Pattern.compile("other"));
     }
@@ -257,21 +297,23 @@ public class AutomationContainerTest {
 
     @Test
     public void testGetTab_By_Index() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        AutomationTab tab = wndw.getTab(0);
+        AutomationTab tab = spyWndw.getTab(0);
 
         assertTrue(tab != null);
         assertEquals(targetElement,tab.getElement());
         
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw).findAt(any(), any(), anyInt());
+        verify(walker).getFirstChildElement(element);
+        verify(walker).close();
     }
 
     @Test(expected=IndexOutOfBoundsException.class)
     public void testGetTab_By_Index_Errors_When_Too_Big() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        wndw.getTab(99);
+        spyWndw.getTab(99);
     }
 
     @Test
@@ -295,20 +337,20 @@ public class AutomationContainerTest {
 
     @Test
     public void test_GetTab_By_Name_with_RegExPattern() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         AutomationTab tab = spyWndw.getTab(Pattern.compile("myName"));
         assertEquals(targetElement,tab.getElement());
 
         verify(spyWndw).createControlTypeCondition(ControlType.Tab);
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(element, atLeastOnce()).findAll(any(), any(), any());
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void test_GetTab_By_Name_with_RegExPattern_Throws_Exception_When_Not_found() throws Exception {
-    	when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-    	BaseAutomationTest.setElementCurrentName(elem, "myName");
+    	when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+    	BaseAutomationTest.setElementCachedName(elem, "myName");
         
         wndw.getTab(Pattern.compile("NNN"));
     }
@@ -334,12 +376,14 @@ public class AutomationContainerTest {
     
     @Test
     public void testGetEditBox_By_Index() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        AutomationEditBox editBox = wndw.getEditBox(0);
+        AutomationEditBox editBox = spyWndw.getEditBox(0);
         assertEquals(targetElement,editBox.getElement());
 
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw).findAt(any(), any(), anyInt());
+        verify(walker).getFirstChildElement(element);
+        verify(walker).close();
     }
 
     @Test
@@ -363,20 +407,20 @@ public class AutomationContainerTest {
 
     @Test
     public void test_GetEditBox_By_Name_with_RegExPattern() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
         
         AutomationEditBox editBox = spyWndw.getEditBox(Pattern.compile("m.*e"));
         assertEquals(targetElement,editBox.getElement());
 
         verify(spyWndw).createControlTypeCondition(ControlType.Edit);
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(element, atLeastOnce()).findAll(any(), any(), any());
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void test_GetEditBox_By_Name_with_RegExPattern_Throws_Exception_When_Not_found() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         wndw.getEditBox(Pattern.compile("\\s+"));
     }
@@ -401,12 +445,14 @@ public class AutomationContainerTest {
     }
     @Test
     public void testGetToolBar_By_Index() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        AutomationToolBar editBox = wndw.getToolBar(0);
+        AutomationToolBar editBox = spyWndw.getToolBar(0);
         assertEquals(targetElement,editBox.getElement());
 
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw).findAt(any(), any(), anyInt());
+        verify(walker).getFirstChildElement(element);
+        verify(walker).close();
     }
 
     @Test
@@ -430,20 +476,20 @@ public class AutomationContainerTest {
 
     @Test
     public void test_GetToolBar_By_Name_with_RegExPattern() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         AutomationToolBar toolbar = spyWndw.getToolBar(Pattern.compile("myName"));
         assertEquals(targetElement,toolbar.getElement());
 
         verify(spyWndw).createControlTypeCondition(ControlType.ToolBar);
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(element, atLeastOnce()).findAll(any(), any(), any());
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void test_GetToolBar_By_Name_with_RegExPattern_Throws_Exception_When_Not_found() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         wndw.getToolBar(Pattern.compile("IsNotMyName"));
     }
@@ -469,19 +515,21 @@ public class AutomationContainerTest {
 
     @Test
     public void test_GetComboBox_By_Index() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        AutomationComboBox editBox = wndw.getComboBox(0);
+        AutomationComboBox editBox = spyWndw.getComboBox(0);
         assertEquals(targetElement,editBox.getElement());
 
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw).findAt(any(), any(), anyInt());
+        verify(walker).getFirstChildElement(element);
+        verify(walker).close();
     }
 
     @Test (expected=IndexOutOfBoundsException.class)
     public void test_GetComboBox_By_Index_Errors_When_Too_Big() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        wndw.getComboBox(99);
+        spyWndw.getComboBox(99);
     }
 
     @Test
@@ -505,20 +553,20 @@ public class AutomationContainerTest {
     
     @Test
     public void test_GetComboBox_By_Name_with_RegExPattern() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         AutomationComboBox comboBox = spyWndw.getComboBox(Pattern.compile("myN.*"));
         assertEquals(targetElement,comboBox.getElement());
 
         verify(spyWndw).createControlTypeCondition(ControlType.ComboBox);
-        verify(element, atLeastOnce()).findAll(any(TreeScope.class), any(PointerByReference.class));
+        verify(element, atLeastOnce()).findAll(any(TreeScope.class), any(PointerByReference.class), any(CacheRequest.class));
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void test_GetComboBox_By_Name_with_RegExPattern_Throws_Exception_When_Not_found() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         wndw.getComboBox(Pattern.compile("other"));
     }
@@ -544,12 +592,14 @@ public class AutomationContainerTest {
     
     @Test
     public void testGetCheckBox_By_Index() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        AutomationCheckBox checkBox = wndw.getCheckBox(0);
+        AutomationCheckBox checkBox = spyWndw.getCheckBox(0);
         assertEquals(targetElement,checkBox.getElement());
 
-        verify(element, atLeastOnce()).findAll(any(TreeScope.class), any(PointerByReference.class));
+        verify(spyWndw).findAt(any(), any(), anyInt());
+        verify(walker).getFirstChildElement(element);
+        verify(walker).close();
     }
 
     @Test
@@ -573,20 +623,20 @@ public class AutomationContainerTest {
     
     @Test
     public void test_GetCheckBox_By_Name_with_RegExPattern() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         AutomationCheckBox checkBox = spyWndw.getCheckBox(Pattern.compile("myN.*"));
         assertEquals(targetElement,checkBox.getElement());
 
         verify(spyWndw).createControlTypeCondition(ControlType.CheckBox);
-        verify(element, atLeastOnce()).findAll(any(TreeScope.class), any(PointerByReference.class));
+        verify(element, atLeastOnce()).findAll(any(TreeScope.class), any(PointerByReference.class), any(CacheRequest.class));
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void test_GetCheckBox_By_Name_with_RegExPattern_Throws_Exception_When_Not_found() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         wndw.getCheckBox(Pattern.compile("other"));
     }
@@ -613,19 +663,21 @@ public class AutomationContainerTest {
 
     @Test (expected=IndexOutOfBoundsException.class)
     public void testGetRadioButton_By_Index_Fails_When_Index_No_Present() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        wndw.getRadioButton(99);
+        spyWndw.getRadioButton(99);
     }
 
     @Test
     public void testGetRadioButton_By_Index() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        AutomationRadioButton radio = wndw.getRadioButton(0);
+        AutomationRadioButton radio = spyWndw.getRadioButton(0);
         assertEquals(targetElement,radio.getElement());
 
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw).findAt(any(), any(), anyInt());
+        verify(walker).getFirstChildElement(element);
+        verify(walker).close();
     }
 
     @Test
@@ -649,20 +701,20 @@ public class AutomationContainerTest {
 
     @Test
     public void test_GetRadioButton_By_Name_with_RegExPattern() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         AutomationRadioButton radio = spyWndw.getRadioButton(Pattern.compile("myName"));
         assertEquals(targetElement,radio.getElement());
 
         verify(spyWndw).createControlTypeCondition(ControlType.RadioButton);
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(element, atLeastOnce()).findAll(any(), any(), any());
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void test_GetRadioButton_By_Name_with_RegExPattern_Throws_Exception_When_Not_found() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         wndw.getRadioButton(Pattern.compile("notMyName"));
     }
@@ -688,12 +740,14 @@ public class AutomationContainerTest {
 
     @Test
     public void testGetPanel_By_Index() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        AutomationPanel panel = wndw.getPanel(0);
+        AutomationPanel panel = spyWndw.getPanel(0);
         assertEquals(targetElement,panel.getElement());
 
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw).findAt(any(), any(), anyInt());
+        verify(walker).getFirstChildElement(element);
+        verify(walker).close();
     }
 
     @Test
@@ -717,20 +771,20 @@ public class AutomationContainerTest {
 
     @Test
     public void test_GetPanel_By_Name_with_RegExPattern() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         AutomationPanel panel = spyWndw.getPanel(Pattern.compile("myName"));
         assertEquals(targetElement,panel.getElement());
 
         verify(spyWndw).createControlTypeCondition(ControlType.Pane);
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(element, atLeastOnce()).findAll(any(), any(), any());
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void test_GetPanel_By_Name_with_RegExPattern_Throws_Exception_When_Not_found() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         wndw.getPanel(Pattern.compile("IsNotmyName"));
     }
@@ -759,13 +813,15 @@ public class AutomationContainerTest {
     public void test_GetPanelByClassName_By_Index() throws Exception {
     	BaseAutomationTest.setElementClassName(elem, "BlaBla");
 
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
         AutomationPanel bar = spyWndw.getPanelByClassName(0,"BlaBla");
         assertEquals(targetElement,bar.getElement());
 
         verify(spyWndw).createIntegerVariant(ControlType.Pane.getValue());
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw).findAt(any(), any(), anyInt());
+        verify(walker).getFirstChildElement(element);
+        verify(walker).close();
     }
 
     @Test(expected=ElementNotFoundException.class)
@@ -774,7 +830,7 @@ public class AutomationContainerTest {
 
         when(element.findFirst(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenThrow(new ElementNotFoundException());
 
-        wndw.getPanelByClassName(99,"BlaBla");
+        spyWndw.getPanelByClassName(99,"BlaBla");
     }
     
     @Test
@@ -806,36 +862,38 @@ public class AutomationContainerTest {
     @Test
     public void test_GetPanelByClassName_By_Name_with_RegExPattern() throws Exception {
     	BaseAutomationTest.setElementClassName(elem, "BlaBla");
-    	BaseAutomationTest.setElementCurrentName(elem, "myName");
+    	BaseAutomationTest.setElementCachedName(elem, "myName");
 
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
 
         AutomationPanel panel = spyWndw.getPanelByClassName(Pattern.compile("myName"),"BlaBla");
         assertEquals(targetElement,panel.getElement());
 
         verify(spyWndw).createClassNamePropertyCondition("BlaBla");
         verify(spyWndw).createControlTypeCondition(ControlType.Pane);
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(element, atLeastOnce()).findAll(any(), any(), any());
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void test_GetPanelByClassName_By_Name_with_RegExPattern_Throws_Exception_When_Not_found() throws Exception {
     	BaseAutomationTest.setElementClassName(elem, "BlaBla");
-    	BaseAutomationTest.setElementCurrentName(elem, "myName");
+    	BaseAutomationTest.setElementCachedName(elem, "myName");
 
-    	when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
+    	when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
 
         wndw.getPanelByClassName(Pattern.compile("unkownName"),"BlaBla");
     }
     
     @Test
     public void testGetDocument_By_Index() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        AutomationDocument doc = wndw.getDocument(0);
+        AutomationDocument doc = spyWndw.getDocument(0);
         assertEquals(targetElement,doc.getElement());
 
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw).findAt(any(), any(), anyInt());
+        verify(walker).getFirstChildElement(element);
+        verify(walker).close();
     }
 
     @Test
@@ -859,20 +917,20 @@ public class AutomationContainerTest {
     
     @Test
     public void test_GetDocument_By_Name_with_RegExPattern() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         AutomationDocument doc = spyWndw.getDocument(Pattern.compile("myName"));
         assertEquals(targetElement,doc.getElement());
 
         verify(spyWndw).createControlTypeCondition(ControlType.Document);
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(element, atLeastOnce()).findAll(any(), any(), any());
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void test_GetDocument_By_Name_with_RegExPattern_Throws_Exception_When_Not_found() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         wndw.getDocument(Pattern.compile("NotmyName"));
     }
@@ -899,19 +957,21 @@ public class AutomationContainerTest {
     
     @Test
     public void testGetProgress_By_Index() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        AutomationProgressBar progress = wndw.getProgressBar(0);
+        AutomationProgressBar progress = spyWndw.getProgressBar(0);
         assertEquals(targetElement,progress.getElement());
 
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw).findAt(any(), any(), anyInt());
+        verify(walker).getFirstChildElement(element);
+        verify(walker).close();
     }
 
     @Test(expected=IndexOutOfBoundsException.class)
     public void testGetProgress_By_Index_Throws_Exception_When_Out_Of_Bounds() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        wndw.getProgressBar(99);
+        spyWndw.getProgressBar(99);
     }
 
     @Test
@@ -935,20 +995,20 @@ public class AutomationContainerTest {
 
     @Test
     public void test_GetProgresBar_By_Name_with_RegExPattern() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         AutomationProgressBar bar = spyWndw.getProgressBar(Pattern.compile("myName"));
         assertEquals(targetElement,bar.getElement());
 
         verify(spyWndw).createControlTypeCondition(ControlType.ProgressBar);
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(element, atLeastOnce()).findAll(any(), any(), any());
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void test_GetProgressBar_By_Name_with_RegExPattern_Throws_Exception_When_Not_found() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         wndw.getProgressBar(Pattern.compile("notmyName"));
     }
@@ -975,19 +1035,21 @@ public class AutomationContainerTest {
 
     @Test
     public void testGetHyperlink_By_Index() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        AutomationHyperlink link = wndw.getHyperlink(0);
+        AutomationHyperlink link = spyWndw.getHyperlink(0);
         assertEquals(targetElement,link.getElement());
 
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw).findAt(any(), any(), anyInt());
+        verify(walker).getFirstChildElement(element);
+        verify(walker).close();
     }
     
     @Test (expected=IndexOutOfBoundsException.class)
     public void testGetHyperlink_By_Index_Fails_When_Index_No_Present() throws Exception {
-    	when(element.findAll(any(), any())).thenReturn(list);
+    	AutomationTreeWalker walker = walkList();
     	
-    	wndw.getHyperlink(99);
+    	spyWndw.getHyperlink(99);
     }
 
     @Test
@@ -1011,20 +1073,20 @@ public class AutomationContainerTest {
 
     @Test
     public void test_GetHyperlink_By_Name_with_RegExPattern() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         AutomationHyperlink link = spyWndw.getHyperlink(Pattern.compile("myName"));
         assertEquals(targetElement,link.getElement());
 
         verify(spyWndw).createControlTypeCondition(ControlType.Hyperlink);
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(element, atLeastOnce()).findAll(any(), any(), any());
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void test_GetHyperlink_By_Name_with_RegExPattern_Throws_Exception_When_Not_found() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         wndw.getHyperlink(Pattern.compile("NotmyName"));
     }
@@ -1050,26 +1112,28 @@ public class AutomationContainerTest {
 
     @Test(expected=IndexOutOfBoundsException.class)
     public void testGetToolbar_By_Index_Fails_When_Not_Found() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        wndw.getHyperlink(99);
+        spyWndw.getHyperlink(99);
     }
 
     @Test
     public void testGetToolbar_By_Index() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        AutomationToolBar toolBar = wndw.getToolBar(0);
+        AutomationToolBar toolBar = spyWndw.getToolBar(0);
         assertEquals(targetElement,toolBar.getElement());
 
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw).findAt(any(), any(), anyInt());
+        verify(walker).getFirstChildElement(element);
+        verify(walker).close();
     }
 
     @Test(expected=IndexOutOfBoundsException.class)
     public void testGetSlider_By_Index_Throws_Exception_When_Out_Of_Bounds() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        wndw.getSlider(99);
+        spyWndw.getSlider(99);
     }
 
     @Test
@@ -1093,20 +1157,20 @@ public class AutomationContainerTest {
 
     @Test
     public void test_GetSlider_By_Name_with_RegExPattern() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         AutomationSlider slider = spyWndw.getSlider(Pattern.compile("myName"));
         assertEquals(targetElement,slider.getElement());
 
         verify(spyWndw).createControlTypeCondition(ControlType.Slider);
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(element, atLeastOnce()).findAll(any(), any(), any());
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void test_GetSlider_By_Name_with_RegExPattern_Throws_Exception_When_Not_found() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         wndw.getSlider(Pattern.compile("NotmyName"));
     }
@@ -1132,21 +1196,23 @@ public class AutomationContainerTest {
 
     @Test
     public void testGetCalendar_By_Index() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
         BaseAutomationTest.setElementPropertyValue(elem, PropertyID.IsValuePatternAvailable, Variant.VT_INT, 0);
         
-        AutomationCalendar calendar = wndw.getCalendar(0);
+        AutomationCalendar calendar = spyWndw.getCalendar(0);
         assertEquals(targetElement,calendar.getElement());
 
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw).findAt(any(), any(), anyInt());
+        verify(walker).getFirstChildElement(element);
+        verify(walker).close();
     }
 
     @Test(expected = IndexOutOfBoundsException.class)
     public void testGetCalendar_By_Index_Throws_Exception_When_Out_Of_Bounds() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
         BaseAutomationTest.setElementPropertyValue(elem, PropertyID.IsValuePatternAvailable, Variant.VT_INT, 0);
 
-        wndw.getCalendar(99);
+        spyWndw.getCalendar(99);
     }
 
     @Test
@@ -1172,22 +1238,22 @@ public class AutomationContainerTest {
 
     @Test
     public void test_GetCalendar_By_Name_with_RegExPattern() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
         BaseAutomationTest.setElementPropertyValue(elem, PropertyID.IsValuePatternAvailable, Variant.VT_INT, 0);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         AutomationCalendar cal = spyWndw.getCalendar(Pattern.compile("myName"));
         assertEquals(targetElement,cal.getElement());
 
         verify(spyWndw).createControlTypeCondition(ControlType.Calendar);
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(element, atLeastOnce()).findAll(any(), any(), any());
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void test_GetCalendar_By_Name_with_RegExPattern_Throws_Exception_When_Not_found() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
         BaseAutomationTest.setElementPropertyValue(elem, PropertyID.IsValuePatternAvailable, Variant.VT_INT, 0);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        BaseAutomationTest.setElementCachedName(elem, "myName");
         
         wndw.getCalendar(Pattern.compile("NotmyName"));
     }
@@ -1215,19 +1281,21 @@ public class AutomationContainerTest {
 
     @Test
     public void testGetDataGrid_By_Index() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        AutomationDataGrid dataGrid = wndw.getDataGrid(0);
+        AutomationDataGrid dataGrid = spyWndw.getDataGrid(0);
         assertEquals(targetElement,dataGrid.getElement());
 
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw).findAt(any(), any(), anyInt());
+        verify(walker).getFirstChildElement(element);
+        verify(walker).close();
     }
 
     @Test(expected=IndexOutOfBoundsException.class)
     public void testGetDataGrid_By_Index_Throws_Exception_When_Out_Of_Bounds() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        wndw.getDataGrid(99);
+        spyWndw.getDataGrid(99);
     }
 
     @Test
@@ -1251,20 +1319,20 @@ public class AutomationContainerTest {
 
     @Test
     public void test_GetDataGrid_By_Name_with_RegExPattern() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         AutomationDataGrid edit = spyWndw.getDataGrid(Pattern.compile("myName"));
         assertEquals(targetElement,edit.getElement());
 
         verify(spyWndw).createControlTypeCondition(ControlType.DataGrid);
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(element, atLeastOnce()).findAll(any(), any(), any());
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void test_GetDataGrid_By_Name_with_RegExPattern_Throws_Exception_When_Not_found() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         wndw.getDataGrid(Pattern.compile("NotmyName"));
     }
@@ -1290,29 +1358,31 @@ public class AutomationContainerTest {
 
     @Test
     public void testGetDataGrid_By_Index_and_ControlName() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
         BaseAutomationTest.setElementClassName(elem, "TXYZ");
 
-        AutomationDataGrid dataGrid = wndw.getDataGrid(0, "TXYZ");
+        AutomationDataGrid dataGrid = spyWndw.getDataGrid(0, "TXYZ");
         assertEquals(targetElement,dataGrid.getElement());
 
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw).findAt(any(), any(), anyInt());
+        verify(walker).getFirstChildElement(element);
+        verify(walker).close();
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void testGetDataGrid_By_Index_and_ControlName_Throws_Exception_When_ClassDoesNotMatch() throws Exception {
-        when(element.findAll(any(), any())).thenThrow(ElementNotFoundException.class);
+        doThrow(ElementNotFoundException.class).when(spyWndw).findAt(any(), any(), anyInt());
         BaseAutomationTest.setElementClassName(elem, "TABC");
 
-        wndw.getDataGrid(0, "TXYZ");
+        spyWndw.getDataGrid(0, "TXYZ");
     }
     
     @Test(expected=ElementNotFoundException.class)
     public void testGetDataGrid_By_Index_and_ControlName_Throws_Exception_When_Out_Of_Bounds() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
         BaseAutomationTest.setElementClassName(elem, "TXYZ");
 
-        wndw.getDataGrid(99, "TXYZ");
+        spyWndw.getDataGrid(99, "TXYZ");
     }
 
     @Test
@@ -1345,21 +1415,21 @@ public class AutomationContainerTest {
     
     @Test
     public void test_GetDataGrid_By_Name_with_RegExPattern_and_ControlName() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
         BaseAutomationTest.setElementClassName(elem, "TXYZ");
 
         AutomationDataGrid edit = spyWndw.getDataGrid(Pattern.compile("myName"), "TXYZ");
         assertEquals(targetElement,edit.getElement());
 
         verify(spyWndw).createControlTypeCondition(ControlType.DataGrid);
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(element, atLeastOnce()).findAll(any(), any(), any());
     }
 
     @Test
     public void test_GetDataGrid_By_Name_with_RegExPattern_and_ControlName_Throws_Exception_When_ClassDoesNotMatch() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
         BaseAutomationTest.setElementClassName(elem, "TABC");
 
         spyWndw.getDataGrid(Pattern.compile("myName"), "TXYZ");
@@ -1367,8 +1437,8 @@ public class AutomationContainerTest {
 
     @Test(expected=ElementNotFoundException.class)
     public void test_GetDataGrid_By_Name_with_RegExPattern_and_ControlName_Throws_Exception_When_Not_found() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
         BaseAutomationTest.setElementClassName(elem, "TXYZ");
 
         wndw.getDataGrid(Pattern.compile("NotmyName"), "TXYZ");
@@ -1377,19 +1447,21 @@ public class AutomationContainerTest {
 
     @Test(expected=IndexOutOfBoundsException.class)
     public void testTreeView_By_Index_Throws_Exception_When_Out_Of_Bounds() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        wndw.getTreeView(99);
+        spyWndw.getTreeView(99);
     }
 
     @Test
     public void testTreeView_By_Index() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        AutomationTreeView treeView = wndw.getTreeView(0);
+        AutomationTreeView treeView = spyWndw.getTreeView(0);
         assertEquals(targetElement,treeView.getElement());
 
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw).findAt(any(), any(), anyInt());
+        verify(walker).getFirstChildElement(element);
+        verify(walker).close();
     }
 
 
@@ -1414,20 +1486,20 @@ public class AutomationContainerTest {
 
     @Test
     public void test_GetTreeView_By_Name_with_RegExPattern() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         AutomationTreeView treeView = spyWndw.getTreeView(Pattern.compile("myName"));
         assertEquals(targetElement,treeView.getElement());
 
         verify(spyWndw).createControlTypeCondition(ControlType.Tree);
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(element, atLeastOnce()).findAll(any(), any(), any());
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void test_GetTreeView_By_Name_with_RegExPattern_Throws_Exception_When_Not_found() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         wndw.getTreeView(Pattern.compile("NotmyName"));
     }
@@ -1455,21 +1527,23 @@ public class AutomationContainerTest {
     public void testGetPasswordEditBox() throws Exception {
         BaseAutomationTest.setElementClassName(elem, "PasswordBox");
 
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        AutomationEditBox passwordEditBox = wndw.getPasswordEditBox(0);
+        AutomationEditBox passwordEditBox = spyWndw.getPasswordEditBox(0);
         assertEquals(targetElement,passwordEditBox.element);
 
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw).findAt(any(), any(), anyInt());
+        verify(walker).getFirstChildElement(element);
+        verify(walker).close();
     }
     
     @Test(expected=ElementNotFoundException.class)
     public void testGetPasswordEditBox_Throws_Exception_When_Out_Of_Bounds() throws Exception {
         BaseAutomationTest.setElementClassName(elem, "PasswordBox");
 
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        wndw.getPasswordEditBox(99);
+        spyWndw.getPasswordEditBox(99);
     }
 
     @Test
@@ -1500,23 +1574,23 @@ public class AutomationContainerTest {
     @Test
     public void test_GetPasswordEditBox_By_Name_with_RegExPattern() throws Exception {
     	BaseAutomationTest.setElementClassName(elem, "PasswordBox");
-    	BaseAutomationTest.setElementCurrentName(elem, "myName");
+    	BaseAutomationTest.setElementCachedName(elem, "myName");
 
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
 
         AutomationPasswordEditBox box = spyWndw.getPasswordEditBox(Pattern.compile("(my)+Name"));
         assertEquals(targetElement,box.getElement());
 
         verify(spyWndw).createControlTypeCondition(ControlType.Edit);
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(element, atLeastOnce()).findAll(any(), any(), any());
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void test_GetPasswordEditBox_By_Name_with_RegExPattern_Throws_Exception_When_Not_found() throws Exception {
     	BaseAutomationTest.setElementClassName(elem, "PasswordBox");
-    	BaseAutomationTest.setElementCurrentName(elem, "myName");
+    	BaseAutomationTest.setElementCachedName(elem, "myName");
 
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
 
         wndw.getPasswordEditBox(Pattern.compile("otherName"));
     }
@@ -1548,21 +1622,23 @@ public class AutomationContainerTest {
     public void testGetMaskedEdit_By_Index() throws Exception {
     	BaseAutomationTest.setElementClassName(elem, "TAutomatedMaskEdit");
 
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        AutomationMaskedEdit maskedEdit = wndw.getMaskedEdit(0);
+        AutomationMaskedEdit maskedEdit = spyWndw.getMaskedEdit(0);
         assertEquals(targetElement,maskedEdit.element);
 
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw).findAt(any(), any(), anyInt());
+        verify(walker).getFirstChildElement(element);
+        verify(walker).close();
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void testGetMaskedEdit_By_Index_Throws_Exception_When_Not_found() throws Exception {
     	BaseAutomationTest.setElementClassName(elem, "TAutomatedMaskEdit");
 
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        wndw.getMaskedEdit(99);
+        spyWndw.getMaskedEdit(99);
     }
 
     @Test
@@ -1590,21 +1666,21 @@ public class AutomationContainerTest {
     @Test
     public void testGetMaskedEdit_By_Name_with_RegExPattern_Calls_FindFirst_Once() throws Exception {
     	setElementTypeAndClassName(elem, ControlType.Edit, "TAutomatedMaskEdit");
-        BaseAutomationTest.setElementCurrentName(elem, "SMITH-01");
+        BaseAutomationTest.setElementCachedName(elem, "SMITH-01");
 
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
 
         AutomationMaskedEdit maskedEdit = wndw.getMaskedEdit(Pattern.compile("SMITH-01"));
         assertEquals(targetElement,maskedEdit.element);
 
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(element, atLeastOnce()).findAll(any(), any(), any());
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void testGetMaskedEdit_By_Name_with_RegExPattern_Throws_Exception_When_Not_found() throws Exception {
     	BaseAutomationTest.setElementClassName(elem, "TAutomatedMaskEdit");
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
 
         wndw.getMaskedEdit(Pattern.compile("SMITH-01"));
     }
@@ -1637,21 +1713,23 @@ public class AutomationContainerTest {
     public void test_PasswordBox_By_Index() throws Exception {
     	BaseAutomationTest.setElementClassName(elem, "PasswordBox");
 
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        AutomationEditBox passwordEditBox = wndw.getPasswordEditBox(0);
+        AutomationEditBox passwordEditBox = spyWndw.getPasswordEditBox(0);
         assertEquals(targetElement,passwordEditBox.element);
 
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw).findAt(any(), any(), anyInt());
+        verify(walker).getFirstChildElement(element);
+        verify(walker).close();
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void test_PasswordBox_By_Index_Throws_Exception_When_Not_found() throws Exception {
     	BaseAutomationTest.setElementClassName(elem, "PasswordBox");
 
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        wndw.getPasswordEditBox(99);
+        spyWndw.getPasswordEditBox(99);
     }
 
     @Test
@@ -1661,13 +1739,13 @@ public class AutomationContainerTest {
         AutomationElement el = Mockito.mock(AutomationElement.class);
         el.setElement(elem);
 
-        when(el.findAll(any(), any())).thenReturn(list);
+        AutomationWindow wndw = Mockito.spy(new AutomationWindow(el, window, container));
+        BaseAutomationTest.answerFindAt(list).when(wndw).findAt(any(), any(), anyInt());
 
-        AutomationWindow wndw = new AutomationWindow(el, window, container);
         AutomationRibbonBar ribbonBar = wndw.getRibbonBar();
         assertEquals(targetElement,ribbonBar.element);
 
-        verify(el, atLeastOnce()).findAll(any(), any());
+        verify(wndw).findAt(any(), any(), anyInt());
     }
 
     /************************************************************************************
@@ -1678,19 +1756,21 @@ public class AutomationContainerTest {
 
     @Test
     public void test_GetList_By_Index() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        AutomationList list = wndw.getList(0);
+        AutomationList list = spyWndw.getList(0);
         assertEquals(targetElement,list.element);
 
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw).findAt(any(), any(), anyInt());
+        verify(walker).getFirstChildElement(element);
+        verify(walker).close();
     }
 
     @Test(expected=IndexOutOfBoundsException.class)
     public void test_GetList_By_Index_Throws_Exception_When_Not_found() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        wndw.getList(99);
+        spyWndw.getList(99);
     }
 
     @Test
@@ -1712,19 +1792,19 @@ public class AutomationContainerTest {
 
     @Test
     public void test_GetList_By_Name_with_RegExPattern() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         AutomationList list = wndw.getList(Pattern.compile("myName"));
         assertEquals(targetElement,list.element);
 
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(element, atLeastOnce()).findAll(any(), any(), any());
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void test_GetList_By_Name_with_RegExPattern_Throws_Exception_When_Not_found() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         wndw.getList(Pattern.compile("NotmyName"));
     }
@@ -1754,20 +1834,22 @@ public class AutomationContainerTest {
 
     @Test
     public void test_GetTextBox_By_Index() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Subtree), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
         AutomationTextBox textBox = spyWndw.getTextBox(0);
         assertEquals(targetElement,textBox.element);
 
         verify(spyWndw).createIntegerVariant(ControlType.Text.getValue());
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw).findAt(any(), any(), anyInt());
+        verify(walker).getFirstChildElement(element);
+        verify(walker).close();
     }
 
     @Test(expected=IndexOutOfBoundsException.class)
     public void test_GetTextBox_By_Index_Throws_Exception_When_Not_found() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        wndw.getTextBox(99);
+        spyWndw.getTextBox(99);
     }
 
     @Test
@@ -1791,20 +1873,20 @@ public class AutomationContainerTest {
 
     @Test
     public void test_GetTextBox_By_Name_with_RegExPattern() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         AutomationTextBox textBox = spyWndw.getTextBox(Pattern.compile("myName"));
         assertEquals(targetElement,textBox.getElement());
 
         verify(spyWndw).createControlTypeCondition(ControlType.Text);
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(element, atLeastOnce()).findAll(any(), any(), any());
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void test_GetTextBox_By_Name_with_RegExPattern_Throws_Exception_When_Not_found() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         wndw.getTextBox(Pattern.compile("NotmyName"));
     }
@@ -1830,20 +1912,22 @@ public class AutomationContainerTest {
 
     @Test
     public void test_GetSplitButton_By_Index() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Subtree), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
         AutomationSplitButton btn = spyWndw.getSplitButton(0);
         assertEquals(targetElement,btn.element);
 
         verify(spyWndw).createIntegerVariant(ControlType.SplitButton.getValue());
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw).findAt(any(), any(), anyInt());
+        verify(walker).getFirstChildElement(element);
+        verify(walker).close();
     }
 
     @Test(expected=IndexOutOfBoundsException.class)
     public void test_GetSpliztButton_By_Index_Throws_Exception_When_Not_found() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        wndw.getSplitButton(99);
+        spyWndw.getSplitButton(99);
     }
     
     @Test
@@ -1867,20 +1951,20 @@ public class AutomationContainerTest {
     
     @Test
     public void test_GetSplitButton_By_Name_with_RegExPattern() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         AutomationSplitButton btn = spyWndw.getSplitButton(Pattern.compile("myName"));
         assertEquals(targetElement,btn.getElement());
 
         verify(spyWndw).createControlTypeCondition(ControlType.SplitButton);
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(element, atLeastOnce()).findAll(any(), any(), any());
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void test_GetSplitButton_By_Name_with_RegExPattern_Throws_Exception_When_Not_found() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         wndw.getSplitButton(Pattern.compile("ThisIsNotMyName"));
     }
@@ -1907,20 +1991,22 @@ public class AutomationContainerTest {
 
     @Test
     public void test_GetImage_By_Index() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Subtree), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
         AutomationImage img = spyWndw.getImage(0);
         assertEquals(targetElement,img.element);
 
         verify(spyWndw).createIntegerVariant(ControlType.Image.getValue());
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw).findAt(any(), any(), anyInt());
+        verify(walker).getFirstChildElement(element);
+        verify(walker).close();
     }
 
     @Test(expected=IndexOutOfBoundsException.class)
     public void test_GetImage_By_Index_Throws_Exception_When_Not_found() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        wndw.getImage(99);
+        spyWndw.getImage(99);
     }
     
     @Test
@@ -1944,20 +2030,20 @@ public class AutomationContainerTest {
     
     @Test
     public void test_GetImage_By_Name_with_RegExPattern() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         AutomationImage img = spyWndw.getImage(Pattern.compile(".*yNa.*"));
         assertEquals(targetElement,img.getElement());
 
         verify(spyWndw).createControlTypeCondition(ControlType.Image);
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(element, atLeastOnce()).findAll(any(), any(), any());
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void test_GetImage_By_Name_with_RegExPattern_Throws_Exception_When_Not_found() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         wndw.getImage(Pattern.compile("blaBla"));
     }
@@ -1983,20 +2069,22 @@ public class AutomationContainerTest {
 
     @Test
     public void test_GetSpinner_By_Index() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Subtree), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
         AutomationSpinner spin = spyWndw.getSpinner(0);
         assertEquals(targetElement,spin.element);
 
         verify(spyWndw).createIntegerVariant(ControlType.Spinner.getValue());
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw).findAt(any(), any(), anyInt());
+        verify(walker).getFirstChildElement(element);
+        verify(walker).close();
     }
 
     @Test(expected=IndexOutOfBoundsException.class)
     public void test_GetSpinner_By_Index_Throws_Exception_When_Not_found() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        wndw.getSpinner(99);
+        spyWndw.getSpinner(99);
     }
     
     @Test
@@ -2020,20 +2108,20 @@ public class AutomationContainerTest {
     
     @Test
     public void test_GetSpinner_By_Name_with_RegExPattern() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         AutomationSpinner spin = spyWndw.getSpinner(Pattern.compile("myName"));
         assertEquals(targetElement,spin.getElement());
 
         verify(spyWndw).createControlTypeCondition(ControlType.Spinner);
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(element, atLeastOnce()).findAll(any(), any(), any());
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void test_GetSpinner_By_Name_with_RegExPattern_Throws_Exception_When_Not_found() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         wndw.getSpinner(Pattern.compile("NotmyName"));
     }
@@ -2061,13 +2149,15 @@ public class AutomationContainerTest {
     public void test_GetReBar_By_Index() throws Exception {
     	BaseAutomationTest.setElementClassName(elem, "ReBarWindow32");
 
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
         AutomationReBar bar = spyWndw.getReBar(0);
         assertEquals(targetElement,bar.getElement());
 
         verify(spyWndw).createIntegerVariant(ControlType.Pane.getValue());
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw).findAt(any(), any(), anyInt());
+        verify(walker).getFirstChildElement(element);
+        verify(walker).close();
     }
 
     @Test(expected=ElementNotFoundException.class)
@@ -2076,7 +2166,7 @@ public class AutomationContainerTest {
 
         when(element.findFirst(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenThrow(new ElementNotFoundException());
 
-        wndw.getReBar(99);
+        spyWndw.getReBar(99);
     }
     
     @Test
@@ -2109,24 +2199,24 @@ public class AutomationContainerTest {
     @Test
     public void test_GetReBar_By_Name_with_RegExPattern() throws Exception {
     	BaseAutomationTest.setElementClassName(elem, "ReBarWindow32");
-    	BaseAutomationTest.setElementCurrentName(elem, "myName");
+    	BaseAutomationTest.setElementCachedName(elem, "myName");
 
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
 
         AutomationReBar bar = spyWndw.getReBar(Pattern.compile("myName"));
         assertEquals(targetElement,bar.getElement());
 
         verify(spyWndw).createClassNamePropertyCondition("ReBarWindow32");
         verify(spyWndw).createControlTypeCondition(ControlType.Pane);
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(element, atLeastOnce()).findAll(any(), any(), any());
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void test_GetReBar_By_Name_with_RegExPattern_Throws_Exception_When_Not_found() throws Exception {
     	BaseAutomationTest.setElementClassName(elem, "ReBarWindow32");
-    	BaseAutomationTest.setElementCurrentName(elem, "myName");
+    	BaseAutomationTest.setElementCachedName(elem, "myName");
 
-    	when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
+    	when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
 
         wndw.getReBar(Pattern.compile("None"));
     }
@@ -2156,20 +2246,22 @@ public class AutomationContainerTest {
 
     @Test
     public void test_GetCustom_By_Index() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Subtree), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
         AutomationCustom custom = spyWndw.getCustom(0);
         assertEquals(targetElement,custom.element);
 
         verify(spyWndw).createIntegerVariant(ControlType.Custom.getValue());
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw).findAt(any(), any(), anyInt());
+        verify(walker).getFirstChildElement(element);
+        verify(walker).close();
     }
 
     @Test(expected=IndexOutOfBoundsException.class)
     public void test_GetCustom_By_Index_Throws_Exception_When_Not_found() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        wndw.getCustom(99);
+        spyWndw.getCustom(99);
     }
 
     @Test
@@ -2193,20 +2285,20 @@ public class AutomationContainerTest {
 
     @Test
     public void test_GetCustom_By_Name_with_RegExPattern() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         AutomationCustom custom = spyWndw.getCustom(Pattern.compile("myName"));
         assertEquals(targetElement,custom.getElement());
 
         verify(spyWndw).createControlTypeCondition(ControlType.Custom);
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(element, atLeastOnce()).findAll(any(), any(), any());
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void test_GetCustom_By_Name_with_RegExPattern_Throws_Exception_When_Not_found() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         wndw.getCustom(Pattern.compile("NotReallyMyName"));
     }
@@ -2234,13 +2326,15 @@ public class AutomationContainerTest {
     public void test_GetCustomByClassName_By_Index() throws Exception {
     	BaseAutomationTest.setElementClassName(elem, "BlaBla");
 
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
         AutomationCustom bar = spyWndw.getCustomByClassName(0,"BlaBla");
         assertEquals(targetElement,bar.getElement());
 
         verify(spyWndw).createIntegerVariant(ControlType.Custom.getValue());
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw).findAt(any(), any(), anyInt());
+        verify(walker).getFirstChildElement(element);
+        verify(walker).close();
     }
 
     @Test(expected=ElementNotFoundException.class)
@@ -2249,7 +2343,7 @@ public class AutomationContainerTest {
 
         when(element.findFirst(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenThrow(new ElementNotFoundException());
 
-        wndw.getCustomByClassName(99,"BlaBla");
+        spyWndw.getCustomByClassName(99,"BlaBla");
     }
     
     @Test
@@ -2281,24 +2375,24 @@ public class AutomationContainerTest {
     @Test
     public void test_GetCustomByClassName_By_Name_with_RegExPattern() throws Exception {
     	BaseAutomationTest.setElementClassName(elem, "BlaBla");
-    	BaseAutomationTest.setElementCurrentName(elem, "myName");
+    	BaseAutomationTest.setElementCachedName(elem, "myName");
 
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
 
         AutomationCustom bar = spyWndw.getCustomByClassName(Pattern.compile("myName"),"BlaBla");
         assertEquals(targetElement,bar.getElement());
 
         verify(spyWndw).createClassNamePropertyCondition("BlaBla");
         verify(spyWndw).createControlTypeCondition(ControlType.Custom);
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(element, atLeastOnce()).findAll(any(), any(), any());
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void test_GetCustomByClassName_with_RegExPattern_By_Name_Throws_Exception_When_Not_found() throws Exception {
     	BaseAutomationTest.setElementClassName(elem, "BlaBla");
-    	BaseAutomationTest.setElementCurrentName(elem, "myName");
+    	BaseAutomationTest.setElementCachedName(elem, "myName");
 
-    	when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
+    	when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
 
         wndw.getCustomByClassName(Pattern.compile("NixMyName"),"BlaBla");
     }
@@ -2306,20 +2400,22 @@ public class AutomationContainerTest {
 
     @Test
     public void test_GetPowerpointSlide_By_Index() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Subtree), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
         AutomationPowerpointSlide slide = spyWndw.getPowerpointSlide(0);
         assertEquals(targetElement,slide.element);
 
         verify(spyWndw).createIntegerVariant(ControlType.Custom.getValue());
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw).findAt(any(), any(), anyInt());
+        verify(walker).getFirstChildElement(element);
+        verify(walker).close();
     }
 
     @Test(expected=IndexOutOfBoundsException.class)
     public void test_GetPowerpointSlide_By_Index_Throws_Exception_When_Not_found() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        wndw.getPowerpointSlide(99);
+        spyWndw.getPowerpointSlide(99);
     }
     
     @Test
@@ -2343,20 +2439,20 @@ public class AutomationContainerTest {
     
     @Test
     public void test_GetPowerpointSlide_By_Name_with_RegExPattern() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         AutomationPowerpointSlide slide = spyWndw.getPowerpointSlide(Pattern.compile("myName"));
         assertEquals(targetElement,slide.getElement());
 
         verify(spyWndw).createControlTypeCondition(ControlType.Custom);
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(element, atLeastOnce()).findAll(any(), any(), any());
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void test_GetPowerpointSlide_with_RegExPattern_By_Name_Throws_Exception_When_Not_found() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
 
         wndw.getPowerpointSlide(Pattern.compile("libreOfficePresenterSlide"));
     }
@@ -2382,41 +2478,45 @@ public class AutomationContainerTest {
 
     @Test
     public void getControlByControlType_By_Index() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Subtree), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
         setElementTypeAndClassName(elem, ControlType.Slider, "");
 
         AutomationBase custom = spyWndw.getControlByControlType(0, ControlType.Slider);
         assertEquals(targetElement,custom.element);
         assertEquals(AutomationSlider.class,custom.getClass());
 
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw).findAt(any(), any(), anyInt());
+        verify(walker).getFirstChildElement(element);
+        verify(walker).close();
     }
 
     @Test(expected=IndexOutOfBoundsException.class)
     public void getControlByControlType_By_Index_Throws_Exception_When_Not_found() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Subtree), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
-        wndw.getControlByControlType(99,  ControlType.Slider);
+        spyWndw.getControlByControlType(99,  ControlType.Slider);
     }
 
     @Test
     public void getControlByControlType_By_Index_and_ClassName() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
         setElementTypeAndClassName(elem, ControlType.Hyperlink, "FooBar");
 
         AutomationBase custom = spyWndw.getControlByControlType(0, ControlType.Hyperlink, "FooBar");
         assertEquals(targetElement,custom.element);
         assertEquals(AutomationHyperlink.class,custom.getClass());
 
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw).findAt(any(), any(), anyInt());
+        verify(walker).getFirstChildElement(element);
+        verify(walker).close();
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void getControlByControlType_By_Index_and_ClassName_Throws_Exception_When_Not_found() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
         setElementTypeAndClassName(elem, ControlType.Hyperlink, "FooBar");
 
-        wndw.getControlByControlType(99,  ControlType.Hyperlink, "FooBar");
+        spyWndw.getControlByControlType(99,  ControlType.Hyperlink, "FooBar");
     }
 
     @Test
@@ -2446,24 +2546,24 @@ public class AutomationContainerTest {
 
     @Test
     public void getControlByControlType_By_Name_with_RegExPattern() throws Exception {
-    	BaseAutomationTest.setElementCurrentName(elem, "myName");
+    	BaseAutomationTest.setElementCachedName(elem, "myName");
         setElementTypeAndClassName(elem, ControlType.Edit, "");
 
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
 
         AutomationBase bar = spyWndw.getControlByControlType(Pattern.compile("myName"),ControlType.Edit);
         assertEquals(targetElement,bar.getElement());
         assertEquals(AutomationEditBox.class,bar.getClass());
 
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(element, atLeastOnce()).findAll(any(), any(), any());
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void getControlByControlType_By_Name_with_RegExPattern_Throws_Exception_When_Not_found() throws Exception {
     	BaseAutomationTest.setElementClassName(elem, "BlaBla");
-    	BaseAutomationTest.setElementCurrentName(elem, "myName");
+    	BaseAutomationTest.setElementCachedName(elem, "myName");
 
-    	when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
+    	when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
 
         wndw.getControlByControlType(Pattern.compile("myOtherName"),ControlType.Button);
     }
@@ -2492,21 +2592,21 @@ public class AutomationContainerTest {
 
     @Test
     public void getControlByControlType_By_Name_and_ClassName_with_RegExPattern() throws Exception {
-    	BaseAutomationTest.setElementCurrentName(elem, "myName");
+    	BaseAutomationTest.setElementCachedName(elem, "myName");
         setElementTypeAndClassName(elem, ControlType.Button, "Blubber");
 
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
 
         AutomationBase bar = spyWndw.getControlByControlType(Pattern.compile("myName"),ControlType.Button, "Blubber");
         assertEquals(targetElement,bar.getElement());
         assertEquals(AutomationButton.class,bar.getClass());
 
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(element, atLeastOnce()).findAll(any(), any(), any());
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void getControlByControlType_By_Name_and_ClassName_with_RegExPattern_Throws_Exception_When_Not_found() throws Exception {
-    	 when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
+    	 when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
 
         wndw.getControlByControlType(Pattern.compile("myNameWrong"),ControlType.Calendar, "Blubber");
     }
@@ -2553,21 +2653,21 @@ public class AutomationContainerTest {
 
     @Test
     public void getControlByName_with_RegExPattern() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
         setElementTypeAndClassName(elem, ControlType.Document, "");
 
         AutomationBase custom = spyWndw.getControlByName(Pattern.compile(".*Name"));
         assertEquals(targetElement,custom.getElement());
         assertEquals(AutomationDocument.class,custom.getClass());
 
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(element, atLeastOnce()).findAll(any(), any(), any());
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void getControlByName_with_RegExPattern_Throws_Exception_When_Not_found() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        BaseAutomationTest.setElementCurrentName(elem, "myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
         setElementTypeAndClassName(elem, ControlType.Document, "");
         
         wndw.getControlByName(Pattern.compile("yourName"));
@@ -2577,13 +2677,15 @@ public class AutomationContainerTest {
     public void getControlByClassName() throws Exception {
         setElementTypeAndClassName(elem, ControlType.Window, "BlaBlubber");
 
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
         AutomationBase bar = spyWndw.getControlByClassName("BlaBlubber");
         assertEquals(targetElement,bar.getElement());
         assertEquals(AutomationWindow.class,bar.getClass());
 
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw).findAt(any(), any(), anyInt());
+        verify(walker).getFirstChildElement(element);
+        verify(walker).close();
     }
 
     @Test(expected=ElementNotFoundException.class)
@@ -2591,20 +2693,22 @@ public class AutomationContainerTest {
 
         when(element.findFirst(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenThrow(new ElementNotFoundException());
 
-        wndw.getControlByClassName("BlaBlubber");
+        spyWndw.getControlByClassName("BlaBlubber");
     }
 
     @Test
     public void getControlByClassName_By_Index() throws Exception {
         setElementTypeAndClassName(elem, ControlType.AppBar, "BlaBla");
 
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
+        AutomationTreeWalker walker = walkList();
 
         AutomationBase bar = spyWndw.getControlByClassName(0,"BlaBla");
         assertEquals(targetElement,bar.getElement());
         assertEquals(AutomationAppBar.class,bar.getClass());
 
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw).findAt(any(), any(), anyInt());
+        verify(walker).getFirstChildElement(element);
+        verify(walker).close();
     }
 
     @Test(expected=ElementNotFoundException.class)
@@ -2613,7 +2717,7 @@ public class AutomationContainerTest {
 
         when(element.findFirst(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenThrow(new ElementNotFoundException());
 
-        wndw.getControlByClassName(99,"BlaBla");
+        spyWndw.getControlByClassName(99,"BlaBla");
     }
 
     @Test
@@ -2643,28 +2747,70 @@ public class AutomationContainerTest {
 
     @Test
     public void getControlByClassName_By_Name_with_RegExPattern() throws Exception {
-    	BaseAutomationTest.setElementCurrentName(elem, "myName");
+    	BaseAutomationTest.setElementCachedName(elem, "myName");
         setElementTypeAndClassName(elem, ControlType.AppBar, "BlaBla");
 
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
 
         AutomationBase bar = spyWndw.getControlByClassName(Pattern.compile("myName"),"BlaBla");
         assertEquals(targetElement,bar.getElement());
         assertEquals(AutomationAppBar.class,bar.getClass());
 
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(element, atLeastOnce()).findAll(any(), any(), any());
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void getControlByClassName_By_Name_with_RegExPattern_Throws_Exception_When_Not_found() throws Exception {
     	BaseAutomationTest.setElementClassName(elem, "BlaBla");
-    	BaseAutomationTest.setElementCurrentName(elem, "myName");
+    	BaseAutomationTest.setElementCachedName(elem, "myName");
 
-    	when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
+    	when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
 
         wndw.getControlByClassName(Pattern.compile("myNonsenseName"),"BlaBla");
     }
-    
+
+    @Test
+    public void test_ResolveAll_Reports_Missing_And_Ambiguous() throws Exception {
+        list.add(new AutomationElement(elem));
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        BaseAutomationTest.setElementCachedName(elem, "myName");
+        BaseAutomationTest.answerIntByReference(ControlType.Button.getValue()).when(elem).getCachedControlType(any());
+        BaseAutomationTest.answerStringByReference("myID").when(elem).getCachedAutomationId(any());
+
+        Map<String, Locator> locators = new LinkedHashMap<>();
+        locators.put("ok", Locator.byAutomationId(ControlType.Button, "myID"));
+        locators.put("named", Locator.byName(ControlType.Button, Pattern.compile("my.*")));
+        locators.put("edit", Locator.byName(ControlType.Edit, "myName"));
+
+        LocatorResults results = spyWndw.resolveAll(locators);
+
+        assertEquals(targetElement, results.get("ok").getElement());
+        assertTrue(results.get("named") instanceof AutomationButton);
+        assertEquals(Collections.singleton("edit"), results.getMissing());
+        assertEquals(new HashSet<>(Arrays.asList("ok", "named")), results.getAmbiguous());
+
+        // The two locators that matched the first element get a reference each,
+        // and the second (duplicate) match is released
+        assertNotSame(targetElement, results.get("named").getElement());
+        verify(elem, times(1)).AddRef();
+        verify(elem, times(1)).Release();
+
+        verify(element, times(1)).findAll(any(), any(), any());
+    }
+
+    /**
+     * Lets findAt run for real, over a view that holds the elements in list.
+     */
+    private AutomationTreeWalker walkList() throws Exception {
+        AutomationTreeWalker walker = BaseAutomationTest.walkerOver(element, list);
+
+        when(element.findFirst(BaseAutomationTest.isTreeScope(TreeScope.Element), any()))
+                .thenThrow(new ElementNotFoundException());
+        doReturn(walker).when(spyWndw).createViewWalker(any());
+
+        return walker;
+    }
+
 	private void setElementTypeAndClassName(IUIAutomationElement3 elem, ControlType controlType, String className) {
 		BaseAutomationTest.answerIntByReference(controlType.getValue()).when(elem).getCurrentControlType(any());
 		BaseAutomationTest.answerStringByReference(className).when(elem).getCurrentClassName(any());
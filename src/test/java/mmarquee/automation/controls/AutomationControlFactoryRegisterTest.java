@@ -0,0 +1,107 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation.controls;
+
+import mmarquee.automation.AutomationElement;
+import mmarquee.automation.ControlType;
+import mmarquee.automation.UIAutomation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Tests for registering controls with the AutomationControlFactory.
+ */
+public class AutomationControlFactoryRegisterTest {
+
+    private static final String CLASS_NAME = "Custom.Edit";
+
+    private AutomationBase parent;
+    private AutomationElement element;
+
+    private final AutomationControlFactory.Creator creator = (parent, child) -> new Control(child);
+
+    private AutomationControlFactory.Creator previous;
+
+    static class Control extends AutomationBase {
+        Control(AutomationElement element) {
+            super(element, (UIAutomation) null);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        parent = Mockito.mock(AutomationBase.class);
+        element = Mockito.mock(AutomationElement.class);
+
+        previous = AutomationControlFactory.register(ControlType.Separator, creator);
+        AutomationControlFactory.register(ControlType.Edit, CLASS_NAME, creator);
+    }
+
+    @After
+    public void tearDown() {
+        if (previous == null) {
+            AutomationControlFactory.unregister(ControlType.Separator);
+        } else {
+            AutomationControlFactory.register(ControlType.Separator, previous);
+        }
+        AutomationControlFactory.unregister(ControlType.Edit, CLASS_NAME);
+    }
+
+    @Test
+    public void get_Uses_Control_Registered_For_ClassName() throws Exception {
+        when(element.getControlType()).thenReturn(ControlType.Edit.getValue());
+        when(element.getClassName()).thenReturn(CLASS_NAME);
+
+        AutomationBase control = AutomationControlFactory.get(parent, element);
+
+        assertEquals(Control.class, control.getClass());
+        assertSame(element, control.getElement());
+    }
+
+    @Test
+    public void get_Does_Not_Ask_For_ClassName_When_Not_Needed() throws Exception {
+        when(element.getControlType()).thenReturn(ControlType.Separator.getValue());
+
+        AutomationBase control = AutomationControlFactory.get(parent, element);
+
+        assertEquals(Control.class, control.getClass());
+        verify(element, never()).getClassName();
+        verify(element, never()).getCachedClassName();
+    }
+
+    @Test
+    public void get_Uses_Cached_ControlType_And_ClassName() throws Exception {
+        when(element.getCachedControlType()).thenReturn(ControlType.Edit.getValue());
+        when(element.getCachedClassName()).thenReturn(CLASS_NAME);
+
+        AutomationBase control = AutomationControlFactory.get(parent, element);
+
+        assertEquals(Control.class, control.getClass());
+        verify(element, never()).getControlType();
+        verify(element, never()).getClassName();
+    }
+}
@@ -173,15 +173,15 @@ public class AutomationListTest {
         List<AutomationElement> items = new ArrayList<>();
         items.add(targetElement);
         
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(items);
-        when(targetElement.getName()).thenReturn("myWorld");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(items);
+        when(targetElement.getCachedName()).thenReturn("myWorld");
 
         AutomationList list = new AutomationList(element, selection);
 
         AutomationListItem item = list.getItem(Pattern.compile("my.*"));
         assertEquals(targetElement,item.getElement());
 
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(element, atLeastOnce()).findAll(any(), any(), any());
     }
 
     @Test(expected=ItemNotFoundException.class)
@@ -189,8 +189,8 @@ public class AutomationListTest {
         List<AutomationElement> items = new ArrayList<>();
         items.add(targetElement);
         
-        when(targetElement.getName()).thenReturn("myWorld");
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(items);
+        when(targetElement.getCachedName()).thenReturn("myWorld");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(items);
 
         AutomationList list = new AutomationList(element, selection);
 
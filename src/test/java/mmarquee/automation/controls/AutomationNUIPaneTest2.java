@@ -15,10 +15,9 @@
  */
 package mmarquee.automation.controls;
 
-import com.sun.jna.Memory;
-import com.sun.jna.Native;
 import com.sun.jna.Pointer;
 import com.sun.jna.ptr.PointerByReference;
+import mmarquee.automation.BaseAutomationTest;
 import mmarquee.automation.AutomationElement;
 import mmarquee.automation.ElementNotFoundException;
 import mmarquee.automation.controls.AutomationNUIPane;
@@ -33,7 +32,7 @@ import java.util.List;
 
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.when;
 
 /**
@@ -69,15 +68,14 @@ public class AutomationNUIPaneTest2 {
         when(element.getClassName()).thenReturn(AutomationNUIPane.CLASS_NAME);
         List<AutomationElement> collection = new ArrayList<>();
 
-        when(element.findAll(any(), any())).thenReturn(collection);
-
         ItemContainer container = Mockito.mock(ItemContainer.class);
 
-        AutomationNUIPane pane = new AutomationNUIPane(element, container);
+        AutomationNUIPane pane = Mockito.spy(new AutomationNUIPane(element, container));
+        BaseAutomationTest.answerFindAt(collection).when(pane).findAt(any(), any(), anyInt());
 
         pane.getNetUIHWND(0);
 
-        Mockito.verify(element, atLeastOnce()).findAll(any(), any());
+        Mockito.verify(pane).findAt(any(), any(), anyInt());
     }
 
     @Test
@@ -95,8 +93,7 @@ public class AutomationNUIPaneTest2 {
                 PointerByReference reference = (PointerByReference) args[0];
 
                 String value = "NetUIHWND";
-                Pointer pointer = new Memory(Native.WCHAR_SIZE * (value.length() + 1));
-                pointer.setWideString(0, value);
+                Pointer pointer = BaseAutomationTest.createBSTR(value);
 
                 reference.setValue(pointer);
 
@@ -106,14 +103,13 @@ public class AutomationNUIPaneTest2 {
 
         collection.add(new AutomationElement(elem));
 
-        when(element.findAll(any(), any())).thenReturn(collection);
-
         ItemContainer container = Mockito.mock(ItemContainer.class);
 
-        AutomationNUIPane pane = new AutomationNUIPane(element, container);
+        AutomationNUIPane pane = Mockito.spy(new AutomationNUIPane(element, container));
+        BaseAutomationTest.answerFindAt(collection).when(pane).findAt(any(), any(), anyInt());
 
         pane.getNetUIHWND(0);
 
-        Mockito.verify(element, atLeastOnce()).findAll(any(), any());
+        Mockito.verify(pane).findAt(any(), any(), anyInt());
     }
 }
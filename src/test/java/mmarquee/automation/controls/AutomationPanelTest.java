@@ -17,6 +17,7 @@ package mmarquee.automation.controls;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -77,18 +78,18 @@ public class AutomationPanelTest {
     
     @Test
     public void test_GetWindow_By_Index() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Subtree), any())).thenReturn(list);
+        BaseAutomationTest.answerFindAt(list).when(panel).findAt(BaseAutomationTest.isTreeScope(TreeScope.Subtree), any(), anyInt());
 
         AutomationWindow window = panel.getWindow(0);
         assertEquals(targetElement,window.element);
 
         verify(panel).createIntegerVariant(ControlType.Window.getValue());
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(panel).findAt(any(), any(), anyInt());
     }
 
     @Test(expected=IndexOutOfBoundsException.class)
     public void test_GetWindow_By_Index_Throws_Exception_When_Not_found() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
+        BaseAutomationTest.answerFindAt(list).when(panel).findAt(any(), any(), anyInt());
 
         panel.getTextBox(99);
     }
@@ -114,20 +115,20 @@ public class AutomationPanelTest {
 
     @Test
     public void test_GetWindow_By_Name_with_RegexPattern() throws Exception {
-    	when(targetElement.getName()).thenReturn("myName");
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
+    	when(targetElement.getCachedName()).thenReturn("myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
 
         AutomationWindow window = panel.getWindow(Pattern.compile(".+Name"));
         assertEquals(targetElement,window.getElement());
 
         verify(panel).createControlTypeCondition(ControlType.Window);
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(element, atLeastOnce()).findAll(any(), any(), any());
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void test_GetWindow_By_Name_with_RegexPatternThrows_Exception_When_Not_found() throws Exception {
-    	when(targetElement.getName()).thenReturn("myName");
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
+    	when(targetElement.getCachedName()).thenReturn("myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
     	
         panel.getWindow(Pattern.compile("unknownName"));
     }
@@ -15,10 +15,9 @@
  */
 package mmarquee.automation.controls;
 
-import com.sun.jna.Memory;
-import com.sun.jna.Native;
 import com.sun.jna.Pointer;
 import com.sun.jna.ptr.PointerByReference;
+import mmarquee.automation.BaseAutomationTest;
 import mmarquee.automation.AutomationElement;
 import mmarquee.automation.ElementNotFoundException;
 import mmarquee.automation.controls.AutomationRibbonBar;
@@ -33,7 +32,7 @@ import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.when;
 
 /**
@@ -69,15 +68,15 @@ public class AutomationRibbonBarTest2 {
         List<AutomationElement> collection = new ArrayList<>();
 
         when(element.getClassName()).thenReturn(AutomationRibbonBar.CLASS_NAME);
-        when(element.findAll(any(), any())).thenReturn(collection);
 
         ItemContainer container = Mockito.mock(ItemContainer.class);
 
-        AutomationRibbonBar bar = new AutomationRibbonBar(element, container);
+        AutomationRibbonBar bar = Mockito.spy(new AutomationRibbonBar(element, container));
+        BaseAutomationTest.answerFindAt(collection).when(bar).findAt(any(), any(), anyInt());
 
         bar.getRibbonCommandBar();
 
-        Mockito.verify(element, atLeastOnce()).findAll(any(), any());
+        Mockito.verify(bar).findAt(any(), any(), anyInt());
     }
 
     @Test
@@ -95,8 +94,7 @@ public class AutomationRibbonBarTest2 {
                     PointerByReference reference = (PointerByReference) args[0];
 
                     String value = "UIRibbonCommandBar";
-                    Pointer pointer = new Memory(Native.WCHAR_SIZE * (value.length() + 1));
-                    pointer.setWideString(0, value);
+                    Pointer pointer = BaseAutomationTest.createBSTR(value);
 
                     reference.setValue(pointer);
 
@@ -106,12 +104,11 @@ public class AutomationRibbonBarTest2 {
 
         collection.add(new AutomationElement(elem));
 
-        when(element.findAll(any(), any())).thenReturn(collection);
-
-        AutomationRibbonBar bar = new AutomationRibbonBar(element);
+        AutomationRibbonBar bar = Mockito.spy(new AutomationRibbonBar(element));
+        BaseAutomationTest.answerFindAt(collection).when(bar).findAt(any(), any(), anyInt());
 
         bar.getRibbonCommandBar();
 
-        Mockito.verify(element, atLeastOnce()).findAll(any(), any());
+        Mockito.verify(bar).findAt(any(), any(), anyInt());
     }
 }
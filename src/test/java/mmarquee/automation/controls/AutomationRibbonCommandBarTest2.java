@@ -15,10 +15,9 @@
  */
 package mmarquee.automation.controls;
 
-import com.sun.jna.Memory;
-import com.sun.jna.Native;
 import com.sun.jna.Pointer;
 import com.sun.jna.ptr.PointerByReference;
+import mmarquee.automation.BaseAutomationTest;
 import mmarquee.automation.AutomationElement;
 import mmarquee.automation.ElementNotFoundException;
 import mmarquee.automation.controls.AutomationRibbonCommandBar;
@@ -34,7 +33,7 @@ import java.util.List;
 
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.when;
 
 /**
@@ -70,15 +69,15 @@ public class AutomationRibbonCommandBarTest2 {
         List<AutomationElement> collection = new ArrayList<>();
 
         when(element.getClassName()).thenReturn(AutomationRibbonCommandBar.CLASS_NAME);
-        when(element.findAll(any(), any())).thenReturn(collection);
 
         ItemContainer container = Mockito.mock(ItemContainer.class);
 
-        AutomationRibbonCommandBar commandBar = new AutomationRibbonCommandBar(element, container);
+        AutomationRibbonCommandBar commandBar = Mockito.spy(new AutomationRibbonCommandBar(element, container));
+        BaseAutomationTest.answerFindAt(collection).when(commandBar).findAt(any(), any(), anyInt());
 
         AutomationRibbonWorkPane workPane = commandBar.getRibbonWorkPane();
 
-        Mockito.verify(element, atLeastOnce()).findAll(any(), any());
+        Mockito.verify(commandBar).findAt(any(), any(), anyInt());
     }
 
     @Test
@@ -95,8 +94,7 @@ public class AutomationRibbonCommandBarTest2 {
                     PointerByReference reference = (PointerByReference) args[0];
 
                     String value = "UIRibbonWorkPane";
-                    Pointer pointer = new Memory(Native.WCHAR_SIZE * (value.length() + 1));
-                    pointer.setWideString(0, value);
+                    Pointer pointer = BaseAutomationTest.createBSTR(value);
 
                     reference.setValue(pointer);
 
@@ -107,12 +105,12 @@ public class AutomationRibbonCommandBarTest2 {
         collection.add(new AutomationElement(elem));
 
         when(element.getClassName()).thenReturn(AutomationRibbonCommandBar.CLASS_NAME);
-        when(element.findAll(any(), any())).thenReturn(collection);
 
-        AutomationRibbonCommandBar commandBar = new AutomationRibbonCommandBar(element);
+        AutomationRibbonCommandBar commandBar = Mockito.spy(new AutomationRibbonCommandBar(element));
+        BaseAutomationTest.answerFindAt(collection).when(commandBar).findAt(any(), any(), anyInt());
 
         AutomationRibbonWorkPane workPane = commandBar.getRibbonWorkPane();
 
-        Mockito.verify(element, atLeastOnce()).findAll(any(), any());
+        Mockito.verify(commandBar).findAt(any(), any(), anyInt());
     }
 }
@@ -15,10 +15,9 @@
  */
 package mmarquee.automation.controls;
 
-import com.sun.jna.Memory;
-import com.sun.jna.Native;
 import com.sun.jna.Pointer;
 import com.sun.jna.ptr.PointerByReference;
+import mmarquee.automation.BaseAutomationTest;
 import mmarquee.automation.AutomationElement;
 import mmarquee.automation.ElementNotFoundException;
 import mmarquee.automation.controls.AutomationRibbonWorkPane;
@@ -33,7 +32,7 @@ import java.util.List;
 
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.when;
 
 /**
@@ -69,15 +68,15 @@ public class AutomationRibbonWorkPaneTest2 {
         List<AutomationElement> collection = new ArrayList<>();
 
         when(element.getClassName()).thenReturn(AutomationRibbonWorkPane.CLASS_NAME);
-        when(element.findAll(any(), any())).thenReturn(collection);
 
         ItemContainer container = Mockito.mock(ItemContainer.class);
 
-        AutomationRibbonWorkPane workPane = new AutomationRibbonWorkPane(element, container);
+        AutomationRibbonWorkPane workPane = Mockito.spy(new AutomationRibbonWorkPane(element, container));
+        BaseAutomationTest.answerFindAt(collection).when(workPane).findAt(any(), any(), anyInt());
 
         workPane.getNUIPane(0);
 
-        Mockito.verify(element, atLeastOnce()).findAll(any(), any());
+        Mockito.verify(workPane).findAt(any(), any(), anyInt());
     }
 
     @Test
@@ -94,8 +93,7 @@ public class AutomationRibbonWorkPaneTest2 {
                     PointerByReference reference = (PointerByReference) args[0];
 
                     String value = "NUIPane";
-                    Pointer pointer = new Memory(Native.WCHAR_SIZE * (value.length() + 1));
-                    pointer.setWideString(0, value);
+                    Pointer pointer = BaseAutomationTest.createBSTR(value);
 
                     reference.setValue(pointer);
 
@@ -105,12 +103,12 @@ public class AutomationRibbonWorkPaneTest2 {
         collection.add(new AutomationElement(elem));
 
         when(element.getClassName()).thenReturn(AutomationRibbonWorkPane.CLASS_NAME);
-        when(element.findAll(any(), any())).thenReturn(collection);
 
-        AutomationRibbonWorkPane workPane = new AutomationRibbonWorkPane(element);
+        AutomationRibbonWorkPane workPane = Mockito.spy(new AutomationRibbonWorkPane(element));
+        BaseAutomationTest.answerFindAt(collection).when(workPane).findAt(any(), any(), anyInt());
 
         workPane.getNUIPane(0);
 
-        Mockito.verify(element, atLeastOnce()).findAll(any(), any());
+        Mockito.verify(workPane).findAt(any(), any(), anyInt());
     }
 }
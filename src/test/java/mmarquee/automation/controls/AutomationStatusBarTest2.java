@@ -16,6 +16,7 @@
 package mmarquee.automation.controls;
 
 import mmarquee.automation.AutomationElement;
+import mmarquee.automation.BaseAutomationTest;
 import mmarquee.automation.UIAutomation;
 import mmarquee.automation.pattern.ItemContainer;
 import mmarquee.automation.uiautomation.IUIAutomation;
@@ -31,6 +32,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 
 /**
@@ -59,11 +61,12 @@ public class AutomationStatusBarTest2 {
 
 //        when(mocked_automation.createPropertyCondition(any(), any(), any())).thenReturn(1);
 
-        AutomationStatusBar statusBar = new AutomationStatusBar(element, pattern);
+        AutomationStatusBar statusBar = Mockito.spy(new AutomationStatusBar(element, pattern));
+        BaseAutomationTest.answerFindAt(new ArrayList<>()).when(statusBar).findAt(any(), any(), anyInt());
 
         AutomationTextBox textBox = statusBar.getTextBox(0);
 
-        verify(element, times(1)).findAll(any(), any());
+        verify(statusBar, times(1)).findAt(any(), any(), anyInt());
     }
 
     @Test
@@ -78,17 +81,16 @@ public class AutomationStatusBarTest2 {
         List<AutomationElement> result = new ArrayList<>();
         result.add(new AutomationElement(listElement));
 
-        when(element.findAll(any(), any())).thenReturn(result);
-
         IUIAutomation mocked_automation = Mockito.mock(IUIAutomation.class);
         UIAutomation instance = new UIAutomation(mocked_automation);
 
     //    when(mocked_automation.createPropertyCondition(any(), any(), any())).thenReturn(1);
 
-        AutomationStatusBar statusBar = new AutomationStatusBar(element, pattern);
+        AutomationStatusBar statusBar = Mockito.spy(new AutomationStatusBar(element, pattern));
+        BaseAutomationTest.answerFindAt(result).when(statusBar).findAt(any(), any(), anyInt());
 
         AutomationTextBox textBox = statusBar.getTextBox(0);
 
-        verify(element, times(1)).findAll(any(), any());
+        verify(statusBar, times(1)).findAt(any(), any(), anyInt());
     }
 }
@@ -17,6 +17,7 @@ package mmarquee.automation.controls;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -30,6 +31,7 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.mockito.Mock;
+import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 
 import mmarquee.automation.AutomationElement;
@@ -76,18 +78,16 @@ public class AutomationToolbarTest2 {
     @Test
     public void test_GetToolbarButton_By_Index_Gets_Button_When_Within_Bounds() throws Exception {
     	
-        when(element.findAll(any(), any())).thenReturn(list);
-
-        AutomationToolBar ctrl = new AutomationToolBar(element, container);
+        AutomationToolBar ctrl = Mockito.spy(new AutomationToolBar(element, container));
+        BaseAutomationTest.answerFindAt(list).when(ctrl).findAt(any(), any(), anyInt());
 
         ctrl.getToolbarButton(0);
     }
 
     @Test(expected=IndexOutOfBoundsException.class)
     public void test_GetToolbarButton_By_Index_Throws_Exception_When_Out_Of_Bounds() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
-
-        AutomationToolBar ctrl = new AutomationToolBar(element, container);
+        AutomationToolBar ctrl = Mockito.spy(new AutomationToolBar(element, container));
+        BaseAutomationTest.answerFindAt(list).when(ctrl).findAt(any(), any(), anyInt());
 
         ctrl.getToolbarButton(1);
     }
@@ -116,8 +116,8 @@ public class AutomationToolbarTest2 {
 
     @Test
     public void test_GetToolbarButton_By_Name_with_RegExPattern_Gets_Button() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenReturn(list);
-        when(targetElement.getName()).thenReturn("myName");
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenReturn(list);
+        when(targetElement.getCachedName()).thenReturn("myName");
         
         AutomationToolBar ctrl = new AutomationToolBar(element, container);
 
@@ -125,12 +125,12 @@ public class AutomationToolbarTest2 {
         
         assertEquals(targetElement,button.getElement());
 
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(element, atLeastOnce()).findAll(any(), any(), any());
     }
 
     @Test(expected=ElementNotFoundException.class)
     public void test_GetToolbarButton_By_Name_with_RegExPattern_Throws_Exception() throws Exception {
-        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any())).thenThrow(new ElementNotFoundException());
+        when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Descendants), any(), any())).thenThrow(new ElementNotFoundException());
 
         AutomationToolBar ctrl = new AutomationToolBar(element, container);
 
@@ -100,21 +100,21 @@ public class AutomationTreeViewTest {
 
     @Test
     public void testGetItem_with_RegExPattern_When_Item_Is_Present() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
-        when(targetElement.getName()).thenReturn("myName");
+        when(element.findAll(any(), any(), any())).thenReturn(list);
+        when(targetElement.getCachedName()).thenReturn("myName");
 
         AutomationTreeViewItem treeItem = ctrl.getItem(Pattern.compile(".*yN.+"));
 
         assertEquals(targetElement,treeItem.getElement());
         verify(ctrl).createControlTypeCondition(ControlType.TreeItem);
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(element, atLeastOnce()).findAll(any(), any(), any());
     }
 
 
     @Test(expected=ItemNotFoundException.class)
     public void testGetItem_with_RegExPattern_Fails_When_Item_Is_Not_Present() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
-        when(targetElement.getName()).thenReturn("myName");
+        when(element.findAll(any(), any(), any())).thenReturn(list);
+        when(targetElement.getCachedName()).thenReturn("myName");
 
         ctrl.getItem(Pattern.compile("nixIs"));
     }
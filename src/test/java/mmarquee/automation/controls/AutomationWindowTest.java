@@ -17,6 +17,7 @@ package mmarquee.automation.controls;
 
 import mmarquee.automation.AutomationElement;
 import mmarquee.automation.AutomationException;
+import mmarquee.automation.BaseAutomationTest;
 import mmarquee.automation.UIAutomation;
 import mmarquee.automation.pattern.ItemContainer;
 import mmarquee.automation.pattern.PatternNotFoundException;
@@ -35,6 +36,7 @@ import java.util.List;
 
 import static org.junit.Assert.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.when;
 
 /**
@@ -105,42 +107,39 @@ public class AutomationWindowTest {
 
     @Test
     public void test_getSystemMenu_Does_Not_Throw_Exception() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
-
         when(targetElement.findAll(any(), any())).thenReturn(menus);
 
         IUIAutomation mocked_automation = Mockito.mock(IUIAutomation.class);
         UIAutomation instance = new UIAutomation(mocked_automation);
 
-        AutomationWindow windw = new AutomationWindow(element, window, container);
+        AutomationWindow windw = Mockito.spy(new AutomationWindow(element, window, container));
+        BaseAutomationTest.answerFindAt(list).when(windw).findAt(any(), any(), anyInt());
 
         windw.getSystemMenu();
     }
 
     @Test
     public void testGetTitleBar_Does_Not_Throw_Exception() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
-
         when(targetElement.findAll(any(), any())).thenReturn(menus);
 
         IUIAutomation mocked_automation = Mockito.mock(IUIAutomation.class);
         UIAutomation instance = new UIAutomation(mocked_automation);
 
-        AutomationWindow windw = new AutomationWindow(element, window, container);
+        AutomationWindow windw = Mockito.spy(new AutomationWindow(element, window, container));
+        BaseAutomationTest.answerFindAt(list).when(windw).findAt(any(), any(), anyInt());
 
         windw.getTitleBar();
     }
 
     @Test
     public void testGetAppBar_By_Index_Does_Not_Throw_Exception() throws Exception {
-        when(element.findAll(any(), any())).thenReturn(list);
-
         when(targetElement.findAll(any(), any())).thenReturn(menus);
 
         IUIAutomation mocked_automation = Mockito.mock(IUIAutomation.class);
         UIAutomation instance = new UIAutomation(mocked_automation);
 
-        AutomationWindow windw = new AutomationWindow(element, window, container);
+        AutomationWindow windw = Mockito.spy(new AutomationWindow(element, window, container));
+        BaseAutomationTest.answerFindAt(list).when(windw).findAt(any(), any(), anyInt());
 
         windw.getAppBar(0);
     }
@@ -428,11 +428,12 @@ public class AutomationWindowTest2 {
         List<AutomationElement> result = new ArrayList<>();
         result.add(new AutomationElement(listElement));
 
-        when(element.findAll(any(), any())).thenReturn(result);
+        AutomationWindow spyWndw = Mockito.spy(wndw);
+        BaseAutomationTest.answerFindAt(result).when(spyWndw).findAt(any(), any(), anyInt());
 
-        AutomationAppBar bar = wndw.getAppBar(0);
+        AutomationAppBar bar = spyWndw.getAppBar(0);
 
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw, atLeastOnce()).findAt(any(), any(), anyInt());
     }
 
     @Test
@@ -458,11 +459,12 @@ public class AutomationWindowTest2 {
         List<AutomationElement> result = new ArrayList<>();
         result.add(new AutomationElement(listElement));
 
-        when(element.findAll(any(), any())).thenReturn(result);
+        AutomationWindow spyWndw = Mockito.spy(wndw);
+        BaseAutomationTest.answerFindAt(result).when(spyWndw).findAt(any(), any(), anyInt());
 
-        AutomationTitleBar bar = wndw.getTitleBar();
+        AutomationTitleBar bar = spyWndw.getTitleBar();
 
-        verify(element, atLeastOnce()).findAll(any(), any());
+        verify(spyWndw, atLeastOnce()).findAt(any(), any(), anyInt());
     }
 
     @Test(expected= ElementNotFoundException.class)
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation.controls;
+
+import mmarquee.automation.AutomationElement;
+import mmarquee.automation.AutomationException;
+import mmarquee.automation.CacheRequest;
+import mmarquee.automation.ControlType;
+import mmarquee.automation.PropertyID;
+import mmarquee.automation.UIAutomation;
+import mmarquee.automation.uiautomation.TreeScope;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Tests for the lazily created controls returned by getChildrenLazily.
+ */
+public class LazyControlListTest {
+
+    static class Control extends AutomationBase {
+        Control(AutomationElement element, UIAutomation automation) {
+            super(element, automation);
+        }
+    }
+
+    private UIAutomation automation;
+    private AutomationBase parent;
+    private List<AutomationElement> elements;
+
+    private AutomationControlFactory.Creator previous;
+
+    @Before
+    public void setUp() throws Exception {
+        automation = Mockito.mock(UIAutomation.class);
+        parent = new Control(Mockito.mock(AutomationElement.class), automation);
+
+        elements = new LinkedList<>();
+        for (int index = 0; index < 100; index++) {
+            AutomationElement element = Mockito.mock(AutomationElement.class);
+            when(element.getCachedControlType()).thenReturn(ControlType.Separator.getValue());
+            elements.add(element);
+        }
+
+        previous = AutomationControlFactory.register(ControlType.Separator,
+                (owner, child) -> new Control(child, automation));
+    }
+
+    @After
+    public void tearDown() {
+        if (previous == null) {
+            AutomationControlFactory.unregister(ControlType.Separator);
+        } else {
+            AutomationControlFactory.register(ControlType.Separator, previous);
+        }
+    }
+
+    @Test
+    public void testSize_Does_Not_Create_Controls() throws Exception {
+        LazyControlList list = new LazyControlList(parent, elements);
+
+        assertEquals(100, list.size());
+        assertEquals(0, list.getCreatedCount());
+        assertTrue(list instanceof RandomAccess);
+
+        for (AutomationElement element : elements) {
+            verify(element, never()).getCachedControlType();
+        }
+    }
+
+    @Test
+    public void testGet_Creates_Control_Once() throws Exception {
+        LazyControlList list = new LazyControlList(parent, elements);
+
+        AutomationBase control = list.get(42);
+
+        assertSame(elements.get(42), control.getElement());
+        assertSame(control, list.get(42));
+        assertEquals(1, list.getCreatedCount());
+        verify(elements.get(42), times(1)).getCachedControlType();
+        verify(elements.get(42), never()).getControlType();
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testList_Is_Read_Only() throws Exception {
+        new LazyControlList(parent, elements).add(parent);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testGet_Throws_IllegalStateException_When_Automation_Fails() throws Exception {
+        AutomationElement failing = Mockito.mock(AutomationElement.class);
+        when(failing.getControlType()).thenThrow(new AutomationException(-1));
+
+        List<AutomationElement> single = new ArrayList<>();
+        single.add(failing);
+
+        new LazyControlList(parent, single).get(0);
+    }
+
+    @Test
+    public void testGetChildren_Caches_ControlType_And_ClassName() throws Exception {
+        CacheRequest request = Mockito.mock(CacheRequest.class);
+        when(automation.getCacheRequest(PropertyID.ControlType, PropertyID.ClassName)).thenReturn(request);
+        when(parent.getElement().findAll(any(TreeScope.class), any(), any(CacheRequest.class))).thenReturn(elements);
+
+        List<AutomationBase> children = parent.getChildren(true);
+
+        assertEquals(100, children.size());
+        assertSame(elements.get(7), children.get(7).getElement());
+
+        verify(parent.getElement()).findAll(any(TreeScope.class), any(), Mockito.eq(request));
+    }
+
+    @Test
+    public void testGetChildrenLazily_Creates_The_Controls_As_They_Are_Asked_For() throws Exception {
+        when(parent.getElement().findAll(any(TreeScope.class), any(), any())).thenReturn(elements);
+
+        List<AutomationBase> children = parent.getChildrenLazily(true);
+
+        assertEquals(100, children.size());
+        assertEquals(0, ((LazyControlList) children).getCreatedCount());
+
+        assertSame(elements.get(7), children.get(7).getElement());
+        assertEquals(1, ((LazyControlList) children).getCreatedCount());
+    }
+}
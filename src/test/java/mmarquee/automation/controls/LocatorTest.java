@@ -0,0 +1,68 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation.controls;
+
+import mmarquee.automation.ControlType;
+import org.junit.Test;
+
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ */
+public class LocatorTest {
+
+    private static final int BUTTON = ControlType.Button.getValue();
+
+    @Test
+    public void testMatches_By_Name() {
+        Locator locator = Locator.byName(ControlType.Button, "OK");
+
+        assertTrue(locator.matches(BUTTON, "OK", "", ""));
+        assertFalse(locator.matches(BUTTON, "Cancel", "", ""));
+        assertFalse(locator.matches(ControlType.Edit.getValue(), "OK", "", ""));
+    }
+
+    @Test
+    public void testMatches_By_Name_Pattern() {
+        Locator locator = Locator.byName(ControlType.Button, Pattern.compile("Save.*"));
+
+        assertTrue(locator.matches(BUTTON, "Save As", "", ""));
+        assertFalse(locator.matches(BUTTON, "Open", "", ""));
+        assertFalse(locator.matches(BUTTON, null, "", ""));
+    }
+
+    @Test
+    public void testMatches_By_AutomationId_And_ClassName() {
+        Locator locator = Locator.byAutomationId(null, "btn1").withClassName("TButton");
+
+        assertTrue(locator.matches(BUTTON, "", "btn1", "TButton"));
+        assertTrue(locator.matches(ControlType.Edit.getValue(), "", "btn1", "TButton"));
+        assertFalse(locator.matches(BUTTON, "", "btn1", "TEdit"));
+        assertFalse(locator.matches(BUTTON, "", "btn2", "TButton"));
+    }
+
+    @Test
+    public void testToString() {
+        assertEquals("Button[name='OK'][class='TButton']",
+                Locator.byName(ControlType.Button, "OK").withClassName("TButton").toString());
+    }
+}
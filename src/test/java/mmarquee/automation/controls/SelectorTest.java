@@ -0,0 +1,148 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation.controls;
+
+import mmarquee.automation.AutomationElement;
+import mmarquee.automation.ControlType;
+import mmarquee.automation.PropertyID;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ */
+public class SelectorTest {
+
+    @Test
+    public void testParse_Steps_And_Scopes() {
+        Selector selector = Selector.compile("Window[name='Form1'] > Pane#main Button[name~='^OK']");
+
+        assertEquals(1, selector.getAlternatives().size());
+
+        List<Selector.Step> steps = selector.getAlternatives().get(0);
+        assertEquals(3, steps.size());
+
+        assertEquals(ControlType.Window, steps.get(0).getControlType());
+        assertFalse(steps.get(0).isChildren());
+        assertEquals(PropertyID.Name, steps.get(0).getFilters().get(0).getProperty());
+        assertEquals("Form1", steps.get(0).getFilters().get(0).getValue());
+        assertFalse(steps.get(0).needsCache());
+
+        assertEquals(ControlType.Pane, steps.get(1).getControlType());
+        assertTrue(steps.get(1).isChildren());
+        assertEquals(PropertyID.AutomationId, steps.get(1).getFilters().get(0).getProperty());
+        assertEquals("main", steps.get(1).getFilters().get(0).getValue());
+
+        assertEquals(ControlType.Button, steps.get(2).getControlType());
+        assertFalse(steps.get(2).isChildren());
+        assertEquals("^OK", steps.get(2).getFilters().get(0).getPattern().pattern());
+        assertTrue(steps.get(2).needsCache());
+    }
+
+    @Test
+    public void testParse_Any_Type_And_Filters() {
+        Selector.Step step = Selector.compile("*[class=\"Edit\"][id='a\\'b'][name*='.txt']")
+                .getAlternatives().get(0).get(0);
+
+        assertNull(step.getControlType());
+        assertEquals(3, step.getFilters().size());
+        assertEquals(PropertyID.ClassName, step.getFilters().get(0).getProperty());
+        assertEquals("Edit", step.getFilters().get(0).getValue());
+        assertEquals("a'b", step.getFilters().get(1).getValue());
+        assertTrue(step.getFilters().get(2).getPattern().matcher("notes.txt - Editor").matches());
+        assertFalse(step.getFilters().get(2).getPattern().matcher("notes_txt").matches());
+    }
+
+    @Test
+    public void testFilter_Pattern_Searches_The_Text() throws Exception {
+        Selector.Filter filter = Selector.compile("Button[name~='OK']")
+                .getAlternatives().get(0).get(0).getFilters().get(0);
+
+        AutomationElement element = Mockito.mock(AutomationElement.class);
+        when(element.getCachedName()).thenReturn("Press OK to continue");
+
+        assertTrue(filter.accepts(element));
+
+        when(element.getCachedName()).thenReturn("Cancel");
+
+        assertFalse(filter.accepts(element));
+    }
+
+    @Test
+    public void testStep_Matches_Cached_Type_And_Values() throws Exception {
+        Selector.Step step = Selector.compile("Button#ok[name~='^O']")
+                .getAlternatives().get(0).get(0);
+
+        AutomationElement element = Mockito.mock(AutomationElement.class);
+        when(element.getCachedControlType()).thenReturn(ControlType.Button.getValue());
+        when(element.getCachedAutomationId()).thenReturn("ok");
+        when(element.getCachedName()).thenReturn("OK");
+
+        assertTrue(step.matchesCached(element));
+
+        when(element.getCachedAutomationId()).thenReturn("cancel");
+
+        assertFalse(step.matchesCached(element));
+    }
+
+    @Test
+    public void testParse_Alternatives() {
+        Selector selector = Selector.compile("Button[name='OK'], > SplitButton");
+
+        assertEquals(2, selector.getAlternatives().size());
+        assertTrue(selector.getAlternatives().get(1).get(0).isChildren());
+    }
+
+    @Test
+    public void testCompile_Reuses_Plan() {
+        assertSame(Selector.compile("Tree > TreeItem"), Selector.compile("Tree > TreeItem"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParse_Unknown_Control_Type() {
+        Selector.compile("Buton");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParse_Unknown_Property() {
+        Selector.compile("Button[title='x']");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParse_Unterminated_Value() {
+        Selector.compile("Button[name='x]");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParse_Empty() {
+        Selector.compile(" ");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParse_Trailing_Combinator() {
+        Selector.compile("Pane >");
+    }
+}
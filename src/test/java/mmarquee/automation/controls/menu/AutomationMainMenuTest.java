@@ -174,11 +174,11 @@ public class AutomationMainMenuTest extends BaseAutomationTest {
     @Test
     public void testGetMenuItem_with_RegExPattern_With_Both_Parameters() throws Exception {
     	AutomationElement menuItemElement1 = Mockito.mock(AutomationElement.class);
-        when(menuItemElement1.getName()).thenReturn(getLocal("menu.file"));
+        when(menuItemElement1.getCachedName()).thenReturn(getLocal("menu.file"));
         list.add(menuItemElement1);
         
         ExpandCollapse expandCollapsePattern = BaseAutomationTest.mockExpandCollapsePattern(menuItemElement1);
-		when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Children), any())).thenReturn(list);
+		when(element.findAll(BaseAutomationTest.isTreeScope(TreeScope.Children), any(), any())).thenReturn(list);
 
         AutomationElement menuItemElement2 = Mockito.mock(AutomationElement.class);
         when(menuItemElement2.getName()).thenReturn(getLocal("menu.exit"));
@@ -198,9 +198,9 @@ public class AutomationMainMenuTest extends BaseAutomationTest {
 
     @Test(expected = ItemNotFoundException.class)
     public void testGetMenuItem_with_RegExPattern_With_First_Parameter_Only_Throws_Exception_When_Not_Found() throws Exception {
-        when(targetElement.getName()).thenReturn("NOT MENU-01");
+        when(targetElement.getCachedName()).thenReturn("NOT MENU-01");
 
-        when(element.findAll(any(), any())).thenReturn(list);
+        when(element.findAll(any(), any(), any())).thenReturn(list);
 
         AutomationMainMenu menu =
                 new AutomationMainMenu(parent, element);
@@ -210,9 +210,9 @@ public class AutomationMainMenuTest extends BaseAutomationTest {
 
     @Test
     public void testGetMenuItem_with_RegExPattern_With_First_Parameter_Does_Not_Throws_Exception_When_Found() throws Exception {
-        when(targetElement.getName()).thenReturn("MENU-01");
+        when(targetElement.getCachedName()).thenReturn("MENU-01");
 
-        when(element.findAll(any(), any())).thenReturn(list);
+        when(element.findAll(any(), any(), any())).thenReturn(list);
 
         AutomationMainMenu menu =
                 new AutomationMainMenu(parent, element);
@@ -222,9 +222,9 @@ public class AutomationMainMenuTest extends BaseAutomationTest {
 
     @Test
     public void testGetMenuItem_with_RegExPattern_With_One_Parameter_Does_Not_Throws_Exception_When_Found() throws Exception {
-        when(targetElement.getName()).thenReturn("MENU-01");
+        when(targetElement.getCachedName()).thenReturn("MENU-01");
 
-        when(element.findAll(any(), any())).thenReturn(list);
+        when(element.findAll(any(), any(), any())).thenReturn(list);
 
         AutomationMainMenu menu =
                 new AutomationMainMenu(parent, element);
@@ -234,9 +234,9 @@ public class AutomationMainMenuTest extends BaseAutomationTest {
 
     @Test(expected = ItemNotFoundException.class)
     public void testGetMenuItem_with_RegExPattern_With_One_Parameter_Throws_Exception_When_Not_Found() throws Exception {
-        when(targetElement.getName()).thenReturn("NOT MENU-01");
+        when(targetElement.getCachedName()).thenReturn("NOT MENU-01");
 
-        when(element.findAll(any(), any())).thenReturn(list);
+        when(element.findAll(any(), any(), any())).thenReturn(list);
 
         AutomationMainMenu menu =
                 new AutomationMainMenu(parent, element);
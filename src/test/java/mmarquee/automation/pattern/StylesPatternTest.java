@@ -1,12 +1,11 @@
 package mmarquee.automation.pattern;
 
-import com.sun.jna.Memory;
-import com.sun.jna.Native;
 import com.sun.jna.Pointer;
 import com.sun.jna.platform.win32.COM.Unknown;
 import com.sun.jna.platform.win32.Guid;
 import com.sun.jna.platform.win32.WinNT;
 import com.sun.jna.ptr.PointerByReference;
+import mmarquee.automation.BaseAutomationTest;
 import mmarquee.automation.AutomationException;
 import mmarquee.automation.uiautomation.IUIAutomationStylesPattern;
 import org.junit.Before;
@@ -74,8 +73,7 @@ public class StylesPatternTest {
                 PointerByReference reference = (PointerByReference)args[0];
 
                 String value = "Hello";
-                Pointer pointer = new Memory(Native.WCHAR_SIZE * (value.length() +1));
-                pointer.setWideString(0, value);
+                Pointer pointer = BaseAutomationTest.createBSTR(value);
 
                 reference.setValue(pointer);
 
@@ -142,8 +140,7 @@ public class StylesPatternTest {
                 PointerByReference reference = (PointerByReference)args[0];
 
                 String value = "Hello";
-                Pointer pointer = new Memory(Native.WCHAR_SIZE * (value.length() +1));
-                pointer.setWideString(0, value);
+                Pointer pointer = BaseAutomationTest.createBSTR(value);
 
                 reference.setValue(pointer);
 
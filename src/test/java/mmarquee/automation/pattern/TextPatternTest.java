@@ -15,14 +15,13 @@
  */
 package mmarquee.automation.pattern;
 
-import com.sun.jna.Memory;
-import com.sun.jna.Native;
 import com.sun.jna.Pointer;
 import com.sun.jna.platform.win32.COM.Unknown;
 import com.sun.jna.platform.win32.Guid;
 import com.sun.jna.platform.win32.WinNT;
 import com.sun.jna.ptr.IntByReference;
 import com.sun.jna.ptr.PointerByReference;
+import mmarquee.automation.BaseAutomationTest;
 import mmarquee.automation.AutomationException;
 import mmarquee.automation.uiautomation.IUIAutomationTextPattern;
 import mmarquee.automation.uiautomation.IUIAutomationTextRange;
@@ -214,8 +213,7 @@ public class TextPatternTest {
                 PointerByReference reference = (PointerByReference)args[1];
 
                 String value = "Hello";
-                Pointer pointer = new Memory(Native.WCHAR_SIZE * (value.length() +1));
-                pointer.setWideString(0, value);
+                Pointer pointer = BaseAutomationTest.createBSTR(value);
 
                 reference.setValue(pointer);
 
@@ -289,8 +287,7 @@ public class TextPatternTest {
                 PointerByReference reference = (PointerByReference)args[1];
 
                 String value = "Hello";
-                Pointer pointer = new Memory(Native.WCHAR_SIZE * (value.length() +1));
-                pointer.setWideString(0, value);
+                Pointer pointer = BaseAutomationTest.createBSTR(value);
 
                 reference.setValue(pointer);
 
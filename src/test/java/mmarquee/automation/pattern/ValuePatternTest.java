@@ -15,14 +15,13 @@
  */
 package mmarquee.automation.pattern;
 
-import com.sun.jna.Memory;
-import com.sun.jna.Native;
 import com.sun.jna.Pointer;
 import com.sun.jna.platform.win32.COM.Unknown;
 import com.sun.jna.platform.win32.Guid;
 import com.sun.jna.platform.win32.WinNT;
 import com.sun.jna.ptr.IntByReference;
 import com.sun.jna.ptr.PointerByReference;
+import mmarquee.automation.BaseAutomationTest;
 import mmarquee.automation.AutomationException;
 import mmarquee.automation.uiautomation.IUIAutomationValuePattern;
 import org.junit.Before;
@@ -68,8 +67,7 @@ public class ValuePatternTest {
                 PointerByReference reference = (PointerByReference)args[0];
 
                 String value = "Hello";
-                Pointer pointer = new Memory(Native.WCHAR_SIZE * (value.length() +1));
-                pointer.setWideString(0, value);
+                Pointer pointer = BaseAutomationTest.createBSTR(value);
 
                 reference.setValue(pointer);
 
@@ -227,8 +225,7 @@ public class ValuePatternTest {
                 PointerByReference reference = (PointerByReference)args[0];
 
                 String value = "Hello";
-                Pointer pointer = new Memory(Native.WCHAR_SIZE * (value.length() +1));
-                pointer.setWideString(0, value);
+                Pointer pointer = BaseAutomationTest.createBSTR(value);
 
                 reference.setValue(pointer);
 
@@ -248,4 +245,55 @@ public class ValuePatternTest {
 
         verify(mockPattern, atLeastOnce()).getValue(any());
     }
+
+    @Test
+    public void test_That_getPattern_Only_Asks_For_The_Interface_Once() throws Exception {
+        doAnswer(invocation -> new WinNT.HRESULT(0))
+                .when(mockUnknown).QueryInterface(any(Guid.REFIID.class), any(PointerByReference.class));
+
+        Value spyPattern = Mockito.spy(new Value());
+
+        IUIAutomationValuePattern mockPattern = Mockito.mock(IUIAutomationValuePattern.class);
+
+        doReturn(mockUnknown)
+                .when(spyPattern)
+                .makeUnknown(any());
+
+        doReturn(mockPattern)
+                .when(spyPattern)
+                .convertPointerToInterface(any());
+
+        spyPattern.isReadOnly();
+        spyPattern.isReadOnly();
+        spyPattern.isReadOnly();
+
+        verify(mockUnknown, times(1)).QueryInterface(any(Guid.REFIID.class), any(PointerByReference.class));
+        verify(spyPattern, times(1)).convertPointerToInterface(any());
+        verify(mockPattern, times(3)).getCurrentIsReadOnly(any());
+    }
+
+    @Test
+    public void test_That_setPattern_Forgets_The_Interface() throws Exception {
+        doAnswer(invocation -> new WinNT.HRESULT(0))
+                .when(mockUnknown).QueryInterface(any(Guid.REFIID.class), any(PointerByReference.class));
+
+        Value spyPattern = Mockito.spy(new Value());
+
+        IUIAutomationValuePattern mockPattern = Mockito.mock(IUIAutomationValuePattern.class);
+
+        doReturn(mockUnknown)
+                .when(spyPattern)
+                .makeUnknown(any());
+
+        doReturn(mockPattern)
+                .when(spyPattern)
+                .convertPointerToInterface(any());
+
+        spyPattern.isReadOnly();
+        spyPattern.setPattern(null);
+        spyPattern.isReadOnly();
+
+        verify(mockUnknown, times(2)).QueryInterface(any(Guid.REFIID.class), any(PointerByReference.class));
+        verify(spyPattern, times(2)).convertPointerToInterface(any());
+    }
 }
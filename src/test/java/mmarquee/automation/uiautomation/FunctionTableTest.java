@@ -0,0 +1,90 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation.uiautomation;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Tests for the FunctionTable, using fake vtables in native memory.
+ */
+public class FunctionTableTest {
+
+    private static final int METHODS = 4;
+
+    private final Memory functions = new Memory(METHODS);
+
+    private Memory createVTable() {
+        Memory vTable = new Memory(Native.POINTER_SIZE * METHODS);
+        for (int index = 0; index < METHODS; index++) {
+            vTable.setPointer((long) index * Native.POINTER_SIZE, functions.share(index));
+        }
+        return vTable;
+    }
+
+    private Memory createInterface(Pointer vTable) {
+        Memory pointer = new Memory(Native.POINTER_SIZE);
+        pointer.setPointer(0, vTable);
+        return pointer;
+    }
+
+    @Test
+    public void testForInterface_Shares_Table_For_Same_VTable() {
+        FunctionTable.Cache cache = new FunctionTable.Cache(METHODS);
+        Memory vTable = createVTable();
+
+        FunctionTable first = cache.forInterface(createInterface(vTable));
+        FunctionTable second = cache.forInterface(createInterface(vTable));
+
+        assertSame(first, second);
+    }
+
+    @Test
+    public void testForInterface_Separate_Tables_For_Different_VTables() {
+        FunctionTable.Cache cache = new FunctionTable.Cache(METHODS);
+        Memory vTable1 = createVTable();
+        Memory vTable2 = createVTable();
+
+        FunctionTable first = cache.forInterface(createInterface(vTable1));
+        FunctionTable second = cache.forInterface(createInterface(vTable2));
+
+        assertNotSame(first, second);
+
+        // And back to the first one, which is no longer the last one used
+        assertSame(first, cache.forInterface(createInterface(vTable1)));
+    }
+
+    @Test
+    public void testGet_Returns_Function_At_VTable_Entry() {
+        FunctionTable.Cache cache = new FunctionTable.Cache(METHODS);
+
+        FunctionTable table = cache.forInterface(createInterface(createVTable()));
+
+        assertEquals(METHODS, table.size());
+        for (int index = 0; index < METHODS; index++) {
+            assertEquals(Pointer.nativeValue(functions.share(index)), Pointer.nativeValue(table.get(index)));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation.utils;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.platform.win32.OleAuto;
+import com.sun.jna.platform.win32.WTypes;
+import com.sun.jna.ptr.PointerByReference;
+import mmarquee.automation.BaseAutomationTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ */
+public class BSTRUtilsTest {
+
+    private OleAuto oleAuto;
+
+    @Before
+    public void setUp() {
+        oleAuto = Mockito.mock(OleAuto.class);
+        BSTRUtils.oleAuto = oleAuto;
+    }
+
+    @After
+    public void tearDown() {
+        BSTRUtils.oleAuto = null;
+    }
+
+    @Test
+    public void testReadAndFree_Reads_Value() {
+        Pointer bstr = BaseAutomationTest.createBSTR("Hello");
+
+        assertEquals("Hello", BSTRUtils.readAndFree(bstr));
+    }
+
+    @Test
+    public void testReadAndFree_Uses_Length_Prefix() {
+        Pointer bstr = BaseAutomationTest.createBSTR("AB\u0000CD");
+
+        assertEquals("AB\u0000CD", BSTRUtils.readAndFree(bstr));
+    }
+
+    @Test
+    public void testReadAndFree_Frees_String() {
+        Pointer bstr = BaseAutomationTest.createBSTR("Hello");
+
+        BSTRUtils.readAndFree(bstr);
+
+        ArgumentCaptor<WTypes.BSTR> captor = ArgumentCaptor.forClass(WTypes.BSTR.class);
+        verify(oleAuto).SysFreeString(captor.capture());
+
+        assertEquals(bstr, captor.getValue().getPointer());
+    }
+
+    @Test
+    public void testReadAndFree_Null_Returns_Empty_String() {
+        assertEquals("", BSTRUtils.readAndFree((Pointer) null));
+
+        verify(oleAuto, never()).SysFreeString(Mockito.any(WTypes.BSTR.class));
+    }
+
+    @Test
+    public void testReadAndFree_From_Reference() {
+        PointerByReference sr = new PointerByReference(BaseAutomationTest.createBSTR("Value"));
+
+        assertEquals("Value", BSTRUtils.readAndFree(sr));
+    }
+}
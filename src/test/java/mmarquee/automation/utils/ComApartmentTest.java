@@ -0,0 +1,160 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ *
+ * Tests for running calls on a COM apartment thread.
+ */
+public class ComApartmentTest {
+
+    private ComApartment apartment;
+
+    @Before
+    public void setUp() {
+        apartment = ComApartment.multiThreaded("test-apartment");
+    }
+
+    @After
+    public void tearDown() {
+        apartment.close();
+    }
+
+    @Test
+    public void testExecute_Runs_On_The_Apartment_Thread() throws Exception {
+        String name = apartment.execute(() -> Thread.currentThread().getName());
+
+        assertEquals("test-apartment", name);
+        assertFalse(apartment.isApartmentThread());
+        assertEquals(1, apartment.getTripCount());
+    }
+
+    @Test
+    public void testExecute_From_The_Apartment_Thread_Runs_Straight_Away() throws Exception {
+        Integer result = apartment.execute(() -> {
+            assertTrue(apartment.isApartmentThread());
+            return apartment.execute(() -> 42);
+        });
+
+        assertEquals(Integer.valueOf(42), result);
+        assertEquals(1, apartment.getTripCount());
+    }
+
+    @Test
+    public void testSubmitAll_Makes_One_Trip() throws Exception {
+        List<ComApartment.Call<?>> calls = new ArrayList<>();
+        for (int index = 0; index < 10; index++) {
+            final int value = index;
+            calls.add(() -> value * 2);
+        }
+
+        List<Object> results = apartment.submitAll(calls);
+
+        assertEquals(Arrays.<Object>asList(0, 2, 4, 6, 8, 10, 12, 14, 16, 18), results);
+        assertEquals(1, apartment.getTripCount());
+    }
+
+    @Test
+    public void testSubmitAll_Stops_At_The_First_Failure() throws Exception {
+        AtomicInteger made = new AtomicInteger();
+
+        List<ComApartment.Call<?>> calls = new ArrayList<>();
+        calls.add(made::incrementAndGet);
+        calls.add(() -> {
+            throw new IOException("failed");
+        });
+        calls.add(made::incrementAndGet);
+
+        try {
+            apartment.submitAll(calls);
+            fail("Expected an ExecutionException");
+        } catch (ExecutionException ex) {
+            assertEquals("failed", ex.getCause().getMessage());
+        }
+
+        assertEquals(1, made.get());
+    }
+
+    @Test
+    public void testExecute_Rethrows_Runtime_Exceptions() throws Exception {
+        IllegalArgumentException thrown = new IllegalArgumentException("bad");
+
+        try {
+            apartment.execute(() -> {
+                throw thrown;
+            });
+            fail("Expected an IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            assertSame(thrown, ex);
+        }
+    }
+
+    @Test
+    public void testExecute_From_Many_Threads() throws Exception {
+        final int[] counter = new int[1];
+        final int perThread = 2000;
+
+        List<Thread> threads = new ArrayList<>();
+        for (int index = 0; index < 8; index++) {
+            threads.add(new Thread(() -> {
+                for (int call = 0; call < perThread; call++) {
+                    try {
+                        // Only the apartment thread touches the counter
+                        apartment.execute(() -> ++counter[0]);
+                    } catch (ExecutionException ex) {
+                        throw new IllegalStateException(ex);
+                    }
+                }
+            }));
+        }
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(Integer.valueOf(8 * perThread), apartment.execute(() -> counter[0]));
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void testExecute_After_Close_Is_Rejected() throws Exception {
+        apartment.close();
+
+        apartment.execute(() -> 1);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2016-17 inpwtepydjuf@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mmarquee.automation.utils;
+
+import org.junit.Test;
+
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Mark Humphreys
+ * Date 18/10/2017.
+ */
+public class PatternLiteralsTest {
+
+    private static PatternLiterals analyse(String regex) {
+        return PatternLiterals.analyse(Pattern.compile(regex));
+    }
+
+    @Test
+    public void testPlain_Text_Is_Exact() {
+        PatternLiterals literals = analyse("myName");
+
+        assertTrue(literals.isExact());
+        assertEquals("myName", literals.getText());
+    }
+
+    @Test
+    public void testEscapes_And_Anchors_Are_Exact() {
+        PatternLiterals literals = analyse("^File\\.\\Q(x)\\E$");
+
+        assertTrue(literals.isExact());
+        assertEquals("File.(x)", literals.getText());
+    }
+
+    @Test
+    public void testLiteral_Flag_Is_Exact() {
+        PatternLiterals literals = PatternLiterals.analyse(Pattern.compile("a.*b", Pattern.LITERAL));
+
+        assertTrue(literals.isExact());
+        assertEquals("a.*b", literals.getText());
+    }
+
+    @Test
+    public void testWildcard_Gives_Longest_Substring() {
+        PatternLiterals literals = analyse("ab.*Hello.+c");
+
+        assertFalse(literals.isExact());
+        assertEquals("Hello", literals.getText());
+    }
+
+    @Test
+    public void testOptional_Character_Is_Dropped() {
+        assertEquals("Colo", analyse("Colou?r").getText());
+        assertEquals("Save", analyse("Saved*").getText());
+        assertEquals("Sav", analyse("Sav(e|ing)").getText());
+    }
+
+    @Test
+    public void testRepeated_Character_Ends_Substring() {
+        assertEquals("Hel", analyse("Hel+o").getText());
+        assertEquals("Menu", analyse("Menu{2,}s").getText());
+    }
+
+    @Test
+    public void testClasses_And_Groups_Are_Not_Literal() {
+        assertEquals("MENU-", analyse("[A-Z]MENU-\\d+").getText());
+        assertEquals("Item", analyse("(?:ab)+Item[]x]").getText());
+        assertEquals("Name", analyse("\\p{Lu}\\u0041Name").getText());
+    }
+
+    @Test
+    public void testAlternation_Gives_Nothing() {
+        assertNull(analyse("OK|Cancel").getText());
+    }
+
+    @Test
+    public void testInline_Flags_Give_Nothing() {
+        assertNull(analyse("(?i)ok").getText());
+    }
+
+    @Test
+    public void testNo_Literals_Gives_Nothing() {
+        assertNull(analyse(".*").getText());
+        assertNull(analyse("\\d+").getText());
+        assertEquals("-", analyse("\\S+-\\d+").getText());
+    }
+
+    @Test
+    public void testIgnore_Case_Is_Reported() {
+        assertTrue(PatternLiterals.analyse(Pattern.compile("ok", Pattern.CASE_INSENSITIVE)).isIgnoreCase());
+        assertFalse(analyse("ok").isIgnoreCase());
+    }
+}